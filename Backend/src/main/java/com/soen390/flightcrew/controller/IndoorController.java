@@ -1,65 +1,135 @@
 package com.soen390.flightcrew.controller;
 
 import com.soen390.flightcrew.model.IndoorAssetFileDTO;
-import com.soen390.flightcrew.model.IndoorEdge;
+import com.soen390.flightcrew.model.IndoorBatchRouteResult;
+import com.soen390.flightcrew.model.IndoorConnectivityReport;
+import com.soen390.flightcrew.model.IndoorFacilityMatch;
 import com.soen390.flightcrew.model.IndoorNode;
 import com.soen390.flightcrew.model.IndoorPointOfInterest;
+import com.soen390.flightcrew.model.IndoorRoute;
+import com.soen390.flightcrew.model.IndoorRouteQuery;
 import com.soen390.flightcrew.model.IndoorStep;
+import com.soen390.flightcrew.model.IndoorSuggestion;
+import com.soen390.flightcrew.model.IndoorTileset;
+import com.soen390.flightcrew.service.IndoorAssetVariantService;
+import com.soen390.flightcrew.service.IndoorBatchRoutingService;
+import com.soen390.flightcrew.service.IndoorFacilityService;
 import com.soen390.flightcrew.service.IndoorNavigationDataService;
 import com.soen390.flightcrew.service.IndoorPathfindingService;
 import com.soen390.flightcrew.service.IndoorPoiService;
+import com.soen390.flightcrew.service.IndoorRouteCache;
 import com.soen390.flightcrew.service.IndoorStepGeneratorService;
+import com.soen390.flightcrew.service.IndoorRouteOverlayService;
+import com.soen390.flightcrew.service.IndoorTileService;
+import com.soen390.flightcrew.service.IndoorTypeaheadService;
+import com.soen390.flightcrew.service.indoor.IndoorAsset;
+import com.soen390.flightcrew.service.indoor.IndoorAssetRegistry;
+import com.soen390.flightcrew.service.indoor.IndoorGraph;
 
-import org.springframework.core.io.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/indoor")
 public class IndoorController {
 
+    // Indoor data can be reloaded at any time, so caches must revalidate; a
+    // matching ETag makes that a body-less 304.
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
+    // Request attributes through which Tomcat sends a file itself once the handler returns.
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final IndoorNavigationDataService indoorNavigationDataService;
     private final IndoorPathfindingService pathfindingService;
     private final IndoorStepGeneratorService stepGeneratorService;
     private final IndoorPoiService indoorPoiService;
+    private final IndoorRouteCache routeCache;
+    private final IndoorBatchRoutingService batchRoutingService;
+    private final IndoorFacilityService facilityService;
+    private final IndoorTypeaheadService typeaheadService;
+    private final IndoorAssetVariantService variantService;
+    private final IndoorTileService tileService;
+    private final IndoorRouteOverlayService overlayService;
 
     public IndoorController(IndoorNavigationDataService indoorNavigationDataService,
             IndoorPathfindingService pathfindingService,
             IndoorStepGeneratorService stepGeneratorService,
-            IndoorPoiService indoorPoiService) {
+            IndoorPoiService indoorPoiService,
+            IndoorRouteCache routeCache,
+            IndoorBatchRoutingService batchRoutingService,
+            IndoorFacilityService facilityService,
+            IndoorTypeaheadService typeaheadService,
+            IndoorAssetVariantService variantService,
+            IndoorTileService tileService,
+            IndoorRouteOverlayService overlayService) {
         this.indoorNavigationDataService = indoorNavigationDataService;
         this.pathfindingService = pathfindingService;
         this.stepGeneratorService = stepGeneratorService;
         this.indoorPoiService = indoorPoiService;
+        this.routeCache = routeCache;
+        this.batchRoutingService = batchRoutingService;
+        this.facilityService = facilityService;
+        this.typeaheadService = typeaheadService;
+        this.variantService = variantService;
+        this.tileService = tileService;
+        this.overlayService = overlayService;
     }
 
     @GetMapping("/buildings")
-    public ResponseEntity<List<String>> getAvailableBuildings() {
-        return ResponseEntity.ok(indoorNavigationDataService.getAvailableBuildings());
+    public ResponseEntity<List<String>> getAvailableBuildings(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditional(ifNoneMatch, indoorNavigationDataService.getBuildingsETag(),
+                indoorNavigationDataService::getAvailableBuildings);
     }
 
     @GetMapping("/pois")
     public ResponseEntity<List<IndoorPointOfInterest>> getIndoorPois(
-            @RequestParam(required = false) String buildingCode) {
+            @RequestParam(required = false) String buildingCode,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         if (buildingCode == null || buildingCode.isEmpty()) {
-            return ResponseEntity.ok(indoorPoiService.getAllIndoorPois().values().stream()
-                    .flatMap(List::stream)
-                    .toList());
+            return conditional(ifNoneMatch, indoorPoiService.getETag(buildingCode),
+                    () -> indoorPoiService.getAllIndoorPois().values().stream()
+                            .flatMap(List::stream)
+                            .toList());
         }
-        return ResponseEntity.ok(indoorPoiService.getIndoorPoisForBuilding(buildingCode));
+        return conditional(ifNoneMatch, indoorPoiService.getETag(buildingCode),
+                () -> indoorPoiService.getIndoorPoisForBuilding(buildingCode));
     }
 
     @GetMapping("/buildings/{buildingId}/floors")
-    public ResponseEntity<List<Integer>> getFloorsByBuilding(@PathVariable String buildingId) {
-        return ResponseEntity.ok(indoorNavigationDataService.getFloorsByBuilding(buildingId));
+    public ResponseEntity<List<Integer>> getFloorsByBuilding(@PathVariable String buildingId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditional(ifNoneMatch, indoorNavigationDataService.getFloorsETag(buildingId),
+                () -> indoorNavigationDataService.getFloorsByBuilding(buildingId));
     }
 
     @GetMapping("/rooms")
@@ -70,10 +140,22 @@ public class IndoorController {
         return ResponseEntity.ok(indoorNavigationDataService.getRooms(query, buildingId, floor));
     }
 
+    @GetMapping("/typeahead")
+    public ResponseEntity<List<IndoorSuggestion>> getSuggestions(
+            @RequestParam String q,
+            @RequestParam(required = false) String buildingId,
+            @RequestParam(required = false) Integer floor,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(typeaheadService.suggest(q, buildingId, floor, limit));
+    }
+
     @GetMapping("/nodes")
     public ResponseEntity<List<IndoorNode>> getNodes(
-            @RequestParam(required = false) String buildingId) {
-        return ResponseEntity.ok(indoorNavigationDataService.getAllNodes(buildingId));
+            @RequestParam(required = false) String buildingId,
+            @RequestParam(required = false) Integer floor,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return conditional(ifNoneMatch, indoorNavigationDataService.getNodesETag(buildingId, floor),
+                () -> indoorNavigationDataService.getAllNodes(buildingId, floor));
     }
 
     @GetMapping("/assets/svg")
@@ -82,20 +164,40 @@ public class IndoorController {
     }
 
     @GetMapping(value = "/assets/svg/{fileName:.+}", produces = "image/svg+xml")
-    public ResponseEntity<Resource> getSvgFile(@PathVariable String fileName) {
-        Resource resource = indoorNavigationDataService.loadSvgFile(fileName);
-        return ResponseEntity.ok()
-                .contentType(MediaType.valueOf("image/svg+xml"))
-                .body(resource);
+    public ResponseEntity<StreamingResponseBody> getSvgFile(@PathVariable String fileName,
+            @RequestParam(defaultValue = "false") boolean raw,
+            @RequestHeader HttpHeaders headers) {
+        IndoorAsset asset = indoorNavigationDataService.getAsset(fileName);
+        return serveAsset(raw ? rawOf(asset) : asset, MediaType.valueOf("image/svg+xml"), headers);
     }
 
     @GetMapping(value = "/assets/{fileName:.+}")
-    public ResponseEntity<Resource> getAssetFile(@PathVariable String fileName) {
-        Resource resource = indoorNavigationDataService.loadAssetFile(fileName);
-        String contentType = indoorNavigationDataService.detectAssetContentType(fileName);
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(contentType))
-                .body(resource);
+    public ResponseEntity<StreamingResponseBody> getAssetFile(@PathVariable String fileName,
+            @RequestParam(defaultValue = "false") boolean raw,
+            @RequestParam(required = false) Integer width,
+            @RequestParam(required = false) String format,
+            @RequestHeader HttpHeaders headers) {
+        IndoorAsset asset = indoorNavigationDataService.getAsset(fileName);
+        if (raw) {
+            asset = rawOf(asset);
+        } else if (width != null || format != null) {
+            asset = variantService.getVariant(asset, width, format);
+        }
+        return serveAsset(asset, MediaType.parseMediaType(asset.contentType()), headers);
+    }
+
+    @GetMapping("/assets/{fileName:.+}/tiles")
+    public ResponseEntity<IndoorTileset> getTileset(@PathVariable String fileName,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        IndoorTileset tileset = tileService.getTileset(fileName);
+        return conditional(ifNoneMatch, "\"" + tileset.getVersion() + "\"", () -> tileset);
+    }
+
+    @GetMapping(value = "/assets/{fileName:.+}/tiles/{z}/{x}/{y}.png", produces = "image/png")
+    public ResponseEntity<StreamingResponseBody> getTile(@PathVariable String fileName,
+            @PathVariable int z, @PathVariable int x, @PathVariable int y,
+            @RequestHeader HttpHeaders headers) {
+        return serveAsset(tileService.getTile(fileName, z, x, y), MediaType.IMAGE_PNG, headers);
     }
 
     @GetMapping("/directions")
@@ -106,39 +208,286 @@ public class IndoorController {
             @RequestParam(defaultValue = "false") boolean requireAccessible) {
 
         try {
-            List<String> pathIds = pathfindingService.findShortestPath(buildingId, startNodeId, endNodeId,
-                    requireAccessible);
+            IndoorRoute route = resolveRoute(buildingId, startNodeId, endNodeId, requireAccessible);
 
-            if (pathIds == null || pathIds.isEmpty()) {
+            if (route == null) {
                 return ResponseEntity.status(404)
                         .body(Map.of("error", "No route found between the specified locations."));
             }
 
-            java.util.Map<String, IndoorNode> nodeMap = new java.util.HashMap<>();
-            indoorNavigationDataService.getAllNodes(buildingId)
-                    .forEach(node -> nodeMap.putIfAbsent(node.getId(), node));
-
-            List<IndoorNode> fullPathNodes = pathIds.stream()
-                    .map(nodeMap::get)
-                    .filter(java.util.Objects::nonNull)
-                    .toList();
-
-            List<IndoorEdge> edges = indoorNavigationDataService.getEdgesByBuilding(buildingId);
-            List<IndoorStep> steps = stepGeneratorService.generateSteps(fullPathNodes, edges);
-            double totalDistance = steps.stream().mapToDouble(IndoorStep::getDistanceMeters).sum();
-            int totalDuration = steps.stream().mapToInt(IndoorStep::getDurationSeconds).sum();
-
             return ResponseEntity.ok(Map.of(
-                    "path", fullPathNodes,
-                    "steps", steps,
-                    "distanceMeters", Math.round(totalDistance * 100.0) / 100.0,
-                    "durationSeconds", totalDuration,
+                    "path", route.getPath(),
+                    "steps", route.getSteps(),
+                    "distanceMeters", route.getDistanceMeters(),
+                    "durationSeconds", route.getDurationSeconds(),
                     "metadata", Map.of(
                             "startNodeId", startNodeId,
                             "endNodeId", endNodeId,
                             "accessible", requireAccessible)));
+        } catch (ResponseStatusException e) {
+            // Keeps its status, e.g. 404 for an unknown building or 503 while loading.
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Error finding path: " + e.getMessage()));
         }
     }
+
+    @GetMapping(value = "/directions/overlay", produces = "image/svg+xml")
+    public ResponseEntity<StreamingResponseBody> getIndoorDirectionsOverlay(
+            @RequestParam String buildingId,
+            @RequestParam String startNodeId,
+            @RequestParam String endNodeId,
+            @RequestParam(defaultValue = "false") boolean requireAccessible,
+            @RequestParam int floor,
+            @RequestParam(defaultValue = "false") boolean composite,
+            @RequestHeader HttpHeaders headers) {
+        IndoorRoute route = resolveRoute(buildingId, startNodeId, endNodeId, requireAccessible);
+        if (route == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "No route found between the specified locations.");
+        }
+        return serveAsset(overlayService.getOverlay(buildingId, floor, route, composite),
+                MediaType.valueOf("image/svg+xml"), headers);
+    }
+
+    @PostMapping("/directions/batch")
+    public ResponseEntity<Map<String, Object>> getIndoorDirectionsBatch(@RequestBody List<IndoorRouteQuery> queries) {
+        long started = System.nanoTime();
+        List<IndoorBatchRouteResult> results = batchRoutingService.route(queries,
+                query -> resolveRoute(query.getBuildingId(), query.getStartNodeId(), query.getEndNodeId(),
+                        Boolean.TRUE.equals(query.getRequireAccessible())));
+
+        long succeeded = results.stream()
+                .filter(result -> result.getStatus() == IndoorBatchRouteResult.Status.OK)
+                .count();
+
+        return ResponseEntity.ok(Map.of(
+                "results", results,
+                "succeeded", succeeded,
+                "failed", results.size() - succeeded,
+                "elapsedMillis", (System.nanoTime() - started) / 1_000_000.0));
+    }
+
+    @GetMapping("/facilities/nearest")
+    public ResponseEntity<List<IndoorFacilityMatch>> getNearestFacilities(
+            @RequestParam String buildingId,
+            @RequestParam String startNodeId,
+            @RequestParam String facility,
+            @RequestParam(defaultValue = "1") int limit,
+            @RequestParam(defaultValue = "false") boolean requireAccessible) {
+        return ResponseEntity.ok(facilityService.findNearest(buildingId, startNodeId, facility, limit,
+                requireAccessible));
+    }
+
+    @GetMapping("/diagnostics/isolated-nodes")
+    public ResponseEntity<List<IndoorConnectivityReport>> getIsolatedNodes(
+            @RequestParam(required = false) String buildingId,
+            @RequestParam(defaultValue = "false") boolean requireAccessible) {
+        return ResponseEntity.ok(indoorNavigationDataService.getConnectivityReports(buildingId, requireAccessible));
+    }
+
+    @GetMapping("/directions/cache")
+    public ResponseEntity<Map<String, Object>> getDirectionsCacheStats() {
+        return ResponseEntity.ok(routeCache.getStats());
+    }
+
+    private IndoorRoute resolveRoute(String buildingId, String startNodeId, String endNodeId,
+            boolean requireAccessible) {
+        IndoorRouteCache.Key key = IndoorRouteCache.Key.of(buildingId, startNodeId, endNodeId,
+                requireAccessible, indoorNavigationDataService.getSnapshotVersion());
+        return routeCache.getOrCompute(key,
+                () -> computeRoute(buildingId, startNodeId, endNodeId, requireAccessible));
+    }
+
+    private IndoorRoute computeRoute(String buildingId, String startNodeId, String endNodeId,
+            boolean requireAccessible) {
+        List<String> pathIds = pathfindingService.findShortestPath(buildingId, startNodeId, endNodeId,
+                requireAccessible);
+
+        if (pathIds == null || pathIds.isEmpty()) {
+            return null;
+        }
+
+        IndoorGraph graph = indoorNavigationDataService.getGraph(buildingId, requireAccessible);
+        List<IndoorNode> fullPathNodes = pathIds.stream()
+                .map(graph::indexOf)
+                .filter(index -> index >= 0)
+                .map(graph::node)
+                .filter(java.util.Objects::nonNull)
+                .toList();
+
+        List<IndoorStep> steps = stepGeneratorService.generateSteps(fullPathNodes, graph);
+        double totalDistance = steps.stream().mapToDouble(IndoorStep::getDistanceMeters).sum();
+        int totalDuration = steps.stream().mapToInt(IndoorStep::getDurationSeconds).sum();
+
+        return new IndoorRoute(fullPathNodes, List.copyOf(steps), Math.round(totalDistance * 100.0) / 100.0,
+                totalDuration);
+    }
+
+    /**
+     * Answers 304 without loading the body when {@code If-None-Match} already
+     * names {@code etag}; otherwise loads it. Both carry the tag and the
+     * revalidation policy. A {@code null} tag serves the body untagged.
+     */
+    private static <T> ResponseEntity<T> conditional(String ifNoneMatch, String etag, Supplier<T> body) {
+        if (etag == null) {
+            return ResponseEntity.ok(body.get());
+        }
+        if (matchesAny(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(body.get());
+    }
+
+    /**
+     * The asset as stored, before optimization, for debugging a floor plan.
+     */
+    private static IndoorAsset rawOf(IndoorAsset asset) {
+        return asset.raw() != null ? asset.raw() : asset;
+    }
+
+    /**
+     * Sends an asset from its registry record: a precompressed copy when
+     * {@code Accept-Encoding} allows one, a single {@code Range} of the plain
+     * bytes (honoring {@code If-Range}), or 304 for a matching
+     * {@code If-None-Match}. Where the container supports it, a file that
+     * stays put is handed to its sendfile support, so the kernel copies it
+     * to the socket without it passing through the JVM. Otherwise the bytes
+     * are copied with {@link IndoorAssetRegistry#transfer} once the headers
+     * are written, from the channel a representation was handed out with
+     * when it has one; every other channel of the asset is closed here.
+     */
+    private static ResponseEntity<StreamingResponseBody> serveAsset(IndoorAsset asset, MediaType contentType,
+            HttpHeaders request) {
+        String range = request.getFirst(HttpHeaders.RANGE);
+        // Ranges address the plain bytes, so a range request is never compressed.
+        IndoorAsset.Representation representation = range != null
+                ? asset.identity()
+                : asset.negotiate(request.getFirst(HttpHeaders.ACCEPT_ENCODING));
+        String etag = asset.etagOf(representation);
+        closeUnsent(asset, representation);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.setCacheControl(REVALIDATE);
+        headers.setLastModified(asset.lastModified());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (!asset.encodings().isEmpty()) {
+            headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        }
+        if (matchesAny(request.getFirst(HttpHeaders.IF_NONE_MATCH), etag)) {
+            closeUnsent(asset, null);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+
+        headers.setContentType(contentType);
+        if (representation.coding() != null) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, representation.coding());
+        }
+        long length = representation.length();
+        String ifRange = request.getFirst(HttpHeaders.IF_RANGE);
+        IndoorAsset.ByteRange byteRange = ifRange == null || ifRange.trim().equals(etag)
+                ? IndoorAsset.ByteRange.parse(range, length)
+                : null;
+        if (byteRange == IndoorAsset.ByteRange.UNSATISFIABLE) {
+            closeUnsent(asset, null);
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+        }
+
+        if (byteRange == null) {
+            headers.setContentLength(length);
+            return ResponseEntity.ok().headers(headers).body(copy(representation, 0, length));
+        }
+        headers.setContentLength(byteRange.length());
+        headers.set(HttpHeaders.CONTENT_RANGE,
+                "bytes " + byteRange.start() + "-" + byteRange.end() + "/" + length);
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(headers)
+                .body(copy(representation, byteRange.start(), byteRange.length()));
+    }
+
+    /**
+     * The body sending {@code count} bytes of a representation from
+     * {@code start}, or {@code null} when the container will send them.
+     */
+    private static StreamingResponseBody copy(IndoorAsset.Representation representation, long start, long count) {
+        if (sendfile(representation, start, count)) {
+            return null;
+        }
+        FileChannel channel = representation.channel();
+        if (channel == null) {
+            Path path = representation.path();
+            return out -> IndoorAssetRegistry.transfer(path, start, count, out);
+        }
+        return out -> {
+            try (channel) {
+                IndoorAssetRegistry.transfer(channel, start, count, out);
+            }
+        };
+    }
+
+    /**
+     * Asks Tomcat to send the bytes with sendfile when it offers that for the
+     * current request. Representations handed out with an open channel are
+     * never sent this way: the container opens the file by name after the
+     * handler returns, by which time a cache entry may be gone. HEAD requests
+     * are left alone, as the connector would send the file regardless.
+     */
+    private static boolean sendfile(IndoorAsset.Representation representation, long start, long count) {
+        if (representation.channel() != null
+                || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return false;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        if (!Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))
+                || HttpMethod.HEAD.matches(request.getMethod())) {
+            return false;
+        }
+        request.setAttribute(SENDFILE_FILENAME, representation.path().toAbsolutePath().toString());
+        request.setAttribute(SENDFILE_START, start);
+        request.setAttribute(SENDFILE_END, start + count);
+        return true;
+    }
+
+    /**
+     * Closes the open channels of the asset's representations other than
+     * {@code sent}, or of all of them when nothing is sent.
+     */
+    private static void closeUnsent(IndoorAsset asset, IndoorAsset.Representation sent) {
+        List<IndoorAsset.Representation> representations = new ArrayList<>(asset.encodings().values());
+        representations.add(asset.identity());
+        for (IndoorAsset.Representation representation : representations) {
+            if (representation != sent && representation.channel() != null) {
+                try {
+                    representation.channel().close();
+                } catch (IOException ex) {
+                    // A read-only channel has nothing left to lose.
+                }
+            }
+        }
+    }
+
+    /**
+     * Weak comparison, as If-None-Match requires: {@code W/} prefixes are
+     * ignored and {@code *} matches any current representation.
+     */
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
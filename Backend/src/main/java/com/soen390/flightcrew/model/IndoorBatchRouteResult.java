@@ -0,0 +1,29 @@
+package com.soen390.flightcrew.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Outcome of one query in a batch routing request. {@code route} is only set
+ * when {@code status} is {@link Status#OK}; otherwise {@code error} explains
+ * why this query failed without affecting the rest of the batch.
+ */
+@Data
+@AllArgsConstructor
+public class IndoorBatchRouteResult {
+
+    public enum Status {
+        OK,
+        NOT_FOUND,
+        INVALID,
+        TIMEOUT,
+        ERROR
+    }
+
+    private int index;
+    private IndoorRouteQuery query;
+    private Status status;
+    private IndoorRoute route;
+    private String error;
+    private double elapsedMillis;
+}
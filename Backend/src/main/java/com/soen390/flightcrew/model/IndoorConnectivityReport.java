@@ -0,0 +1,24 @@
+package com.soen390.flightcrew.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Connectivity diagnostics for one building's routing graph in one
+ * accessibility mode. {@code isolatedNodeIds} have no usable edge at all;
+ * {@code detachedNodeIds} have edges but cannot reach the building's largest
+ * connected component.
+ */
+@Data
+@AllArgsConstructor
+public class IndoorConnectivityReport {
+    private String buildingId;
+    private boolean requireAccessible;
+    private int nodeCount;
+    private int componentCount;
+    private int largestComponentSize;
+    private List<String> isolatedNodeIds;
+    private List<String> detachedNodeIds;
+}
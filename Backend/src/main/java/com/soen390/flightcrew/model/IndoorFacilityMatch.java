@@ -0,0 +1,20 @@
+package com.soen390.flightcrew.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One facility found by a nearest-facility query. {@code poi} is set when the
+ * facility came from the POI catalogue and was snapped onto {@code nodeId};
+ * it is {@code null} when the target is a graph node matched by type.
+ */
+@Data
+@AllArgsConstructor
+public class IndoorFacilityMatch {
+    private String nodeId;
+    private IndoorPointOfInterest poi;
+    private int pathCost;
+    private List<IndoorNode> path;
+}
@@ -0,0 +1,19 @@
+package com.soen390.flightcrew.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * A fully resolved indoor route: the nodes along the path, the generated
+ * turn-by-turn steps and their totals.
+ */
+@Data
+@AllArgsConstructor
+public class IndoorRoute {
+    private List<IndoorNode> path;
+    private List<IndoorStep> steps;
+    private double distanceMeters;
+    private int durationSeconds;
+}
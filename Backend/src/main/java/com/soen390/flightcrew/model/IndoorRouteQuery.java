@@ -0,0 +1,15 @@
+package com.soen390.flightcrew.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndoorRouteQuery {
+    private String buildingId;
+    private String startNodeId;
+    private String endNodeId;
+    private Boolean requireAccessible;
+}
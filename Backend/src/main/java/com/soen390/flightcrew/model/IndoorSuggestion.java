@@ -0,0 +1,22 @@
+package com.soen390.flightcrew.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One typeahead suggestion. {@code type} is {@code room} for a room node of the
+ * routing graph, whose {@code id} is the node id and {@code buildingId} the
+ * indoor building it routes in, or {@code poi} for an entry of the POI
+ * catalogue, whose {@code buildingId} is the catalogue's building code and
+ * {@code category} its POI category.
+ */
+@Data
+@AllArgsConstructor
+public class IndoorSuggestion {
+    private String type;
+    private String id;
+    private String label;
+    private String buildingId;
+    private Integer floor;
+    private String category;
+}
@@ -0,0 +1,18 @@
+package com.soen390.flightcrew.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class IndoorTileset {
+    private String fileName;
+    private String version;
+    private boolean stale;
+    private int tileSize;
+    private int minZoom;
+    private int maxZoom;
+    private int width;
+    private int height;
+    private String tileUrl;
+}
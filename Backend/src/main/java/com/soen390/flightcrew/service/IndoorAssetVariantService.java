@@ -0,0 +1,279 @@
+package com.soen390.flightcrew.service;
+
+import com.soen390.flightcrew.service.indoor.IndoorAsset;
+import com.soen390.flightcrew.service.indoor.IndoorContentTags;
+import com.soen390.flightcrew.service.indoor.IndoorDiskCache;
+import com.soen390.flightcrew.service.indoor.IndoorRasterResizer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Smaller and transcoded copies of raster floor plans for small screens.
+ * Requested widths snap up to a fixed ladder so a handful of variants serve
+ * every device, and each variant is rendered once: concurrent requests for
+ * the same one share a single render on a bounded worker pool, and the result
+ * is kept in a size-capped {@link IndoorDiskCache}, so repeat requests cost a
+ * file read. Variants are keyed by the source's entity tag and die with it.
+ */
+@Service
+public class IndoorAssetVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndoorAssetVariantService.class);
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            IndoorRasterResizer.PNG, "image/png",
+            IndoorRasterResizer.JPEG, "image/jpeg");
+
+    private final int[] widths;
+    private final long timeoutMillis;
+    private final Path cacheDir;
+    private final long maxCacheBytes;
+    private final ThreadPoolExecutor renderer;
+    // Renders in progress by cache key, so one render serves every waiting request.
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    // Source widths by entity tag, read from the image header once.
+    private final Map<String, Integer> sourceWidths = new ConcurrentHashMap<>();
+    private final AtomicLong renders = new AtomicLong();
+
+    private volatile IndoorDiskCache cache;
+
+    public IndoorAssetVariantService(
+            @Value("${app.indoor.assets.variants.widths:320,480,640,960,1280}") int[] widths,
+            @Value("${app.indoor.assets.variants.parallelism:2}") int parallelism,
+            @Value("${app.indoor.assets.variants.queue-size:32}") int queueSize,
+            @Value("${app.indoor.assets.variants.timeout-ms:10000}") long timeoutMillis,
+            @Value("${app.indoor.assets.variants.max-bytes:67108864}") long maxCacheBytes,
+            @Value("${app.indoor.compiled-dir:}") String compiledDir) {
+        if (widths.length == 0 || Arrays.stream(widths).anyMatch(width -> width < 1)) {
+            throw new IllegalArgumentException("Variant widths must be positive");
+        }
+        this.widths = Arrays.stream(widths).sorted().distinct().toArray();
+        this.timeoutMillis = timeoutMillis;
+        this.cacheDir = compiledDir == null || compiledDir.isBlank() ? null : Paths.get(compiledDir, "variants");
+        this.maxCacheBytes = maxCacheBytes;
+        int threads = Math.max(1, parallelism);
+        this.renderer = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), rendererThreadFactory());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renderer.shutdownNow();
+        IndoorDiskCache current = cache;
+        if (cacheDir == null && current != null) {
+            // A temporary cache would only be orphaned by the next run.
+            try {
+                current.delete();
+            } catch (IOException ex) {
+                logger.warn("Failed to delete the temporary variant cache: {}", ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the variant of a raster {@code source} at the smallest
+     * configured width of at least {@code width}, encoded as {@code format},
+     * rendering it on first use. The source itself comes back when it is not
+     * a raster image or already fits in the same format.
+     *
+     * @param width  wanted width in pixels; {@code null} keeps the source width
+     * @param format {@code "png"}, {@code "jpeg"} or {@code "jpg"}; {@code null}
+     *               keeps the source format
+     */
+    public IndoorAsset getVariant(IndoorAsset source, Integer width, String format) {
+        if (width != null && width < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "width must be positive");
+        }
+        String sourceFormat = formatOf(source.contentType());
+        String targetFormat = format == null || format.isBlank() ? sourceFormat : parseFormat(format);
+        if (sourceFormat == null || (width == null && targetFormat.equals(sourceFormat))) {
+            return source;
+        }
+
+        int sourceWidth = sourceWidth(source);
+        int targetWidth = width == null ? sourceWidth : Math.min(snap(width), sourceWidth);
+        if (targetWidth == sourceWidth && targetFormat.equals(sourceFormat)) {
+            return source;
+        }
+
+        String etag = IndoorContentTags.tag("variant", source.etag(), Integer.toString(targetWidth), targetFormat);
+        String key = cacheKey(source.fileName(), etag, targetWidth, targetFormat);
+        IndoorDiskCache variants = cache();
+        try {
+            // Opened under the cache lock, so a later eviction cannot pull the file from under the response.
+            FileChannel channel = variants.open(key);
+            if (channel == null) {
+                render(variants, source, key, targetWidth, targetFormat);
+                channel = variants.open(key);
+            }
+            if (channel == null) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Variant of " + source.fileName() + " was evicted before it could be sent; retry");
+            }
+            return new IndoorAsset(source.fileName(), CONTENT_TYPES.get(targetFormat), etag, source.lastModified(),
+                    IndoorAsset.Representation.opened(variants.pathOf(key), channel), Map.of());
+        } catch (IOException ex) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Failed to read variant of " + source.fileName(), ex);
+        }
+    }
+
+    public long getRenderCount() {
+        return renders.get();
+    }
+
+    /**
+     * Caches the variant under {@code key}, joining a render already in
+     * progress or starting one.
+     */
+    private void render(IndoorDiskCache variants, IndoorAsset source, String key, int width, String format) {
+        CompletableFuture<Path> pending;
+        try {
+            pending = inFlight.computeIfAbsent(key, ignored -> CompletableFuture.supplyAsync(
+                    () -> renderOnce(variants, source, key, width, format), renderer));
+        } catch (RejectedExecutionException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many floor-plan variants are being rendered; retry shortly");
+        }
+        pending.whenComplete((path, failure) -> inFlight.remove(key, pending));
+
+        try {
+            pending.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Variant of " + source.fileName() + " not rendered within " + timeoutMillis + " ms");
+        } catch (ExecutionException ex) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Failed to render variant of " + source.fileName(), ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Variant rendering was interrupted");
+        }
+    }
+
+    private Path renderOnce(IndoorDiskCache variants, IndoorAsset source, String key, int width, String format) {
+        // A render that finished just before this one was queued already cached it.
+        Path cached = variants.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long started = System.nanoTime();
+        try {
+            byte[] bytes = IndoorRasterResizer.resize(source.identity().path(), width, format);
+            Path file = variants.put(key, bytes);
+            renders.incrementAndGet();
+            logger.info("Rendered {} at {}px as {}: {} -> {} bytes in {} ms", source.fileName(), width, format,
+                    source.identity().length(), bytes.length, (System.nanoTime() - started) / 1_000_000);
+            return file;
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+    }
+
+    private IndoorDiskCache cache() {
+        IndoorDiskCache current = cache;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (cache == null) {
+                try {
+                    cache = IndoorDiskCache.open(
+                            cacheDir != null ? cacheDir : Files.createTempDirectory("indoor-variants"),
+                            maxCacheBytes);
+                } catch (IOException ex) {
+                    throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                            "Failed to open the floor-plan variant cache", ex);
+                }
+            }
+            return cache;
+        }
+    }
+
+    private int sourceWidth(IndoorAsset source) {
+        Integer known = sourceWidths.get(source.etag());
+        if (known != null) {
+            return known;
+        }
+        try {
+            int width = IndoorRasterResizer.widthOf(source.identity().path());
+            sourceWidths.put(source.etag(), width);
+            return width;
+        } catch (IOException ex) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Failed to read " + source.fileName(), ex);
+        }
+    }
+
+    /**
+     * The smallest configured width of at least {@code width}, or the largest.
+     */
+    private int snap(int width) {
+        for (int candidate : widths) {
+            if (candidate >= width) {
+                return candidate;
+            }
+        }
+        return widths[widths.length - 1];
+    }
+
+    private static String cacheKey(String fileName, String etag, int width, String format) {
+        String base = fileName.contains(".") ? fileName.substring(0, fileName.lastIndexOf('.')) : fileName;
+        return base + "-" + etag.substring(1, 17) + "-w" + width + "." + format;
+    }
+
+    private static String formatOf(String contentType) {
+        for (Map.Entry<String, String> entry : CONTENT_TYPES.entrySet()) {
+            if (entry.getValue().equalsIgnoreCase(contentType)) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static String parseFormat(String format) {
+        String normalized = format.trim().toLowerCase(Locale.ROOT);
+        if (normalized.equals("jpg")) {
+            normalized = IndoorRasterResizer.JPEG;
+        }
+        if (!CONTENT_TYPES.containsKey(normalized)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be png or jpeg");
+        }
+        return normalized;
+    }
+
+    private static ThreadFactory rendererThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "indoor-variant-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
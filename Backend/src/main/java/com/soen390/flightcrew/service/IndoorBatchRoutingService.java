@@ -0,0 +1,157 @@
+package com.soen390.flightcrew.service;
+
+import com.soen390.flightcrew.model.IndoorBatchRouteResult;
+import com.soen390.flightcrew.model.IndoorBatchRouteResult.Status;
+import com.soen390.flightcrew.model.IndoorRoute;
+import com.soen390.flightcrew.model.IndoorRouteQuery;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Resolves many indoor route queries at once on a fixed pool of worker threads.
+ * Routing only reads the published snapshot's immutable graphs, and every
+ * worker keeps its own search workspace, so queries run fully in parallel.
+ * Each query is isolated: a bad node id, a missing route or an exception only
+ * marks that entry, and every entry reports how long it took.
+ */
+@Service
+public class IndoorBatchRoutingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndoorBatchRoutingService.class);
+
+    private final ExecutorService executor;
+    private final int maxBatchSize;
+    private final long timeoutMillis;
+
+    public IndoorBatchRoutingService(@Value("${app.indoor.batch.parallelism:0}") int parallelism,
+            @Value("${app.indoor.batch.max-size:500}") int maxBatchSize,
+            @Value("${app.indoor.batch.timeout-ms:10000}") long timeoutMillis) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.executor = Executors.newFixedThreadPool(threads, workerThreadFactory());
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Runs every query through {@code resolver} in parallel and returns one
+     * result per query, in request order. Queries still running when the batch
+     * timeout expires are cancelled and reported as {@link Status#TIMEOUT}.
+     *
+     * @param queries  the route queries; must be non-empty and within the batch limit
+     * @param resolver computes a route, returning {@code null} when none exists
+     */
+    public List<IndoorBatchRouteResult> route(List<IndoorRouteQuery> queries,
+            Function<IndoorRouteQuery, IndoorRoute> resolver) {
+        if (queries == null || queries.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one route query is required");
+        }
+        if (queries.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch of " + queries.size() + " queries exceeds the limit of " + maxBatchSize);
+        }
+
+        List<Callable<IndoorBatchRouteResult>> tasks = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            int index = i;
+            IndoorRouteQuery query = queries.get(i);
+            tasks.add(() -> resolve(index, query, resolver));
+        }
+
+        List<Future<IndoorBatchRouteResult>> futures;
+        try {
+            futures = executor.invokeAll(tasks, timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Batch routing was interrupted");
+        }
+
+        List<IndoorBatchRouteResult> results = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            results.add(collect(i, queries.get(i), futures.get(i)));
+        }
+        return results;
+    }
+
+    private IndoorBatchRouteResult resolve(int index, IndoorRouteQuery query,
+            Function<IndoorRouteQuery, IndoorRoute> resolver) {
+        long started = System.nanoTime();
+
+        if (query == null || isBlank(query.getBuildingId()) || isBlank(query.getStartNodeId())
+                || isBlank(query.getEndNodeId())) {
+            return new IndoorBatchRouteResult(index, query, Status.INVALID, null,
+                    "buildingId, startNodeId and endNodeId are required", elapsedMillis(started));
+        }
+
+        try {
+            IndoorRoute route = resolver.apply(query);
+            if (route == null) {
+                return new IndoorBatchRouteResult(index, query, Status.NOT_FOUND, null,
+                        "No route found between the specified locations.", elapsedMillis(started));
+            }
+            return new IndoorBatchRouteResult(index, query, Status.OK, route, null, elapsedMillis(started));
+        } catch (RuntimeException ex) {
+            logger.debug("Batch route {} failed: {}", index, ex.getMessage());
+            return new IndoorBatchRouteResult(index, query, Status.ERROR, null,
+                    "Error finding path: " + ex.getMessage(), elapsedMillis(started));
+        }
+    }
+
+    private IndoorBatchRouteResult collect(int index, IndoorRouteQuery query, Future<IndoorBatchRouteResult> future) {
+        try {
+            return future.get();
+        } catch (CancellationException ex) {
+            return new IndoorBatchRouteResult(index, query, Status.TIMEOUT, null,
+                    "Route not computed within " + timeoutMillis + " ms", timeoutMillis);
+        } catch (ExecutionException ex) {
+            return new IndoorBatchRouteResult(index, query, Status.ERROR, null,
+                    "Error finding path: " + ex.getCause().getMessage(), 0.0);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Batch routing was interrupted");
+        }
+    }
+
+    private static double elapsedMillis(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000.0;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static ThreadFactory workerThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "indoor-route-batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package com.soen390.flightcrew.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of {@link IndoorNavigationDataService}, bound from
+ * {@code app.indoor.*}. Tests start from {@link #of(String, String)} and
+ * switch on what they exercise with the {@code with...} methods.
+ *
+ * @param jsonDir         directory of the building JSON files
+ * @param svgDir          directory of the floor-plan assets
+ * @param compiledDir     directory of compiled binary copies of the JSON files,
+ *                        absolute so they do not depend on the working
+ *                        directory ({@code INDOOR_CACHE_DIR}, by default under
+ *                        the user's {@code .cache}); blank disables them
+ * @param loadParallelism threads preloading buildings; 0 uses one per processor
+ * @param preload         whether every building is parsed and compiled at
+ *                        startup and on full reloads
+ * @param optimizeSvg     whether SVG assets are optimized when indexed
+ * @param svgPrecision    decimal places kept in optimized SVG coordinates
+ */
+@Component
+public record IndoorDataOptions(
+        @Value("${app.indoor.json-dir:src/main/resources/indoor/json}") String jsonDir,
+        @Value("${app.indoor.svg-dir:src/main/resources/indoor/svg}") String svgDir,
+        @Value("${app.indoor.compiled-dir:}") String compiledDir,
+        @Value("${app.indoor.load.parallelism:0}") int loadParallelism,
+        @Value("${app.indoor.load.preload:false}") boolean preload,
+        @Value("${app.indoor.assets.svg.optimize:true}") boolean optimizeSvg,
+        @Value("${app.indoor.assets.svg.precision:2}") int svgPrecision) {
+
+    /**
+     * Reads {@code jsonDir} and {@code svgDir} with nothing else enabled: no
+     * compiled copies, no preloading and SVGs served as stored.
+     */
+    public static IndoorDataOptions of(String jsonDir, String svgDir) {
+        return new IndoorDataOptions(jsonDir, svgDir, "", 0, false, false, 2);
+    }
+
+    public IndoorDataOptions withCompiledDir(String compiledDir) {
+        return new IndoorDataOptions(jsonDir, svgDir, compiledDir, loadParallelism, preload, optimizeSvg,
+                svgPrecision);
+    }
+
+    public IndoorDataOptions withLoading(int loadParallelism, boolean preload) {
+        return new IndoorDataOptions(jsonDir, svgDir, compiledDir, loadParallelism, preload, optimizeSvg,
+                svgPrecision);
+    }
+
+    public IndoorDataOptions withSvgOptimization(boolean optimizeSvg, int svgPrecision) {
+        return new IndoorDataOptions(jsonDir, svgDir, compiledDir, loadParallelism, preload, optimizeSvg,
+                svgPrecision);
+    }
+}
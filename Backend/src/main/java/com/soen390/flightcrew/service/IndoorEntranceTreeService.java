@@ -0,0 +1,152 @@
+package com.soen390.flightcrew.service;
+
+import com.soen390.flightcrew.service.indoor.IndoorBuildingSnapshot;
+import com.soen390.flightcrew.service.indoor.IndoorGraph;
+import com.soen390.flightcrew.service.indoor.IndoorSnapshot;
+import com.soen390.flightcrew.service.indoor.ShortestPathTree;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Keeps a complete shortest-path tree rooted at every building entrance, for
+ * both the default and the step-free graph, so trips that start or end at an
+ * entrance are answered by walking predecessors instead of searching. Trees
+ * are built on a background thread for the buildings a snapshot has loaded,
+ * whenever a snapshot is published or one of its buildings is first loaded,
+ * reusing the trees of buildings restored from precompiled graphs; until the
+ * build finishes, queries against the new graphs fall back to a normal search.
+ */
+@Service
+public class IndoorEntranceTreeService {
+
+    public static final String ENTRANCE_NODE_TYPE = IndoorGraph.ENTRANCE_NODE_TYPE;
+
+    private static final Logger logger = LoggerFactory.getLogger(IndoorEntranceTreeService.class);
+
+    private final IndoorNavigationDataService dataService;
+    private final boolean enabled;
+    private final ExecutorService builder;
+
+    // Keyed by graph identity: compiled graphs are never shared between snapshots,
+    // so trees built for an older snapshot can never answer for a newer one.
+    private volatile Map<IndoorGraph, Map<Integer, ShortestPathTree>> trees = Map.of();
+    private volatile long builtVersion = -1L;
+
+    public IndoorEntranceTreeService(IndoorNavigationDataService dataService,
+            @Value("${app.indoor.entrance-trees.enabled:true}") boolean enabled) {
+        this.dataService = dataService;
+        this.enabled = enabled;
+        this.builder = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "indoor-entrance-trees");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            logger.info("Indoor entrance shortest-path trees disabled");
+            return;
+        }
+        dataService.addSnapshotListener(published -> scheduleRebuild());
+        dataService.addBuildingLoadListener(building -> scheduleRebuild());
+        scheduleRebuild();
+    }
+
+    @PreDestroy
+    void stop() {
+        builder.shutdownNow();
+    }
+
+    private void scheduleRebuild() {
+        try {
+            builder.execute(this::rebuild);
+        } catch (RejectedExecutionException ex) {
+            // Shutting down.
+        }
+    }
+
+    /**
+     * Builds trees for every loaded building of the current snapshot that does
+     * not have them yet, dropping the trees of older snapshots.
+     */
+    void rebuild() {
+        IndoorSnapshot snapshot;
+        try {
+            snapshot = dataService.getSnapshot();
+        } catch (RuntimeException ex) {
+            logger.warn("Skipping entrance tree build; indoor snapshot unavailable: {}", ex.getMessage());
+            return;
+        }
+
+        long started = System.nanoTime();
+        Map<IndoorGraph, Map<Integer, ShortestPathTree>> previous = trees;
+        Map<IndoorGraph, Map<Integer, ShortestPathTree>> built = new IdentityHashMap<>();
+        int treeCount = 0;
+
+        for (IndoorBuildingSnapshot building : snapshot.getLoadedBuildings()) {
+            for (boolean requireAccessible : new boolean[] { false, true }) {
+                IndoorGraph graph = building.getGraph(requireAccessible);
+                Map<Integer, ShortestPathTree> byRoot = previous.get(graph);
+                if (byRoot == null) {
+                    byRoot = building.getPrecompiledEntranceTrees(requireAccessible);
+                    if (byRoot == null) {
+                        byRoot = ShortestPathTree.buildEntranceTrees(graph);
+                    }
+                    treeCount += byRoot.size();
+                }
+                built.put(graph, byRoot);
+            }
+        }
+
+        if (snapshot.getVersion() == builtVersion && built.size() == previous.size()) {
+            return;
+        }
+        trees = Collections.unmodifiableMap(built);
+        builtVersion = snapshot.getVersion();
+        logger.info("Built {} entrance shortest-path trees for indoor snapshot v{} in {} ms", treeCount,
+                snapshot.getVersion(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Reads the shortest path between two nodes of {@code graph} from a
+     * precomputed tree when either one is an entrance.
+     *
+     * @return the node ids from start to end, or {@code null} when no tree
+     *         covers the pair and the caller has to search
+     */
+    public List<String> findPath(IndoorGraph graph, int start, int end) {
+        Map<Integer, ShortestPathTree> byRoot = trees.get(graph);
+        if (byRoot == null) {
+            return null;
+        }
+
+        ShortestPathTree tree = byRoot.get(start);
+        if (tree != null) {
+            return tree.path(end, false);
+        }
+        tree = byRoot.get(end);
+        return tree != null ? tree.path(start, true) : null;
+    }
+
+    /**
+     * Version of the snapshot the current trees were built from, or {@code -1}
+     * before the first build.
+     */
+    public long getBuiltVersion() {
+        return builtVersion;
+    }
+}
@@ -0,0 +1,133 @@
+package com.soen390.flightcrew.service;
+
+import com.soen390.flightcrew.model.IndoorFacilityMatch;
+import com.soen390.flightcrew.model.IndoorNode;
+import com.soen390.flightcrew.model.IndoorPointOfInterest;
+import com.soen390.flightcrew.service.indoor.IndoorBuildingSnapshot;
+import com.soen390.flightcrew.service.indoor.IndoorGraph;
+import com.soen390.flightcrew.service.indoor.IndoorNodeStore;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Answers "where is the nearest washroom / elevator / exit" from one start
+ * node. A facility is either a node type of the routing graph (such as
+ * {@code elevator_door} or {@code building_entry_exit}) or a POI category
+ * (such as {@code washroom}); POIs are not graph nodes, so each one is snapped
+ * to the closest connected node on its floor before a single shortest-path
+ * tree is grown to the requested number of targets.
+ */
+@Service
+public class IndoorFacilityService {
+
+    public static final int MAX_LIMIT = 50;
+
+    private final IndoorNavigationDataService dataService;
+    private final IndoorPathfindingService pathfindingService;
+    private final IndoorPoiService poiService;
+
+    public IndoorFacilityService(IndoorNavigationDataService dataService,
+            IndoorPathfindingService pathfindingService,
+            IndoorPoiService poiService) {
+        this.dataService = dataService;
+        this.pathfindingService = pathfindingService;
+        this.poiService = poiService;
+    }
+
+    /**
+     * Returns up to {@code limit} facilities of the given kind ordered by path
+     * cost from {@code startNodeId}. Node types take precedence over POI
+     * categories when a name matches both.
+     */
+    public List<IndoorFacilityMatch> findNearest(String buildingId, String startNodeId, String facility,
+            int limit, boolean requireAccessible) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        IndoorBuildingSnapshot building = dataService.getSnapshot().getBuilding(buildingId);
+        if (building == null || facility == null || facility.isBlank()) {
+            return List.of();
+        }
+
+        IndoorGraph graph = building.getGraph(requireAccessible);
+        Map<String, IndoorPointOfInterest> poiByNode = new LinkedHashMap<>();
+        List<String> targets = nodesOfType(building, facility);
+        if (targets.isEmpty()) {
+            snapPois(building, graph, facility, poiByNode);
+            targets = List.copyOf(poiByNode.keySet());
+        }
+
+        List<IndoorFacilityMatch> matches = new ArrayList<>();
+        for (IndoorPathfindingService.NearestTarget target : pathfindingService.findNearest(graph, startNodeId,
+                targets, limit)) {
+            List<IndoorNode> path = target.path().stream()
+                    .map(id -> graph.indexOf(id) >= 0 ? graph.node(graph.indexOf(id)) : null)
+                    .filter(Objects::nonNull)
+                    .toList();
+            matches.add(new IndoorFacilityMatch(target.nodeId(), poiByNode.get(target.nodeId()), target.cost(),
+                    path));
+        }
+        return matches;
+    }
+
+    private static List<String> nodesOfType(IndoorBuildingSnapshot building, String type) {
+        IndoorNodeStore nodes = building.getNodeStore();
+        List<String> matches = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            if (nodes.id(i) != null && type.equalsIgnoreCase(nodes.type(i))) {
+                matches.add(nodes.id(i));
+            }
+        }
+        return matches;
+    }
+
+    private void snapPois(IndoorBuildingSnapshot building, IndoorGraph graph, String category,
+            Map<String, IndoorPointOfInterest> poiByNode) {
+        String poiBuildingCode = IndoorPoiService.buildingCodeOf(building.getBuildingId());
+
+        for (IndoorPointOfInterest poi : poiService.getIndoorPoisForBuilding(poiBuildingCode)) {
+            if (!category.equalsIgnoreCase(poi.getCategory()) || poi.getFloor() == null
+                    || poi.getX() == null || poi.getY() == null) {
+                continue;
+            }
+            String nodeId = closestRoutableNode(building, graph, poi);
+            if (nodeId != null) {
+                poiByNode.putIfAbsent(nodeId, poi);
+            }
+        }
+    }
+
+    private static String closestRoutableNode(IndoorBuildingSnapshot building, IndoorGraph graph,
+            IndoorPointOfInterest poi) {
+        IndoorNodeStore nodes = building.getNodeStore();
+        String closest = null;
+        double closestDistance = Double.MAX_VALUE;
+
+        for (int i = 0; i < nodes.size(); i++) {
+            if (!nodes.hasFloor(i) || nodes.floor(i) != poi.getFloor() || !nodes.hasPosition(i)) {
+                continue;
+            }
+            int index = graph.indexOf(nodes.id(i));
+            if (index < 0 || graph.degree(index) == 0) {
+                continue;
+            }
+            double dx = nodes.x(i) - poi.getX();
+            double dy = nodes.y(i) - poi.getY();
+            double distance = dx * dx + dy * dy;
+            if (distance < closestDistance) {
+                closestDistance = distance;
+                closest = nodes.id(i);
+            }
+        }
+        return closest;
+    }
+}
@@ -0,0 +1,181 @@
+package com.soen390.flightcrew.service;
+
+import com.soen390.flightcrew.service.indoor.IndoorSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the indoor JSON directory and hot-reloads building files that are
+ * edited while the server runs. Events are coalesced for a short quiet period
+ * so an editor's multi-step save results in a single reparse of the touched
+ * files; everything else in the snapshot is reused as-is.
+ *
+ * <p>
+ * The asset directory is watched too: any change to it rebuilds the asset
+ * registry, whose records describe the files as they were when indexed.
+ */
+@Service
+public class IndoorJsonWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndoorJsonWatcher.class);
+
+    private final IndoorNavigationDataService dataService;
+    private final boolean enabled;
+    private final long debounceMillis;
+
+    private WatchService watchService;
+    private WatchKey assetKey;
+    private Thread watcherThread;
+
+    public IndoorJsonWatcher(IndoorNavigationDataService dataService,
+            @Value("${app.indoor.watch.enabled:true}") boolean enabled,
+            @Value("${app.indoor.watch.debounce-ms:200}") long debounceMillis) {
+        this.dataService = dataService;
+        this.enabled = enabled;
+        this.debounceMillis = debounceMillis;
+    }
+
+    @PostConstruct
+    void start() {
+        Path directory = dataService.getIndoorJsonDir();
+        if (!enabled || !Files.isDirectory(directory)) {
+            logger.info("Indoor JSON hot reload disabled (enabled={}, directory={})", enabled, directory);
+            return;
+        }
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            register(directory);
+        } catch (IOException ex) {
+            logger.error("Failed to watch indoor JSON directory {}: {}", directory, ex.getMessage());
+            return;
+        }
+        Path assetDirectory = dataService.getIndoorSvgDir();
+        if (Files.isDirectory(assetDirectory) && !assetDirectory.equals(directory)) {
+            try {
+                assetKey = register(assetDirectory);
+            } catch (IOException ex) {
+                logger.error("Failed to watch indoor asset directory {}: {}", assetDirectory, ex.getMessage());
+            }
+        }
+
+        watcherThread = new Thread(this::watchLoop, "indoor-json-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        logger.info("Watching {} for indoor data changes", directory);
+    }
+
+    private WatchKey register(Path directory) throws IOException {
+        return directory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException ex) {
+            logger.warn("Failed to close indoor JSON watcher: {}", ex.getMessage());
+        }
+        watcherThread.interrupt();
+    }
+
+    private void watchLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                Set<String> changed = new TreeSet<>();
+                Set<String> changedAssets = new TreeSet<>();
+                boolean overflow = drain(key, changed, changedAssets);
+
+                // Keep collecting until the directories have been quiet for the debounce window.
+                WatchKey next;
+                while ((next = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= drain(next, changed, changedAssets);
+                }
+
+                applyChanges(changed, overflow);
+                applyAssetChanges(changedAssets);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            // Shutting down.
+        }
+    }
+
+    /**
+     * Collects the file names of {@code key}'s events, into
+     * {@code changedAssets} for the asset directory; returns whether JSON
+     * events were lost. Lost asset events are recorded as a change to
+     * {@code *}.
+     */
+    private boolean drain(WatchKey key, Set<String> changed, Set<String> changedAssets) {
+        boolean assets = key.equals(assetKey);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                if (assets) {
+                    changedAssets.add("*");
+                } else {
+                    overflow = true;
+                }
+            } else if (event.context() instanceof Path path) {
+                (assets ? changedAssets : changed).add(path.getFileName().toString());
+            }
+        }
+        key.reset();
+        return overflow;
+    }
+
+    void applyChanges(Set<String> changed, boolean overflow) {
+        try {
+            IndoorSnapshot reloaded;
+            if (overflow) {
+                reloaded = dataService.reload();
+            } else if (!changed.isEmpty()) {
+                reloaded = dataService.reloadFiles(changed);
+            } else {
+                return;
+            }
+            logger.info("Reloaded indoor snapshot v{} after changes to {}", reloaded.getVersion(),
+                    overflow ? "the whole directory" : changed);
+        } catch (RuntimeException ex) {
+            logger.warn("Keeping current indoor snapshot; reload failed: {}", ex.getMessage());
+        }
+    }
+
+    void applyAssetChanges(Set<String> changedAssets) {
+        if (changedAssets.isEmpty()) {
+            return;
+        }
+        try {
+            int size = dataService.reloadAssets().size();
+            logger.info("Re-indexed {} indoor assets after changes to {}", size, changedAssets);
+        } catch (RuntimeException ex) {
+            logger.warn("Keeping current indoor assets; re-indexing failed: {}", ex.getMessage());
+        }
+    }
+}
@@ -1,11 +1,33 @@
 package com.soen390.flightcrew.service;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.soen390.flightcrew.model.IndoorAssetFileDTO;
 import com.soen390.flightcrew.model.IndoorBuildingData;
+import com.soen390.flightcrew.model.IndoorConnectivityReport;
 import com.soen390.flightcrew.model.IndoorEdge;
 import com.soen390.flightcrew.model.IndoorNode;
-import org.springframework.beans.factory.annotation.Value;
+import com.soen390.flightcrew.service.indoor.IndoorAsset;
+import com.soen390.flightcrew.service.indoor.IndoorAssetRegistry;
+import com.soen390.flightcrew.service.indoor.IndoorBinaryFormat;
+import com.soen390.flightcrew.service.indoor.IndoorBinaryFormat.SourceKey;
+import com.soen390.flightcrew.service.indoor.IndoorBuildingSnapshot;
+import com.soen390.flightcrew.service.indoor.IndoorCompiledFile;
+import com.soen390.flightcrew.service.indoor.IndoorDataValidator;
+import com.soen390.flightcrew.service.indoor.IndoorEdgeStore;
+import com.soen390.flightcrew.service.indoor.IndoorFileManifest;
+import com.soen390.flightcrew.service.indoor.IndoorFileSource;
+import com.soen390.flightcrew.service.indoor.IndoorGraph;
+import com.soen390.flightcrew.service.indoor.IndoorNodeStore;
+import com.soen390.flightcrew.service.indoor.IndoorRoomIndex;
+import com.soen390.flightcrew.service.indoor.IndoorSnapshot;
+import com.soen390.flightcrew.service.indoor.IndoorSvgOptimizer;
+import com.soen390.flightcrew.service.indoor.PrecompiledBuildingGraph;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
@@ -14,104 +36,590 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Comparator;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 import java.util.Objects;
 
 @Service
 public class IndoorNavigationDataService {
 
+    private static final Logger logger = LoggerFactory.getLogger(IndoorNavigationDataService.class);
+    private static final String ASSET_CLASSPATH = "indoor/svg";
+
     private final ObjectMapper objectMapper;
     private final Path indoorJsonDir;
     private final Path indoorSvgDir;
+    // Directory of compiled binary copies of the JSON files; null disables them.
+    private final Path compiledDir;
+    // Threads of the loader pool, which is only started when there is work for it.
+    private final int loadParallelism;
+    private final boolean preload;
+    // Optimizes SVG assets when they are indexed; null serves them as stored.
+    private final IndoorSvgOptimizer svgOptimizer;
+    private final AtomicLong snapshotVersions = new AtomicLong();
+    private final Object reloadLock = new Object();
+    private final Object assetLock = new Object();
+    private final Object loaderLock = new Object();
+    private final List<Consumer<IndoorSnapshot>> snapshotListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<IndoorBuildingSnapshot>> buildingListeners = new CopyOnWriteArrayList<>();
+    // Build-time graph artifacts by lower-cased building id; empty when none is shipped.
+    private final Map<String, Optional<PrecompiledBuildingGraph>> precompiledGraphs = new ConcurrentHashMap<>();
+    // Files found changed on load whose reload is already under way.
+    private final Set<String> pendingReloads = ConcurrentHashMap.newKeySet();
+
+    // Written only under reloadLock; read lock-free by every query method.
+    private volatile IndoorSnapshot snapshot;
+    // Built on first use or at startup, under assetLock.
+    private volatile IndoorAssetRegistry assets;
+    // Pool that scans and parses building files concurrently; created on first
+    // use under loaderLock, and its idle threads exit.
+    private ExecutorService loader;
+    // Single thread that republishes files found changed on load; created on
+    // first use under loaderLock, and it exits when idle.
+    private ExecutorService reloader;
+    private boolean loaderShutDown;
 
-    public IndoorNavigationDataService(ObjectMapper objectMapper,
-            @Value("${app.indoor.json-dir:src/main/resources/indoor/json}") String indoorJsonDir,
-            @Value("${app.indoor.svg-dir:src/main/resources/indoor/svg}") String indoorSvgDir) {
+    @Autowired
+    public IndoorNavigationDataService(ObjectMapper objectMapper, IndoorDataOptions options) {
         this.objectMapper = objectMapper;
-        this.indoorJsonDir = Paths.get(indoorJsonDir);
-        this.indoorSvgDir = Paths.get(indoorSvgDir);
+        this.indoorJsonDir = Paths.get(options.jsonDir());
+        this.indoorSvgDir = Paths.get(options.svgDir());
+        this.compiledDir = options.compiledDir() == null || options.compiledDir().isBlank()
+                ? null : Paths.get(options.compiledDir());
+        this.loadParallelism = options.loadParallelism() > 0
+                ? options.loadParallelism() : Runtime.getRuntime().availableProcessors();
+        this.preload = options.preload();
+        this.svgOptimizer = options.optimizeSvg() ? new IndoorSvgOptimizer(options.svgPrecision()) : null;
     }
 
-    public List<String> getAvailableBuildings() {
-        return loadBuildingData().stream()
-                .map(IndoorBuildingData::getMeta)
-                .filter(Objects::nonNull)
-                .map(meta -> meta.get("buildingId"))
+    /**
+     * Indexes the building files at startup so the first indoor request does not
+     * pay for listing them, then, when preloading is enabled, parses and
+     * compiles every building concurrently. Preloading is off by default, so
+     * cold start scales with the buildings actually requested; enable it to
+     * trade a longer startup for a fast first request to every building. A
+     * broken file is logged rather than failing startup; the next read retries
+     * the load and surfaces the error to the caller.
+     */
+    @PostConstruct
+    void initializeSnapshot() {
+        try {
+            IndoorSnapshot loaded = getSnapshot();
+            logger.info("Indexed indoor snapshot v{}: {} buildings in {} files",
+                    loaded.getVersion(), loaded.getBuildingIds().size(), loaded.getSources().size());
+            if (preload) {
+                preload(loaded);
+            }
+        } catch (ResponseStatusException ex) {
+            logger.error("Failed to load indoor snapshot at startup: {}", ex.getReason());
+        }
+        try {
+            getAssetRegistry();
+        } catch (ResponseStatusException ex) {
+            logger.error("Failed to index indoor assets at startup: {}", ex.getCause().getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        synchronized (loaderLock) {
+            loaderShutDown = true;
+            if (loader != null) {
+                loader.shutdownNow();
+            }
+            if (reloader != null) {
+                reloader.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Returns the current immutable snapshot, loading it on first use.
+     */
+    public IndoorSnapshot getSnapshot() {
+        IndoorSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (reloadLock) {
+            if (snapshot == null) {
+                publish(newSnapshot(loadSources()));
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Re-indexes every building file and atomically replaces the current
+     * snapshot. If any file is not well-formed JSON the previous snapshot stays
+     * in place. With preloading enabled every building is parsed and compiled
+     * before the swap, so the previous snapshot keeps serving until then.
+     */
+    public IndoorSnapshot reload() {
+        synchronized (reloadLock) {
+            IndoorSnapshot reloaded = newSnapshot(loadSources());
+            if (preload) {
+                preload(reloaded);
+            }
+            publish(reloaded);
+            return reloaded;
+        }
+    }
+
+    /**
+     * Re-reads only the named building files (relative to the JSON directory) and
+     * publishes a new snapshot that reuses every other file, parsed or not.
+     * Files that no longer exist are dropped. The changed files are validated,
+     * against the other files of their buildings, before the swap; on any parse
+     * or validation failure the current snapshot is kept and an exception is
+     * thrown.
+     */
+    public IndoorSnapshot reloadFiles(Collection<String> changedFileNames) {
+        synchronized (reloadLock) {
+            IndoorSnapshot current = getSnapshot();
+            Map<String, IndoorFileSource> sources = new LinkedHashMap<>(current.getSources());
+            List<String> reparsed = new ArrayList<>();
+
+            for (String fileName : changedFileNames) {
+                Path path = indoorJsonDir.resolve(fileName).normalize();
+                if (!path.startsWith(indoorJsonDir.normalize()) || !isBuildingFile(path)) {
+                    continue;
+                }
+                if (Files.isRegularFile(path)) {
+                    BasicFileAttributes attributes = readAttributes(path);
+                    byte[] source = readSource(path);
+                    SourceKey key = SourceKey.of(attributes, IndoorBinaryFormat.sourceHash(source));
+                    IndoorCompiledFile contents = loadBuildingData(path, source, key);
+                    IndoorFileManifest manifest = IndoorFileManifest.of(fileName, contents.data())
+                            .withContentHash(HexFormat.of().formatHex(key.hash()));
+                    sources.put(fileName, IndoorFileSource.loaded(manifest, contents));
+                    reparsed.add(fileName);
+                } else {
+                    sources.remove(fileName);
+                }
+            }
+
+            List<String> problems = IndoorDataValidator.validate(reparsed, filesToValidate(reparsed, sources));
+            if (!problems.isEmpty()) {
+                throw new IllegalStateException("Rejected indoor data update: " + String.join("; ", problems));
+            }
+
+            IndoorSnapshot reloaded = newSnapshot(sources);
+            publish(reloaded);
+            return reloaded;
+        }
+    }
+
+    /**
+     * The reparsed files plus every file sharing a building with one of them,
+     * which is all the validator looks at; files of other buildings stay
+     * unparsed.
+     */
+    private static Map<String, IndoorBuildingData> filesToValidate(List<String> reparsed,
+            Map<String, IndoorFileSource> sources) {
+        List<String> buildings = reparsed.stream()
+                .map(fileName -> sources.get(fileName).getBuildingId())
                 .filter(Objects::nonNull)
-                .distinct()
-                .sorted()
+                .map(buildingId -> buildingId.toLowerCase(Locale.ROOT))
                 .toList();
+
+        Map<String, IndoorBuildingData> files = new LinkedHashMap<>();
+        sources.forEach((fileName, source) -> {
+            String buildingId = source.getBuildingId();
+            if (reparsed.contains(fileName)
+                    || (buildingId != null && buildings.contains(buildingId.toLowerCase(Locale.ROOT)))) {
+                files.put(fileName, source.get());
+            }
+        });
+        return files;
+    }
+
+    private IndoorSnapshot newSnapshot(Map<String, IndoorFileSource> sources) {
+        return IndoorSnapshot.lazy(snapshotVersions.incrementAndGet(), sources, this::getPrecompiledGraph,
+                this::notifyBuildingLoaded);
+    }
+
+    /**
+     * Registers a callback run after every newly published snapshot, including
+     * the first one. Callbacks run on the publishing thread while reloads are
+     * held off, so they should only hand work off, not do it.
+     */
+    public void addSnapshotListener(Consumer<IndoorSnapshot> listener) {
+        snapshotListeners.add(listener);
+    }
+
+    /**
+     * Registers a callback run each time a building of any snapshot is parsed
+     * and compiled for the first time. Callbacks run on the request thread that
+     * triggered the load, so they should only hand work off.
+     */
+    public void addBuildingLoadListener(Consumer<IndoorBuildingSnapshot> listener) {
+        buildingListeners.add(listener);
+    }
+
+    private void notifyBuildingLoaded(IndoorBuildingSnapshot building) {
+        for (Consumer<IndoorBuildingSnapshot> listener : buildingListeners) {
+            try {
+                listener.accept(building);
+            } catch (RuntimeException ex) {
+                logger.warn("Indoor building listener failed for {}: {}", building.getBuildingId(), ex.getMessage());
+            }
+        }
+    }
+
+    private void publish(IndoorSnapshot published) {
+        snapshot = published;
+        for (Consumer<IndoorSnapshot> listener : snapshotListeners) {
+            try {
+                listener.accept(published);
+            } catch (RuntimeException ex) {
+                logger.warn("Indoor snapshot listener failed for v{}: {}", published.getVersion(), ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Parses every file of {@code loaded} that is not parsed yet, then compiles
+     * every building, each phase running concurrently on the loader pool so it
+     * takes about as long as its largest file or building. Per-file parse and
+     * per-building compile times are logged; a file that fails is logged and
+     * left to fail again, with its error, on first use.
+     */
+    void preload(IndoorSnapshot loaded) {
+        long started = System.nanoTime();
+
+        Map<String, Future<Double>> parses = new LinkedHashMap<>();
+        loaded.getSources().forEach((fileName, source) -> {
+            if (!source.isLoaded()) {
+                parses.put(fileName, submit(() -> timed(source::get)));
+            }
+        });
+        parses.forEach((fileName, parse) -> {
+            try {
+                IndoorFileManifest manifest = loaded.getSources().get(fileName).getManifest();
+                logger.info("Parsed indoor file {} ({} nodes, {} edges) in {} ms", fileName,
+                        manifest.nodeCount(), manifest.edgeCount(), formatMillis(await(parse)));
+            } catch (RuntimeException ex) {
+                logger.warn("Failed to preload indoor file {}: {}", fileName, failureReason(ex));
+            }
+        });
+
+        Map<String, Future<Double>> compiles = new LinkedHashMap<>();
+        for (String buildingId : loaded.getBuildingIds()) {
+            compiles.put(buildingId, submit(() -> timed(() -> loaded.getBuilding(buildingId))));
+        }
+        compiles.forEach((buildingId, compile) -> {
+            try {
+                logger.info("Compiled indoor building {} in {} ms", buildingId, formatMillis(await(compile)));
+            } catch (RuntimeException ex) {
+                logger.warn("Failed to preload indoor building {}: {}", buildingId, failureReason(ex));
+            }
+        });
+
+        logger.info("Preloaded indoor snapshot v{} in {} ms: {} files parsed, {} buildings compiled",
+                loaded.getVersion(), formatMillis(elapsedMillis(started)), parses.size(),
+                loaded.getLoadedBuildings().size());
+    }
+
+    /**
+     * Runs {@code task} on the loader pool, or inline once the pool is shut down.
+     */
+    private <T> Future<T> submit(Callable<T> task) {
+        ExecutorService pool = loader();
+        if (pool != null) {
+            try {
+                return pool.submit(task);
+            } catch (RejectedExecutionException ex) {
+                // Shut down since it was handed out; run the task here instead.
+            }
+        }
+        FutureTask<T> inline = new FutureTask<>(task);
+        inline.run();
+        return inline;
+    }
+
+    /**
+     * The loader pool, started on first use, or {@code null} after
+     * {@link #shutdown()}. Its threads exit after a minute idle, so a service
+     * that only preloaded at startup holds none while it serves.
+     */
+    private ExecutorService loader() {
+        synchronized (loaderLock) {
+            if (loader == null && !loaderShutDown) {
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(loadParallelism, loadParallelism,
+                        1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), threadFactory("indoor-load-"));
+                pool.allowCoreThreadTimeOut(true);
+                loader = pool;
+            }
+            return loader;
+        }
+    }
+
+    /**
+     * The reload thread, started on first use, or {@code null} after
+     * {@link #shutdown()}.
+     */
+    private ExecutorService reloader() {
+        synchronized (loaderLock) {
+            if (reloader == null && !loaderShutDown) {
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 1, TimeUnit.MINUTES,
+                        new LinkedBlockingQueue<>(), threadFactory("indoor-reload-"));
+                pool.allowCoreThreadTimeOut(true);
+                reloader = pool;
+            }
+            return reloader;
+        }
+    }
+
+    /**
+     * Waits for a loader task, rethrowing its failure on the calling thread.
+     */
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException failure) {
+                throw failure;
+            }
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Failed to load indoor data", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Loading indoor data was interrupted");
+        }
+    }
+
+    private static String failureReason(RuntimeException ex) {
+        return ex instanceof ResponseStatusException status ? status.getReason() : ex.getMessage();
+    }
+
+    private static double timed(Runnable task) {
+        long started = System.nanoTime();
+        task.run();
+        return elapsedMillis(started);
+    }
+
+    private static double elapsedMillis(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000.0;
+    }
+
+    private static String formatMillis(double millis) {
+        return String.format(Locale.ROOT, "%.1f", millis);
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * The graph artifact produced for a building at build time, read once from
+     * the classpath, or {@code null} when none was shipped or it is unreadable.
+     * Snapshots only use it when it still matches the loaded data.
+     */
+    private PrecompiledBuildingGraph getPrecompiledGraph(String buildingId) {
+        return precompiledGraphs.computeIfAbsent(buildingId.toLowerCase(Locale.ROOT),
+                key -> Optional.ofNullable(readPrecompiledGraph(buildingId))).orElse(null);
+    }
+
+    private PrecompiledBuildingGraph readPrecompiledGraph(String buildingId) {
+        ClassPathResource resource = new ClassPathResource(PrecompiledBuildingGraph.resourceName(buildingId));
+        if (!resource.exists()) {
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return PrecompiledBuildingGraph.read(in);
+        } catch (IOException ex) {
+            logger.warn("Ignoring precompiled indoor graph for {}: {}", buildingId, ex.getMessage());
+            return null;
+        }
+    }
+
+    public Path getIndoorJsonDir() {
+        return indoorJsonDir;
+    }
+
+    public Path getIndoorSvgDir() {
+        return indoorSvgDir;
+    }
+
+    /**
+     * Version of the current snapshot; it increases every time the indoor data
+     * is reloaded.
+     */
+    public long getSnapshotVersion() {
+        return getSnapshot().getVersion();
+    }
+
+    public List<String> getAvailableBuildings() {
+        return getSnapshot().getBuildingIds();
+    }
+
+    /**
+     * Entity tag of {@link #getAvailableBuildings()}. Read it before the body:
+     * a reload in between then yields an older tag for newer data, which only
+     * costs one extra download, never a stale 304.
+     */
+    public String getBuildingsETag() {
+        return getSnapshot().getContentTags().buildings();
+    }
+
+    /**
+     * Entity tag of {@link #getFloorsByBuilding(String)}.
+     */
+    public String getFloorsETag(String buildingId) {
+        return getSnapshot().getContentTags().floors(buildingId != null ? buildingId : "");
+    }
+
+    /**
+     * Entity tag of {@link #getAllNodes(String, Integer)}.
+     */
+    public String getNodesETag(String buildingId, Integer floor) {
+        return getSnapshot().getContentTags().nodes(buildingId, floor);
     }
 
     public List<Integer> getFloorsByBuilding(String buildingId) {
         if (buildingId == null || buildingId.isBlank()) {
             return List.of();
         }
-
-        return loadNodes().stream()
-                .filter(node -> buildingId.equalsIgnoreCase(node.getBuildingId()))
-                .map(IndoorNode::getFloor)
-                .filter(Objects::nonNull)
-                .distinct()
-                .sorted()
-                .toList();
+        return getSnapshot().getFloors(buildingId);
     }
 
+    /**
+     * Rooms whose label contains {@code query}, ignoring case and treating any
+     * run of punctuation or spaces as one space, ranked exact match, label
+     * prefix, word prefix, then other matches, and by label within each rank.
+     * Served from each file's {@link IndoorRoomIndex}; with a building filter
+     * only files holding that building's nodes are consulted.
+     */
     public List<IndoorNode> getRooms(String query, String buildingId, Integer floor) {
-        String normalizedQuery = query != null ? query.trim().toLowerCase(Locale.ROOT) : "";
-
-        return loadNodes().stream()
-                .filter(node -> "room".equalsIgnoreCase(node.getType()))
-                .filter(node -> buildingId == null || buildingId.isBlank()
-                        || buildingId.equalsIgnoreCase(node.getBuildingId()))
-                .filter(node -> floor == null || floor.equals(node.getFloor()))
-                .filter(node -> normalizedQuery.isEmpty()
-                        || (node.getLabel() != null
-                                && node.getLabel().toLowerCase(Locale.ROOT).contains(normalizedQuery)))
-                .sorted(Comparator.comparing(node -> node.getLabel() != null ? node.getLabel() : ""))
+        IndoorSnapshot current = getSnapshot();
+        List<IndoorRoomIndex> indexes = current.getSources().entrySet().stream()
+                .filter(entry -> buildingId == null || buildingId.isBlank()
+                        || entry.getValue().getManifest().hasNodesOf(buildingId))
+                .map(entry -> current.getRoomIndex(entry.getKey()))
                 .toList();
+        return IndoorRoomIndex.search(indexes, query, buildingId, floor);
     }
 
     public List<IndoorNode> getAllNodes(String buildingId) {
-        return loadNodes().stream()
-                .filter(node -> buildingId == null || buildingId.isBlank()
-                        || buildingId.equalsIgnoreCase(node.getBuildingId()))
-                .toList();
+        return getAllNodes(buildingId, null);
+    }
+
+    /**
+     * Nodes whose {@code buildingId} matches, ignoring case, or every node when
+     * it is blank; optionally only those on {@code floor}. A building's nodes
+     * are served from the snapshot's per-building and per-floor indexes.
+     */
+    public List<IndoorNode> getAllNodes(String buildingId, Integer floor) {
+        IndoorSnapshot current = getSnapshot();
+        if (buildingId == null || buildingId.isBlank()) {
+            List<IndoorNode> nodes = current.getNodes();
+            return floor == null ? nodes : nodes.stream()
+                    .filter(node -> node != null && floor.equals(node.getFloor()))
+                    .toList();
+        }
+        return floor == null ? current.getNodesOf(buildingId) : current.getNodesOf(buildingId, floor);
     }
 
     public List<IndoorEdge> getEdgesByBuilding(String buildingId) {
         if (buildingId == null || buildingId.isBlank())
             return List.of();
 
-        return loadBuildingData().stream()
-                .filter(data -> buildingId.equalsIgnoreCase(data.getMeta().get("buildingId")))
-                .flatMap(data -> data.getEdges() != null ? data.getEdges().stream() : Stream.empty())
-                .toList();
+        IndoorBuildingSnapshot building = getSnapshot().getBuilding(buildingId);
+        return building != null ? building.getEdges() : List.of();
     }
 
-    public List<IndoorAssetFileDTO> listSvgAssets() {
-        if (!Files.exists(indoorSvgDir)) {
-            return List.of();
+    /**
+     * Returns the compiled routing graph of a building for the requested mode, or
+     * an empty graph when the building is unknown.
+     */
+    public IndoorGraph getGraph(String buildingId, boolean requireAccessible) {
+        IndoorBuildingSnapshot building = getSnapshot().getBuilding(buildingId);
+        return building != null ? building.getGraph(requireAccessible) : IndoorGraph.empty();
+    }
+
+    /**
+     * Reports isolated and detached nodes for one building, or for every building
+     * when {@code buildingId} is blank, in the requested accessibility mode.
+     */
+    public List<IndoorConnectivityReport> getConnectivityReports(String buildingId, boolean requireAccessible) {
+        IndoorSnapshot current = getSnapshot();
+        List<IndoorBuildingSnapshot> buildings;
+        if (buildingId == null || buildingId.isBlank()) {
+            buildings = List.copyOf(current.getBuildings().values());
+        } else {
+            IndoorBuildingSnapshot building = current.getBuilding(buildingId);
+            buildings = building != null ? List.of(building) : List.of();
         }
 
-        try (Stream<Path> files = Files.list(indoorSvgDir)) {
-            return files
-                    .filter(Files::isRegularFile)
-                    .filter(path -> path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".svg"))
-                    .sorted()
-                    .map(path -> path.getFileName().toString())
-                    .map(fileName -> new IndoorAssetFileDTO(fileName, "/api/indoor/assets/svg/" + fileName))
-                    .toList();
-        } catch (IOException ex) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
-                    "Failed to list indoor SVG assets", ex);
+        return buildings.stream()
+                .map(building -> buildConnectivityReport(building, requireAccessible))
+                .toList();
+    }
+
+    private IndoorConnectivityReport buildConnectivityReport(IndoorBuildingSnapshot building,
+            boolean requireAccessible) {
+        IndoorGraph graph = building.getGraph(requireAccessible);
+        int largest = graph.largestComponent();
+        List<String> isolated = new ArrayList<>();
+        List<String> detached = new ArrayList<>();
+
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            if (graph.degree(node) == 0) {
+                isolated.add(graph.idOf(node));
+            } else if (graph.componentOf(node) != largest) {
+                detached.add(graph.idOf(node));
+            }
         }
+
+        return new IndoorConnectivityReport(building.getBuildingId(), requireAccessible, graph.nodeCount(),
+                graph.componentCount(), largest >= 0 ? graph.componentSize(largest) : 0, isolated, detached);
+    }
+
+    /**
+     * The SVGs of the asset directory, from the asset registry rather than a
+     * directory listing.
+     */
+    public List<IndoorAssetFileDTO> listSvgAssets() {
+        return getAssetRegistry().storedFileNames().stream()
+                .filter(fileName -> fileName.toLowerCase(Locale.ROOT).endsWith(".svg"))
+                .map(fileName -> new IndoorAssetFileDTO(fileName, "/api/indoor/assets/svg/" + fileName))
+                .toList();
     }
 
     public Resource loadSvgFile(String fileName) {
@@ -119,24 +627,63 @@ public class IndoorNavigationDataService {
     }
 
     public Resource loadAssetFile(String fileName) {
+        return new FileSystemResource(getAsset(fileName).identity().path());
+    }
+
+    /**
+     * Returns the registry record of an asset, indexing every asset on first
+     * use, so serving one never probes the filesystem or the classpath. SVGs
+     * come back optimized when that is enabled, with the stored file as
+     * {@link IndoorAsset#raw()}.
+     */
+    public IndoorAsset getAsset(String fileName) {
         if (fileName == null || fileName.isBlank() || fileName.contains("..") || fileName.contains("/")
                 || fileName.contains("\\")) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid file path");
         }
 
-        Path normalizedPath = indoorSvgDir.resolve(fileName).normalize();
+        IndoorAsset asset = getAssetRegistry().get(fileName);
+        if (asset == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Indoor asset file not found");
+        }
+        return asset;
+    }
 
-        FileSystemResource fsResource = new FileSystemResource(normalizedPath.toFile());
-        if (normalizedPath.startsWith(indoorSvgDir.normalize()) && fsResource.exists() && fsResource.isReadable()) {
-            return fsResource;
+    IndoorAssetRegistry getAssetRegistry() {
+        IndoorAssetRegistry current = assets;
+        if (current != null) {
+            return current;
         }
+        synchronized (assetLock) {
+            if (assets == null) {
+                assets = buildAssetRegistry();
+            }
+            return assets;
+        }
+    }
 
-        ClassPathResource classPathResource = new ClassPathResource("indoor/svg/" + fileName);
-        if (classPathResource.exists() && classPathResource.isReadable()) {
-            return classPathResource;
+    /**
+     * Re-indexes every asset and swaps the new registry in, so no request is
+     * given a length, entity tag or precompressed copy computed from a file
+     * that has since changed. Optimized and compressed copies are cached by
+     * content hash, so only changed files are processed again. If indexing
+     * fails the current registry stays in place and an exception is thrown.
+     */
+    public IndoorAssetRegistry reloadAssets() {
+        synchronized (assetLock) {
+            assets = buildAssetRegistry();
+            return assets;
         }
+    }
 
-        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Indoor asset file not found");
+    private IndoorAssetRegistry buildAssetRegistry() {
+        try {
+            return IndoorAssetRegistry.build(indoorSvgDir, ASSET_CLASSPATH,
+                    compiledDir != null ? compiledDir.resolve("assets") : null,
+                    this::detectAssetContentType, svgOptimizer);
+        } catch (IOException ex) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to index indoor assets", ex);
+        }
     }
 
     public String detectAssetContentType(String fileName) {
@@ -175,36 +722,288 @@ public class IndoorNavigationDataService {
         return Files.probeContentType(path);
     }
 
-    private List<IndoorNode> loadNodes() {
-        return loadBuildingData().stream()
-                .flatMap(data -> data.getNodes() != null ? data.getNodes().stream() : Stream.empty())
-                .toList();
-    }
-
-    private List<IndoorBuildingData> loadBuildingData() {
+    /**
+     * Indexes every building file concurrently on the loader pool, reading no
+     * more of each than its {@code meta} block or its compiled copy's header,
+     * and returns sources that read the complete manifest and load the file
+     * on first use.
+     */
+    private Map<String, IndoorFileSource> loadSources() {
         if (!Files.exists(indoorJsonDir)) {
-            return List.of();
+            return Map.of();
         }
 
+        List<Path> paths;
         try (Stream<Path> files = Files.list(indoorJsonDir)) {
-            return files.filter(Files::isRegularFile)
-                    .filter(path -> path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json"))
+            paths = files.filter(Files::isRegularFile)
+                    .filter(this::isBuildingFile)
                     .sorted()
-                    .map(this::parseBuildingData)
-                    .filter(Objects::nonNull)
                     .toList();
         } catch (IOException ex) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
                     "Failed to read indoor JSON directory", ex);
         }
+
+        List<Future<ScannedFile>> scans = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            scans.add(submit(() -> scan(path)));
+        }
+        Map<String, IndoorFileSource> sources = new LinkedHashMap<>();
+        for (int i = 0; i < paths.size(); i++) {
+            Path path = paths.get(i);
+            ScannedFile scanned = await(scans.get(i));
+            sources.put(path.getFileName().toString(),
+                    IndoorFileSource.lazy(scanned.summary, scanned::manifest, scanned::load));
+        }
+        return sources;
+    }
+
+    private boolean isBuildingFile(Path path) {
+        return path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json");
+    }
+
+    /**
+     * A file indexed by {@link #loadSources}: its summary and the version of
+     * it the snapshot is pinned to, as size, modification time and hash. The
+     * version is pinned from the compiled copy's header when that still
+     * matches, and otherwise by whichever comes first of reading the complete
+     * manifest and loading the file; from then on the manifest and contents
+     * both come from those bytes, so a snapshot never pairs the floors and
+     * tags of one version of a file with the nodes and edges of another.
+     */
+    private final class ScannedFile {
+
+        private final Path path;
+        private final IndoorFileManifest summary;
+        private IndoorFileManifest manifest;
+        private SourceKey key;
+
+        ScannedFile(Path path, IndoorFileManifest summary, SourceKey key) {
+            this.path = path;
+            this.summary = summary;
+            this.manifest = key != null ? summary : null;
+            this.key = key;
+        }
+
+        /**
+         * The complete manifest, read with the streaming parser and hashed on
+         * first use unless the version is already pinned.
+         */
+        synchronized IndoorFileManifest manifest() {
+            if (key == null) {
+                // Taken before the read, so an edit racing it looks changed rather than unchanged.
+                BasicFileAttributes attributes = readAttributes(path);
+                byte[] source = readSource(path);
+                key = SourceKey.of(attributes, IndoorBinaryFormat.sourceHash(source));
+                manifest = scanManifest(path, source, key.hash());
+            }
+            return manifest;
+        }
+
+        /**
+         * Loads the pinned version: its compiled copy when there is one,
+         * without reading the JSON, and otherwise the JSON once it is seen to
+         * hash the same. A file that changed since it was pinned is loaded as
+         * it is now, and a reload of it is scheduled to publish a snapshot
+         * consistent with it.
+         */
+        synchronized IndoorCompiledFile load() {
+            if (key == null) {
+                return pin(readAttributes(path), readSource(path));
+            }
+            IndoorCompiledFile compiled = readCompiled(path, key.hash());
+            if (compiled != null) {
+                return compiled;
+            }
+
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (IOException ex) {
+                scheduleReload(path);
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Indoor file " + path.getFileName() + " was removed since it was indexed");
+            }
+            byte[] source = readSource(path);
+            if (key.matches(attributes) && Arrays.equals(IndoorBinaryFormat.sourceHash(source), key.hash())) {
+                return parseBuildingData(path, source, key);
+            }
+            logger.info("Indoor file {} changed since it was indexed; loading it as is and reloading",
+                    path.getFileName());
+            scheduleReload(path);
+            return pin(attributes, source);
+        }
+
+        private IndoorCompiledFile pin(BasicFileAttributes attributes, byte[] source) {
+            key = SourceKey.of(attributes, IndoorBinaryFormat.sourceHash(source));
+            IndoorCompiledFile contents = loadBuildingData(path, source, key);
+            manifest = IndoorFileManifest.of(summary.fileName(), contents.data())
+                    .withContentHash(HexFormat.of().formatHex(key.hash()));
+            return contents;
+        }
+    }
+
+    /**
+     * Indexes a file. When its compiled copy was built from a file of the
+     * same size and modification time, the manifest and hash are taken from
+     * the copy's header; otherwise only the JSON's {@code meta} block is read,
+     * and the rest of the file is left for first use.
+     */
+    private ScannedFile scan(Path path) {
+        IndoorBinaryFormat.Header header = readCompiledHeader(path);
+        if (header != null && path.getFileName().toString().equals(header.manifest().fileName())
+                && header.source().matches(readAttributes(path))) {
+            return new ScannedFile(path, header.manifest(), header.source());
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(path.toFile())) {
+            return new ScannedFile(path, IndoorFileManifest.scan(path.getFileName().toString(), parser), null);
+        } catch (IOException ex) {
+            throw parseFailure(path, ex);
+        }
+    }
+
+    private IndoorBinaryFormat.Header readCompiledHeader(Path path) {
+        if (compiledDir == null) {
+            return null;
+        }
+        Path compiled = compiledPath(path);
+        try {
+            return IndoorBinaryFormat.readHeader(compiled);
+        } catch (IOException ex) {
+            logger.warn("Ignoring compiled indoor file {}: {}", compiled, ex.getMessage());
+            return null;
+        }
     }
 
-    private IndoorBuildingData parseBuildingData(Path path) {
+    private static BasicFileAttributes readAttributes(Path path) {
         try {
-            return objectMapper.readValue(path.toFile(), IndoorBuildingData.class);
+            return Files.readAttributes(path, BasicFileAttributes.class);
         } catch (IOException ex) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
-                    "Failed to parse indoor JSON file: " + path.getFileName(), ex);
+            throw parseFailure(path, ex);
+        }
+    }
+
+    /**
+     * Reads a file's complete manifest and tags it with {@code hash}, the
+     * hash of the bytes it was read from.
+     */
+    private IndoorFileManifest scanManifest(Path path, byte[] source, byte[] hash) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(source)) {
+            return IndoorFileManifest.scanFully(path.getFileName().toString(), parser)
+                    .withContentHash(HexFormat.of().formatHex(hash));
+        } catch (IOException ex) {
+            throw parseFailure(path, ex);
+        }
+    }
+
+    /**
+     * Reloads a file that changed under the current snapshot on the reload
+     * thread, the same path the JSON watcher takes, unless a reload of it is
+     * already pending. Never runs on the loader pool, which a reload holding
+     * the lock may be waiting on.
+     */
+    private void scheduleReload(Path path) {
+        String fileName = path.getFileName().toString();
+        ExecutorService pool = reloader();
+        if (pool == null || !pendingReloads.add(fileName)) {
+            return;
+        }
+        try {
+            pool.execute(() -> {
+                try {
+                    reloadFiles(List.of(fileName));
+                    logger.info("Reloaded indoor file {} after it changed on disk", fileName);
+                } catch (RuntimeException ex) {
+                    logger.warn("Failed to reload changed indoor file {}: {}", fileName, failureReason(ex));
+                } finally {
+                    pendingReloads.remove(fileName);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Shut down since it was handed out.
+            pendingReloads.remove(fileName);
+        }
+    }
+
+    private static byte[] readSource(Path path) {
+        try {
+            return Files.readAllBytes(path);
+        } catch (IOException ex) {
+            throw parseFailure(path, ex);
+        }
+    }
+
+    /**
+     * The compiled copy of {@code source} when one exists, and otherwise the
+     * parsed JSON.
+     */
+    private IndoorCompiledFile loadBuildingData(Path path, byte[] source, SourceKey key) {
+        IndoorCompiledFile compiled = readCompiled(path, key.hash());
+        return compiled != null ? compiled : parseBuildingData(path, source, key);
+    }
+
+    /**
+     * Opens the compiled copy of a JSON file when it was built from source
+     * bytes hashing to {@code hash}. Returns {@code null} when there is none,
+     * or when it is stale or damaged, which only costs a JSON parse.
+     */
+    private IndoorCompiledFile readCompiled(Path path, byte[] hash) {
+        if (compiledDir == null) {
+            return null;
+        }
+        Path compiled = compiledPath(path);
+        try {
+            return IndoorBinaryFormat.read(compiled, hash);
+        } catch (IOException ex) {
+            logger.warn("Ignoring compiled indoor file {}: {}", compiled, ex.getMessage());
+            return null;
         }
     }
+
+    /**
+     * Parses the JSON and, when a compiled directory is configured, (re)writes
+     * the compiled copy and serves the file from it, so every load of a file
+     * shares one mapped copy. An unwritable compiled file is only logged.
+     */
+    private IndoorCompiledFile parseBuildingData(Path path, byte[] source, SourceKey key) {
+        IndoorBuildingData data;
+        try {
+            data = toColumnar(objectMapper.readValue(source, IndoorBuildingData.class));
+        } catch (IOException | IllegalArgumentException ex) {
+            throw parseFailure(path, ex);
+        }
+        if (compiledDir != null) {
+            Path compiled = compiledPath(path);
+            try {
+                IndoorBinaryFormat.write(data, path.getFileName().toString(), key, compiled);
+                IndoorCompiledFile mapped = IndoorBinaryFormat.read(compiled, key.hash());
+                if (mapped != null) {
+                    return mapped;
+                }
+            } catch (IOException ex) {
+                logger.warn("Could not write compiled indoor file {}: {}", compiled, ex.getMessage());
+            }
+        }
+        return IndoorCompiledFile.parsed(data);
+    }
+
+    private Path compiledPath(Path path) {
+        return compiledDir.resolve(path.getFileName() + ".bin");
+    }
+
+    private static IndoorBuildingData toColumnar(IndoorBuildingData data) {
+        // Keep nodes and edges in columnar form; the parsed beans become garbage right away.
+        if (data.getNodes() != null) {
+            data.setNodes(IndoorNodeStore.of(data.getNodes()).asList());
+        }
+        if (data.getEdges() != null) {
+            data.setEdges(IndoorEdgeStore.of(data.getEdges()).asList());
+        }
+        return data;
+    }
+
+    private static ResponseStatusException parseFailure(Path path, Exception cause) {
+        return new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                "Failed to parse indoor JSON file: " + path.getFileName(), cause);
+    }
 }
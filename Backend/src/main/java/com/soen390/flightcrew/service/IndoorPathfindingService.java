@@ -1,99 +1,215 @@
 package com.soen390.flightcrew.service;
 
-import com.soen390.flightcrew.model.IndoorEdge;
+import com.soen390.flightcrew.service.indoor.IndexedMinHeap;
+import com.soen390.flightcrew.service.indoor.IndoorGraph;
+import com.soen390.flightcrew.service.indoor.IndoorRoutingStrategy;
+import com.soen390.flightcrew.service.indoor.SearchWorkspace;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 @Service
 public class IndoorPathfindingService {
 
     private final IndoorNavigationDataService dataService;
+    private final IndoorRoutingStrategy defaultStrategy;
+    private final IndoorEntranceTreeService entranceTrees;
+
+    // Search arrays are reused per request thread, so a query allocates little beyond its result.
+    private final ThreadLocal<SearchWorkspace> workspaces = ThreadLocal.withInitial(SearchWorkspace::new);
 
     public IndoorPathfindingService(IndoorNavigationDataService dataService) {
+        this(dataService, IndoorRoutingStrategy.ASTAR, null);
+    }
+
+    /**
+     * @param entranceTrees precomputed entrance trees consulted before searching;
+     *                      {@code null} to always search
+     */
+    @Autowired
+    public IndoorPathfindingService(IndoorNavigationDataService dataService,
+            @Value("${app.indoor.routing.strategy:ASTAR}") IndoorRoutingStrategy defaultStrategy,
+            IndoorEntranceTreeService entranceTrees) {
         this.dataService = dataService;
+        this.defaultStrategy = defaultStrategy;
+        this.entranceTrees = entranceTrees;
     }
 
     public List<String> findShortestPath(String buildingId, String startNodeId, String endNodeId,
             boolean requireAccessible) {
-        List<IndoorEdge> edges = dataService.getEdgesByBuilding(buildingId);
-        Map<String, List<Edge>> graph = buildGraph(edges, requireAccessible);
+        return findShortestPath(buildingId, startNodeId, endNodeId, requireAccessible, defaultStrategy);
+    }
 
-        if (!graph.containsKey(startNodeId)) {
+    public List<String> findShortestPath(String buildingId, String startNodeId, String endNodeId,
+            boolean requireAccessible, IndoorRoutingStrategy strategy) {
+        IndoorGraph graph = dataService.getGraph(buildingId, requireAccessible);
+        int start = graph.indexOf(startNodeId);
+        int end = graph.indexOf(endNodeId);
+
+        if (start < 0 || graph.degree(start) == 0) {
             return Collections.emptyList(); // Start node not in graph
         }
+        if (end < 0 || !graph.isConnected(start, end)) {
+            return Collections.emptyList(); // Target unknown or in another component
+        }
 
-        PriorityQueue<NodeDistance> pq = new PriorityQueue<>(Comparator.comparingInt(nd -> nd.distance));
-        Map<String, Integer> distances = new HashMap<>();
-        Map<String, String> previous = new HashMap<>();
-        Set<String> visited = new HashSet<>();
-
-        distances.put(startNodeId, 0);
-        pq.add(new NodeDistance(startNodeId, 0));
+        List<String> precomputed = entranceTrees != null ? entranceTrees.findPath(graph, start, end) : null;
+        if (precomputed != null) {
+            return precomputed;
+        }
 
-        while (!pq.isEmpty()) {
-            NodeDistance current = pq.poll();
-            String currentNodeId = current.nodeId;
+        SearchWorkspace workspace = workspaces.get();
+        boolean goalDirected = strategy == IndoorRoutingStrategy.ASTAR && graph.hasHeuristic();
+        if (!search(graph, start, end, goalDirected, workspace)) {
+            return Collections.emptyList(); // Target unreachable
+        }
+        return reconstructPath(graph, workspace, start, end);
+    }
 
-            if (currentNodeId.equals(endNodeId)) {
-                return reconstructPath(previous, endNodeId, startNodeId);
-            }
+    /**
+     * Finds the {@code limit} targets closest to {@code startNodeId} with a single
+     * Dijkstra tree that stops as soon as that many targets are settled, instead
+     * of one search per candidate. Targets outside the start's connected
+     * component are dropped up front, so an unreachable candidate never forces
+     * the tree to cover the whole building.
+     *
+     * <p>
+     * The graph is passed in rather than looked up, so a caller that resolves
+     * the returned ids against it sees the same snapshot even if the data is
+     * reloaded meanwhile.
+     *
+     * @return the nearest reachable targets, closest first, each with its path
+     */
+    public List<NearestTarget> findNearest(IndoorGraph graph, String startNodeId,
+            Collection<String> targetNodeIds, int limit) {
+        int start = graph.indexOf(startNodeId);
+        if (start < 0 || limit <= 0 || targetNodeIds == null) {
+            return Collections.emptyList();
+        }
 
-            // visited.add() returns false if the element was already present
-            if (!visited.add(currentNodeId)) {
-                continue;
+        boolean[] isTarget = new boolean[graph.nodeCount()];
+        int reachableTargets = 0;
+        for (String targetNodeId : targetNodeIds) {
+            int target = graph.indexOf(targetNodeId);
+            if (target >= 0 && !isTarget[target] && graph.isConnected(start, target)) {
+                isTarget[target] = true;
+                reachableTargets++;
             }
+        }
 
-            for (Edge neighbor : graph.getOrDefault(currentNodeId, Collections.emptyList())) {
-                if (visited.contains(neighbor.target())) {
-                    continue;
-                }
+        int wanted = Math.min(limit, reachableTargets);
+        List<NearestTarget> found = new ArrayList<>(wanted);
+        if (wanted == 0) {
+            return found;
+        }
 
-                int newDist = current.distance + neighbor.weight();
-                if (newDist < distances.getOrDefault(neighbor.target(), Integer.MAX_VALUE)) {
-                    distances.put(neighbor.target(), newDist);
-                    previous.put(neighbor.target(), currentNodeId);
-                    pq.add(new NodeDistance(neighbor.target(), newDist));
+        SearchWorkspace workspace = workspaces.get();
+        workspace.reset(graph.nodeCount());
+        IndexedMinHeap heap = workspace.heap();
+        workspace.reach(start, 0, -1);
+        heap.offer(start, 0);
+
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            workspace.settle(current);
+
+            if (isTarget[current]) {
+                found.add(new NearestTarget(graph.idOf(current), workspace.distance(current),
+                        reconstructPath(graph, workspace, start, current)));
+                if (found.size() == wanted) {
+                    break;
                 }
             }
+
+            relax(graph, workspace, current, -1, false);
         }
 
-        return Collections.emptyList(); // Target unreachable
+        return found;
     }
 
-    private Map<String, List<Edge>> buildGraph(List<IndoorEdge> edges, boolean requireAccessible) {
-        Map<String, List<Edge>> graph = new HashMap<>();
-        for (IndoorEdge edge : edges) {
-            if (requireAccessible && Boolean.FALSE.equals(edge.getAccessible())) {
-                continue; // Skip stairs/inaccessible routes if requested
+    /**
+     * Searches from {@code start} until {@code end} is settled, leaving distances
+     * and predecessors in the workspace. With {@code goalDirected} the queue is
+     * ordered by distance plus the graph's consistent lower bound to
+     * {@code end} (A*); otherwise by distance alone (Dijkstra). Because the bound
+     * is consistent, a settled node is final in both modes.
+     */
+    private boolean search(IndoorGraph graph, int start, int end, boolean goalDirected,
+            SearchWorkspace workspace) {
+        workspace.reset(graph.nodeCount());
+        IndexedMinHeap heap = workspace.heap();
+
+        workspace.reach(start, 0, -1);
+        heap.offer(start, goalDirected ? graph.lowerBound(start, end) : 0);
+
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            if (current == end) {
+                return true;
             }
-            // Undirected graph logic (add both directions)
-            graph.computeIfAbsent(edge.getSource(), k -> new ArrayList<>())
-                    .add(new Edge(edge.getTarget(), edge.getWeight()));
-            graph.computeIfAbsent(edge.getTarget(), k -> new ArrayList<>())
-                    .add(new Edge(edge.getSource(), edge.getWeight()));
+            workspace.settle(current);
+            relax(graph, workspace, current, end, goalDirected);
         }
-        return graph;
+
+        return false;
     }
 
-    private List<String> reconstructPath(Map<String, String> previous, String endNodeId, String startNodeId) {
-        List<String> path = new ArrayList<>();
-        String current = endNodeId;
+    /**
+     * Offers every unsettled neighbor of the settled node {@code current}
+     * that it reaches more cheaply than before, prioritized by distance, plus
+     * the lower bound to {@code end} when {@code goalDirected}.
+     */
+    private static void relax(IndoorGraph graph, SearchWorkspace workspace, int current, int end,
+            boolean goalDirected) {
+        IndexedMinHeap heap = workspace.heap();
+        int currentDistance = workspace.distance(current);
+        for (int slot = graph.firstSlot(current), last = graph.endSlot(current); slot < last; slot++) {
+            int neighbor = graph.target(slot);
+            if (workspace.isSettled(neighbor)) {
+                continue;
+            }
 
-        while (current != null) {
-            path.add(0, current); // Add to the front to reverse naturally
-            if (current.equals(startNodeId))
-                break;
-            current = previous.get(current);
+            int newDistance = currentDistance + graph.weight(slot);
+            if (newDistance < workspace.distance(neighbor)) {
+                workspace.reach(neighbor, newDistance, current);
+                heap.offer(neighbor, goalDirected ? newDistance + graph.lowerBound(neighbor, end) : newDistance);
+            }
         }
+    }
 
-        return path;
+    /**
+     * Number of nodes settled by the most recent search on the calling thread.
+     */
+    int lastExpandedNodeCount() {
+        return workspaces.get().settledCount();
     }
 
-    // Helper classes for Dijkstra's
-    private record Edge(String target, int weight) {
+    private List<String> reconstructPath(IndoorGraph graph, SearchWorkspace workspace, int start, int end) {
+        int length = 1;
+        for (int node = end; node != start; node = workspace.previous(node)) {
+            length++;
+        }
+
+        String[] path = new String[length];
+        int node = end;
+        for (int i = length - 1; i >= 0; i--) {
+            path[i] = graph.idOf(node);
+            node = workspace.previous(node);
+        }
+
+        return Arrays.asList(path);
     }
 
-    private record NodeDistance(String nodeId, int distance) {
+    /**
+     * A target reached by {@link #findNearest}: its id, the path cost in edge
+     * weight units, and the node ids from the start to it.
+     */
+    public record NearestTarget(String nodeId, int cost, List<String> path) {
     }
 }
@@ -2,7 +2,9 @@ package com.soen390.flightcrew.service;
 
 import com.soen390.flightcrew.model.IndoorPointOfInterest;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.soen390.flightcrew.service.indoor.IndoorContentTags;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
@@ -11,7 +13,9 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @Service
@@ -19,12 +23,19 @@ public class IndoorPoiService {
 
     private static final Logger logger = LoggerFactory.getLogger(IndoorPoiService.class);
 
+    // The POI catalogue keys the Hall building by its short code.
+    private static final Map<String, String> POI_BUILDING_CODES = Map.of("hall", "H");
+
     private final ObjectMapper objectMapper;
     private Map<String, List<IndoorPointOfInterest>> indoorPois;
+    // Entity tags of each building's POI list and of the full list, fixed at load.
+    private Map<String, String> etags = Map.of();
+    private String allETag;
 
     public IndoorPoiService(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
         loadIndoorPois();
+        computeETags();
     }
 
     private void loadIndoorPois() {
@@ -39,6 +50,41 @@ public class IndoorPoiService {
         }
     }
 
+    private void computeETags() {
+        try {
+            Map<String, String> tags = new HashMap<>();
+            for (Map.Entry<String, List<IndoorPointOfInterest>> entry : indoorPois.entrySet()) {
+                tags.put(entry.getKey(), tagOf(entry.getValue()));
+            }
+            etags = tags;
+            allETag = tagOf(indoorPois.values().stream().flatMap(List::stream).toList());
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to tag indoor POI data: {}", e.getMessage());
+            etags = Map.of();
+            allETag = null;
+        }
+    }
+
+    private String tagOf(List<IndoorPointOfInterest> pois) throws JsonProcessingException {
+        return IndoorContentTags.tag("pois", objectMapper.writeValueAsString(pois));
+    }
+
+    /**
+     * Entity tag of the POI list of a building, or of every POI when
+     * {@code buildingCode} is empty, matching what {@code /api/indoor/pois}
+     * serves; {@code null} if the data could not be tagged.
+     */
+    public String getETag(String buildingCode) {
+        if (buildingCode == null || buildingCode.isEmpty()) {
+            return allETag;
+        }
+        String tag = etags.get(buildingCode.toUpperCase());
+        if (tag == null && allETag != null) {
+            return IndoorContentTags.tag("pois", "[]");
+        }
+        return tag;
+    }
+
     public List<IndoorPointOfInterest> getIndoorPoisForBuilding(String buildingCode) {
         if (buildingCode == null || buildingCode.trim().isEmpty()) {
             return Collections.emptyList();
@@ -49,4 +95,12 @@ public class IndoorPoiService {
     public Map<String, List<IndoorPointOfInterest>> getAllIndoorPois() {
         return indoorPois;
     }
+
+    /**
+     * The code the POI catalogue uses for an indoor building id, such as
+     * {@code H} for {@code Hall}; other ids are returned unchanged.
+     */
+    public static String buildingCodeOf(String indoorBuildingId) {
+        return POI_BUILDING_CODES.getOrDefault(indoorBuildingId.toLowerCase(Locale.ROOT), indoorBuildingId);
+    }
 }
@@ -0,0 +1,118 @@
+package com.soen390.flightcrew.service;
+
+import com.soen390.flightcrew.model.IndoorRoute;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded LRU cache of resolved indoor routes. Keys carry the indoor
+ * snapshot version, and the whole cache is dropped the first time a newer
+ * version is seen, so a reload of the building data can never serve a stale
+ * route.
+ */
+@Service
+public class IndoorRouteCache {
+
+    private final int capacity;
+    private final Map<Key, IndoorRoute> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private long version = Long.MIN_VALUE;
+
+    public IndoorRouteCache(@Value("${app.indoor.route-cache.max-entries:1000}") int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, IndoorRoute> eldest) {
+                if (size() > IndoorRouteCache.this.capacity) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached route for the key, or computes it with the loader. The
+     * loader runs outside the cache lock; a {@code null} result (no route) is
+     * not cached.
+     */
+    public IndoorRoute getOrCompute(Key key, Supplier<IndoorRoute> loader) {
+        IndoorRoute cached = get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        misses.incrementAndGet();
+        IndoorRoute computed = loader.get();
+        if (computed != null) {
+            put(key, computed);
+        }
+        return computed;
+    }
+
+    private synchronized IndoorRoute get(Key key) {
+        invalidateIfStale(key.version());
+        return entries.get(key);
+    }
+
+    private synchronized void put(Key key, IndoorRoute route) {
+        invalidateIfStale(key.version());
+        if (key.version() == version && capacity > 0) {
+            entries.put(key, route);
+        }
+    }
+
+    private void invalidateIfStale(long keyVersion) {
+        if (keyVersion > version) {
+            entries.clear();
+            version = keyVersion;
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Snapshot of the cache counters, for diagnostics.
+     */
+    public synchronized Map<String, Object> getStats() {
+        return Map.of(
+                "hits", hits.get(),
+                "misses", misses.get(),
+                "evictions", evictions.get(),
+                "size", entries.size(),
+                "capacity", capacity,
+                "snapshotVersion", version);
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Cache key of one directions query against one snapshot version.
+     */
+    public record Key(String buildingId, String startNodeId, String endNodeId, boolean requireAccessible,
+            long version) {
+
+        public static Key of(String buildingId, String startNodeId, String endNodeId, boolean requireAccessible,
+                long version) {
+            return new Key(buildingId.toLowerCase(Locale.ROOT), startNodeId, endNodeId, requireAccessible, version);
+        }
+    }
+}
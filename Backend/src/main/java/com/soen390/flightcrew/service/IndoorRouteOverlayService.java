@@ -0,0 +1,329 @@
+package com.soen390.flightcrew.service;
+
+import com.soen390.flightcrew.model.IndoorNode;
+import com.soen390.flightcrew.model.IndoorRoute;
+import com.soen390.flightcrew.service.indoor.IndoorAsset;
+import com.soen390.flightcrew.service.indoor.IndoorAssetRegistry;
+import com.soen390.flightcrew.service.indoor.IndoorContentTags;
+import com.soen390.flightcrew.service.indoor.IndoorDiskCache;
+import com.soen390.flightcrew.service.indoor.IndoorFloorPlans;
+import com.soen390.flightcrew.service.indoor.IndoorRasterResizer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.awt.Dimension;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Draws an indoor route onto the plan of one floor, so clients do not have
+ * to overlay long paths themselves. Two forms are offered: a fragment, a
+ * small standalone SVG with the plan's coordinate system that holds only
+ * the route and is laid over the plan the client already has, and a
+ * composite, the whole floor plan with the route drawn on top.
+ *
+ * <p>
+ * Neither is built as a document tree. A fragment is written with a
+ * streaming XML writer; a composite copies the plan's bytes up to its
+ * closing {@code </svg>}, writes the route there and copies the rest, so a
+ * large floor costs no more memory than a small one. Raster plans are
+ * referenced with an {@code <image>} instead. Results go straight to a
+ * size-capped {@link IndoorDiskCache} keyed by the route's points on the
+ * floor and the plan's entity tag, and are served from there.
+ */
+@Service
+public class IndoorRouteOverlayService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndoorRouteOverlayService.class);
+
+    // Bump whenever the output for the same route and plan changes, to retire cached overlays.
+    private static final String FORMAT = "overlay1";
+
+    private static final String SVG_NS = "http://www.w3.org/2000/svg";
+
+    // Matches the polyline the mobile client draws.
+    private static final String ROUTE_COLOR = "#1b73e8";
+    private static final String ROUTE_WIDTH = "10";
+    private static final String MARKER_RADIUS = "12";
+
+    // The closing tag is looked for in this many bytes at the end of a plan.
+    private static final int TAIL_BYTES = 4096;
+
+    private final IndoorNavigationDataService dataService;
+    private final Path cacheDir;
+    private final long maxCacheBytes;
+
+    private volatile IndoorDiskCache cache;
+
+    public IndoorRouteOverlayService(IndoorNavigationDataService dataService,
+            @Value("${app.indoor.overlays.max-bytes:33554432}") long maxCacheBytes,
+            @Value("${app.indoor.compiled-dir:}") String compiledDir) {
+        this.dataService = dataService;
+        this.cacheDir = compiledDir == null || compiledDir.isBlank() ? null : Paths.get(compiledDir, "overlays");
+        this.maxCacheBytes = maxCacheBytes;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        IndoorDiskCache current = cache;
+        if (cacheDir == null && current != null) {
+            // A temporary cache would only be orphaned by the next run.
+            try {
+                current.delete();
+            } catch (IOException ex) {
+                logger.warn("Failed to delete the temporary overlay cache: {}", ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the overlay of {@code route} on {@code floor} of
+     * {@code buildingId} as an SVG asset, rendering it on first use.
+     *
+     * @param composite whether to draw onto the whole plan rather than
+     *                  return the route alone
+     */
+    public IndoorAsset getOverlay(String buildingId, int floor, IndoorRoute route, boolean composite) {
+        IndoorFloorPlans.FloorPlan plan = IndoorFloorPlans.of(buildingId, floor);
+        if (plan == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "No floor plan for " + buildingId + " floor " + floor);
+        }
+        Overlay overlay = Overlay.of(route.getPath(), floor, plan);
+        if (overlay.runs().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "The route does not cross floor " + floor);
+        }
+
+        IndoorAsset asset = dataService.getAsset(plan.fileName());
+        String etag = IndoorContentTags.tag(FORMAT, asset.etag(), composite ? "composite" : "fragment",
+                overlay.toString());
+        String key = "route-" + etag.substring(1, 17) + (composite ? "-composite" : "") + ".svg";
+
+        IndoorDiskCache overlays = cache();
+        try {
+            // Opened under the cache lock, so a later eviction cannot pull the file from under the response.
+            FileChannel channel = overlays.open(key);
+            if (channel == null) {
+                overlays.put(key, out -> write(out, asset, overlay, composite));
+                channel = overlays.open(key);
+            }
+            if (channel == null) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Route overlay on " + plan.fileName() + " was evicted before it could be sent; retry");
+            }
+            return new IndoorAsset(plan.fileName(), "image/svg+xml", etag, asset.lastModified(),
+                    IndoorAsset.Representation.opened(overlays.pathOf(key), channel), Map.of());
+        } catch (IOException ex) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Failed to draw the route on " + plan.fileName(), ex);
+        }
+    }
+
+    /**
+     * The route on one floor in plan coordinates: each stretch it stays on
+     * the floor, and where it starts or ends if that is on the floor.
+     */
+    record Overlay(List<List<String>> runs, String start, String end) {
+
+        static Overlay of(List<IndoorNode> path, int floor, IndoorFloorPlans.FloorPlan plan) {
+            List<List<String>> runs = new ArrayList<>();
+            List<String> run = null;
+            for (IndoorNode node : path) {
+                boolean here = node.getFloor() != null && node.getFloor() == floor
+                        && node.getX() != null && node.getY() != null;
+                if (!here) {
+                    run = null;
+                    continue;
+                }
+                if (run == null) {
+                    run = new ArrayList<>();
+                    runs.add(run);
+                }
+                run.add(format(plan.mapX(node.getX())) + "," + format(plan.mapY(node.getY())));
+            }
+            String start = !runs.isEmpty() && isOnFloor(path.get(0), floor) ? runs.get(0).get(0) : null;
+            String end = !runs.isEmpty() && isOnFloor(path.get(path.size() - 1), floor)
+                    ? runs.get(runs.size() - 1).get(runs.get(runs.size() - 1).size() - 1)
+                    : null;
+            return new Overlay(runs, start, end);
+        }
+
+        private static boolean isOnFloor(IndoorNode node, int floor) {
+            return node.getFloor() != null && node.getFloor() == floor && node.getX() != null
+                    && node.getY() != null;
+        }
+    }
+
+    private void write(OutputStream out, IndoorAsset asset, Overlay overlay, boolean composite)
+            throws IOException {
+        Path plan = asset.identity().path();
+        boolean svg = asset.contentType().toLowerCase(Locale.ROOT).contains("svg");
+        try {
+            if (composite && svg) {
+                // Everything before </svg>, the route, then the closing tag and whatever follows it.
+                long length = asset.identity().length();
+                long closing = closingTagOffset(plan, length);
+                IndoorAssetRegistry.transfer(plan, 0, closing, out);
+                XMLStreamWriter writer = XMLOutputFactory.newFactory().createXMLStreamWriter(out, "UTF-8");
+                writeRoute(writer, overlay);
+                writer.flush();
+                IndoorAssetRegistry.transfer(plan, closing, length - closing, out);
+                return;
+            }
+
+            Map<String, String> root = svg ? rootAttributes(plan) : rasterAttributes(plan);
+            XMLStreamWriter writer = XMLOutputFactory.newFactory().createXMLStreamWriter(out, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement("svg");
+            writer.writeDefaultNamespace(SVG_NS);
+            for (Map.Entry<String, String> attribute : root.entrySet()) {
+                writer.writeAttribute(attribute.getKey(), attribute.getValue());
+            }
+            if (composite) {
+                writer.writeEmptyElement("image");
+                writer.writeAttribute("href", "/api/indoor/assets/" + asset.fileName());
+                writer.writeAttribute("width", root.get("width"));
+                writer.writeAttribute("height", root.get("height"));
+            }
+            writeRoute(writer, overlay);
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+        } catch (XMLStreamException ex) {
+            throw new IOException("Failed to write route overlay: " + ex.getMessage(), ex);
+        }
+    }
+
+    private static void writeRoute(XMLStreamWriter writer, Overlay overlay) throws XMLStreamException {
+        writer.writeStartElement("g");
+        writer.writeAttribute("id", "route");
+        writer.writeAttribute("fill", "none");
+        writer.writeAttribute("stroke", ROUTE_COLOR);
+        writer.writeAttribute("stroke-width", ROUTE_WIDTH);
+        writer.writeAttribute("stroke-linecap", "round");
+        writer.writeAttribute("stroke-linejoin", "round");
+        for (List<String> run : overlay.runs()) {
+            writer.writeEmptyElement("polyline");
+            writer.writeAttribute("points", String.join(" ", run));
+        }
+        for (String marker : new String[] { overlay.start(), overlay.end() }) {
+            if (marker != null) {
+                String[] point = marker.split(",");
+                writer.writeEmptyElement("circle");
+                writer.writeAttribute("cx", point[0]);
+                writer.writeAttribute("cy", point[1]);
+                writer.writeAttribute("r", MARKER_RADIUS);
+                writer.writeAttribute("fill", ROUTE_COLOR);
+                writer.writeAttribute("stroke", "white");
+                writer.writeAttribute("stroke-width", "4");
+            }
+        }
+        writer.writeEndElement();
+    }
+
+    /**
+     * The sizing attributes of a plan's root element, read without parsing
+     * past it.
+     */
+    private static Map<String, String> rootAttributes(Path plan) throws IOException, XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try (InputStream in = Files.newInputStream(plan)) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                while (reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    // Skip the prolog.
+                }
+                Map<String, String> attributes = new LinkedHashMap<>();
+                for (String name : List.of("width", "height", "viewBox", "preserveAspectRatio")) {
+                    String value = reader.isStartElement() ? reader.getAttributeValue(null, name) : null;
+                    if (value != null) {
+                        attributes.put(name, value);
+                    }
+                }
+                return attributes;
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    private static Map<String, String> rasterAttributes(Path plan) throws IOException {
+        Dimension size = IndoorRasterResizer.sizeOf(plan);
+        Map<String, String> attributes = new LinkedHashMap<>();
+        attributes.put("width", Integer.toString(size.width));
+        attributes.put("height", Integer.toString(size.height));
+        attributes.put("viewBox", "0 0 " + size.width + " " + size.height);
+        return attributes;
+    }
+
+    /**
+     * The offset of the last {@code </svg} in the plan.
+     */
+    private static long closingTagOffset(Path plan, long length) throws IOException {
+        int tail = (int) Math.min(length, TAIL_BYTES);
+        ByteBuffer buffer = ByteBuffer.allocate(tail);
+        try (FileChannel channel = FileChannel.open(plan, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer, length - tail + buffer.position()) > 0) {
+                // Keep reading until the tail is in.
+            }
+        }
+        int index = new String(buffer.array(), 0, buffer.position(), StandardCharsets.ISO_8859_1)
+                .lastIndexOf("</svg");
+        if (index < 0) {
+            throw new IOException("No closing </svg> in " + plan.getFileName());
+        }
+        return length - tail + index;
+    }
+
+    private static String format(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).stripTrailingZeros().toPlainString();
+    }
+
+    private IndoorDiskCache cache() {
+        IndoorDiskCache current = cache;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (cache == null) {
+                try {
+                    cache = IndoorDiskCache.open(
+                            cacheDir != null ? cacheDir : Files.createTempDirectory("indoor-overlays"),
+                            maxCacheBytes);
+                } catch (IOException ex) {
+                    throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                            "Failed to open the route overlay cache", ex);
+                }
+            }
+            return cache;
+        }
+    }
+}
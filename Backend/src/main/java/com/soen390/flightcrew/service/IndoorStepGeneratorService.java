@@ -3,6 +3,7 @@ package com.soen390.flightcrew.service;
 import com.soen390.flightcrew.model.IndoorEdge;
 import com.soen390.flightcrew.model.IndoorNode;
 import com.soen390.flightcrew.model.IndoorStep;
+import com.soen390.flightcrew.service.indoor.IndoorGraph;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -26,12 +27,53 @@ public class IndoorStepGeneratorService {
     private static final String STAIR = "stair";
     private static final String ELEVATOR_DOOR = "elevator_door";
 
+    /**
+     * Generates steps for a path using the building's compiled graph to find the
+     * edge behind each hop. Each lookup scans one node's adjacency, so no
+     * per-request edge map is built.
+     */
+    public List<IndoorStep> generateSteps(List<IndoorNode> pathNodes, IndoorGraph graph) {
+        if (pathNodes == null || pathNodes.size() < 2) {
+            return List.of();
+        }
+
+        IndoorGraph edgeIndex = graph != null ? graph : IndoorGraph.empty();
+        IndoorEdge[] pathEdges = new IndoorEdge[pathNodes.size() - 1];
+        int previous = edgeIndex.indexOf(pathNodes.get(0).getId());
+        for (int i = 1; i < pathNodes.size(); i++) {
+            int current = edgeIndex.indexOf(pathNodes.get(i).getId());
+            int slot = previous >= 0 && current >= 0 ? edgeIndex.slotBetween(previous, current) : -1;
+            pathEdges[i - 1] = slot >= 0 ? edgeIndex.edge(slot) : null;
+            previous = current;
+        }
+
+        return buildSteps(pathNodes, pathEdges);
+    }
+
+    /**
+     * Generates steps for a path from a plain edge list, for callers without a
+     * compiled graph.
+     */
     public List<IndoorStep> generateSteps(List<IndoorNode> pathNodes, List<IndoorEdge> edges) {
         if (pathNodes == null || pathNodes.size() < 2) {
             return List.of();
         }
 
         Map<String, IndoorEdge> edgeLookup = buildEdgeLookup(edges);
+        IndoorEdge[] pathEdges = new IndoorEdge[pathNodes.size() - 1];
+        for (int i = 1; i < pathNodes.size(); i++) {
+            pathEdges[i - 1] = lookupEdge(edgeLookup, pathNodes.get(i - 1).getId(), pathNodes.get(i).getId());
+        }
+
+        return buildSteps(pathNodes, pathEdges);
+    }
+
+    /**
+     * @param pathEdges the edge taken between {@code pathNodes[i]} and
+     *                  {@code pathNodes[i + 1]} at index {@code i}, or {@code null}
+     *                  when unknown
+     */
+    private List<IndoorStep> buildSteps(List<IndoorNode> pathNodes, IndoorEdge[] pathEdges) {
         List<IndoorStep> steps = new ArrayList<>();
 
         // Depart step
@@ -42,7 +84,7 @@ public class IndoorStepGeneratorService {
         while (i < pathNodes.size()) {
             IndoorNode prev = pathNodes.get(i - 1);
             IndoorNode curr = pathNodes.get(i);
-            IndoorEdge edge = lookupEdge(edgeLookup, prev.getId(), curr.getId());
+            IndoorEdge edge = pathEdges[i - 1];
             String edgeType = edge != null ? edge.getType() : "";
 
             boolean isExplicitElevatorEdge = ELEVATOR.equalsIgnoreCase(edgeType);
@@ -55,11 +97,11 @@ public class IndoorStepGeneratorService {
                         || ELEVATOR_DOOR.equalsIgnoreCase(prev.getType())
                         || ELEVATOR_DOOR.equalsIgnoreCase(curr.getType());
 
-                i = handleFloorTransition(pathNodes, edgeLookup, steps, i, detectedElevator);
+                i = handleFloorTransition(pathNodes, pathEdges, steps, i, detectedElevator);
                 continue;
             }
 
-            i = processCorridorSegment(pathNodes, edgeLookup, steps, i, prev, curr);
+            i = processCorridorSegment(pathNodes, pathEdges, steps, i, prev, curr);
         }
 
         // Arrive step
@@ -68,7 +110,7 @@ public class IndoorStepGeneratorService {
         return steps;
     }
 
-    private int handleFloorTransition(List<IndoorNode> pathNodes, Map<String, IndoorEdge> edgeLookup,
+    private int handleFloorTransition(List<IndoorNode> pathNodes, IndoorEdge[] pathEdges,
             List<IndoorStep> steps, int currentIndex, boolean initiallyElevator) {
         IndoorNode startNode = pathNodes.get(currentIndex - 1);
         int startFloor = floorOf(startNode);
@@ -80,7 +122,7 @@ public class IndoorStepGeneratorService {
         while (segEnd < pathNodes.size()) {
             IndoorNode prev = pathNodes.get(segEnd - 1);
             IndoorNode curr = pathNodes.get(segEnd);
-            IndoorEdge edge = lookupEdge(edgeLookup, prev.getId(), curr.getId());
+            IndoorEdge edge = pathEdges[segEnd - 1];
             String edgeType = edge != null ? edge.getType() : "";
 
             boolean currentIsElevator = ELEVATOR.equalsIgnoreCase(edgeType)
@@ -138,7 +180,7 @@ public class IndoorStepGeneratorService {
         return false;
     }
 
-    private int processCorridorSegment(List<IndoorNode> pathNodes, Map<String, IndoorEdge> edgeLookup,
+    private int processCorridorSegment(List<IndoorNode> pathNodes, IndoorEdge[] pathEdges,
             List<IndoorStep> steps, int i, IndoorNode prev, IndoorNode curr) {
         String startNodeId = prev.getId();
         int startFloor = floorOf(prev);
@@ -152,7 +194,7 @@ public class IndoorStepGeneratorService {
         if (turnManeuver != null && !MANEUVER_STRAIGHT.equals(turnManeuver)) {
             return emitTurnStep(steps, i, prev, curr, startNodeId, startFloor, turnManeuver);
         } else {
-            return mergeStraightSegments(pathNodes, edgeLookup, steps, i, prev, curr);
+            return mergeStraightSegments(pathNodes, pathEdges, steps, i, prev, curr);
         }
     }
 
@@ -166,7 +208,7 @@ public class IndoorStepGeneratorService {
         return i + 1;
     }
 
-    private int mergeStraightSegments(List<IndoorNode> pathNodes, Map<String, IndoorEdge> edgeLookup,
+    private int mergeStraightSegments(List<IndoorNode> pathNodes, IndoorEdge[] pathEdges,
             List<IndoorStep> steps, int i, IndoorNode prev, IndoorNode curr) {
         String startNodeId = prev.getId();
         int startFloor = floorOf(prev);
@@ -174,7 +216,7 @@ public class IndoorStepGeneratorService {
         int segEnd = i;
 
         while (segEnd + 1 < pathNodes.size()) {
-            if (shouldBreakStraightSegment(pathNodes, edgeLookup, segEnd)) {
+            if (shouldBreakStraightSegment(pathNodes, pathEdges, segEnd)) {
                 break;
             }
 
@@ -195,7 +237,7 @@ public class IndoorStepGeneratorService {
         return segEnd + 1;
     }
 
-    private boolean shouldBreakStraightSegment(List<IndoorNode> pathNodes, Map<String, IndoorEdge> edgeLookup,
+    private boolean shouldBreakStraightSegment(List<IndoorNode> pathNodes, IndoorEdge[] pathEdges,
             int segEnd) {
         IndoorNode segCurr = pathNodes.get(segEnd);
         IndoorNode segNext = pathNodes.get(segEnd + 1);
@@ -204,7 +246,7 @@ public class IndoorStepGeneratorService {
             return true;
         }
 
-        IndoorEdge nextEdge = lookupEdge(edgeLookup, segCurr.getId(), segNext.getId());
+        IndoorEdge nextEdge = pathEdges[segEnd];
         String nextEdgeType = nextEdge != null ? nextEdge.getType() : "";
         if (ELEVATOR.equalsIgnoreCase(nextEdgeType) || STAIR.equalsIgnoreCase(nextEdgeType)) {
             return true;
@@ -0,0 +1,425 @@
+package com.soen390.flightcrew.service;
+
+import com.soen390.flightcrew.model.IndoorTileset;
+import com.soen390.flightcrew.service.indoor.IndoorAsset;
+import com.soen390.flightcrew.service.indoor.IndoorAssetRegistry;
+import com.soen390.flightcrew.service.indoor.IndoorContentTags;
+import com.soen390.flightcrew.service.indoor.IndoorSvgRasterizer;
+import com.soen390.flightcrew.service.indoor.IndoorTilePyramid;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Tile pyramids of the floor plans, so a client can load only the tiles of
+ * its viewport at the current zoom instead of the whole plan. Each SVG and
+ * raster asset is drawn once into an {@link IndoorTilePyramid} under
+ * {@code <compiled-dir>/tiles}, named after the asset and a hash of its
+ * source bytes and the tiling settings, so pyramids survive restarts and a
+ * changed source gets a new one.
+ *
+ * <p>
+ * Pyramids are generated in the background when a request finds an asset
+ * without an up-to-date one; with {@code app.indoor.tiles.pregenerate}
+ * every asset is also queued at startup, which renders every level of every
+ * plan and is off by default. When a source changes, on disk or across a
+ * restart, the pyramid made from the previous one keeps being served, marked
+ * stale, until its replacement is ready. Only an asset that has never been
+ * tiled makes a request wait, up to a timeout.
+ *
+ * <p>
+ * Without a compiled directory pyramids go to a temporary directory that is
+ * deleted on shutdown, and nothing is generated until it is requested, since
+ * the work would be lost with the process.
+ */
+@Service
+public class IndoorTileService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndoorTileService.class);
+
+    // Bump whenever the tiles for the same source change, to retire stored pyramids.
+    private static final String FORMAT = "tiles1";
+
+    private static final Pattern PYRAMID_SUFFIX = Pattern.compile("-[0-9a-f]{16}");
+
+    private final IndoorNavigationDataService dataService;
+    private final int tileSize;
+    private final int maxZoom;
+    private final double svgScale;
+    private final long waitMillis;
+    private final boolean pregenerate;
+    private final Path configuredDir;
+    private final ExecutorService generator;
+    // The pyramid served for each asset, which may be older than its source.
+    private final Map<String, IndoorTilePyramid> served = new ConcurrentHashMap<>();
+    // Generations in progress by pyramid name, so an asset is never tiled twice at once.
+    private final Map<String, CompletableFuture<IndoorTilePyramid>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong generations = new AtomicLong();
+
+    private volatile Path tilesDir;
+
+    public IndoorTileService(IndoorNavigationDataService dataService,
+            @Value("${app.indoor.tiles.tile-size:256}") int tileSize,
+            @Value("${app.indoor.tiles.max-zoom:6}") int maxZoom,
+            @Value("${app.indoor.tiles.svg-scale:2.0}") double svgScale,
+            @Value("${app.indoor.tiles.parallelism:1}") int parallelism,
+            @Value("${app.indoor.tiles.wait-ms:10000}") long waitMillis,
+            @Value("${app.indoor.tiles.pregenerate:false}") boolean pregenerate,
+            @Value("${app.indoor.compiled-dir:}") String compiledDir) {
+        if (tileSize < 16 || maxZoom < 0 || svgScale <= 0) {
+            throw new IllegalArgumentException("Tile size must be at least 16, max zoom and SVG scale positive");
+        }
+        this.dataService = dataService;
+        this.tileSize = tileSize;
+        this.maxZoom = maxZoom;
+        this.svgScale = svgScale;
+        this.waitMillis = waitMillis;
+        this.pregenerate = pregenerate;
+        this.configuredDir = compiledDir == null || compiledDir.isBlank() ? null : Paths.get(compiledDir, "tiles");
+        this.generator = Executors.newFixedThreadPool(Math.max(1, parallelism), generatorThreadFactory());
+    }
+
+    /**
+     * Queues every floor plan without an up-to-date pyramid, without
+     * waiting for any of them.
+     */
+    @PostConstruct
+    void pregenerate() {
+        if (!pregenerate || configuredDir == null) {
+            return;
+        }
+        try {
+            IndoorAssetRegistry registry = dataService.getAssetRegistry();
+            for (String fileName : registry.fileNames()) {
+                IndoorAsset asset = registry.get(fileName);
+                if (isTileable(asset)) {
+                    pyramid(asset, false);
+                }
+            }
+        } catch (ResponseStatusException ex) {
+            logger.error("Failed to queue floor-plan tiles at startup: {}", ex.getReason());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        generator.shutdownNow();
+        Path directory = tilesDir;
+        if (configuredDir != null || directory == null) {
+            return;
+        }
+        try {
+            // Let a generation that ignores the interrupt finish before its directory goes.
+            generator.awaitTermination(5, TimeUnit.SECONDS);
+            IndoorTilePyramid.deleteRecursively(directory);
+        } catch (IOException ex) {
+            logger.warn("Failed to delete temporary tiles {}: {}", directory, ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Describes the pyramid of {@code fileName}: its levels, its size at the
+     * deepest one and where its tiles are.
+     */
+    public IndoorTileset getTileset(String fileName) {
+        IndoorAsset asset = tileableAsset(fileName);
+        IndoorTilePyramid pyramid = pyramid(asset, true);
+        String name = pyramid.directory().getFileName().toString();
+        return new IndoorTileset(fileName, name.substring(name.length() - 16), !name.equals(pyramidName(asset)),
+                pyramid.tileSize(), 0, pyramid.maxZoom(), pyramid.width(), pyramid.height(),
+                "/api/indoor/assets/" + fileName + "/tiles/{z}/{x}/{y}.png");
+    }
+
+    /**
+     * Returns tile {@code zoom/x/y} of {@code fileName} as an asset to send,
+     * tagged by the pyramid it comes from.
+     */
+    public IndoorAsset getTile(String fileName, int zoom, int x, int y) {
+        IndoorAsset asset = tileableAsset(fileName);
+        IndoorTilePyramid pyramid = pyramid(asset, true);
+        Path tile = pyramid.tile(zoom, x, y);
+        if (tile == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "Tile " + zoom + "/" + x + "/" + y + " of " + fileName + " not found");
+        }
+        String etag = IndoorContentTags.tag("tile", pyramid.directory().getFileName().toString(),
+                Integer.toString(zoom), Integer.toString(x), Integer.toString(y));
+        try {
+            // Opened now, so the response survives the pyramid being replaced before it is sent.
+            FileChannel channel = FileChannel.open(tile, StandardOpenOption.READ);
+            return new IndoorAsset(fileName, "image/png", etag, pyramid.created(),
+                    IndoorAsset.Representation.opened(tile, channel), Map.of());
+        } catch (IOException ex) {
+            // The stale pyramid was replaced between lookup and read.
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Tiles of " + fileName + " were just regenerated; retry");
+        }
+    }
+
+    public long getGenerationCount() {
+        return generations.get();
+    }
+
+    /**
+     * The pyramid to serve for {@code asset}: its current one when ready,
+     * otherwise the newest older one while the current one is generated.
+     * With neither, waits for the generation when {@code wait} is set and
+     * returns {@code null} otherwise.
+     */
+    private IndoorTilePyramid pyramid(IndoorAsset asset, boolean wait) {
+        String name = pyramidName(asset);
+        IndoorTilePyramid known = served.get(asset.fileName());
+        if (known != null && known.directory().getFileName().toString().equals(name)) {
+            return known;
+        }
+
+        // Generated before a restart.
+        IndoorTilePyramid stored = open(tilesDir().resolve(name));
+        if (stored != null) {
+            adopt(asset.fileName(), stored);
+            return stored;
+        }
+
+        CompletableFuture<IndoorTilePyramid> pending = generate(asset, name);
+        IndoorTilePyramid stale = known != null ? known : newestStored(asset.fileName());
+        if (stale != null) {
+            served.putIfAbsent(asset.fileName(), stale);
+            return stale;
+        }
+        if (!wait) {
+            return null;
+        }
+
+        try {
+            return pending.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Tiles of " + asset.fileName() + " are being generated; retry shortly");
+        } catch (ExecutionException ex) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                    "Failed to generate tiles of " + asset.fileName(), ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Tile generation was interrupted");
+        }
+    }
+
+    private CompletableFuture<IndoorTilePyramid> generate(IndoorAsset asset, String name) {
+        CompletableFuture<IndoorTilePyramid> pending = inFlight.computeIfAbsent(name,
+                ignored -> CompletableFuture.supplyAsync(() -> build(asset, name), generator));
+        pending.whenComplete((pyramid, failure) -> {
+            inFlight.remove(name, pending);
+            if (failure != null) {
+                logger.error("Failed to generate tiles of {}: {}", asset.fileName(), failure.getMessage());
+            }
+        });
+        return pending;
+    }
+
+    private IndoorTilePyramid build(IndoorAsset asset, String name) {
+        long started = System.nanoTime();
+        try {
+            IndoorTilePyramid pyramid = IndoorTilePyramid.build(tilesDir().resolve(name), source(asset), tileSize,
+                    scaleOf(asset), maxZoom);
+            generations.incrementAndGet();
+            adopt(asset.fileName(), pyramid);
+            logger.info("Generated {} tiles of {} at zoom 0-{} ({}x{} px) in {} ms", tileCount(pyramid),
+                    asset.fileName(), pyramid.maxZoom(), pyramid.width(), pyramid.height(),
+                    (System.nanoTime() - started) / 1_000_000);
+            return pyramid;
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Serves {@code pyramid} for {@code fileName} from now on and deletes
+     * the pyramids of its older sources.
+     */
+    private void adopt(String fileName, IndoorTilePyramid pyramid) {
+        served.put(fileName, pyramid);
+        for (Path other : storedPyramids(fileName)) {
+            if (!other.equals(pyramid.directory())) {
+                try {
+                    IndoorTilePyramid.deleteRecursively(other);
+                } catch (IOException ex) {
+                    logger.warn("Failed to delete old tiles {}: {}", other.getFileName(), ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private IndoorTilePyramid newestStored(String fileName) {
+        return storedPyramids(fileName).stream()
+                .map(this::open)
+                .filter(Objects::nonNull)
+                .max(Comparator.comparingLong(IndoorTilePyramid::created))
+                .orElse(null);
+    }
+
+    private List<Path> storedPyramids(String fileName) {
+        Path directory = tilesDir();
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> entries = Files.list(directory)) {
+            return entries.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(fileName)
+                        && PYRAMID_SUFFIX.matcher(name.substring(fileName.length())).matches();
+            }).toList();
+        } catch (IOException ex) {
+            logger.warn("Failed to list tiles in {}: {}", directory, ex.getMessage());
+            return List.of();
+        }
+    }
+
+    private IndoorTilePyramid open(Path directory) {
+        try {
+            return IndoorTilePyramid.open(directory);
+        } catch (IOException ex) {
+            logger.warn("Ignoring unreadable tiles {}: {}", directory.getFileName(), ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The directory name of the pyramid for the current source of
+     * {@code asset} under the current tiling settings.
+     */
+    private String pyramidName(IndoorAsset asset) {
+        String tag = IndoorContentTags.tag(FORMAT, sourceOf(asset).etag(), Integer.toString(tileSize),
+                Integer.toString(maxZoom), Double.toString(scaleOf(asset)));
+        return asset.fileName() + "-" + tag.substring(1, 17);
+    }
+
+    private IndoorTilePyramid.Source source(IndoorAsset asset) throws IOException {
+        Path path = sourceOf(asset).identity().path();
+        if (isSvg(asset)) {
+            IndoorSvgRasterizer svg = IndoorSvgRasterizer.parse(Files.readAllBytes(path));
+            return new DrawnSource(svg.width(), svg.height(), svg::render);
+        }
+        BufferedImage image = ImageIO.read(path.toFile());
+        if (image == null) {
+            throw new IOException("Unsupported image format: " + asset.fileName());
+        }
+        return new DrawnSource(image.getWidth(), image.getHeight(), graphics -> {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, null);
+        });
+    }
+
+    private record DrawnSource(double width, double height, Consumer<Graphics2D> painter)
+            implements IndoorTilePyramid.Source {
+
+        @Override
+        public void draw(Graphics2D graphics) {
+            painter.accept(graphics);
+        }
+    }
+
+    /**
+     * SVGs are drawn larger than their nominal size so zooming in stays sharp;
+     * raster plans stop at their own pixels.
+     */
+    private double scaleOf(IndoorAsset asset) {
+        return isSvg(asset) ? svgScale : 1.0;
+    }
+
+    /**
+     * The stored file, before any optimization, which is what gets drawn.
+     */
+    private static IndoorAsset sourceOf(IndoorAsset asset) {
+        return asset.raw() != null ? asset.raw() : asset;
+    }
+
+    private IndoorAsset tileableAsset(String fileName) {
+        IndoorAsset asset = dataService.getAsset(fileName);
+        if (!isTileable(asset)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Indoor asset " + fileName + " has no tiles");
+        }
+        return asset;
+    }
+
+    private static boolean isTileable(IndoorAsset asset) {
+        String contentType = asset.contentType().toLowerCase(Locale.ROOT);
+        return isSvg(asset) || contentType.equals("image/png") || contentType.equals("image/jpeg");
+    }
+
+    private static boolean isSvg(IndoorAsset asset) {
+        return asset.contentType().toLowerCase(Locale.ROOT).contains("svg");
+    }
+
+    private static long tileCount(IndoorTilePyramid pyramid) {
+        long count = 0;
+        for (int zoom = 0; zoom <= pyramid.maxZoom(); zoom++) {
+            count += (long) pyramid.columns(zoom) * pyramid.rows(zoom);
+        }
+        return count;
+    }
+
+    private Path tilesDir() {
+        Path current = tilesDir;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (tilesDir == null) {
+                try {
+                    tilesDir = configuredDir != null ? configuredDir : Files.createTempDirectory("indoor-tiles");
+                } catch (IOException ex) {
+                    throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                            "Failed to create the floor-plan tile directory", ex);
+                }
+            }
+            return tilesDir;
+        }
+    }
+
+    private static ThreadFactory generatorThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "indoor-tiles-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            // Tiling is background work; requests come first.
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        };
+    }
+}
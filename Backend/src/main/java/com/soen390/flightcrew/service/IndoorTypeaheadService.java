@@ -0,0 +1,181 @@
+package com.soen390.flightcrew.service;
+
+import com.soen390.flightcrew.model.IndoorBuildingData;
+import com.soen390.flightcrew.model.IndoorNode;
+import com.soen390.flightcrew.model.IndoorPointOfInterest;
+import com.soen390.flightcrew.model.IndoorSuggestion;
+import com.soen390.flightcrew.service.indoor.IndoorSnapshot;
+import com.soen390.flightcrew.service.indoor.IndoorTypeaheadTrie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Top-k search-as-you-type suggestions over every room of the indoor snapshot
+ * and every entry of the POI catalogue. Suggestions are served from an
+ * {@link IndoorTypeaheadTrie} built once per snapshot version; queries that
+ * prefer a building or floor are additionally kept in a small LRU cache, so
+ * the short prefixes every user types first are answered without ranking a
+ * large subtree again.
+ */
+@Service
+public class IndoorTypeaheadService {
+
+    public static final int MAX_LIMIT = 20;
+
+    private static final Logger logger = LoggerFactory.getLogger(IndoorTypeaheadService.class);
+
+    private final IndoorNavigationDataService dataService;
+    private final IndoorPoiService poiService;
+    private final int cacheSize;
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    private volatile Index index;
+
+    public IndoorTypeaheadService(IndoorNavigationDataService dataService, IndoorPoiService poiService,
+            @Value("${app.indoor.typeahead.cache-size:500}") int cacheSize) {
+        this.dataService = dataService;
+        this.poiService = poiService;
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Returns up to {@code limit} suggestions for {@code query}: label prefixes
+     * before matches on a later word, and within each, suggestions in
+     * {@code buildingId} and then on {@code floor} first, when given.
+     *
+     * @param buildingId indoor building id or POI building code to prefer; may be blank
+     * @param floor      floor to prefer; may be {@code null}
+     */
+    public List<IndoorSuggestion> suggest(String query, String buildingId, Integer floor, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+
+        Index current = currentIndex();
+        String buildingKey = buildingId == null || buildingId.isBlank() ? null : buildingKey(buildingId);
+        if (buildingKey == null && floor == null) {
+            return current.trie.top(query, limit);
+        }
+
+        CacheKey key = new CacheKey(query.trim().toLowerCase(Locale.ROOT), buildingKey, floor, limit);
+        List<IndoorSuggestion> cached = current.get(key);
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            return cached;
+        }
+        List<IndoorSuggestion> computed = List.copyOf(current.trie.search(query, buildingKey, floor, limit));
+        current.put(key, computed);
+        return computed;
+    }
+
+    public long getCacheHitCount() {
+        return cacheHits.get();
+    }
+
+    private Index currentIndex() {
+        IndoorSnapshot snapshot = dataService.getSnapshot();
+        Index current = index;
+        if (current != null && current.version == snapshot.getVersion()) {
+            return current;
+        }
+        synchronized (this) {
+            if (index == null || index.version != snapshot.getVersion()) {
+                index = build(snapshot);
+            }
+            return index;
+        }
+    }
+
+    private Index build(IndoorSnapshot snapshot) {
+        long started = System.nanoTime();
+        List<IndoorSuggestion> suggestions = new ArrayList<>();
+        List<String> buildingKeys = new ArrayList<>();
+
+        snapshot.getSources().forEach((fileName, source) -> {
+            String buildingId = source.getBuildingId();
+            IndoorBuildingData data = snapshot.getFiles().get(fileName);
+            if (buildingId == null || data.getNodes() == null) {
+                return;
+            }
+            for (IndoorNode node : data.getNodes()) {
+                if (node != null && "room".equalsIgnoreCase(node.getType())
+                        && node.getLabel() != null && !node.getLabel().isBlank()) {
+                    suggestions.add(new IndoorSuggestion("room", node.getId(), node.getLabel(), buildingId,
+                            node.getFloor(), null));
+                    buildingKeys.add(buildingKey(buildingId));
+                }
+            }
+        });
+
+        for (List<IndoorPointOfInterest> pois : poiService.getAllIndoorPois().values()) {
+            for (IndoorPointOfInterest poi : pois) {
+                if (poi.getName() != null && !poi.getName().isBlank() && poi.getBuildingCode() != null) {
+                    suggestions.add(new IndoorSuggestion("poi", poi.getId(), poi.getName(), poi.getBuildingCode(),
+                            poi.getFloor(), poi.getCategory()));
+                    buildingKeys.add(buildingKey(poi.getBuildingCode()));
+                }
+            }
+        }
+
+        IndoorTypeaheadTrie trie = IndoorTypeaheadTrie.build(suggestions, buildingKeys, MAX_LIMIT);
+        logger.info("Built indoor typeahead trie for snapshot v{}: {} suggestions, {} nodes in {} ms",
+                snapshot.getVersion(), trie.size(), trie.nodeCount(), (System.nanoTime() - started) / 1_000_000);
+        return new Index(snapshot.getVersion(), trie, cacheSize);
+    }
+
+    /**
+     * Rooms and POIs of one building rank together under the POI catalogue's
+     * code for it, so "Hall" and "H" prefer the same suggestions.
+     */
+    private static String buildingKey(String buildingId) {
+        return IndoorPoiService.buildingCodeOf(buildingId).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The trie of one snapshot version with its own result cache, so a reload
+     * drops every cached suggestion along with the trie.
+     */
+    private static final class Index {
+
+        private final long version;
+        private final IndoorTypeaheadTrie trie;
+        private final Map<CacheKey, List<IndoorSuggestion>> cache;
+
+        private Index(long version, IndoorTypeaheadTrie trie, int capacity) {
+            this.version = version;
+            this.trie = trie;
+            this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<CacheKey, List<IndoorSuggestion>> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        synchronized List<IndoorSuggestion> get(CacheKey key) {
+            return cache.get(key);
+        }
+
+        synchronized void put(CacheKey key, List<IndoorSuggestion> suggestions) {
+            cache.put(key, suggestions);
+        }
+    }
+
+    private record CacheKey(String query, String buildingKey, Integer floor, int limit) {
+    }
+}
@@ -0,0 +1,124 @@
+package com.soen390.flightcrew.service.indoor;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap over dense node indices with O(log n) decrease-key. Each node
+ * appears at most once, so a search never enqueues stale duplicates and never
+ * allocates per relaxation.
+ */
+public final class IndexedMinHeap {
+
+    private int[] heap;
+    private int[] priority;
+    private int[] position;
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        priority = new int[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * Grows the heap so it can hold node indices up to {@code capacity - 1}.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity <= position.length) {
+            return;
+        }
+        int previous = position.length;
+        heap = Arrays.copyOf(heap, capacity);
+        priority = Arrays.copyOf(priority, capacity);
+        position = Arrays.copyOf(position, capacity);
+        Arrays.fill(position, previous, capacity, -1);
+    }
+
+    /**
+     * Empties the heap. Costs O(size), not O(capacity).
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Inserts a node, or lowers its priority if it is already queued with a
+     * higher one.
+     */
+    public void offer(int node, int nodePriority) {
+        int index = position[node];
+        if (index < 0) {
+            index = size++;
+            heap[index] = node;
+            position[node] = index;
+        } else if (nodePriority >= priority[node]) {
+            return;
+        }
+        priority[node] = nodePriority;
+        siftUp(index);
+    }
+
+    /**
+     * Removes and returns the node with the lowest priority.
+     */
+    public int poll() {
+        int top = heap[0];
+        position[top] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            position[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int index) {
+        int node = heap[index];
+        int nodePriority = priority[node];
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            int parent = heap[parentIndex];
+            if (priority[parent] <= nodePriority) {
+                break;
+            }
+            heap[index] = parent;
+            position[parent] = index;
+            index = parentIndex;
+        }
+        heap[index] = node;
+        position[node] = index;
+    }
+
+    private void siftDown(int index) {
+        int node = heap[index];
+        int nodePriority = priority[node];
+        int half = size >>> 1;
+        while (index < half) {
+            int childIndex = 2 * index + 1;
+            int child = heap[childIndex];
+            int rightIndex = childIndex + 1;
+            if (rightIndex < size && priority[heap[rightIndex]] < priority[child]) {
+                childIndex = rightIndex;
+                child = heap[childIndex];
+            }
+            if (nodePriority <= priority[child]) {
+                break;
+            }
+            heap[index] = child;
+            position[child] = index;
+            index = childIndex;
+        }
+        heap[index] = node;
+        position[node] = index;
+    }
+}
@@ -0,0 +1,164 @@
+package com.soen390.flightcrew.service.indoor;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One floor-plan asset as recorded by the {@link IndoorAssetRegistry}: its
+ * content type, a strong entity tag over its bytes, and every file it can be
+ * sent from, the plain file plus any precompressed copy keyed by content
+ * coding ({@code "br"}, {@code "gzip"}). An optimized asset keeps the record
+ * of the file it was optimized from as {@code raw}; it is {@code null} for
+ * assets served as stored.
+ */
+public record IndoorAsset(String fileName, String contentType, String etag, long lastModified,
+        Representation identity, Map<String, Representation> encodings, IndoorAsset raw) {
+
+    // Codings in order of preference when a client accepts several.
+    private static final String[] PREFERRED_CODINGS = { "br", "gzip" };
+
+    public IndoorAsset(String fileName, String contentType, String etag, long lastModified,
+            Representation identity, Map<String, Representation> encodings) {
+        this(fileName, contentType, etag, lastModified, identity, encodings, null);
+    }
+
+    /**
+     * A file holding the asset, with the content coding it is stored in
+     * ({@code null} for the plain bytes). A file that may be deleted once
+     * handed out, such as a cache entry, comes with a {@code channel} opened
+     * before that could happen; whoever sends the representation reads it
+     * from there and closes it. Files that stay put have none.
+     */
+    public record Representation(String coding, Path path, long length, FileChannel channel) {
+
+        public Representation(String coding, Path path, long length) {
+            this(coding, path, length, null);
+        }
+
+        /**
+         * The plain bytes of {@code path}, already open on {@code channel}.
+         */
+        public static Representation opened(Path path, FileChannel channel) throws IOException {
+            return new Representation(null, path, channel.size(), channel);
+        }
+    }
+
+    /**
+     * A single byte range {@code start..end} (inclusive) of a representation.
+     */
+    public record ByteRange(long start, long end) {
+
+        /**
+         * Marks a {@code Range} header that is well formed but selects no byte
+         * of the representation; answered with 416.
+         */
+        public static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+        public long length() {
+            return end - start + 1;
+        }
+
+        /**
+         * Parses a {@code Range} header against a representation of
+         * {@code length} bytes. Returns {@code null} when the whole
+         * representation should be sent instead: no header, another unit,
+         * several ranges, or a malformed value.
+         */
+        public static ByteRange parse(String header, long length) {
+            if (header == null || !header.regionMatches(true, 0, "bytes=", 0, 6) || header.indexOf(',') >= 0) {
+                return null;
+            }
+            String spec = header.substring(6).trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                String first = spec.substring(0, dash).trim();
+                String last = spec.substring(dash + 1).trim();
+                if (first.isEmpty()) {
+                    // Suffix range: the final N bytes.
+                    long suffix = Long.parseLong(last);
+                    if (suffix <= 0 || length == 0) {
+                        return UNSATISFIABLE;
+                    }
+                    return new ByteRange(Math.max(0, length - suffix), length - 1);
+                }
+                long start = Long.parseLong(first);
+                long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+                if (start < 0 || (!last.isEmpty() && Long.parseLong(last) < start)) {
+                    return null;
+                }
+                return start < length ? new ByteRange(start, end) : UNSATISFIABLE;
+            } catch (NumberFormatException ex) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * The representation to send for an {@code Accept-Encoding} header:
+     * Brotli before gzip when both are stored and acceptable, and the plain
+     * file otherwise.
+     */
+    public Representation negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank() || encodings.isEmpty()) {
+            return identity;
+        }
+        for (String coding : PREFERRED_CODINGS) {
+            Representation stored = encodings.get(coding);
+            if (stored != null && accepts(acceptEncoding, coding)) {
+                return stored;
+            }
+        }
+        return identity;
+    }
+
+    /**
+     * The entity tag of one representation; each coding gets its own so a
+     * cache never confuses compressed and plain bytes.
+     */
+    public String etagOf(Representation representation) {
+        if (representation.coding() == null) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + '-' + representation.coding() + '"';
+    }
+
+    /**
+     * Whether {@code coding} is listed, or covered by {@code *}, with a
+     * non-zero quality.
+     */
+    private static boolean accepts(String acceptEncoding, String coding) {
+        Boolean wildcard = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean acceptable = quality(parts) > 0;
+            if (name.equals(coding)) {
+                return acceptable;
+            }
+            if (name.equals("*")) {
+                wildcard = acceptable;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,348 @@
+package com.soen390.flightcrew.service.indoor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Every floor-plan asset, indexed once so requests never touch the filesystem
+ * to find, size or type a file. Assets come from the asset directory and then
+ * from the classpath for names the directory does not have; classpath entries
+ * that are not plain files (inside a jar) are copied to the cache directory so
+ * every asset can be sent straight from a {@link FileChannel}.
+ *
+ * <p>
+ * A {@code name.br} or {@code name.gz} file next to an asset is recorded as its
+ * precompressed copy rather than as an asset of its own. When a cache
+ * directory is configured, text assets without a gzip sibling get one written
+ * there, keyed by their content hash, when it is smaller than the original.
+ * SVGs are also run through the {@link IndoorSvgOptimizer}, if one is given:
+ * the optimized copy and its gzip are cached there by source hash and
+ * optimizer key, and become the asset, with the stored file kept as its raw
+ * form.
+ *
+ * <p>
+ * Representations point at the files themselves, so a registry only holds
+ * while its files are unchanged; the owner builds a new one when they change
+ * rather than updating this one.
+ */
+public final class IndoorAssetRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndoorAssetRegistry.class);
+
+    private static final Map<String, String> SIBLING_CODINGS = Map.of(".br", "br", ".gz", "gzip");
+
+    private final Map<String, IndoorAsset> assets;
+    // Names of the assets found in the asset directory rather than on the classpath.
+    private final Set<String> storedFileNames;
+
+    private IndoorAssetRegistry(Map<String, IndoorAsset> assets, Set<String> storedFileNames) {
+        this.assets = assets;
+        this.storedFileNames = storedFileNames;
+    }
+
+    /**
+     * Indexes the assets of {@code directory} and of {@code classpathLocation}.
+     *
+     * @param cacheDir     where extracted and compressed copies are written;
+     *                     when {@code null}, nothing is compressed and jar
+     *                     entries are extracted to a temporary directory
+     * @param contentTypes content type of an asset by file name
+     * @param optimizer    optimizer for SVG assets; {@code null} serves them as stored
+     */
+    public static IndoorAssetRegistry build(Path directory, String classpathLocation, Path cacheDir,
+            Function<String, String> contentTypes, IndoorSvgOptimizer optimizer) throws IOException {
+        long started = System.nanoTime();
+        CacheDirectory cache = new CacheDirectory(cacheDir);
+
+        Map<String, Path> files = new TreeMap<>();
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> listed = Files.list(directory)) {
+                listed.filter(Files::isRegularFile)
+                        .forEach(path -> files.put(path.getFileName().toString(), path));
+            }
+        }
+        Set<String> stored = new TreeSet<>(files.keySet());
+        for (Resource resource : new PathMatchingResourcePatternResolver()
+                .getResources("classpath*:" + classpathLocation + "/*")) {
+            String name = resource.getFilename();
+            if (name != null && !name.isEmpty() && !files.containsKey(name) && resource.isReadable()) {
+                files.put(name, resource.isFile() ? resource.getFile().toPath() : cache.extract(name, resource));
+            }
+        }
+
+        Map<String, IndoorAsset> indexed = new LinkedHashMap<>();
+        for (Map.Entry<String, Path> file : files.entrySet()) {
+            String name = file.getKey();
+            if (isSibling(name, files)) {
+                continue;
+            }
+            String contentType = contentTypes.apply(name);
+            IndoorAsset asset = index(name, file.getValue(), files, cache, contentType);
+            if (optimizer != null && contentType.toLowerCase(Locale.ROOT).contains("svg")) {
+                asset = optimized(asset, cache, optimizer);
+            }
+            indexed.put(name, asset);
+        }
+
+        logger.info("Indexed {} indoor assets ({} optimized, {} precompressed copies) in {} ms", indexed.size(),
+                indexed.values().stream().filter(asset -> asset.raw() != null).count(),
+                indexed.values().stream().mapToInt(asset -> asset.encodings().size()).sum(),
+                (System.nanoTime() - started) / 1_000_000);
+        stored.retainAll(indexed.keySet());
+        return new IndoorAssetRegistry(Map.copyOf(indexed), Collections.unmodifiableSet(stored));
+    }
+
+    /**
+     * The asset named {@code fileName}, or {@code null}.
+     */
+    public IndoorAsset get(String fileName) {
+        return assets.get(fileName);
+    }
+
+    public int size() {
+        return assets.size();
+    }
+
+    /**
+     * Names of every indexed asset.
+     */
+    public Set<String> fileNames() {
+        return assets.keySet();
+    }
+
+    /**
+     * Names of the assets read from the asset directory, in name order,
+     * leaving out classpath fallbacks.
+     */
+    public Set<String> storedFileNames() {
+        return storedFileNames;
+    }
+
+    /**
+     * Writes {@code count} bytes of {@code path} from {@code position} to
+     * {@code out}. {@code out} is a plain stream rather than a socket or file
+     * channel, so {@link FileChannel#transferTo} copies through a buffer here
+     * instead of handing the copy to the kernel; the controller uses the
+     * container's sendfile support where it can do better.
+     */
+    public static void transfer(Path path, long position, long count, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            transfer(channel, position, count, out);
+        } catch (EOFException ex) {
+            throw new EOFException("Unexpected end of " + path.getFileName());
+        }
+    }
+
+    /**
+     * As {@link #transfer(Path, long, long, OutputStream)}, from a channel the
+     * caller already holds open.
+     */
+    public static void transfer(FileChannel channel, long position, long count, OutputStream out)
+            throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        long sent = 0;
+        while (sent < count) {
+            long written = channel.transferTo(position + sent, count - sent, target);
+            if (written <= 0) {
+                throw new EOFException("Unexpected end of file");
+            }
+            sent += written;
+        }
+    }
+
+    private static IndoorAsset index(String name, Path path, Map<String, Path> files, CacheDirectory cache,
+            String contentType) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        String hash = HexFormat.of().formatHex(IndoorBinaryFormat.sourceHash(bytes));
+
+        Map<String, IndoorAsset.Representation> encodings = new HashMap<>();
+        SIBLING_CODINGS.forEach((suffix, coding) -> {
+            Path sibling = files.get(name + suffix);
+            if (sibling != null) {
+                encodings.put(coding, representation(coding, sibling));
+            }
+        });
+        if (!encodings.containsKey("gzip") && isCompressible(contentType)) {
+            Path gzip = cache.gzip(name, hash, bytes);
+            if (gzip != null) {
+                encodings.put("gzip", representation("gzip", gzip));
+            }
+        }
+
+        return new IndoorAsset(name, contentType, IndoorContentTags.tag("asset", hash),
+                Files.getLastModifiedTime(path).toMillis(),
+                new IndoorAsset.Representation(null, path, bytes.length), Map.copyOf(encodings));
+    }
+
+    /**
+     * The optimized form of an SVG asset, read from the cache directory when
+     * the same source was optimized with the same settings before, and the
+     * asset itself when optimizing fails or saves nothing.
+     */
+    private static IndoorAsset optimized(IndoorAsset raw, CacheDirectory cache, IndoorSvgOptimizer optimizer) {
+        String name = raw.fileName();
+        try {
+            byte[] source = Files.readAllBytes(raw.identity().path());
+            String sourceHash = HexFormat.of().formatHex(IndoorBinaryFormat.sourceHash(source));
+            Path target = cache.optimizedPath(name, sourceHash, optimizer.key());
+            if (target == null) {
+                return raw;
+            }
+
+            byte[] optimized;
+            if (Files.isRegularFile(target)) {
+                optimized = Files.readAllBytes(target);
+            } else {
+                long started = System.nanoTime();
+                optimized = optimizer.optimize(source);
+                if (optimized.length >= source.length) {
+                    return raw;
+                }
+                cache.write(target, optimized);
+                logger.info("Optimized indoor asset {}: {} -> {} bytes in {} ms", name, source.length,
+                        optimized.length, (System.nanoTime() - started) / 1_000_000);
+            }
+
+            String hash = HexFormat.of().formatHex(IndoorBinaryFormat.sourceHash(optimized));
+            Map<String, IndoorAsset.Representation> encodings = new HashMap<>();
+            Path gzip = cache.gzip(name, hash, optimized);
+            if (gzip != null) {
+                encodings.put("gzip", representation("gzip", gzip));
+            }
+            return new IndoorAsset(name, raw.contentType(), IndoorContentTags.tag("asset", hash),
+                    raw.lastModified(), new IndoorAsset.Representation(null, target, optimized.length),
+                    Map.copyOf(encodings), raw);
+        } catch (IOException ex) {
+            logger.warn("Serving indoor asset {} unoptimized: {}", name, ex.getMessage());
+            return raw;
+        }
+    }
+
+    private static IndoorAsset.Representation representation(String coding, Path path) {
+        try {
+            return new IndoorAsset.Representation(coding, path, Files.size(path));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to size " + path, ex);
+        }
+    }
+
+    private static boolean isSibling(String name, Map<String, Path> files) {
+        for (String suffix : SIBLING_CODINGS.keySet()) {
+            if (name.endsWith(suffix) && files.containsKey(name.substring(0, name.length() - suffix.length()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCompressible(String contentType) {
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/") || type.contains("svg") || type.contains("json") || type.contains("xml");
+    }
+
+    /**
+     * The directory extracted and compressed copies are written to, created
+     * on first use.
+     */
+    private static final class CacheDirectory {
+
+        private final Path configured;
+        private Path resolved;
+
+        private CacheDirectory(Path configured) {
+            this.configured = configured;
+        }
+
+        private Path get() throws IOException {
+            if (resolved == null) {
+                resolved = configured != null
+                        ? Files.createDirectories(configured)
+                        : Files.createTempDirectory("indoor-assets");
+            }
+            return resolved;
+        }
+
+        /**
+         * Where the optimized copy of a source is cached, or {@code null}
+         * when no cache directory is configured.
+         */
+        Path optimizedPath(String name, String sourceHash, String key) throws IOException {
+            return configured != null ? get().resolve(name + "." + sourceHash.substring(0, 16) + "." + key) : null;
+        }
+
+        void write(Path target, byte[] bytes) throws IOException {
+            Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        Path extract(String name, Resource resource) throws IOException {
+            Path target = get().resolve(name);
+            try (InputStream in = resource.getInputStream()) {
+                Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return target;
+        }
+
+        /**
+         * A gzip copy of {@code bytes}, reused when one was written for the
+         * same content before; {@code null} when it would not be smaller,
+         * cannot be written, or no cache directory is configured.
+         */
+        Path gzip(String name, String hash, byte[] bytes) {
+            if (configured == null) {
+                return null;
+            }
+            try {
+                Path target = get().resolve(name + "." + hash.substring(0, 16) + ".gz");
+                if (Files.isRegularFile(target)) {
+                    return target;
+                }
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+                try (GZIPOutputStream out = new GZIPOutputStream(compressed) {
+                    {
+                        def.setLevel(Deflater.BEST_COMPRESSION);
+                    }
+                }) {
+                    out.write(bytes);
+                }
+                if (compressed.size() >= bytes.length) {
+                    return null;
+                }
+                write(target, compressed.toByteArray());
+                return target;
+            } catch (IOException ex) {
+                logger.warn("Failed to precompress indoor asset {}: {}", name, ex.getMessage());
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,623 @@
+package com.soen390.flightcrew.service.indoor;
+
+import com.soen390.flightcrew.model.IndoorBuildingData;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary encoding of one building file, used as a cache in front of the
+ * JSON sources. JSON stays the authoring format; the binary copy is written the
+ * first time a file is parsed and reused for as long as the JSON it was built
+ * from is unchanged. Files are replaced by an atomic rename, never rewritten in
+ * place, since earlier snapshots may still map them, and are read through a
+ * read-only memory map, in place: the node and edge stores and the compiled
+ * graphs returned by {@link #read} are views over the mapped columns, so their
+ * data lives in the page cache, shared by every process that maps the file,
+ * and only the few strings a request touches are decoded onto the heap.
+ *
+ * <p>
+ * The header records the size, modification time and SHA-256 of the source
+ * together with the file's {@link IndoorFileManifest}, so a warm start can
+ * index a file from {@link #readHeader} without reading or hashing its JSON.
+ *
+ * <p>
+ * Layout, all big-endian, every column starting on an 8-byte boundary:
+ * <ol>
+ * <li>header: magic, format version, source size, modification time and hash,
+ * the manifest, then a CRC-32 of the header;</li>
+ * <li>string table: count, {@code count + 1} byte offsets and the UTF-8 bytes;
+ * every string below is an index into it, {@code -1} meaning
+ * {@code null};</li>
+ * <li>meta: entry count, then key and value indices;</li>
+ * <li>node columns in the layout of {@link IndoorNodeStore}: flags, ids, x, y,
+ * floor, the type and building tables with their codes, labels;</li>
+ * <li>edge columns in the layout of {@link IndoorEdgeStore}, in file
+ * order;</li>
+ * <li>the graph: node ids, store positions and the id lookup table, then for
+ * the default and step-free graphs the CSR offsets, targets, weights, edge
+ * positions and accessibility, the components and the heuristic
+ * calibration;</li>
+ * <li>a CRC-32 of everything before it.</li>
+ * </ol>
+ */
+public final class IndoorBinaryFormat {
+
+    public static final int MAGIC = 0x49474250; // "IGBP"
+    public static final int VERSION = 2;
+    public static final int HASH_LENGTH = 32;
+
+    private static final int ALIGNMENT = Long.BYTES;
+
+    private IndoorBinaryFormat() {
+    }
+
+    /**
+     * What a compiled file was built from: the source's size, modification
+     * time in nanoseconds and SHA-256.
+     */
+    public record SourceKey(long size, long lastModified, byte[] hash) {
+
+        public static SourceKey of(BasicFileAttributes attributes, byte[] hash) {
+            return new SourceKey(attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS), hash);
+        }
+
+        /**
+         * Whether a file with these attributes still has the size and
+         * modification time recorded here.
+         */
+        public boolean matches(BasicFileAttributes attributes) {
+            return attributes.size() == size
+                    && attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS) == lastModified;
+        }
+    }
+
+    /**
+     * The header of a compiled file.
+     *
+     * @param source   the source the file was built from
+     * @param manifest the source's manifest, tagged with its hash
+     */
+    public record Header(SourceKey source, IndoorFileManifest manifest) {
+    }
+
+    /**
+     * SHA-256 of a JSON source, recorded in the header to detect stale files.
+     */
+    public static byte[] sourceHash(byte[] source) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(source);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    /**
+     * Encodes {@code data}, read from the file {@code fileName}, and atomically
+     * replaces {@code target} with it.
+     */
+    public static void write(IndoorBuildingData data, String fileName, SourceKey source, Path target)
+            throws IOException {
+        byte[] encoded = encode(data, fileName, source);
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, encoded);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Reads only the header of {@code compiled}. Returns {@code null} when the
+     * file does not exist or is of another format version.
+     *
+     * @throws IOException if the header is truncated or fails its checksum
+     */
+    public static Header readHeader(Path compiled) throws IOException {
+        if (!Files.isRegularFile(compiled)) {
+            return null;
+        }
+        return decodeHeader(map(compiled));
+    }
+
+    /**
+     * Maps {@code compiled} and returns views over its columns. Returns
+     * {@code null} when the file does not exist or was built from a different
+     * source hash or format version.
+     *
+     * @throws IOException if the file is truncated or fails its checksum
+     */
+    public static IndoorCompiledFile read(Path compiled, byte[] expectedHash) throws IOException {
+        if (!Files.isRegularFile(compiled)) {
+            return null;
+        }
+        return decode(map(compiled), expectedHash);
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        // The mapping stays valid once the channel is closed.
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    static byte[] encode(IndoorBuildingData data, String fileName, SourceKey source) throws IOException {
+        if (source.hash().length != HASH_LENGTH) {
+            throw new IllegalArgumentException("Source hash must be " + HASH_LENGTH + " bytes");
+        }
+
+        Map<String, String> meta = data.getMeta() != null ? data.getMeta() : Map.of();
+        IndoorNodeStore nodes = IndoorNodeStore.of(data.getNodes());
+        IndoorEdgeStore edges = IndoorEdgeStore.of(data.getEdges());
+        IndoorGraph graph = IndoorGraph.compile(nodes, edges);
+        IndoorGraph accessibleGraph = graph.accessibleSubgraph();
+        IndoorFileManifest manifest = IndoorFileManifest.of(fileName, data);
+        IndoorStringTable.Builder strings = new IndoorStringTable.Builder();
+
+        int[] metaKeys = new int[meta.size()];
+        int[] metaValues = new int[meta.size()];
+        int m = 0;
+        for (Map.Entry<String, String> entry : meta.entrySet()) {
+            metaKeys[m] = strings.index(entry.getKey());
+            metaValues[m++] = strings.index(entry.getValue());
+        }
+
+        int nodeCount = nodes.size();
+        byte[] nodeFlags = new byte[nodeCount];
+        int[] ids = new int[nodeCount];
+        double[] xs = new double[nodeCount];
+        double[] ys = new double[nodeCount];
+        short[] floors = new short[nodeCount];
+        int[] typeCodes = new int[nodeCount];
+        int[] buildingCodes = new int[nodeCount];
+        int[] labels = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodeFlags[i] = nodes.flags(i);
+            ids[i] = strings.index(nodes.id(i));
+            xs[i] = nodes.x(i);
+            ys[i] = nodes.y(i);
+            floors[i] = (short) nodes.floor(i);
+            typeCodes[i] = nodes.typeCode(i);
+            buildingCodes[i] = nodes.buildingCode(i);
+            labels[i] = strings.index(nodes.label(i));
+        }
+        int[] typeTable = indices(strings, nodes.typeTable());
+        int[] buildingTable = indices(strings, nodes.buildingTable());
+
+        int edgeCount = edges.size();
+        byte[] edgeFlags = new byte[edgeCount];
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        int[] edgeTypes = new int[edgeCount];
+        int[] weights = new int[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            edgeFlags[e] = edges.flags(e);
+            sources[e] = strings.index(edges.source(e));
+            targets[e] = strings.index(edges.target(e));
+            edgeTypes[e] = strings.index(edges.type(e));
+            weights[e] = edges.weight(e);
+        }
+
+        int[] idRefs = new int[graph.nodeCount()];
+        for (int v = 0; v < idRefs.length; v++) {
+            idRefs[v] = strings.index(graph.idOf(v));
+        }
+
+        Writer out = new Writer(64 + nodeCount * 48 + edgeCount * 24 + graph.slotCount() * 32);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(source.size());
+        out.writeLong(source.lastModified());
+        out.write(source.hash());
+        out.writeString(manifest.fileName());
+        out.writeString(manifest.buildingId());
+        out.writeInt(manifest.nodeCount());
+        out.writeInt(manifest.edgeCount());
+        out.writeInt(manifest.floorsByNodeBuilding().size());
+        for (Map.Entry<String, List<Integer>> entry : manifest.floorsByNodeBuilding().entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (int floor : entry.getValue()) {
+                out.writeInt(floor);
+            }
+        }
+        out.writeChecksum();
+
+        byte[][] utf8 = new byte[strings.size()][];
+        int[] stringOffsets = new int[strings.size() + 1];
+        for (int i = 0; i < utf8.length; i++) {
+            utf8[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            stringOffsets[i + 1] = stringOffsets[i] + utf8[i].length;
+        }
+        out.writeInt(utf8.length);
+        out.ints(stringOffsets);
+        out.writeInt(stringOffsets[utf8.length]);
+        out.align();
+        for (byte[] value : utf8) {
+            out.write(value);
+        }
+
+        out.writeInt(metaKeys.length);
+        out.ints(metaKeys);
+        out.ints(metaValues);
+
+        out.writeInt(nodeCount);
+        out.bytes(nodeFlags);
+        out.ints(ids);
+        out.doubles(xs);
+        out.doubles(ys);
+        out.shorts(floors);
+        out.codes(typeTable, typeCodes);
+        out.codes(buildingTable, buildingCodes);
+        out.ints(labels);
+
+        out.writeInt(edgeCount);
+        out.bytes(edgeFlags);
+        out.ints(sources);
+        out.ints(targets);
+        out.ints(edgeTypes);
+        out.ints(weights);
+
+        out.writeInt(graph.nodeCount());
+        out.ints(idRefs);
+        out.ints(graph.storeIndexArray());
+        int[] idSlots = graph.idSlotArray();
+        out.writeInt(idSlots.length);
+        out.ints(idSlots);
+        writeGraph(out, graph);
+        writeGraph(out, accessibleGraph);
+
+        out.writeChecksum();
+        return out.toByteArray();
+    }
+
+    private static int[] indices(IndoorStringTable.Builder strings, String[] values) {
+        int[] indices = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            indices[i] = strings.index(values[i]);
+        }
+        return indices;
+    }
+
+    private static void writeGraph(Writer out, IndoorGraph graph) throws IOException {
+        out.ints(graph.offsetArray());
+        out.writeInt(graph.slotCount());
+        out.ints(graph.targetArray());
+        out.ints(graph.weightArray());
+        out.ints(graph.slotEdgeArray());
+        out.bytes(graph.slotAccessibleArray());
+        out.ints(graph.componentArray());
+        out.writeInt(graph.componentCount());
+        out.ints(graph.componentSizeArray());
+        out.doubles(graph.walkScaleArray());
+        out.doubles(graph.portalCostArray());
+        out.writeDouble(graph.floorTransitionCost());
+    }
+
+    static Header decodeHeader(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a compiled indoor graph file");
+            }
+            if (buffer.getInt() != VERSION) {
+                return null;
+            }
+            long size = buffer.getLong();
+            long lastModified = buffer.getLong();
+            byte[] hash = new byte[HASH_LENGTH];
+            buffer.get(hash);
+            String fileName = readString(buffer);
+            String buildingId = readString(buffer);
+            int nodeCount = buffer.getInt();
+            int edgeCount = buffer.getInt();
+            int buildings = checkedCount(buffer, buffer.getInt(), Integer.BYTES);
+            Map<String, List<Integer>> floors = new LinkedHashMap<>();
+            for (int b = 0; b < buildings; b++) {
+                String building = readString(buffer);
+                int floorCount = checkedCount(buffer, buffer.getInt(), Integer.BYTES);
+                List<Integer> values = new ArrayList<>(floorCount);
+                for (int f = 0; f < floorCount; f++) {
+                    values.add(buffer.getInt());
+                }
+                floors.put(building, List.copyOf(values));
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().position(0).limit(buffer.position()));
+            if (crc.getValue() != buffer.getLong()) {
+                throw new IOException("Compiled indoor graph file header failed its checksum");
+            }
+            IndoorFileManifest manifest = new IndoorFileManifest(fileName, buildingId, nodeCount, edgeCount,
+                    Map.copyOf(floors), HexFormat.of().formatHex(hash));
+            return new Header(new SourceKey(size, lastModified, hash), manifest);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex) {
+            throw new IOException("Compiled indoor graph file header is truncated or corrupt", ex);
+        }
+    }
+
+    static IndoorCompiledFile decode(ByteBuffer buffer, byte[] expectedHash) throws IOException {
+        Header header = decodeHeader(buffer);
+        if (header == null || !Arrays.equals(header.source().hash(), expectedHash)) {
+            return null;
+        }
+        int end = verifyChecksum(buffer);
+        try {
+            Reader in = new Reader(buffer.duplicate().limit(end));
+
+            int stringCount = in.count(Integer.BYTES);
+            IntBuffer stringOffsets = in.ints(stringCount + 1);
+            IndoorStringTable strings = IndoorStringTable.mapped(stringOffsets, in.bytes(in.count(1)));
+
+            int metaCount = in.count(2 * Integer.BYTES);
+            IntBuffer metaKeys = in.ints(metaCount);
+            IntBuffer metaValues = in.ints(metaCount);
+            Map<String, String> meta = new LinkedHashMap<>();
+            for (int i = 0; i < metaCount; i++) {
+                meta.put(strings.get(metaKeys.get(i)), strings.get(metaValues.get(i)));
+            }
+
+            int nodeCount = in.count(1);
+            ByteBuffer nodeFlags = in.bytes(nodeCount);
+            IntBuffer ids = in.ints(nodeCount);
+            DoubleBuffer xs = in.doubles(nodeCount);
+            DoubleBuffer ys = in.doubles(nodeCount);
+            ShortBuffer floors = in.shorts(nodeCount);
+            String[] typeTable = in.table(strings);
+            IndoorNodeStore.CodeColumn typeCodes = in.codes(nodeCount, typeTable.length);
+            String[] buildingTable = in.table(strings);
+            IndoorNodeStore.CodeColumn buildingCodes = in.codes(nodeCount, buildingTable.length);
+            IntBuffer labels = in.ints(nodeCount);
+            IndoorNodeStore nodes = new IndoorNodeStore(nodeCount, nodeFlags, ids, xs, ys, floors, typeCodes,
+                    typeTable, buildingCodes, buildingTable, labels, strings);
+
+            int edgeCount = in.count(1);
+            IndoorEdgeStore edges = new IndoorEdgeStore(edgeCount, in.bytes(edgeCount), in.ints(edgeCount),
+                    in.ints(edgeCount), in.ints(edgeCount), in.ints(edgeCount), strings);
+
+            int graphNodes = in.count(Integer.BYTES);
+            IntBuffer idRefs = in.ints(graphNodes);
+            IntBuffer storeIndex = in.ints(graphNodes);
+            int idSlotCount = in.count(Integer.BYTES);
+            if (Integer.bitCount(idSlotCount) != 1) {
+                throw new IOException("Compiled indoor graph file has a malformed id table");
+            }
+            IndoorGraph.Nodes graphNodeIndex = new IndoorGraph.Nodes(graphNodes, idRefs, strings,
+                    in.ints(idSlotCount), nodes, storeIndex);
+            IndoorGraph graph = readGraph(in, graphNodeIndex, edges);
+            IndoorGraph accessibleGraph = readGraph(in, graphNodeIndex, edges);
+
+            IndoorBuildingData data = new IndoorBuildingData();
+            data.setMeta(meta);
+            data.setNodes(nodes.asList());
+            data.setEdges(edges.asList());
+            return new IndoorCompiledFile(data, graph, accessibleGraph);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex) {
+            throw new IOException("Compiled indoor graph file is truncated or corrupt", ex);
+        }
+    }
+
+    private static IndoorGraph readGraph(Reader in, IndoorGraph.Nodes nodes, IndoorEdgeStore edges) {
+        IntBuffer offsets = in.ints(nodes.count() + 1);
+        int slotCount = in.count(Integer.BYTES);
+        IntBuffer targets = in.ints(slotCount);
+        IntBuffer weights = in.ints(slotCount);
+        IntBuffer slotEdges = in.ints(slotCount);
+        ByteBuffer slotAccessible = in.bytes(slotCount);
+        IntBuffer componentOf = in.ints(nodes.count());
+        int componentCount = in.count(Integer.BYTES);
+        IntBuffer componentSizes = in.ints(componentCount);
+        DoubleBuffer walkScale = in.doubles(nodes.count());
+        DoubleBuffer portalCost = in.doubles(nodes.count());
+        double floorTransitionCost = in.buffer.getDouble();
+        return IndoorGraph.mapped(nodes, offsets, targets, weights, slotEdges, slotAccessible, edges, componentOf,
+                componentSizes, walkScale, portalCost, floorTransitionCost);
+    }
+
+    /**
+     * Checks the trailing CRC-32 and returns the position it starts at.
+     */
+    private static int verifyChecksum(ByteBuffer buffer) throws IOException {
+        int end = buffer.limit() - Long.BYTES;
+        if (end < buffer.position()) {
+            throw new IOException("Compiled indoor graph file is truncated");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(0).limit(end));
+        if (crc.getValue() != buffer.getLong(end)) {
+            throw new IOException("Compiled indoor graph file failed its checksum");
+        }
+        return end;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[checkedCount(buffer, length, 1)];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Rejects counts that cannot fit in the rest of the buffer, so a damaged
+     * length never triggers a huge allocation.
+     */
+    private static int checkedCount(ByteBuffer buffer, int count, int elementBytes) {
+        if (count < 0 || count > buffer.remaining() / elementBytes) {
+            throw new BufferUnderflowException();
+        }
+        return count;
+    }
+
+    /**
+     * Slices aligned columns off a mapped file without copying them.
+     */
+    private static final class Reader {
+
+        private final ByteBuffer buffer;
+
+        private Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int count(int elementBytes) {
+            return checkedCount(buffer, buffer.getInt(), elementBytes);
+        }
+
+        ByteBuffer bytes(int length) {
+            buffer.position((buffer.position() + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT);
+            int start = buffer.position();
+            ByteBuffer column = buffer.slice(start, checkedCount(buffer, length, 1));
+            buffer.position(start + length);
+            return column;
+        }
+
+        IntBuffer ints(int count) {
+            return bytes(checkedCount(buffer, count, Integer.BYTES) * Integer.BYTES).asIntBuffer();
+        }
+
+        DoubleBuffer doubles(int count) {
+            return bytes(checkedCount(buffer, count, Double.BYTES) * Double.BYTES).asDoubleBuffer();
+        }
+
+        ShortBuffer shorts(int count) {
+            return bytes(checkedCount(buffer, count, Short.BYTES) * Short.BYTES).asShortBuffer();
+        }
+
+        /**
+         * A code table, decoded onto the heap: it holds a handful of values.
+         */
+        String[] table(IndoorStringTable strings) {
+            IntBuffer refs = ints(count(Integer.BYTES));
+            String[] table = new String[refs.limit()];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = strings.get(refs.get(i));
+            }
+            return table;
+        }
+
+        IndoorNodeStore.CodeColumn codes(int count, int tableSize) {
+            int width = IndoorNodeStore.CodeColumn.width(tableSize);
+            return IndoorNodeStore.CodeColumn.mapped(bytes(checkedCount(buffer, count, width) * width), width);
+        }
+    }
+
+    /**
+     * Big-endian output that pads each column to {@link #ALIGNMENT}.
+     */
+    private static final class Writer extends DataOutputStream {
+
+        private final ByteArrayOutputStream bytes;
+
+        private Writer(int expectedSize) {
+            this(new ByteArrayOutputStream(expectedSize));
+        }
+
+        private Writer(ByteArrayOutputStream bytes) {
+            super(bytes);
+            this.bytes = bytes;
+        }
+
+        void align() throws IOException {
+            while (size() % ALIGNMENT != 0) {
+                writeByte(0);
+            }
+        }
+
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                writeInt(-1);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(utf8.length);
+            write(utf8);
+        }
+
+        void bytes(byte[] values) throws IOException {
+            align();
+            write(values);
+        }
+
+        void ints(int[] values) throws IOException {
+            align();
+            for (int value : values) {
+                writeInt(value);
+            }
+        }
+
+        void doubles(double[] values) throws IOException {
+            align();
+            for (double value : values) {
+                writeDouble(value);
+            }
+        }
+
+        void shorts(short[] values) throws IOException {
+            align();
+            for (short value : values) {
+                writeShort(value);
+            }
+        }
+
+        /**
+         * A code table as string indices, then the codes in the width
+         * {@link IndoorNodeStore.CodeColumn} reads for a table of its size.
+         */
+        void codes(int[] table, int[] codes) throws IOException {
+            writeInt(table.length);
+            ints(table);
+            int width = IndoorNodeStore.CodeColumn.width(table.length);
+            align();
+            for (int code : codes) {
+                switch (width) {
+                    case Byte.BYTES -> writeByte(code);
+                    case Character.BYTES -> writeChar(code);
+                    default -> writeInt(code);
+                }
+            }
+        }
+
+        /**
+         * Appends a CRC-32 of everything written so far.
+         */
+        void writeChecksum() throws IOException {
+            flush();
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            writeLong(crc.getValue());
+        }
+
+        byte[] toByteArray() throws IOException {
+            flush();
+            return bytes.toByteArray();
+        }
+    }
+}
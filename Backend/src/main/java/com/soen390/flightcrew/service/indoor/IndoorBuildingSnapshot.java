@@ -0,0 +1,144 @@
+package com.soen390.flightcrew.service.indoor;
+
+import com.soen390.flightcrew.model.IndoorEdge;
+import com.soen390.flightcrew.model.IndoorNode;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of every node and edge that belongs to one building, merged
+ * across all JSON files whose {@code meta.buildingId} names that building,
+ * together with the routing graphs compiled from them: one over every edge and
+ * one restricted to step-free edges. Nodes and edges are held once, in a
+ * columnar {@link IndoorNodeStore} and {@link IndoorEdgeStore} shared by both
+ * graphs. When a matching {@link PrecompiledBuildingGraph} is supplied, the
+ * graphs and entrance trees are restored from it instead of being computed;
+ * otherwise graphs read from a compiled file along with the stores are used
+ * when there are any.
+ */
+public final class IndoorBuildingSnapshot {
+
+    private final String buildingId;
+    private final IndoorNodeStore nodeStore;
+    private final IndoorEdgeStore edgeStore;
+    private final IndoorGraph graph;
+    private final IndoorGraph accessibleGraph;
+    private final Map<Integer, ShortestPathTree> entranceTrees;
+    private final Map<Integer, ShortestPathTree> accessibleEntranceTrees;
+
+    public IndoorBuildingSnapshot(String buildingId, List<IndoorNode> nodes, List<IndoorEdge> edges) {
+        this(buildingId, nodes, edges, null);
+    }
+
+    /**
+     * @param precompiled build-time graphs for this building, or {@code null};
+     *                    ignored unless they were built from these exact nodes
+     *                    and edges
+     */
+    public IndoorBuildingSnapshot(String buildingId, List<IndoorNode> nodes, List<IndoorEdge> edges,
+            PrecompiledBuildingGraph precompiled) {
+        this(buildingId, IndoorNodeStore.of(nodes), edges, precompiled);
+    }
+
+    /**
+     * Like {@link #IndoorBuildingSnapshot(String, List, List, PrecompiledBuildingGraph)}
+     * over nodes that are already in columns, which are used as they are.
+     */
+    public IndoorBuildingSnapshot(String buildingId, IndoorNodeStore nodeStore, List<IndoorEdge> edges,
+            PrecompiledBuildingGraph precompiled) {
+        this(buildingId, nodeStore, IndoorEdgeStore.of(edges), precompiled, null);
+    }
+
+    /**
+     * Over nodes and edges that are already in columns, which are used as they
+     * are.
+     *
+     * @param compiled the file the stores were read from, whose graphs are used
+     *                 unless {@code precompiled} matches; {@code null} compiles
+     *                 the graphs
+     */
+    public IndoorBuildingSnapshot(String buildingId, IndoorNodeStore nodeStore, IndoorEdgeStore edgeStore,
+            PrecompiledBuildingGraph precompiled, IndoorCompiledFile compiled) {
+        this.buildingId = buildingId;
+        this.nodeStore = nodeStore;
+        this.edgeStore = edgeStore;
+
+        if (precompiled != null && precompiled.matches(nodeStore, edgeStore)) {
+            this.graph = precompiled.restoreGraph(nodeStore, edgeStore, false);
+            this.accessibleGraph = precompiled.restoreGraph(nodeStore, edgeStore, true);
+            this.entranceTrees = precompiled.restoreEntranceTrees(graph, false);
+            this.accessibleEntranceTrees = precompiled.restoreEntranceTrees(accessibleGraph, true);
+        } else if (compiled != null && compiled.hasGraphsOver(nodeStore, edgeStore)) {
+            this.graph = compiled.graph();
+            this.accessibleGraph = compiled.accessibleGraph();
+            this.entranceTrees = null;
+            this.accessibleEntranceTrees = null;
+        } else {
+            this.graph = IndoorGraph.compile(nodeStore, edgeStore);
+            this.accessibleGraph = graph.accessibleSubgraph();
+            this.entranceTrees = null;
+            this.accessibleEntranceTrees = null;
+        }
+    }
+
+    public String getBuildingId() {
+        return buildingId;
+    }
+
+    /**
+     * The building's nodes, materialized on access; prefer
+     * {@link #getNodeStore()} inside the service layer.
+     */
+    public List<IndoorNode> getNodes() {
+        return nodeStore.asList();
+    }
+
+    public IndoorNodeStore getNodeStore() {
+        return nodeStore;
+    }
+
+    /**
+     * The building's edges, materialized on access; prefer
+     * {@link #getEdgeStore()} inside the service layer.
+     */
+    public List<IndoorEdge> getEdges() {
+        return edgeStore.asList();
+    }
+
+    public IndoorEdgeStore getEdgeStore() {
+        return edgeStore;
+    }
+
+    public IndoorGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Graph without edges marked {@code accessible: false}, sharing node indices
+     * with {@link #getGraph()}.
+     */
+    public IndoorGraph getAccessibleGraph() {
+        return accessibleGraph;
+    }
+
+    public IndoorGraph getGraph(boolean requireAccessible) {
+        return requireAccessible ? accessibleGraph : graph;
+    }
+
+    /**
+     * Entrance trees of {@link #getGraph(boolean)} restored from a precompiled
+     * artifact, keyed by root node index, or {@code null} when the graphs were
+     * compiled at load time.
+     */
+    public Map<Integer, ShortestPathTree> getPrecompiledEntranceTrees(boolean requireAccessible) {
+        return requireAccessible ? accessibleEntranceTrees : entranceTrees;
+    }
+
+    /**
+     * Whether the graphs were restored from a precompiled artifact.
+     */
+    public boolean isPrecompiled() {
+        return entranceTrees != null;
+    }
+}
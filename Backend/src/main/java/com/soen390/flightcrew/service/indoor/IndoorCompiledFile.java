@@ -0,0 +1,33 @@
+package com.soen390.flightcrew.service.indoor;
+
+import com.soen390.flightcrew.model.IndoorBuildingData;
+
+/**
+ * The contents of one building file as a snapshot loads them: the file's data
+ * and, when it was read from a {@link IndoorBinaryFormat compiled file}, the
+ * default and step-free graphs stored with it, which work on the file's own
+ * node and edge columns.
+ *
+ * @param data            the file's meta, nodes and edges
+ * @param graph           the graph over every edge of the file, or
+ *                        {@code null} when it has to be compiled
+ * @param accessibleGraph the step-free graph, or {@code null} with
+ *                        {@code graph}
+ */
+public record IndoorCompiledFile(IndoorBuildingData data, IndoorGraph graph, IndoorGraph accessibleGraph) {
+
+    /**
+     * A file parsed from JSON, whose graphs are compiled when its building is.
+     */
+    public static IndoorCompiledFile parsed(IndoorBuildingData data) {
+        return new IndoorCompiledFile(data, null, null);
+    }
+
+    /**
+     * Whether the stored graphs were built over exactly these columns, which
+     * is only the case for a building made of this one file.
+     */
+    boolean hasGraphsOver(IndoorNodeStore nodeStore, IndoorEdgeStore edgeStore) {
+        return graph != null && graph.nodes().store() == nodeStore && graph.edgeStore() == edgeStore;
+    }
+}
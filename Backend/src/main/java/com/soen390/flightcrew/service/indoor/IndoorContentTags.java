@@ -0,0 +1,135 @@
+package com.soen390.flightcrew.service.indoor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Strong HTTP entity tags for the read-only indoor endpoints of one snapshot,
+ * computed the first time a tag is asked for from the content hash of every
+ * file manifest. A tag only changes when the data behind its response
+ * changes, so it survives reloads that leave those files untouched, and tags
+ * need no file to be parsed.
+ *
+ * <p>
+ * A file whose manifest carries no content hash contributes its name and the
+ * snapshot version instead, which keeps its tags correct but changes them on
+ * every reload.
+ */
+public final class IndoorContentTags {
+
+    // Bump when the JSON shape of a tagged response changes.
+    private static final String FORMAT = "indoor-1";
+
+    private final String buildings;
+    private final String allNodes;
+    private final Map<String, String> floors;
+    private final Map<String, String> nodes;
+    private final Map<String, Map<Integer, String>> floorNodes;
+    private final Map<String, String> nodeSources;
+    private final String allSources;
+
+    private IndoorContentTags(long version, Collection<IndoorFileManifest> manifests, List<String> buildingIds,
+            Map<String, List<Integer>> floorsByNodeBuilding) {
+        // Every file by name, so a node building's tags cover exactly its files.
+        Map<String, String> fileHashes = new TreeMap<>();
+        for (IndoorFileManifest manifest : manifests) {
+            fileHashes.put(manifest.fileName(), manifest.contentHash() != null
+                    ? manifest.contentHash()
+                    : "v" + version);
+        }
+
+        this.buildings = tag("buildings", buildingIds.toString());
+        this.allSources = fileHashes.toString();
+        this.allNodes = tag("nodes", "", allSources);
+
+        Map<String, String> floorTags = new HashMap<>();
+        Map<String, String> sourceKeys = new HashMap<>();
+        Map<String, String> nodeTags = new HashMap<>();
+        Map<String, Map<Integer, String>> floorNodeTags = new HashMap<>();
+        floorsByNodeBuilding.forEach((nodeBuilding, buildingFloors) -> {
+            StringBuilder sources = new StringBuilder();
+            for (IndoorFileManifest manifest : manifests) {
+                if (manifest.hasNodesOf(nodeBuilding)) {
+                    sources.append(manifest.fileName()).append('=')
+                            .append(fileHashes.get(manifest.fileName())).append(';');
+                }
+            }
+            String key = sources.toString();
+            sourceKeys.put(nodeBuilding, key);
+            floorTags.put(nodeBuilding, tag("floors", buildingFloors.toString()));
+            nodeTags.put(nodeBuilding, tag("nodes", nodeBuilding, key));
+            Map<Integer, String> perFloor = new HashMap<>();
+            for (Integer floor : buildingFloors) {
+                perFloor.put(floor, tag("nodes", nodeBuilding, key, floor.toString()));
+            }
+            floorNodeTags.put(nodeBuilding, Map.copyOf(perFloor));
+        });
+        this.floors = Map.copyOf(floorTags);
+        this.nodeSources = Map.copyOf(sourceKeys);
+        this.nodes = Map.copyOf(nodeTags);
+        this.floorNodes = Map.copyOf(floorNodeTags);
+    }
+
+    static IndoorContentTags of(long version, Collection<IndoorFileManifest> manifests, List<String> buildingIds,
+            Map<String, List<Integer>> floorsByNodeBuilding) {
+        return new IndoorContentTags(version, manifests, buildingIds, floorsByNodeBuilding);
+    }
+
+    /**
+     * Tag of the building id list.
+     */
+    public String buildings() {
+        return buildings;
+    }
+
+    /**
+     * Tag of the floor list of a node building, ignoring case.
+     */
+    public String floors(String nodeBuildingId) {
+        String known = floors.get(normalize(nodeBuildingId));
+        return known != null ? known : tag("floors", List.of().toString());
+    }
+
+    /**
+     * Tag of the node list of a node building, ignoring case, or of every node
+     * when it is blank; optionally of one floor only.
+     */
+    public String nodes(String nodeBuildingId, Integer floor) {
+        if (nodeBuildingId == null || nodeBuildingId.isBlank()) {
+            return floor == null ? allNodes : tag("nodes", "", allSources, floor.toString());
+        }
+        String building = normalize(nodeBuildingId);
+        String sources = nodeSources.get(building);
+        if (sources == null) {
+            return tag("nodes", List.of().toString());
+        }
+        if (floor == null) {
+            return nodes.get(building);
+        }
+        String known = floorNodes.get(building).get(floor);
+        return known != null ? known : tag("nodes", building, sources, floor.toString());
+    }
+
+    /**
+     * A quoted strong entity tag over the given parts: the first 128 bits of
+     * their SHA-256, in hex.
+     */
+    public static String tag(String... parts) {
+        StringBuilder text = new StringBuilder(FORMAT);
+        for (String part : parts) {
+            text.append('\n').append(part);
+        }
+        byte[] hash = IndoorBinaryFormat.sourceHash(text.toString().getBytes(StandardCharsets.UTF_8));
+        return '"' + HexFormat.of().formatHex(hash, 0, 16) + '"';
+    }
+
+    private static String normalize(String nodeBuildingId) {
+        return nodeBuildingId.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,113 @@
+package com.soen390.flightcrew.service.indoor;
+
+import com.soen390.flightcrew.model.IndoorBuildingData;
+import com.soen390.flightcrew.model.IndoorEdge;
+import com.soen390.flightcrew.model.IndoorNode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Structural checks run on building files before they are published in a
+ * snapshot: every file names its building, node ids are present and unique
+ * within the building, and every edge connects two known nodes with a weight.
+ */
+public final class IndoorDataValidator {
+
+    private IndoorDataValidator() {
+        // Utility class — prevent instantiation
+    }
+
+    /**
+     * Validates the given files against the complete set of files they will be
+     * published with, so edges may reference nodes declared in a sibling file
+     * of the same building.
+     *
+     * @param fileNames the files to check
+     * @param allFiles  every file of the candidate snapshot, keyed by file name
+     * @return a human-readable problem per violation; empty when valid
+     */
+    public static List<String> validate(Collection<String> fileNames, Map<String, IndoorBuildingData> allFiles) {
+        List<String> problems = new ArrayList<>();
+
+        for (String fileName : fileNames) {
+            IndoorBuildingData data = allFiles.get(fileName);
+            if (data == null) {
+                continue;
+            }
+
+            String buildingId = data.getMeta() != null ? data.getMeta().get("buildingId") : null;
+            if (buildingId == null || buildingId.isBlank()) {
+                problems.add(fileName + ": missing meta.buildingId");
+                continue;
+            }
+
+            Set<String> buildingNodeIds = collectNodeIds(buildingId, allFiles, fileName, problems);
+            validateEdges(fileName, data, buildingNodeIds, problems);
+        }
+
+        return problems;
+    }
+
+    private static Set<String> collectNodeIds(String buildingId, Map<String, IndoorBuildingData> allFiles,
+            String fileName, List<String> problems) {
+        Set<String> nodeIds = new HashSet<>();
+        String normalizedId = buildingId.toLowerCase(Locale.ROOT);
+
+        // Sibling files first, so duplicates are always reported against the file being validated.
+        allFiles.forEach((otherName, other) -> {
+            String otherBuilding = other.getMeta() != null ? other.getMeta().get("buildingId") : null;
+            if (otherName.equals(fileName) || otherBuilding == null
+                    || !normalizedId.equals(otherBuilding.toLowerCase(Locale.ROOT)) || other.getNodes() == null) {
+                return;
+            }
+            other.getNodes().stream()
+                    .filter(node -> node != null && node.getId() != null)
+                    .forEach(node -> nodeIds.add(node.getId()));
+        });
+
+        List<IndoorNode> ownNodes = allFiles.get(fileName).getNodes();
+        if (ownNodes == null) {
+            return nodeIds;
+        }
+
+        for (IndoorNode node : ownNodes) {
+            if (node == null || node.getId() == null || node.getId().isBlank()) {
+                problems.add(fileName + ": node without an id");
+            } else if (!nodeIds.add(node.getId())) {
+                problems.add(fileName + ": duplicate node id " + node.getId());
+            }
+        }
+
+        return nodeIds;
+    }
+
+    private static void validateEdges(String fileName, IndoorBuildingData data, Set<String> nodeIds,
+            List<String> problems) {
+        if (data.getEdges() == null) {
+            return;
+        }
+
+        for (IndoorEdge edge : data.getEdges()) {
+            if (edge == null || edge.getSource() == null || edge.getTarget() == null) {
+                problems.add(fileName + ": edge without source or target");
+                continue;
+            }
+            if (edge.getWeight() == null || edge.getWeight() < 0) {
+                problems.add(fileName + ": edge " + edge.getSource() + " -> " + edge.getTarget()
+                        + " has no valid weight");
+            }
+            if (!nodeIds.contains(edge.getSource())) {
+                problems.add(fileName + ": edge references unknown node " + edge.getSource());
+            }
+            if (!nodeIds.contains(edge.getTarget())) {
+                problems.add(fileName + ": edge references unknown node " + edge.getTarget());
+            }
+        }
+    }
+}
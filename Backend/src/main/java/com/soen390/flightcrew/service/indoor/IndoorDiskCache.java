@@ -0,0 +1,230 @@
+package com.soen390.flightcrew.service.indoor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * A directory of generated files capped at {@code maxBytes}, evicting the
+ * least recently used entry first. Recency is tracked in memory; files left
+ * from a previous run are adopted at startup, oldest modification first, so
+ * the cache survives restarts without re-rendering.
+ *
+ * <p>
+ * Keys are file names and must not contain path separators. An evicted file is
+ * deleted right away, so a file about to be served must be taken with
+ * {@link #open}, not by path: it is opened under the same lock eviction holds,
+ * and on POSIX systems the open channel keeps reading an entry unlinked after
+ * that. Where open files cannot be deleted the eviction is logged and the file
+ * is adopted again on the next start.
+ */
+public final class IndoorDiskCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndoorDiskCache.class);
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxBytes;
+    // Access-ordered: the eldest entry is the least recently used.
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private long evictions;
+
+    private IndoorDiskCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Opens the cache in {@code directory}, creating it if needed and evicting
+     * down to {@code maxBytes} when a previous run left more.
+     */
+    public static IndoorDiskCache open(Path directory, long maxBytes) throws IOException {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        Files.createDirectories(directory);
+        IndoorDiskCache cache = new IndoorDiskCache(directory, maxBytes);
+        List<Path> existing;
+        try (Stream<Path> files = Files.list(directory)) {
+            existing = files.filter(Files::isRegularFile)
+                    .sorted(Comparator.comparing(IndoorDiskCache::modifiedMillis))
+                    .toList();
+        }
+        synchronized (cache) {
+            for (Path file : existing) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else {
+                    cache.record(name, Files.size(file));
+                }
+            }
+            cache.evict();
+        }
+        return cache;
+    }
+
+    /**
+     * The file cached under {@code key}, marked as just used, or {@code null}.
+     */
+    public synchronized Path get(String key) {
+        return entries.get(key) != null ? directory.resolve(key) : null;
+    }
+
+    /**
+     * Where the entry for {@code key} is stored, whether or not it is cached.
+     */
+    public Path pathOf(String key) {
+        return directory.resolve(key);
+    }
+
+    /**
+     * Opens the file cached under {@code key} for reading and marks it as just
+     * used, or returns {@code null} when there is no such entry. The caller
+     * owns the channel and must close it.
+     */
+    public synchronized FileChannel open(String key) throws IOException {
+        if (entries.get(key) == null) {
+            return null;
+        }
+        try {
+            return FileChannel.open(directory.resolve(key), StandardOpenOption.READ);
+        } catch (NoSuchFileException ex) {
+            // Deleted behind the cache's back.
+            totalBytes -= entries.remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the contents of an entry; called with a stream over a temporary
+     * file that becomes the entry once it returns.
+     */
+    @FunctionalInterface
+    public interface Content {
+
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Stores {@code bytes} under {@code key}, replacing any previous entry,
+     * then evicts least recently used entries until the cache fits again. An
+     * entry larger than the whole cache is still written and returned, and
+     * is the next to go.
+     */
+    public Path put(String key, byte[] bytes) throws IOException {
+        return put(key, out -> out.write(bytes));
+    }
+
+    /**
+     * Stores what {@code content} writes under {@code key}, streaming it to
+     * disk rather than holding it in memory; otherwise as
+     * {@link #put(String, byte[])}.
+     */
+    public Path put(String key, Content content) throws IOException {
+        Path target = directory.resolve(key);
+        Path temp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+        long length;
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                content.writeTo(out);
+            }
+            length = Files.size(temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        synchronized (this) {
+            record(key, length);
+            evict(key);
+        }
+        return target;
+    }
+
+    /**
+     * Deletes every entry and the directory itself, for a cache that should
+     * not outlive the process. The cache must not be used afterwards.
+     */
+    public synchronized void delete() throws IOException {
+        entries.clear();
+        totalBytes = 0;
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    public synchronized long size() {
+        return totalBytes;
+    }
+
+    public synchronized int entryCount() {
+        return entries.size();
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    private void record(String key, long length) {
+        Long previous = entries.put(key, length);
+        totalBytes += length - (previous != null ? previous : 0);
+    }
+
+    private void evict() {
+        evict(null);
+    }
+
+    /**
+     * Deletes least recently used entries until the cache fits, sparing
+     * {@code keep}.
+     */
+    private void evict(String keep) {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            if (entry.getKey().equals(keep)) {
+                continue;
+            }
+            eldest.remove();
+            totalBytes -= entry.getValue();
+            evictions++;
+            try {
+                Files.deleteIfExists(directory.resolve(entry.getKey()));
+            } catch (IOException ex) {
+                logger.warn("Failed to evict cached indoor file {}: {}", entry.getKey(), ex.getMessage());
+            }
+        }
+    }
+
+    private static long modifiedMillis(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
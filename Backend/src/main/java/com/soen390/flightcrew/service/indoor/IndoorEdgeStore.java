@@ -0,0 +1,236 @@
+package com.soen390.flightcrew.service.indoor;
+
+import com.soen390.flightcrew.model.IndoorEdge;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable, column-oriented storage for indoor edges, the counterpart of
+ * {@link IndoorNodeStore}: endpoints and type as indices into an
+ * {@link IndoorStringTable}, weights as ints and presence and accessibility
+ * as one flag byte, in the order of the source list. Columns either wrap heap
+ * arrays or read a memory-mapped {@link IndoorBinaryFormat compiled file} in
+ * place; {@link IndoorEdge} beans are only materialized through
+ * {@link #view(int)} or {@link #asList()}.
+ */
+public final class IndoorEdgeStore {
+
+    public static final int NO_WEIGHT = Integer.MIN_VALUE;
+
+    private static final IndoorEdgeStore EMPTY = of(List.of());
+
+    private final int size;
+    private final ByteBuffer flags;
+    private final IntBuffer sources;
+    private final IntBuffer targets;
+    private final IntBuffer types;
+    private final IntBuffer weights;
+    private final IndoorStringTable strings;
+
+    IndoorEdgeStore(int size, ByteBuffer flags, IntBuffer sources, IntBuffer targets, IntBuffer types,
+            IntBuffer weights, IndoorStringTable strings) {
+        this.size = size;
+        this.flags = flags;
+        this.sources = sources;
+        this.targets = targets;
+        this.types = types;
+        this.weights = weights;
+        this.strings = strings;
+    }
+
+    /**
+     * Packs the given edges into columns. A list previously returned by
+     * {@link #asList()} is unwrapped instead of copied.
+     */
+    public static IndoorEdgeStore of(List<IndoorEdge> edges) {
+        if (edges instanceof EdgeList list) {
+            return list.store;
+        }
+        List<IndoorEdge> source = edges != null ? edges : List.of();
+        Columns columns = new Columns(source.size());
+        for (int i = 0; i < source.size(); i++) {
+            IndoorEdge edge = source.get(i);
+            if (edge != null) {
+                columns.set(i, edge.getSource(), edge.getTarget(), edge.getType(),
+                        edge.getWeight() != null ? edge.getWeight() : NO_WEIGHT, edge.getAccessible());
+            }
+        }
+        return columns.build();
+    }
+
+    public static IndoorEdgeStore empty() {
+        return EMPTY;
+    }
+
+    /**
+     * The stores' edges one after the other, without materializing any edge.
+     * A single store is returned as is.
+     */
+    public static IndoorEdgeStore concat(List<IndoorEdgeStore> stores) {
+        if (stores.isEmpty()) {
+            return EMPTY;
+        }
+        if (stores.size() == 1) {
+            return stores.get(0);
+        }
+
+        Columns columns = new Columns(stores.stream().mapToInt(IndoorEdgeStore::size).sum());
+        int start = 0;
+        for (IndoorEdgeStore store : stores) {
+            for (int i = 0; i < store.size; i++) {
+                if (store.isPresent(i)) {
+                    columns.set(start + i, store.source(i), store.target(i), store.type(i), store.weight(i),
+                            store.accessible(i));
+                }
+            }
+            start += store.size;
+        }
+        return columns.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Whether position {@code i} holds an edge ({@code false} for a
+     * {@code null} element of the source list).
+     */
+    public boolean isPresent(int i) {
+        return (flags.get(i) & IndoorNodeStore.PRESENT) != 0;
+    }
+
+    public String source(int i) {
+        return strings.get(sources.get(i));
+    }
+
+    public String target(int i) {
+        return strings.get(targets.get(i));
+    }
+
+    public String type(int i) {
+        return strings.get(types.get(i));
+    }
+
+    /**
+     * The edge's weight, or {@link #NO_WEIGHT} when it has none.
+     */
+    public int weight(int i) {
+        return weights.get(i);
+    }
+
+    public Boolean accessible(int i) {
+        byte flag = flags.get(i);
+        return (flag & IndoorNodeStore.ACCESSIBLE_KNOWN) != 0 ? (flag & IndoorNodeStore.ACCESSIBLE) != 0 : null;
+    }
+
+    /**
+     * Whether the edge can be routed over: it has both endpoints and a weight.
+     */
+    public boolean isUsable(int i) {
+        return isPresent(i) && sources.get(i) != IndoorStringTable.NONE && targets.get(i) != IndoorStringTable.NONE
+                && weights.get(i) != NO_WEIGHT;
+    }
+
+    byte flags(int i) {
+        return flags.get(i);
+    }
+
+    /**
+     * Materializes position {@code i} as a fresh {@link IndoorEdge}, or
+     * {@code null} when no edge was stored there.
+     */
+    public IndoorEdge view(int i) {
+        if (!isPresent(i)) {
+            return null;
+        }
+        IndoorEdge edge = new IndoorEdge();
+        edge.setSource(source(i));
+        edge.setTarget(target(i));
+        edge.setType(type(i));
+        edge.setWeight(weight(i) != NO_WEIGHT ? weight(i) : null);
+        edge.setAccessible(accessible(i));
+        return edge;
+    }
+
+    /**
+     * Read-only list view whose elements are materialized on each access.
+     */
+    public List<IndoorEdge> asList() {
+        return new EdgeList(this);
+    }
+
+    /**
+     * Heap columns filled one edge at a time.
+     */
+    private static final class Columns {
+
+        private final int size;
+        private final byte[] flags;
+        private final int[] sources;
+        private final int[] targets;
+        private final int[] types;
+        private final int[] weights;
+        private final IndoorStringTable.Builder strings = new IndoorStringTable.Builder();
+
+        Columns(int size) {
+            this.size = size;
+            this.flags = new byte[size];
+            this.sources = new int[size];
+            this.targets = new int[size];
+            this.types = new int[size];
+            this.weights = new int[size];
+            Arrays.fill(sources, IndoorStringTable.NONE);
+            Arrays.fill(targets, IndoorStringTable.NONE);
+            Arrays.fill(types, IndoorStringTable.NONE);
+            Arrays.fill(weights, NO_WEIGHT);
+        }
+
+        void set(int i, String source, String target, String type, int weight, Boolean accessible) {
+            byte flag = IndoorNodeStore.PRESENT;
+            if (accessible != null) {
+                flag |= IndoorNodeStore.ACCESSIBLE_KNOWN;
+                if (accessible) {
+                    flag |= IndoorNodeStore.ACCESSIBLE;
+                }
+            }
+            flags[i] = flag;
+            sources[i] = strings.index(source);
+            targets[i] = strings.index(target);
+            types[i] = strings.index(type);
+            weights[i] = weight;
+        }
+
+        IndoorEdgeStore build() {
+            return new IndoorEdgeStore(size, ByteBuffer.wrap(flags), IntBuffer.wrap(sources), IntBuffer.wrap(targets),
+                    IntBuffer.wrap(types), IntBuffer.wrap(weights), strings.build());
+        }
+    }
+
+    private static final class EdgeList extends AbstractList<IndoorEdge> implements RandomAccess {
+
+        private final IndoorEdgeStore store;
+
+        private EdgeList(IndoorEdgeStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public IndoorEdge get(int index) {
+            if (index < 0 || index >= store.size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return store.view(index);
+        }
+
+        @Override
+        public int size() {
+            return store.size;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.soen390.flightcrew.service.indoor;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.soen390.flightcrew.model.IndoorBuildingData;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * What a snapshot needs to know about a building file before parsing it: the
+ * building it belongs to, how many nodes and edges it holds, and which floors
+ * its nodes are on, grouped by each node's own {@code buildingId}. Node
+ * building ids are kept lower-cased so lookups are case-insensitive, matching
+ * the node filters of the data service.
+ *
+ * <p>
+ * A manifest is either complete or, when only the file's {@code meta} block
+ * has been read, a summary holding just the building id, with
+ * {@link #UNKNOWN} counts and no floors or hash; see {@link #isComplete()}.
+ *
+ * @param fileName             the file name relative to the JSON directory
+ * @param buildingId           {@code meta.buildingId}, or {@code null}
+ * @param nodeCount            number of entries in {@code nodes}, or
+ *                             {@link #UNKNOWN}
+ * @param edgeCount            number of entries in {@code edges}, or
+ *                             {@link #UNKNOWN}
+ * @param floorsByNodeBuilding sorted floors per lower-cased node building id;
+ *                             a building whose nodes have no floor maps to an
+ *                             empty list; {@code null} in a summary
+ * @param contentHash          hex SHA-256 of the file's bytes, or {@code null}
+ *                             when the manifest was not read from the file
+ */
+public record IndoorFileManifest(String fileName, String buildingId, int nodeCount, int edgeCount,
+        Map<String, List<Integer>> floorsByNodeBuilding, String contentHash) {
+
+    public static final int UNKNOWN = -1;
+
+    /**
+     * Describes an already parsed file.
+     */
+    public static IndoorFileManifest of(String fileName, IndoorBuildingData data) {
+        Map<String, TreeSet<Integer>> floors = new TreeMap<>();
+        IndoorNodeStore nodes = IndoorNodeStore.of(data.getNodes());
+        for (int i = 0; i < nodes.size(); i++) {
+            if (nodes.isPresent(i)) {
+                addFloor(floors, nodes.buildingId(i), nodes.hasFloor(i) ? nodes.floor(i) : null);
+            }
+        }
+        String buildingId = data.getMeta() != null ? data.getMeta().get("buildingId") : null;
+        return new IndoorFileManifest(fileName, buildingId, nodes.size(),
+                data.getEdges() != null ? data.getEdges().size() : 0, freeze(floors), null);
+    }
+
+    /**
+     * Reads a summary with the streaming parser: fields before {@code meta}
+     * are skipped, and parsing stops as soon as the {@code meta} block has
+     * been read, so nothing after it is tokenized.
+     *
+     * @throws IOException if the document up to {@code meta} is not
+     *                     well-formed JSON or not an object
+     */
+    public static IndoorFileManifest scan(String fileName, JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object in " + fileName);
+        }
+
+        String buildingId = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("meta".equals(field) && value == JsonToken.START_OBJECT) {
+                buildingId = scanMeta(parser);
+                break;
+            }
+            parser.skipChildren();
+        }
+        return new IndoorFileManifest(fileName, buildingId, UNKNOWN, UNKNOWN, null, null);
+    }
+
+    /**
+     * Reads a complete manifest with the streaming parser, binding nothing:
+     * the {@code meta} block is read, node objects are scanned only for their
+     * {@code buildingId} and {@code floor}, and edges are merely counted.
+     *
+     * @throws IOException if the document is not well-formed JSON or not an object
+     */
+    public static IndoorFileManifest scanFully(String fileName, JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object in " + fileName);
+        }
+
+        String buildingId = null;
+        int nodeCount = 0;
+        int edgeCount = 0;
+        Map<String, TreeSet<Integer>> floors = new TreeMap<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("meta".equals(field) && value == JsonToken.START_OBJECT) {
+                buildingId = scanMeta(parser);
+            } else if ("nodes".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    nodeCount++;
+                    if (parser.currentToken() == JsonToken.START_OBJECT) {
+                        scanNode(parser, floors);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if ("edges".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    edgeCount++;
+                    parser.skipChildren();
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return new IndoorFileManifest(fileName, buildingId, nodeCount, edgeCount, freeze(floors), null);
+    }
+
+    /**
+     * Whether the counts and floors are known, rather than only the building
+     * id.
+     */
+    public boolean isComplete() {
+        return floorsByNodeBuilding != null;
+    }
+
+    /**
+     * This manifest for a file whose bytes hash to {@code contentHash}.
+     */
+    public IndoorFileManifest withContentHash(String contentHash) {
+        return new IndoorFileManifest(fileName, buildingId, nodeCount, edgeCount, floorsByNodeBuilding, contentHash);
+    }
+
+    private static String scanMeta(JsonParser parser) throws IOException {
+        String buildingId = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("buildingId".equals(field) && value.isScalarValue()) {
+                buildingId = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return buildingId;
+    }
+
+    private static void scanNode(JsonParser parser, Map<String, TreeSet<Integer>> floors) throws IOException {
+        String buildingId = null;
+        Integer floor = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("buildingId".equals(field) && value.isScalarValue()) {
+                buildingId = parser.getValueAsString();
+            } else if ("floor".equals(field) && value.isNumeric()) {
+                floor = parser.getValueAsInt();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        addFloor(floors, buildingId, floor);
+    }
+
+    private static void addFloor(Map<String, TreeSet<Integer>> floors, String buildingId, Integer floor) {
+        if (buildingId == null) {
+            return;
+        }
+        TreeSet<Integer> buildingFloors = floors.computeIfAbsent(buildingId.toLowerCase(Locale.ROOT),
+                key -> new TreeSet<>());
+        if (floor != null) {
+            buildingFloors.add(floor);
+        }
+    }
+
+    private static Map<String, List<Integer>> freeze(Map<String, TreeSet<Integer>> floors) {
+        Map<String, List<Integer>> frozen = new TreeMap<>();
+        floors.forEach((building, values) -> frozen.put(building, List.copyOf(values)));
+        return Map.copyOf(frozen);
+    }
+
+    /**
+     * Whether any node of the file names {@code nodeBuildingId}, ignoring
+     * case. Only meaningful for a {@link #isComplete() complete} manifest.
+     */
+    public boolean hasNodesOf(String nodeBuildingId) {
+        return floorsByNodeBuilding.containsKey(nodeBuildingId.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Sorted floors of the file's nodes that name {@code nodeBuildingId}.
+     */
+    public List<Integer> floorsOf(String nodeBuildingId) {
+        return floorsByNodeBuilding.getOrDefault(nodeBuildingId.toLowerCase(Locale.ROOT), List.of());
+    }
+}
@@ -0,0 +1,122 @@
+package com.soen390.flightcrew.service.indoor;
+
+import com.soen390.flightcrew.model.IndoorBuildingData;
+
+import java.util.function.Supplier;
+
+/**
+ * One building file of a snapshot: its {@link IndoorFileManifest} and its
+ * contents. The building id is known immediately; a complete manifest is
+ * either known too or resolved on first access, and the contents are produced
+ * on first access and kept from then on. A failed load is not remembered, so
+ * the next access retries it.
+ */
+public final class IndoorFileSource {
+
+    private final String fileName;
+    private final String buildingId;
+    private final Supplier<IndoorFileManifest> resolver;
+    private final Supplier<IndoorCompiledFile> loader;
+    private volatile IndoorFileManifest manifest;
+    private volatile IndoorCompiledFile contents;
+
+    private IndoorFileSource(IndoorFileManifest summary, Supplier<IndoorFileManifest> resolver,
+            Supplier<IndoorCompiledFile> loader, IndoorCompiledFile contents) {
+        this.fileName = summary.fileName();
+        this.buildingId = summary.buildingId();
+        this.resolver = resolver;
+        this.loader = loader;
+        this.manifest = summary.isComplete() ? summary : null;
+        this.contents = contents;
+    }
+
+    /**
+     * A file parsed by {@code loader} the first time it is needed.
+     */
+    public static IndoorFileSource lazy(IndoorFileManifest manifest, Supplier<IndoorBuildingData> loader) {
+        return new IndoorFileSource(manifest, null, () -> IndoorCompiledFile.parsed(loader.get()), null);
+    }
+
+    /**
+     * A file loaded by {@code loader}, possibly with its graphs, the first time
+     * it is needed. When {@code summary} is not complete, the manifest is
+     * produced by {@code resolver} the first time it is asked for.
+     */
+    public static IndoorFileSource lazy(IndoorFileManifest summary, Supplier<IndoorFileManifest> resolver,
+            Supplier<IndoorCompiledFile> loader) {
+        return new IndoorFileSource(summary, resolver, loader, null);
+    }
+
+    /**
+     * A file whose contents are already parsed.
+     */
+    public static IndoorFileSource loaded(String fileName, IndoorBuildingData data) {
+        return loaded(IndoorFileManifest.of(fileName, data), data);
+    }
+
+    /**
+     * A file whose contents are already parsed, described by {@code manifest}.
+     */
+    public static IndoorFileSource loaded(IndoorFileManifest manifest, IndoorBuildingData data) {
+        return loaded(manifest, IndoorCompiledFile.parsed(data));
+    }
+
+    /**
+     * A file whose contents are already loaded, described by {@code manifest}.
+     */
+    public static IndoorFileSource loaded(IndoorFileManifest manifest, IndoorCompiledFile contents) {
+        return new IndoorFileSource(manifest, null, null, contents);
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * {@code meta.buildingId} of the file, known without reading past it.
+     */
+    public String getBuildingId() {
+        return buildingId;
+    }
+
+    /**
+     * The complete manifest, resolving it now if no caller has yet, which may
+     * read the file.
+     */
+    public IndoorFileManifest getManifest() {
+        IndoorFileManifest current = manifest;
+        if (current == null) {
+            current = resolver.get();
+            manifest = current;
+        }
+        return current;
+    }
+
+    public boolean isLoaded() {
+        return contents != null;
+    }
+
+    /**
+     * The parsed file, loading it now if no caller has yet.
+     */
+    public IndoorBuildingData get() {
+        return contents().data();
+    }
+
+    /**
+     * The file with the graphs it was loaded with, loading it now if no
+     * caller has yet.
+     */
+    IndoorCompiledFile contents() {
+        IndoorCompiledFile current = contents;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (contents == null) {
+                contents = loader.get();
+            }
+            return contents;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.soen390.flightcrew.service.indoor;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Which floor-plan asset shows each floor, and how node coordinates map onto
+ * it. Hall, CC and VE nodes were digitized at twice the size of their SVG's
+ * user space; the raster plans of MB and VL use node coordinates as pixels.
+ * Kept in step with {@code SVG_PLAN_FILES}, {@code RASTER_PLAN_FILES} and
+ * {@code getMappedPoint} of the mobile client's floor view.
+ */
+public final class IndoorFloorPlans {
+
+    /**
+     * The asset of one floor and the factor from node coordinates to its
+     * user space (or pixels, for raster plans).
+     */
+    public record FloorPlan(String fileName, double coordinateScale) {
+
+        public double mapX(double nodeX) {
+            return nodeX * coordinateScale;
+        }
+
+        public double mapY(double nodeY) {
+            return nodeY * coordinateScale;
+        }
+    }
+
+    // Ignores case like the graph lookup, so "hall" finds the same plans as "Hall".
+    private static final Map<String, Map<Integer, FloorPlan>> PLANS = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        PLANS.putAll(Map.of(
+                "Hall", Map.of(
+                        1, new FloorPlan("H1.svg", 0.5),
+                        2, new FloorPlan("H2.svg", 0.5),
+                        8, new FloorPlan("hall8.svg", 0.5),
+                        9, new FloorPlan("hall9.svg", 0.5)),
+                "CC", Map.of(1, new FloorPlan("CC1.svg", 0.5)),
+                "VE", Map.of(
+                        1, new FloorPlan("ve1.svg", 0.5),
+                        2, new FloorPlan("ve2.svg", 0.5)),
+                "MB", Map.of(
+                        1, new FloorPlan("mb_1.png", 1.0),
+                        2, new FloorPlan("mb_s2.png", 1.0)),
+                "VL", Map.of(
+                        1, new FloorPlan("vl_1.png", 1.0),
+                        2, new FloorPlan("vl_2.png", 1.0))));
+    }
+
+    private IndoorFloorPlans() {
+    }
+
+    /**
+     * The plan of {@code floor} in {@code buildingId}, in any case, or
+     * {@code null} when it has none.
+     */
+    public static FloorPlan of(String buildingId, int floor) {
+        if (buildingId == null) {
+            return null;
+        }
+        Map<Integer, FloorPlan> floors = PLANS.get(buildingId);
+        return floors != null ? floors.get(floor) : null;
+    }
+}
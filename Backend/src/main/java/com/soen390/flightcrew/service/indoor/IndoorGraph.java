@@ -0,0 +1,669 @@
+package com.soen390.flightcrew.service.indoor;
+
+import com.soen390.flightcrew.model.IndoorEdge;
+import com.soen390.flightcrew.model.IndoorNode;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compressed-sparse-row form of one building's undirected indoor graph. Node
+ * ids are mapped to dense indices {@code 0..nodeCount-1}; the neighbours of
+ * node {@code v} occupy adjacency slots {@code [firstSlot(v), endSlot(v))} in
+ * the parallel target and weight columns. Every JSON edge yields two slots,
+ * one per direction. Instances are immutable and safe to share between
+ * request threads.
+ *
+ * <p>
+ * The graph also carries a goal-directed lower bound for A*, calibrated from
+ * its own edges at compile time (see {@link #lowerBound(int, int)}), and a
+ * connected-component label per node so that unreachable pairs are rejected
+ * without searching.
+ *
+ * <p>
+ * Every column is a buffer, so a graph read from a {@link IndoorBinaryFormat
+ * compiled file} works on the mapped file in place, while a graph compiled at
+ * load time wraps heap arrays. Node ids are looked up through an
+ * open-addressing table of node indices keyed by {@link String#hashCode()},
+ * which is stored the same way.
+ */
+public final class IndoorGraph {
+
+    /**
+     * Node type of building entrances.
+     */
+    public static final String ENTRANCE_NODE_TYPE = "building_entry_exit";
+
+    private static final IndoorGraph EMPTY = compile(IndoorNodeStore.empty(), IndoorEdgeStore.empty());
+
+    private final Nodes nodes;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final IntBuffer weights;
+    private final IntBuffer slotEdges;
+    private final ByteBuffer slotAccessible;
+    private final IndoorEdgeStore edges;
+    private final IntBuffer componentOf;
+    private final IntBuffer componentSizes;
+    private final int componentCount;
+
+    // Heuristic calibration; see calibrateHeuristic().
+    private final boolean heuristicEnabled;
+    private final DoubleBuffer walkScale;
+    private final DoubleBuffer portalCost;
+    private final double floorTransitionCost;
+
+    /**
+     * The node side of a graph, shared by a graph and its
+     * {@link #accessibleSubgraph() accessible subgraph}: per node index its id
+     * (an index into {@code ids}) and its position in {@code store}, or
+     * {@code -1} for an id that only appears as an edge endpoint, plus the id
+     * lookup table, whose entries are node index + 1 and 0 when empty.
+     */
+    record Nodes(int count, IntBuffer idRefs, IndoorStringTable ids, IntBuffer idSlots, IndoorNodeStore store,
+            IntBuffer storeIndex) {
+
+        static Nodes of(String[] nodeIds, IndoorNodeStore store, int[] storeIndex) {
+            int[] idRefs = new int[nodeIds.length];
+            for (int v = 0; v < idRefs.length; v++) {
+                idRefs[v] = v;
+            }
+            return new Nodes(nodeIds.length, IntBuffer.wrap(idRefs), IndoorStringTable.of(nodeIds),
+                    IntBuffer.wrap(hashIds(nodeIds)), store, IntBuffer.wrap(storeIndex));
+        }
+    }
+
+    private IndoorGraph(Nodes nodes, IntBuffer offsets, IntBuffer targets, IntBuffer weights, IntBuffer slotEdges,
+            ByteBuffer slotAccessible, IndoorEdgeStore edges, IntBuffer componentOf, IntBuffer componentSizes,
+            DoubleBuffer walkScale, DoubleBuffer portalCost, double floorTransitionCost) {
+        this.nodes = nodes;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.slotEdges = slotEdges;
+        this.slotAccessible = slotAccessible;
+        this.edges = edges;
+        this.componentOf = componentOf;
+        this.componentSizes = componentSizes;
+        this.componentCount = componentSizes.limit();
+        this.walkScale = walkScale;
+        this.portalCost = portalCost;
+        this.heuristicEnabled = hasCoordinates(nodes);
+        this.floorTransitionCost = heuristicEnabled ? floorTransitionCost : 0;
+    }
+
+    /**
+     * Wraps columns read from a compiled file, which must have been written
+     * from a graph over the same nodes and edges.
+     */
+    static IndoorGraph mapped(Nodes nodes, IntBuffer offsets, IntBuffer targets, IntBuffer weights,
+            IntBuffer slotEdges, ByteBuffer slotAccessible, IndoorEdgeStore edges, IntBuffer componentOf,
+            IntBuffer componentSizes, DoubleBuffer walkScale, DoubleBuffer portalCost, double floorTransitionCost) {
+        return new IndoorGraph(nodes, offsets, targets, weights, slotEdges, slotAccessible, edges, componentOf,
+                componentSizes, walkScale, portalCost, floorTransitionCost);
+    }
+
+    /**
+     * Rebuilds a graph written by {@link PrecompiledBuildingGraph}, skipping
+     * component labelling and heuristic calibration. Slot weights and
+     * accessibility are read from the edges the slots refer to.
+     */
+    static IndoorGraph restore(String[] nodeIds, int[] storeIndex, IndoorNodeStore store, IndoorEdgeStore edges,
+            int[] offsets, int[] targets, int[] slotEdges, int[] componentOf, int[] componentSizes,
+            double[] walkScale, double[] portalCost, double floorTransitionCost) {
+        int[] weights = new int[slotEdges.length];
+        byte[] slotAccessible = new byte[slotEdges.length];
+        for (int slot = 0; slot < slotEdges.length; slot++) {
+            weights[slot] = edges.weight(slotEdges[slot]);
+            slotAccessible[slot] = (byte) (Boolean.FALSE.equals(edges.accessible(slotEdges[slot])) ? 0 : 1);
+        }
+        return new IndoorGraph(Nodes.of(nodeIds, store, storeIndex), IntBuffer.wrap(offsets),
+                IntBuffer.wrap(targets), IntBuffer.wrap(weights), IntBuffer.wrap(slotEdges),
+                ByteBuffer.wrap(slotAccessible), edges, IntBuffer.wrap(componentOf), IntBuffer.wrap(componentSizes),
+                DoubleBuffer.wrap(walkScale), DoubleBuffer.wrap(portalCost), floorTransitionCost);
+    }
+
+    public static IndoorGraph empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Compiles a graph from a building's nodes and edges; see
+     * {@link #compile(IndoorNodeStore, IndoorEdgeStore)}.
+     */
+    public static IndoorGraph compile(List<IndoorNode> nodes, List<IndoorEdge> edges) {
+        return compile(IndoorNodeStore.of(nodes), IndoorEdgeStore.of(edges));
+    }
+
+    /**
+     * Compiles a graph over the nodes of a columnar store. Declared nodes are
+     * indexed first, in store order (the first declaration of a repeated id
+     * wins); edge endpoints that are not declared as nodes are appended after
+     * them. Edges without endpoints or weight are ignored.
+     */
+    public static IndoorGraph compile(IndoorNodeStore store, IndoorEdgeStore edges) {
+        Map<String, Integer> indexById = new HashMap<>();
+        int[] declared = new int[store.size()];
+        for (int i = 0; i < store.size(); i++) {
+            String id = store.isPresent(i) ? store.id(i) : null;
+            if (id != null && indexById.putIfAbsent(id, indexById.size()) == null) {
+                declared[indexById.size() - 1] = i;
+            }
+        }
+        int declaredCount = indexById.size();
+
+        int[] degree = new int[indexById.size() + 2 * edges.size()];
+        int usableEdges = 0;
+        for (int e = 0; e < edges.size(); e++) {
+            if (!edges.isUsable(e)) {
+                continue;
+            }
+            degree[indexById.computeIfAbsent(edges.source(e), k -> indexById.size())]++;
+            degree[indexById.computeIfAbsent(edges.target(e), k -> indexById.size())]++;
+            usableEdges++;
+        }
+
+        int nodeCount = indexById.size();
+        String[] nodeIds = new String[nodeCount];
+        indexById.forEach((id, index) -> nodeIds[index] = id);
+
+        int[] offsets = new int[nodeCount + 1];
+        for (int v = 0; v < nodeCount; v++) {
+            offsets[v + 1] = offsets[v] + degree[v];
+        }
+
+        int slotCount = 2 * usableEdges;
+        int[] targets = new int[slotCount];
+        int[] weights = new int[slotCount];
+        int[] slotEdges = new int[slotCount];
+        byte[] slotAccessible = new byte[slotCount];
+        int[] cursor = Arrays.copyOf(offsets, nodeCount);
+
+        for (int e = 0; e < edges.size(); e++) {
+            if (!edges.isUsable(e)) {
+                continue;
+            }
+            int source = indexById.get(edges.source(e));
+            int target = indexById.get(edges.target(e));
+            byte accessible = (byte) (Boolean.FALSE.equals(edges.accessible(e)) ? 0 : 1);
+
+            int slot = cursor[source]++;
+            targets[slot] = target;
+            weights[slot] = edges.weight(e);
+            slotEdges[slot] = e;
+            slotAccessible[slot] = accessible;
+
+            slot = cursor[target]++;
+            targets[slot] = source;
+            weights[slot] = edges.weight(e);
+            slotEdges[slot] = e;
+            slotAccessible[slot] = accessible;
+        }
+
+        int[] storeIndex = new int[nodeCount];
+        Arrays.fill(storeIndex, -1);
+        System.arraycopy(declared, 0, storeIndex, 0, declaredCount);
+        return derive(Nodes.of(nodeIds, store, storeIndex), offsets, targets, weights, slotEdges, slotAccessible,
+                edges);
+    }
+
+    /**
+     * Derives the graph used for step-free routing: the same nodes under the same
+     * indices, keeping only adjacency slots whose edge is not marked
+     * {@code accessible: false}. Components and heuristic are recomputed for the
+     * reduced edge set.
+     */
+    public IndoorGraph accessibleSubgraph() {
+        int nodeCount = nodes.count();
+        int[] subOffsets = new int[nodeCount + 1];
+        for (int v = 0; v < nodeCount; v++) {
+            int kept = 0;
+            for (int slot = offsets.get(v); slot < offsets.get(v + 1); slot++) {
+                if (isAccessible(slot)) {
+                    kept++;
+                }
+            }
+            subOffsets[v + 1] = subOffsets[v] + kept;
+        }
+
+        int slotCount = subOffsets[nodeCount];
+        int[] subTargets = new int[slotCount];
+        int[] subWeights = new int[slotCount];
+        int[] subEdges = new int[slotCount];
+        byte[] subAccessible = new byte[slotCount];
+        int next = 0;
+        for (int slot = 0; slot < slotCount(); slot++) {
+            if (isAccessible(slot)) {
+                subTargets[next] = targets.get(slot);
+                subWeights[next] = weights.get(slot);
+                subEdges[next] = slotEdges.get(slot);
+                subAccessible[next] = 1;
+                next++;
+            }
+        }
+
+        return derive(nodes, subOffsets, subTargets, subWeights, subEdges, subAccessible, edges);
+    }
+
+    /**
+     * Labels components and calibrates the heuristic of freshly built
+     * adjacency arrays.
+     */
+    private static IndoorGraph derive(Nodes nodes, int[] offsets, int[] targets, int[] weights, int[] slotEdges,
+            byte[] slotAccessible, IndoorEdgeStore edges) {
+        int nodeCount = nodes.count();
+        int[] componentOf = new int[nodeCount];
+        int[] componentSizes = labelComponents(offsets, targets, componentOf);
+        double[] walkScale = new double[nodeCount];
+        double[] portalCost = new double[nodeCount];
+        double floorTransitionCost = hasCoordinates(nodes)
+                ? calibrateHeuristic(nodes, offsets, targets, weights, walkScale, portalCost)
+                : 0;
+        return new IndoorGraph(nodes, IntBuffer.wrap(offsets), IntBuffer.wrap(targets), IntBuffer.wrap(weights),
+                IntBuffer.wrap(slotEdges), ByteBuffer.wrap(slotAccessible), edges, IntBuffer.wrap(componentOf),
+                IntBuffer.wrap(componentSizes), DoubleBuffer.wrap(walkScale), DoubleBuffer.wrap(portalCost),
+                floorTransitionCost);
+    }
+
+    /**
+     * The id lookup table of {@link Nodes}: node index + 1 at the first free
+     * slot from the spread hash of its id, in a table at most half full.
+     */
+    static int[] hashIds(String[] nodeIds) {
+        int size = 1;
+        while (size < 2 * nodeIds.length) {
+            size <<= 1;
+        }
+        int[] slots = new int[size];
+        for (int v = 0; v < nodeIds.length; v++) {
+            int k = spread(nodeIds[v].hashCode()) & (size - 1);
+            while (slots[k] != 0) {
+                k = (k + 1) & (size - 1);
+            }
+            slots[k] = v + 1;
+        }
+        return slots;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Labels every node with the id of its connected component using an
+     * iterative breadth-first sweep.
+     *
+     * @return the size of each component, indexed by component id
+     */
+    private static int[] labelComponents(int[] offsets, int[] targets, int[] componentOf) {
+        int nodeCount = componentOf.length;
+        Arrays.fill(componentOf, -1);
+        int[] queue = new int[nodeCount];
+        int[] sizes = new int[nodeCount];
+        int components = 0;
+
+        for (int root = 0; root < nodeCount; root++) {
+            if (componentOf[root] >= 0) {
+                continue;
+            }
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = root;
+            componentOf[root] = components;
+            while (head < tail) {
+                int u = queue[head++];
+                for (int slot = offsets[u]; slot < offsets[u + 1]; slot++) {
+                    int v = targets[slot];
+                    if (componentOf[v] < 0) {
+                        componentOf[v] = components;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+            sizes[components++] = tail;
+        }
+
+        return Arrays.copyOf(sizes, components);
+    }
+
+    /**
+     * Whether every node has a position and a floor, which the heuristic
+     * needs.
+     */
+    private static boolean hasCoordinates(Nodes nodes) {
+        for (int v = 0; v < nodes.count(); v++) {
+            int i = nodes.storeIndex().get(v);
+            if (i < 0 || !nodes.store().hasPosition(i) || !nodes.store().hasFloor(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Derives the heuristic constants from the edges so that the bound never
+     * exceeds the true remaining cost:
+     * <ul>
+     * <li>Each floor gets a walking scale: the smallest weight per unit of planar
+     * length over that floor's edges, so walking on the floor costs at least
+     * {@code scale * planarDistance}. Calibrating per floor keeps one badly drawn
+     * floor from weakening the bound everywhere else.</li>
+     * <li>The floor transition cost is the smallest weight per floor crossed over
+     * cross-floor edges.</li>
+     * </ul>
+     * Floors need not share a coordinate frame (elevators often join distant
+     * points at no cost), so planar distance is never measured across floors.
+     * Instead each node records the scaled cost of walking to the nearest node on
+     * its floor that has a cross-floor edge (a portal): any route that leaves a
+     * floor must first walk to one.
+     *
+     * @return the floor transition cost
+     */
+    private static double calibrateHeuristic(Nodes nodes, int[] offsets, int[] targets, int[] weights,
+            double[] walkScale, double[] portalCost) {
+        int nodeCount = nodes.count();
+        // Gathered in node index order so the quadratic portal scan reads them sequentially.
+        double[] x = new double[nodeCount];
+        double[] y = new double[nodeCount];
+        int[] floor = new int[nodeCount];
+        for (int v = 0; v < nodeCount; v++) {
+            int i = nodes.storeIndex().get(v);
+            x[v] = nodes.store().x(i);
+            y[v] = nodes.store().y(i);
+            floor[v] = nodes.store().floor(i);
+        }
+
+        Map<Integer, Double> scaleByFloor = new HashMap<>();
+        double transition = Double.POSITIVE_INFINITY;
+        boolean[] portal = new boolean[nodeCount];
+
+        for (int u = 0; u < nodeCount; u++) {
+            for (int slot = offsets[u]; slot < offsets[u + 1]; slot++) {
+                int v = targets[slot];
+                int floorsCrossed = Math.abs(floor[u] - floor[v]);
+                if (floorsCrossed == 0) {
+                    double planar = Math.hypot(x[u] - x[v], y[u] - y[v]);
+                    if (planar > 0) {
+                        scaleByFloor.merge(floor[u], weights[slot] / planar, Math::min);
+                    }
+                } else {
+                    portal[u] = true;
+                    transition = Math.min(transition, (double) weights[slot] / floorsCrossed);
+                }
+            }
+        }
+
+        for (int v = 0; v < nodeCount; v++) {
+            // Shave a hair off so floating-point rounding can never overshoot an edge.
+            walkScale[v] = scaleByFloor.getOrDefault(floor[v], 0.0) * (1 - 1e-9);
+
+            double nearest = Double.POSITIVE_INFINITY;
+            for (int p = 0; p < nodeCount; p++) {
+                if (portal[p] && floor[p] == floor[v]) {
+                    nearest = Math.min(nearest, Math.hypot(x[v] - x[p], y[v] - y[p]));
+                }
+            }
+            // A floor without portals cannot be left, so 0 is still a valid bound.
+            portalCost[v] = Double.isInfinite(nearest) ? 0 : walkScale[v] * nearest;
+        }
+
+        return Double.isInfinite(transition) ? 0 : transition;
+    }
+
+    /**
+     * Admissible and consistent lower bound on the cost from {@code node} to
+     * {@code goal}, in edge-weight units. On the goal's floor it is the cheaper of
+     * walking straight there or detouring through portals; on any other floor the
+     * route must reach a portal, change {@code |Δfloor|} floors and walk from a
+     * portal to the goal. Returns 0 when the graph lacks coordinates.
+     */
+    public int lowerBound(int node, int goal) {
+        if (!heuristicEnabled) {
+            return 0;
+        }
+
+        IndoorNodeStore store = nodes.store();
+        int from = nodes.storeIndex().get(node);
+        int to = nodes.storeIndex().get(goal);
+        double viaPortals = portalCost.get(node) + portalCost.get(goal);
+        int floorsApart = Math.abs(store.floor(from) - store.floor(to));
+        if (floorsApart == 0) {
+            double planar = Math.hypot(store.x(from) - store.x(to), store.y(from) - store.y(to));
+            return (int) Math.min(walkScale.get(goal) * planar, viaPortals);
+        }
+        return (int) (viaPortals + floorTransitionCost * floorsApart);
+    }
+
+    public boolean hasHeuristic() {
+        return heuristicEnabled;
+    }
+
+    /**
+     * Connected-component id of a node; two nodes are mutually reachable if and
+     * only if their ids are equal.
+     */
+    public int componentOf(int node) {
+        return componentOf.get(node);
+    }
+
+    public int componentCount() {
+        return componentCount;
+    }
+
+    public int componentSize(int component) {
+        return componentSizes.get(component);
+    }
+
+    /**
+     * Id of the component with the most nodes, or {@code -1} for an empty graph.
+     */
+    public int largestComponent() {
+        int largest = -1;
+        for (int c = 0; c < componentCount; c++) {
+            if (largest < 0 || componentSizes.get(c) > componentSizes.get(largest)) {
+                largest = c;
+            }
+        }
+        return largest;
+    }
+
+    public boolean isConnected(int from, int to) {
+        return componentOf.get(from) == componentOf.get(to);
+    }
+
+    public int nodeCount() {
+        return nodes.count();
+    }
+
+    public int slotCount() {
+        return targets.limit();
+    }
+
+    /**
+     * Returns the dense index of a node id, or {@code -1} when the node is unknown.
+     */
+    public int indexOf(String nodeId) {
+        if (nodeId == null) {
+            return -1;
+        }
+        IntBuffer idSlots = nodes.idSlots();
+        int mask = idSlots.limit() - 1;
+        for (int k = spread(nodeId.hashCode()) & mask;; k = (k + 1) & mask) {
+            int entry = idSlots.get(k);
+            if (entry == 0) {
+                return -1;
+            }
+            if (nodeId.equals(idOf(entry - 1))) {
+                return entry - 1;
+            }
+        }
+    }
+
+    public String idOf(int node) {
+        return nodes.ids().get(nodes.idRefs().get(node));
+    }
+
+    /**
+     * The declared JSON node at an index, or {@code null} for an id that only
+     * appears as an edge endpoint.
+     */
+    public IndoorNode node(int node) {
+        int i = nodes.storeIndex().get(node);
+        return i >= 0 ? nodes.store().view(i) : null;
+    }
+
+    /**
+     * Type of the declared node at an index without materializing it, or
+     * {@code null} for an undeclared endpoint.
+     */
+    public String typeOf(int node) {
+        int i = nodes.storeIndex().get(node);
+        return i >= 0 ? nodes.store().type(i) : null;
+    }
+
+    /**
+     * Whether the node is a building entrance that has at least one edge.
+     */
+    public boolean isEntrance(int node) {
+        return degree(node) > 0 && ENTRANCE_NODE_TYPE.equalsIgnoreCase(typeOf(node));
+    }
+
+    public int firstSlot(int node) {
+        return offsets.get(node);
+    }
+
+    public int endSlot(int node) {
+        return offsets.get(node + 1);
+    }
+
+    public int degree(int node) {
+        return offsets.get(node + 1) - offsets.get(node);
+    }
+
+    public int target(int slot) {
+        return targets.get(slot);
+    }
+
+    public int weight(int slot) {
+        return weights.get(slot);
+    }
+
+    public boolean isAccessible(int slot) {
+        return slotAccessible.get(slot) != 0;
+    }
+
+    /**
+     * Slot of the cheapest edge from {@code from} to {@code to} — the one a
+     * shortest path between them takes — or {@code -1} when they are not
+     * adjacent. Scans only {@code from}'s adjacency, so it costs O(degree).
+     */
+    public int slotBetween(int from, int to) {
+        int best = -1;
+        for (int slot = offsets.get(from), last = offsets.get(from + 1); slot < last; slot++) {
+            if (targets.get(slot) == to && (best < 0 || weights.get(slot) < weights.get(best))) {
+                best = slot;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The source JSON edge behind an adjacency slot, materialized on each call.
+     */
+    public IndoorEdge edge(int slot) {
+        return edges.view(slotEdges.get(slot));
+    }
+
+    /**
+     * Position of the edge behind an adjacency slot in the building's edges.
+     */
+    public int edgeIndex(int slot) {
+        return slotEdges.get(slot);
+    }
+
+    // Copies of the columns, for PrecompiledBuildingGraph and IndoorBinaryFormat.
+
+    Nodes nodes() {
+        return nodes;
+    }
+
+    IndoorEdgeStore edgeStore() {
+        return edges;
+    }
+
+    String[] nodeIdArray() {
+        String[] ids = new String[nodes.count()];
+        for (int v = 0; v < ids.length; v++) {
+            ids[v] = idOf(v);
+        }
+        return ids;
+    }
+
+    int[] idSlotArray() {
+        return toArray(nodes.idSlots());
+    }
+
+    int[] storeIndexArray() {
+        return toArray(nodes.storeIndex());
+    }
+
+    int[] offsetArray() {
+        return toArray(offsets);
+    }
+
+    int[] targetArray() {
+        return toArray(targets);
+    }
+
+    int[] weightArray() {
+        return toArray(weights);
+    }
+
+    int[] slotEdgeArray() {
+        return toArray(slotEdges);
+    }
+
+    byte[] slotAccessibleArray() {
+        byte[] values = new byte[slotAccessible.limit()];
+        slotAccessible.get(0, values);
+        return values;
+    }
+
+    int[] componentArray() {
+        return toArray(componentOf);
+    }
+
+    int[] componentSizeArray() {
+        return toArray(componentSizes);
+    }
+
+    double[] walkScaleArray() {
+        return toArray(walkScale);
+    }
+
+    double[] portalCostArray() {
+        return toArray(portalCost);
+    }
+
+    double floorTransitionCost() {
+        return floorTransitionCost;
+    }
+
+    private static int[] toArray(IntBuffer buffer) {
+        int[] values = new int[buffer.limit()];
+        buffer.get(0, values);
+        return values;
+    }
+
+    private static double[] toArray(DoubleBuffer buffer) {
+        double[] values = new double[buffer.limit()];
+        buffer.get(0, values);
+        return values;
+    }
+}
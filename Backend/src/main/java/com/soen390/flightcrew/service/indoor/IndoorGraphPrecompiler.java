@@ -0,0 +1,92 @@
+package com.soen390.flightcrew.service.indoor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soen390.flightcrew.model.IndoorBuildingData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Build step that turns the indoor JSON sources into
+ * {@link PrecompiledBuildingGraph} artifacts. It refuses to produce anything
+ * when the data fails {@link IndoorDataValidator} — duplicate node ids,
+ * dangling edge endpoints, edges without a weight — so broken data fails the
+ * build instead of surfacing at runtime.
+ *
+ * <p>
+ * Run by Maven with the JSON directory and the output directory as arguments;
+ * the output directory replaces any artifacts of a previous run.
+ */
+public final class IndoorGraphPrecompiler {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndoorGraphPrecompiler.class);
+
+    private IndoorGraphPrecompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: IndoorGraphPrecompiler <json-dir> <output-dir>");
+        }
+        int written = precompile(Paths.get(args[0]), Paths.get(args[1]));
+        logger.info("Precompiled indoor graphs for {} buildings into {}", written, args[1]);
+    }
+
+    /**
+     * Validates every JSON file of {@code jsonDir} and writes one artifact per
+     * building into {@code outputDir}.
+     *
+     * @return the number of artifacts written
+     * @throws IllegalStateException if the data is invalid
+     */
+    public static int precompile(Path jsonDir, Path outputDir) throws IOException {
+        Map<String, IndoorBuildingData> files = parse(jsonDir);
+
+        List<String> problems = IndoorDataValidator.validate(files.keySet(), files);
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Invalid indoor data in " + jsonDir + ":\n  "
+                    + String.join("\n  ", problems));
+        }
+
+        Files.createDirectories(outputDir);
+        try (Stream<Path> stale = Files.list(outputDir)) {
+            List<Path> previous = stale
+                    .filter(path -> path.toString().endsWith(PrecompiledBuildingGraph.FILE_SUFFIX))
+                    .toList();
+            for (Path path : previous) {
+                Files.delete(path);
+            }
+        }
+
+        IndoorSnapshot snapshot = IndoorSnapshot.of(0L, files);
+        for (IndoorBuildingSnapshot building : snapshot.getBuildings().values()) {
+            Files.write(outputDir.resolve(PrecompiledBuildingGraph.fileName(building.getBuildingId())),
+                    PrecompiledBuildingGraph.of(building).toBytes());
+        }
+        return snapshot.getBuildings().size();
+    }
+
+    private static Map<String, IndoorBuildingData> parse(Path jsonDir) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, IndoorBuildingData> files = new TreeMap<>();
+        try (Stream<Path> paths = Files.list(jsonDir)) {
+            List<Path> sources = paths.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json"))
+                    .toList();
+            for (Path path : sources) {
+                files.put(path.getFileName().toString(),
+                        objectMapper.readValue(path.toFile(), IndoorBuildingData.class));
+            }
+        }
+        return files;
+    }
+}
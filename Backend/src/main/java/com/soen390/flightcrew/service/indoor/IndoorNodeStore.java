@@ -0,0 +1,427 @@
+package com.soen390.flightcrew.service.indoor;
+
+import com.soen390.flightcrew.model.IndoorNode;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Immutable, column-oriented storage for indoor nodes. Instead of one bean per
+ * node with boxed coordinates and its own copies of the type and building
+ * strings, every attribute lives in a primitive column indexed by position:
+ * coordinates as doubles, floors as shorts, ids and labels as indices into an
+ * {@link IndoorStringTable}, the node type and building id as codes into small
+ * lookup tables (one byte each up to 256 distinct values, wider past that),
+ * and presence and accessibility as one flag byte. {@link IndoorNode} beans
+ * are only materialized on demand, through {@link #view(int)} or
+ * {@link #asList()}, when a node leaves the service layer.
+ *
+ * <p>
+ * Columns are buffers, either wrapping heap arrays or slicing a memory-mapped
+ * {@link IndoorBinaryFormat compiled file}, in which case the store reads the
+ * file in place and the page cache is its only copy.
+ *
+ * <p>
+ * Missing values are preserved: a position without a node ({@code null} list
+ * element), a {@code NaN} coordinate, {@link #NO_FLOOR} and the {@code 0} code
+ * all read back as {@code null}.
+ */
+public final class IndoorNodeStore {
+
+    public static final short NO_FLOOR = Short.MIN_VALUE;
+
+    static final byte PRESENT = 1;
+    static final byte ACCESSIBLE_KNOWN = 2;
+    static final byte ACCESSIBLE = 4;
+
+    private static final IndoorNodeStore EMPTY = of(List.of());
+
+    private final int size;
+    private final ByteBuffer flags;
+    private final IntBuffer ids;
+    private final DoubleBuffer x;
+    private final DoubleBuffer y;
+    private final ShortBuffer floor;
+    private final CodeColumn typeCode;
+    private final String[] typeTable;
+    private final CodeColumn buildingCode;
+    private final String[] buildingTable;
+    private final IntBuffer labels;
+    private final IndoorStringTable strings;
+
+    IndoorNodeStore(int size, ByteBuffer flags, IntBuffer ids, DoubleBuffer x, DoubleBuffer y, ShortBuffer floor,
+            CodeColumn typeCode, String[] typeTable, CodeColumn buildingCode, String[] buildingTable,
+            IntBuffer labels, IndoorStringTable strings) {
+        this.size = size;
+        this.flags = flags;
+        this.ids = ids;
+        this.x = x;
+        this.y = y;
+        this.floor = floor;
+        this.typeCode = typeCode;
+        this.typeTable = typeTable;
+        this.buildingCode = buildingCode;
+        this.buildingTable = buildingTable;
+        this.labels = labels;
+        this.strings = strings;
+    }
+
+    /**
+     * Packs the given nodes into columns. A list previously returned by
+     * {@link #asList()} is unwrapped instead of copied.
+     */
+    public static IndoorNodeStore of(List<IndoorNode> nodes) {
+        if (nodes instanceof NodeList list) {
+            return list.store;
+        }
+        return pack(nodes != null ? nodes : List.of());
+    }
+
+    public static IndoorNodeStore empty() {
+        return EMPTY;
+    }
+
+    private static IndoorNodeStore pack(List<IndoorNode> nodes) {
+        int size = nodes.size();
+        Columns columns = new Columns(size);
+        for (int i = 0; i < size; i++) {
+            IndoorNode node = nodes.get(i);
+            if (node == null) {
+                continue;
+            }
+            columns.set(i, node.getId(), node.getX() != null ? node.getX() : Double.NaN,
+                    node.getY() != null ? node.getY() : Double.NaN,
+                    node.getFloor() != null ? toFloor(node.getFloor(), node.getId()) : NO_FLOOR,
+                    node.getType(), node.getBuildingId(), node.getLabel(), node.getAccessible());
+        }
+        return columns.build();
+    }
+
+    /**
+     * The stores' nodes one after the other, copied column by column without
+     * materializing any node. A single store is returned as is.
+     */
+    public static IndoorNodeStore concat(List<IndoorNodeStore> stores) {
+        if (stores.isEmpty()) {
+            return EMPTY;
+        }
+        if (stores.size() == 1) {
+            return stores.get(0);
+        }
+
+        Columns columns = new Columns(stores.stream().mapToInt(IndoorNodeStore::size).sum());
+        int start = 0;
+        for (IndoorNodeStore store : stores) {
+            for (int i = 0; i < store.size; i++) {
+                if (store.isPresent(i)) {
+                    columns.set(start + i, store.id(i), store.x(i), store.y(i), store.floor.get(i),
+                            store.type(i), store.buildingId(i), store.label(i), store.accessible(i));
+                }
+            }
+            start += store.size;
+        }
+        return columns.build();
+    }
+
+    private static short toFloor(int value, String nodeId) {
+        if (value <= NO_FLOOR || value > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Floor " + value + " of node " + nodeId + " is out of range");
+        }
+        return (short) value;
+    }
+
+    private static String decode(int code, String[] table) {
+        return code == 0 ? null : table[code];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Whether position {@code i} holds a node at all ({@code false} for a
+     * {@code null} element of the source list).
+     */
+    public boolean isPresent(int i) {
+        return (flags.get(i) & PRESENT) != 0;
+    }
+
+    public String id(int i) {
+        return strings.get(ids.get(i));
+    }
+
+    public boolean hasPosition(int i) {
+        return !Double.isNaN(x.get(i)) && !Double.isNaN(y.get(i));
+    }
+
+    public double x(int i) {
+        return x.get(i);
+    }
+
+    public double y(int i) {
+        return y.get(i);
+    }
+
+    public boolean hasFloor(int i) {
+        return floor.get(i) != NO_FLOOR;
+    }
+
+    public int floor(int i) {
+        return floor.get(i);
+    }
+
+    public String type(int i) {
+        return decode(typeCode.get(i), typeTable);
+    }
+
+    public String buildingId(int i) {
+        return decode(buildingCode.get(i), buildingTable);
+    }
+
+    public String label(int i) {
+        return strings.get(labels.get(i));
+    }
+
+    public Boolean accessible(int i) {
+        byte flag = flags.get(i);
+        return (flag & ACCESSIBLE_KNOWN) != 0 ? (flag & ACCESSIBLE) != 0 : null;
+    }
+
+    // Raw codes for IndoorBinaryFormat.
+
+    int typeCode(int i) {
+        return typeCode.get(i);
+    }
+
+    String[] typeTable() {
+        return typeTable;
+    }
+
+    int buildingCode(int i) {
+        return buildingCode.get(i);
+    }
+
+    String[] buildingTable() {
+        return buildingTable;
+    }
+
+    byte flags(int i) {
+        return flags.get(i);
+    }
+
+    /**
+     * Materializes position {@code i} as a fresh {@link IndoorNode}, or
+     * {@code null} when no node was stored there.
+     */
+    public IndoorNode view(int i) {
+        if (!isPresent(i)) {
+            return null;
+        }
+        IndoorNode node = new IndoorNode();
+        node.setId(id(i));
+        node.setType(type(i));
+        node.setBuildingId(buildingId(i));
+        node.setFloor(hasFloor(i) ? floor(i) : null);
+        node.setX(Double.isNaN(x(i)) ? null : x(i));
+        node.setY(Double.isNaN(y(i)) ? null : y(i));
+        node.setLabel(label(i));
+        node.setAccessible(accessible(i));
+        return node;
+    }
+
+    /**
+     * Read-only list view whose elements are materialized on each access.
+     */
+    public List<IndoorNode> asList() {
+        return new NodeList(this);
+    }
+
+    /**
+     * Heap columns filled one node at a time.
+     */
+    private static final class Columns {
+
+        private final int size;
+        private final byte[] flags;
+        private final int[] ids;
+        private final double[] x;
+        private final double[] y;
+        private final short[] floor;
+        private final int[] typeCodes;
+        private final int[] buildingCodes;
+        private final int[] labels;
+        private final IndoorStringTable.Builder strings = new IndoorStringTable.Builder();
+        private final CodeTable types = new CodeTable();
+        private final CodeTable buildings = new CodeTable();
+
+        Columns(int size) {
+            this.size = size;
+            this.flags = new byte[size];
+            this.ids = new int[size];
+            this.x = new double[size];
+            this.y = new double[size];
+            this.floor = new short[size];
+            this.typeCodes = new int[size];
+            this.buildingCodes = new int[size];
+            this.labels = new int[size];
+            Arrays.fill(ids, IndoorStringTable.NONE);
+            Arrays.fill(labels, IndoorStringTable.NONE);
+            Arrays.fill(x, Double.NaN);
+            Arrays.fill(y, Double.NaN);
+            Arrays.fill(floor, NO_FLOOR);
+        }
+
+        void set(int i, String id, double nodeX, double nodeY, short nodeFloor, String type, String building,
+                String label, Boolean accessible) {
+            byte flag = PRESENT;
+            if (accessible != null) {
+                flag |= ACCESSIBLE_KNOWN;
+                if (accessible) {
+                    flag |= ACCESSIBLE;
+                }
+            }
+            flags[i] = flag;
+            ids[i] = strings.index(id);
+            x[i] = nodeX;
+            y[i] = nodeY;
+            floor[i] = nodeFloor;
+            typeCodes[i] = types.encode(type);
+            buildingCodes[i] = buildings.encode(building);
+            labels[i] = strings.index(label);
+        }
+
+        IndoorNodeStore build() {
+            String[] typeTable = types.toArray();
+            String[] buildingTable = buildings.toArray();
+            return new IndoorNodeStore(size, ByteBuffer.wrap(flags), IntBuffer.wrap(ids), DoubleBuffer.wrap(x),
+                    DoubleBuffer.wrap(y), ShortBuffer.wrap(floor), CodeColumn.pack(typeCodes, typeTable.length),
+                    typeTable, CodeColumn.pack(buildingCodes, buildingTable.length), buildingTable,
+                    IntBuffer.wrap(labels), strings.build());
+        }
+    }
+
+    /**
+     * Distinct values of one attribute, code {@code 0} standing for
+     * {@code null}.
+     */
+    private static final class CodeTable {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final ArrayList<String> values = new ArrayList<>(List.of(""));
+
+        int encode(String value) {
+            if (value == null) {
+                return 0;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value.intern());
+            }
+            return code;
+        }
+
+        String[] toArray() {
+            return values.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Codes into a value table, in the narrowest column that holds them: one
+     * byte each while the table has at most 256 entries, as almost every
+     * attribute does, two up to 65536, and four past that.
+     */
+    static final class CodeColumn {
+
+        private final ByteBuffer bytes;
+        private final CharBuffer chars;
+        private final IntBuffer ints;
+
+        private CodeColumn(ByteBuffer bytes, CharBuffer chars, IntBuffer ints) {
+            this.bytes = bytes;
+            this.chars = chars;
+            this.ints = ints;
+        }
+
+        /**
+         * Bytes per code for a table of {@code tableSize} entries.
+         */
+        static int width(int tableSize) {
+            if (tableSize <= 1 << Byte.SIZE) {
+                return Byte.BYTES;
+            }
+            return tableSize <= 1 << Character.SIZE ? Character.BYTES : Integer.BYTES;
+        }
+
+        static CodeColumn pack(int[] codes, int tableSize) {
+            int width = width(tableSize);
+            if (width == Integer.BYTES) {
+                return new CodeColumn(null, null, IntBuffer.wrap(codes));
+            }
+            if (width == Character.BYTES) {
+                char[] chars = new char[codes.length];
+                for (int i = 0; i < codes.length; i++) {
+                    chars[i] = (char) codes[i];
+                }
+                return new CodeColumn(null, CharBuffer.wrap(chars), null);
+            }
+            byte[] bytes = new byte[codes.length];
+            for (int i = 0; i < codes.length; i++) {
+                bytes[i] = (byte) codes[i];
+            }
+            return new CodeColumn(ByteBuffer.wrap(bytes), null, null);
+        }
+
+        /**
+         * A column of {@code width}-byte codes read in place from
+         * {@code buffer}.
+         */
+        static CodeColumn mapped(ByteBuffer buffer, int width) {
+            return switch (width) {
+                case Byte.BYTES -> new CodeColumn(buffer, null, null);
+                case Character.BYTES -> new CodeColumn(null, buffer.asCharBuffer(), null);
+                default -> new CodeColumn(null, null, buffer.asIntBuffer());
+            };
+        }
+
+        int get(int i) {
+            if (bytes != null) {
+                return bytes.get(i) & 0xFF;
+            }
+            return chars != null ? chars.get(i) : ints.get(i);
+        }
+    }
+
+    private static final class NodeList extends AbstractList<IndoorNode> implements RandomAccess {
+
+        private final IndoorNodeStore store;
+
+        private NodeList(IndoorNodeStore store) {
+            this.store = store;
+        }
+
+        @Override
+        public IndoorNode get(int index) {
+            if (index < 0 || index >= store.size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return store.view(index);
+        }
+
+        @Override
+        public int size() {
+            return store.size;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.soen390.flightcrew.service.indoor;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Scales raster floor plans down with {@code javax.imageio} and Java2D. Large
+ * reductions halve the image repeatedly before the last bilinear step, which
+ * keeps thin walls and room labels legible where a single step would drop
+ * pixels. Encoding to JPEG flattens transparency onto white.
+ */
+public final class IndoorRasterResizer {
+
+    public static final String PNG = "png";
+    public static final String JPEG = "jpeg";
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private IndoorRasterResizer() {
+    }
+
+    /**
+     * Reads only the header of an image to return its width.
+     */
+    public static int widthOf(Path image) throws IOException {
+        return sizeOf(image).width;
+    }
+
+    /**
+     * Reads only the header of an image to return its size.
+     */
+    public static Dimension sizeOf(Path image) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(image.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format: " + image.getFileName());
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales {@code image} to {@code width} pixels wide, keeping its aspect
+     * ratio, and encodes it as {@code format} ({@link #PNG} or {@link #JPEG}).
+     * A width at or above the source width only re-encodes it.
+     */
+    public static byte[] resize(Path image, int width, String format) throws IOException {
+        BufferedImage source = ImageIO.read(image.toFile());
+        if (source == null) {
+            throw new IOException("Unsupported image format: " + image.getFileName());
+        }
+
+        boolean alpha = PNG.equals(format) && source.getColorModel().hasAlpha();
+        int targetWidth = Math.min(width, source.getWidth());
+        int targetHeight = Math.max(1, Math.round((float) source.getHeight() * targetWidth / source.getWidth()));
+
+        BufferedImage current = draw(source, source.getWidth(), source.getHeight(), alpha);
+        while (current.getWidth() / 2 >= targetWidth && current.getWidth() > targetWidth) {
+            current = draw(current, current.getWidth() / 2, Math.max(1, current.getHeight() / 2), alpha);
+        }
+        if (current.getWidth() != targetWidth) {
+            current = draw(current, targetWidth, targetHeight, alpha);
+        }
+        return encode(current, format);
+    }
+
+    /**
+     * Draws {@code image} scaled into a new RGB or ARGB image, which also
+     * expands indexed palettes so scaling can blend colors.
+     */
+    private static BufferedImage draw(BufferedImage image, int width, int height, boolean alpha) {
+        BufferedImage target = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            if (!alpha) {
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+            }
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!JPEG.equals(format)) {
+            if (!ImageIO.write(image, format, out)) {
+                throw new IOException("No image writer for " + format);
+            }
+            return out.toByteArray();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(JPEG).next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam parameters = writer.getDefaultWriteParam();
+            parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parameters.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), parameters);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,271 @@
+package com.soen390.flightcrew.service.indoor;
+
+import com.soen390.flightcrew.model.IndoorNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Search index over the rooms of one building file. Rooms are partitioned by
+ * lower-cased node building id and floor, and each partition keeps its rooms
+ * sorted by label plus a suffix array over their {@link #normalize normalized}
+ * labels, so a filtered query only looks at its own partitions and a substring
+ * query is a binary search plus a walk over the suffixes it prefixes, instead
+ * of a scan of every node.
+ *
+ * <p>
+ * Matches are ranked exact label first, then label prefix, then the start of
+ * a later word, then any other substring, and by label within a rank. Nodes
+ * are only read back from the file's node list for the rooms returned.
+ */
+public final class IndoorRoomIndex {
+
+    private static final String ROOM_TYPE = "room";
+
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int WORD_PREFIX = 2;
+    private static final int SUBSTRING = 3;
+
+    private final List<IndoorNode> nodes;
+    private final String[] labels;
+    private final String[] normalized;
+    // Lower-cased node building id -> floor (null for none) -> partition.
+    private final Map<String, Map<Integer, Partition>> partitions;
+    private final int roomCount;
+
+    private IndoorRoomIndex(List<IndoorNode> nodes) {
+        this.nodes = nodes;
+        this.labels = new String[nodes.size()];
+        this.normalized = new String[nodes.size()];
+
+        Map<String, Map<Integer, List<Integer>>> grouped = new LinkedHashMap<>();
+        int rooms = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            IndoorNode node = nodes.get(i);
+            if (node == null || !ROOM_TYPE.equalsIgnoreCase(node.getType())) {
+                continue;
+            }
+            labels[i] = node.getLabel();
+            normalized[i] = node.getLabel() != null ? normalize(node.getLabel()) : "";
+            String building = node.getBuildingId() != null ? node.getBuildingId().toLowerCase(Locale.ROOT) : "";
+            grouped.computeIfAbsent(building, key -> new HashMap<>())
+                    .computeIfAbsent(node.getFloor(), key -> new ArrayList<>())
+                    .add(i);
+            rooms++;
+        }
+
+        Map<String, Map<Integer, Partition>> built = new HashMap<>();
+        grouped.forEach((building, floors) -> {
+            Map<Integer, Partition> byFloor = new HashMap<>();
+            floors.forEach((floor, positions) -> byFloor.put(floor, new Partition(positions)));
+            built.put(building, byFloor);
+        });
+        this.partitions = built;
+        this.roomCount = rooms;
+    }
+
+    /**
+     * Indexes the rooms among {@code nodes}; the list is kept to read matched
+     * nodes back, so it must not change afterwards.
+     */
+    public static IndoorRoomIndex of(List<IndoorNode> nodes) {
+        return new IndoorRoomIndex(nodes != null ? nodes : List.of());
+    }
+
+    /**
+     * Lower-cases {@code text} and collapses every run of characters other than
+     * letters and digits into a single space, so {@code "MB-S2.330"},
+     * {@code "mb s2 330"} and {@code "MB S2-330"} all read {@code "mb s2 330"}.
+     */
+    public static String normalize(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && !out.isEmpty()) {
+                    out.append(' ');
+                }
+                pendingSpace = false;
+                out.append(Character.toLowerCase(c));
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return out.toString();
+    }
+
+    public int roomCount() {
+        return roomCount;
+    }
+
+    /**
+     * Searches several indexes at once and returns the matching rooms, ranked
+     * as described on the class. A blank query, or one without any letter or
+     * digit, lists every room sorted by label.
+     *
+     * @param buildingId node building id to keep, ignoring case; blank for all
+     * @param floor      floor to keep; {@code null} for all
+     */
+    public static List<IndoorNode> search(List<IndoorRoomIndex> indexes, String query, String buildingId,
+            Integer floor) {
+        String normalizedQuery = query != null ? normalize(query) : "";
+        String building = buildingId != null && !buildingId.isBlank() ? buildingId.toLowerCase(Locale.ROOT) : null;
+
+        List<Hit> hits = new ArrayList<>();
+        for (int order = 0; order < indexes.size(); order++) {
+            indexes.get(order).collect(order, normalizedQuery, building, floor, hits);
+        }
+        hits.sort(Comparator.comparingInt(Hit::rank)
+                .thenComparing(Hit::label)
+                .thenComparingInt(Hit::order)
+                .thenComparingInt(Hit::position));
+
+        List<IndoorNode> rooms = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            rooms.add(indexes.get(hit.order()).nodes.get(hit.position()));
+        }
+        return rooms;
+    }
+
+    private void collect(int order, String query, String building, Integer floor, List<Hit> hits) {
+        if (building != null) {
+            collect(order, query, partitions.getOrDefault(building, Map.of()), floor, hits);
+        } else {
+            for (Map<Integer, Partition> floors : partitions.values()) {
+                collect(order, query, floors, floor, hits);
+            }
+        }
+    }
+
+    private void collect(int order, String query, Map<Integer, Partition> floors, Integer floor, List<Hit> hits) {
+        if (floor != null) {
+            Partition partition = floors.get(floor);
+            if (partition != null) {
+                partition.collect(order, query, hits);
+            }
+        } else {
+            for (Partition partition : floors.values()) {
+                partition.collect(order, query, hits);
+            }
+        }
+    }
+
+    private String labelOf(int position) {
+        return labels[position] != null ? labels[position] : "";
+    }
+
+    /**
+     * Rooms of one building and floor.
+     */
+    private final class Partition {
+
+        // Node positions sorted by label.
+        private final int[] rooms;
+        // Every suffix of every normalized label, as (room, offset), sorted by text.
+        private final int[] suffixRoom;
+        private final int[] suffixOffset;
+
+        private Partition(List<Integer> positions) {
+            this.rooms = positions.stream()
+                    .sorted(Comparator.comparing(IndoorRoomIndex.this::labelOf).thenComparingInt(p -> p))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+
+            int suffixCount = 0;
+            for (int room : rooms) {
+                suffixCount += normalized[room].length();
+            }
+            int[] owners = new int[suffixCount];
+            int[] starts = new int[suffixCount];
+            int next = 0;
+            for (int position : rooms) {
+                for (int i = 0; i < normalized[position].length(); i++) {
+                    owners[next] = position;
+                    starts[next++] = i;
+                }
+            }
+            Integer[] sorted = new Integer[suffixCount];
+            Arrays.setAll(sorted, i -> i);
+            Arrays.sort(sorted, (a, b) -> {
+                int result = compareFrom(normalized[owners[a]], starts[a], normalized[owners[b]], starts[b]);
+                return result != 0 ? result : Integer.compare(a, b);
+            });
+
+            this.suffixRoom = new int[suffixCount];
+            this.suffixOffset = new int[suffixCount];
+            for (int i = 0; i < suffixCount; i++) {
+                suffixRoom[i] = owners[sorted[i]];
+                suffixOffset[i] = starts[sorted[i]];
+            }
+        }
+
+        void collect(int order, String query, List<Hit> hits) {
+            if (query.isEmpty()) {
+                for (int room : rooms) {
+                    hits.add(new Hit(EXACT, labelOf(room), order, room));
+                }
+                return;
+            }
+
+            int from = lowerBound(query);
+            Map<Integer, Integer> best = new HashMap<>();
+            for (int i = from; i < suffixRoom.length && startsWith(i, query); i++) {
+                int room = suffixRoom[i];
+                best.merge(room, rank(normalized[room], suffixOffset[i], query), Math::min);
+            }
+            best.forEach((room, rank) -> hits.add(new Hit(rank, labelOf(room), order, room)));
+        }
+
+        private int lowerBound(String query) {
+            int low = 0;
+            int high = suffixRoom.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareFrom(normalized[suffixRoom[mid]], suffixOffset[mid], query, 0) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private boolean startsWith(int suffix, String query) {
+            return normalized[suffixRoom[suffix]].startsWith(query, suffixOffset[suffix]);
+        }
+    }
+
+    private static int rank(String label, int offset, String query) {
+        if (offset == 0) {
+            return label.length() == query.length() ? EXACT : PREFIX;
+        }
+        return label.charAt(offset - 1) == ' ' ? WORD_PREFIX : SUBSTRING;
+    }
+
+    /**
+     * Compares {@code a.substring(aFrom)} with {@code b.substring(bFrom)} the
+     * way {@link String#compareTo} would, without copying either.
+     */
+    private static int compareFrom(String a, int aFrom, String b, int bFrom) {
+        int aLength = a.length() - aFrom;
+        int bLength = b.length() - bFrom;
+        for (int i = 0; i < Math.min(aLength, bLength); i++) {
+            int diff = a.charAt(aFrom + i) - b.charAt(bFrom + i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return aLength - bLength;
+    }
+
+    private record Hit(int rank, String label, int order, int position) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.soen390.flightcrew.service.indoor;
+
+/**
+ * Search algorithm used for indoor point-to-point routing.
+ */
+public enum IndoorRoutingStrategy {
+    /**
+     * Goal-directed search guided by {@link IndoorGraph#lowerBound(int, int)}.
+     * Returns the same optimal cost as Dijkstra while expanding fewer nodes.
+     */
+    ASTAR,
+
+    /**
+     * Uniform-cost search; kept for comparison and as a fallback.
+     */
+    DIJKSTRA
+}
@@ -0,0 +1,519 @@
+package com.soen390.flightcrew.service.indoor;
+
+import com.soen390.flightcrew.model.IndoorBuildingData;
+import com.soen390.flightcrew.model.IndoorNode;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Immutable, versioned view of all indoor building files. A snapshot is built
+ * once and then only read; reloading produces a brand new snapshot that
+ * replaces the old one in a single reference swap, so readers never observe a
+ * half-built state and never need to lock.
+ *
+ * <p>
+ * A snapshot starts from the {@link IndoorFileManifest manifests} of its files
+ * and parses them lazily: building ids are known up front, a building's files
+ * are parsed and its graphs compiled the first time the building is looked up,
+ * and only listing every node forces every file. A lazily parsed file reflects
+ * its contents at first access.
+ *
+ * <p>
+ * Floors per node building and the content tags come from the complete
+ * manifests, which are resolved the first time either is asked for; a node
+ * building's node list, whole and per floor, is indexed the first time it is
+ * asked for and then served as an immutable list.
+ */
+public final class IndoorSnapshot {
+
+    private static final IndoorSnapshot EMPTY = new IndoorSnapshot(0L, Map.of(), buildingId -> null,
+            building -> {
+            });
+
+    private final long version;
+    private final Map<String, IndoorFileSource> sources;
+    private final Map<String, IndoorBuildingData> files;
+    private final List<String> buildingIds;
+    private final Map<String, LazyBuilding> buildings;
+    private final Function<String, PrecompiledBuildingGraph> precompiled;
+    private final Consumer<IndoorBuildingSnapshot> onBuildingLoaded;
+    private final Map<String, IndoorRoomIndex> roomIndexes = new ConcurrentHashMap<>();
+    // Lower-cased node building id -> sorted floors, from the manifests on first use.
+    private volatile Map<String, List<Integer>> floorsByNodeBuilding;
+    // Lower-cased node building id -> its nodes, indexed on first use.
+    private final Map<String, NodeIndex> nodeIndexes = new ConcurrentHashMap<>();
+    private volatile IndoorContentTags contentTags;
+    private volatile List<IndoorNode> nodes;
+
+    private IndoorSnapshot(long version, Map<String, IndoorFileSource> sources,
+            Function<String, PrecompiledBuildingGraph> precompiled,
+            Consumer<IndoorBuildingSnapshot> onBuildingLoaded) {
+        this.version = version;
+        this.sources = Collections.unmodifiableMap(new TreeMap<>(sources));
+        this.files = new LazyFileMap(this.sources);
+        this.precompiled = precompiled;
+        this.onBuildingLoaded = onBuildingLoaded;
+
+        TreeSet<String> ids = new TreeSet<>();
+        Map<String, LazyBuilding> byBuilding = new LinkedHashMap<>();
+        for (IndoorFileSource source : this.sources.values()) {
+            String buildingId = source.getBuildingId();
+            if (buildingId == null) {
+                continue;
+            }
+            ids.add(buildingId);
+            byBuilding.computeIfAbsent(normalize(buildingId), key -> new LazyBuilding(buildingId))
+                    .files.add(source);
+        }
+
+        this.buildingIds = List.copyOf(ids);
+        this.buildings = Collections.unmodifiableMap(byBuilding);
+    }
+
+    /**
+     * Builds a snapshot from parsed building files keyed by file name. Files are
+     * processed in file-name order so results are stable across reloads.
+     */
+    public static IndoorSnapshot of(long version, Map<String, IndoorBuildingData> files) {
+        return of(version, files, buildingId -> null);
+    }
+
+    /**
+     * Like {@link #of(long, Map)}, restoring each building's graphs from the
+     * artifact {@code precompiled} returns for its id when one matches.
+     */
+    public static IndoorSnapshot of(long version, Map<String, IndoorBuildingData> files,
+            Function<String, PrecompiledBuildingGraph> precompiled) {
+        Map<String, IndoorFileSource> sources = new LinkedHashMap<>();
+        files.forEach((fileName, data) -> sources.put(fileName, IndoorFileSource.loaded(fileName, data)));
+        return lazy(version, sources, precompiled, building -> {
+        });
+    }
+
+    /**
+     * Builds a snapshot over file sources that may not be parsed yet.
+     *
+     * @param onBuildingLoaded called, on the loading thread, each time a
+     *                         building is assembled for the first time
+     */
+    public static IndoorSnapshot lazy(long version, Map<String, IndoorFileSource> sources,
+            Function<String, PrecompiledBuildingGraph> precompiled,
+            Consumer<IndoorBuildingSnapshot> onBuildingLoaded) {
+        return new IndoorSnapshot(version, sources, precompiled, onBuildingLoaded);
+    }
+
+    public static IndoorSnapshot empty() {
+        return EMPTY;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Building files keyed by file name, in file-name order, parsed or not.
+     */
+    public Map<String, IndoorFileSource> getSources() {
+        return sources;
+    }
+
+    /**
+     * Parsed building data keyed by source file name, in file-name order. Each
+     * file is parsed when its value is first read; the key set never parses.
+     */
+    public Map<String, IndoorBuildingData> getFiles() {
+        return files;
+    }
+
+    /**
+     * Distinct {@code meta.buildingId} values, sorted.
+     */
+    public List<String> getBuildingIds() {
+        return buildingIds;
+    }
+
+    /**
+     * Every node of every file, in file-name order. Parses every file.
+     */
+    public List<IndoorNode> getNodes() {
+        List<IndoorNode> current = nodes;
+        if (current == null) {
+            List<List<IndoorNode>> fileNodes = new ArrayList<>();
+            for (IndoorFileSource source : sources.values()) {
+                List<IndoorNode> parsed = source.get().getNodes();
+                if (parsed != null) {
+                    fileNodes.add(parsed);
+                }
+            }
+            current = new ConcatenatedList(fileNodes);
+            nodes = current;
+        }
+        return current;
+    }
+
+    /**
+     * Entity tags of the responses served from this snapshot.
+     */
+    public IndoorContentTags getContentTags() {
+        IndoorContentTags current = contentTags;
+        if (current == null) {
+            current = IndoorContentTags.of(version,
+                    sources.values().stream().map(IndoorFileSource::getManifest).toList(),
+                    buildingIds, getFloorsByNodeBuilding());
+            contentTags = current;
+        }
+        return current;
+    }
+
+    /**
+     * Sorted floors of the nodes whose {@code buildingId} is
+     * {@code nodeBuildingId}, ignoring case, read from the manifests without
+     * parsing anything.
+     */
+    public List<Integer> getFloors(String nodeBuildingId) {
+        return getFloorsByNodeBuilding().getOrDefault(normalize(nodeBuildingId), List.of());
+    }
+
+    /**
+     * Sorted floors per lower-cased node building id.
+     */
+    public Map<String, List<Integer>> getFloorsByNodeBuilding() {
+        Map<String, List<Integer>> current = floorsByNodeBuilding;
+        if (current == null) {
+            Map<String, TreeSet<Integer>> floors = new TreeMap<>();
+            for (IndoorFileSource source : sources.values()) {
+                source.getManifest().floorsByNodeBuilding().forEach((nodeBuilding, nodeFloors) ->
+                        floors.computeIfAbsent(nodeBuilding, key -> new TreeSet<>()).addAll(nodeFloors));
+            }
+            Map<String, List<Integer>> frozen = new TreeMap<>();
+            floors.forEach((nodeBuilding, nodeFloors) -> frozen.put(nodeBuilding, List.copyOf(nodeFloors)));
+            current = Collections.unmodifiableMap(frozen);
+            floorsByNodeBuilding = current;
+        }
+        return current;
+    }
+
+    /**
+     * The nodes whose {@code buildingId} is {@code nodeBuildingId}, ignoring
+     * case, in file-name and then file order. The first call for a building
+     * parses only the files whose manifest lists it and indexes its nodes by
+     * floor; the returned list materializes each node when it is read.
+     */
+    public List<IndoorNode> getNodesOf(String nodeBuildingId) {
+        return nodeIndex(nodeBuildingId).all;
+    }
+
+    /**
+     * The nodes of {@code nodeBuildingId} on {@code floor}, in the same order as
+     * {@link #getNodesOf(String)}.
+     */
+    public List<IndoorNode> getNodesOf(String nodeBuildingId, int floor) {
+        return nodeIndex(nodeBuildingId).byFloor.getOrDefault(floor, List.of());
+    }
+
+    private NodeIndex nodeIndex(String nodeBuildingId) {
+        String key = normalize(nodeBuildingId);
+        if (!getFloorsByNodeBuilding().containsKey(key)) {
+            return NodeIndex.EMPTY;
+        }
+        return nodeIndexes.computeIfAbsent(key, this::indexNodes);
+    }
+
+    private NodeIndex indexNodes(String nodeBuildingId) {
+        List<IndoorNodeStore> stores = new ArrayList<>();
+        PositionList.Builder all = new PositionList.Builder();
+        Map<Integer, PositionList.Builder> byFloor = new TreeMap<>();
+        for (IndoorFileSource source : sources.values()) {
+            if (!source.getManifest().hasNodesOf(nodeBuildingId)) {
+                continue;
+            }
+            IndoorNodeStore store = IndoorNodeStore.of(source.get().getNodes());
+            int part = stores.size();
+            stores.add(store);
+            for (int i = 0; i < store.size(); i++) {
+                String building = store.isPresent(i) ? store.buildingId(i) : null;
+                if (building == null || !building.equalsIgnoreCase(nodeBuildingId)) {
+                    continue;
+                }
+                all.add(part, i);
+                if (store.hasFloor(i)) {
+                    byFloor.computeIfAbsent(store.floor(i), floor -> new PositionList.Builder()).add(part, i);
+                }
+            }
+        }
+
+        List<IndoorNodeStore> parts = List.copyOf(stores);
+        Map<Integer, List<IndoorNode>> floors = new TreeMap<>();
+        byFloor.forEach((floor, positions) -> floors.put(floor, positions.build(parts)));
+        return new NodeIndex(all.build(parts), Collections.unmodifiableMap(floors));
+    }
+
+    /**
+     * The room search index of one file, built the first time it is asked for
+     * and parsing the file if needed; {@code null} for an unknown file.
+     */
+    public IndoorRoomIndex getRoomIndex(String fileName) {
+        IndoorFileSource source = sources.get(fileName);
+        if (source == null) {
+            return null;
+        }
+        return roomIndexes.computeIfAbsent(fileName, key -> IndoorRoomIndex.of(source.get().getNodes()));
+    }
+
+    /**
+     * Looks up a building case-insensitively, parsing its files on first use;
+     * returns {@code null} when unknown.
+     */
+    public IndoorBuildingSnapshot getBuilding(String buildingId) {
+        if (buildingId == null || buildingId.isBlank()) {
+            return null;
+        }
+        LazyBuilding building = buildings.get(normalize(buildingId));
+        return building != null ? building.get() : null;
+    }
+
+    /**
+     * Every building keyed by lower-cased id. Parses every building file.
+     */
+    public Map<String, IndoorBuildingSnapshot> getBuildings() {
+        Map<String, IndoorBuildingSnapshot> loaded = new LinkedHashMap<>();
+        buildings.forEach((key, building) -> loaded.put(key, building.get()));
+        return Collections.unmodifiableMap(loaded);
+    }
+
+    /**
+     * The buildings that have been assembled so far, without loading any.
+     */
+    public List<IndoorBuildingSnapshot> getLoadedBuildings() {
+        List<IndoorBuildingSnapshot> loaded = new ArrayList<>();
+        for (LazyBuilding building : buildings.values()) {
+            IndoorBuildingSnapshot snapshot = building.snapshot;
+            if (snapshot != null) {
+                loaded.add(snapshot);
+            }
+        }
+        return loaded;
+    }
+
+    private static String normalize(String buildingId) {
+        return buildingId.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A building's files, merged and compiled on first access.
+     */
+    private final class LazyBuilding {
+
+        private final String displayId;
+        private final List<IndoorFileSource> files = new ArrayList<>();
+        private volatile IndoorBuildingSnapshot snapshot;
+
+        private LazyBuilding(String displayId) {
+            this.displayId = displayId;
+        }
+
+        IndoorBuildingSnapshot get() {
+            IndoorBuildingSnapshot current = snapshot;
+            if (current != null) {
+                return current;
+            }
+            synchronized (this) {
+                if (snapshot != null) {
+                    return snapshot;
+                }
+                current = assemble();
+                snapshot = current;
+            }
+            onBuildingLoaded.accept(current);
+            return current;
+        }
+
+        /**
+         * Joins the files' node and edge stores column by column, so nothing
+         * is materialized on the way; a building of one file keeps that
+         * file's stores, and the graphs compiled with them when it was read
+         * from a compiled file.
+         */
+        private IndoorBuildingSnapshot assemble() {
+            List<IndoorNodeStore> nodeStores = new ArrayList<>(files.size());
+            List<IndoorEdgeStore> edgeStores = new ArrayList<>(files.size());
+            for (IndoorFileSource source : files) {
+                IndoorBuildingData data = source.get();
+                nodeStores.add(IndoorNodeStore.of(data.getNodes()));
+                edgeStores.add(IndoorEdgeStore.of(data.getEdges()));
+            }
+            return new IndoorBuildingSnapshot(displayId, IndoorNodeStore.concat(nodeStores),
+                    IndoorEdgeStore.concat(edgeStores), precompiled.apply(displayId),
+                    files.size() == 1 ? files.get(0).contents() : null);
+        }
+    }
+
+    /**
+     * One node building's nodes, whole and per floor.
+     */
+    private record NodeIndex(List<IndoorNode> all, Map<Integer, List<IndoorNode>> byFloor) {
+
+        private static final NodeIndex EMPTY = new NodeIndex(List.of(), Map.of());
+    }
+
+    /**
+     * Read-only list of node positions across several stores, materializing a
+     * node only when it is read.
+     */
+    private static final class PositionList extends AbstractList<IndoorNode> implements RandomAccess {
+
+        private final List<IndoorNodeStore> stores;
+        private final int[] parts;
+        private final int[] positions;
+
+        private PositionList(List<IndoorNodeStore> stores, int[] parts, int[] positions) {
+            this.stores = stores;
+            this.parts = parts;
+            this.positions = positions;
+        }
+
+        @Override
+        public IndoorNode get(int index) {
+            if (index < 0 || index >= positions.length) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return stores.get(parts[index]).view(positions[index]);
+        }
+
+        @Override
+        public int size() {
+            return positions.length;
+        }
+
+        private static final class Builder {
+
+            private int[] parts = new int[16];
+            private int[] positions = new int[16];
+            private int size;
+
+            void add(int part, int position) {
+                if (size == positions.length) {
+                    parts = Arrays.copyOf(parts, size * 2);
+                    positions = Arrays.copyOf(positions, size * 2);
+                }
+                parts[size] = part;
+                positions[size++] = position;
+            }
+
+            PositionList build(List<IndoorNodeStore> stores) {
+                return new PositionList(stores, Arrays.copyOf(parts, size), Arrays.copyOf(positions, size));
+            }
+        }
+    }
+
+    /**
+     * Read-only map view over the file sources whose values parse on access.
+     */
+    private static final class LazyFileMap extends AbstractMap<String, IndoorBuildingData> {
+
+        private final Map<String, IndoorFileSource> sources;
+
+        private LazyFileMap(Map<String, IndoorFileSource> sources) {
+            this.sources = sources;
+        }
+
+        @Override
+        public IndoorBuildingData get(Object key) {
+            IndoorFileSource source = sources.get(key);
+            return source != null ? source.get() : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return sources.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return sources.size();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return sources.keySet();
+        }
+
+        @Override
+        public Set<Entry<String, IndoorBuildingData>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, IndoorBuildingData>> iterator() {
+                    Iterator<Entry<String, IndoorFileSource>> entries = sources.entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, IndoorBuildingData> next() {
+                            Entry<String, IndoorFileSource> entry = entries.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(), entry.getValue().get());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return sources.size();
+                }
+            };
+        }
+    }
+
+    /**
+     * Read-only concatenation of the per-file node lists, so listing every node
+     * copies nothing at snapshot time.
+     */
+    private static final class ConcatenatedList extends AbstractList<IndoorNode> implements RandomAccess {
+
+        private final List<List<IndoorNode>> parts;
+        private final int[] starts;
+
+        private ConcatenatedList(List<List<IndoorNode>> parts) {
+            // Empty parts are dropped so part start offsets are strictly increasing.
+            this.parts = parts.stream().filter(part -> !part.isEmpty()).toList();
+            this.starts = new int[this.parts.size() + 1];
+            for (int p = 0; p < this.parts.size(); p++) {
+                starts[p + 1] = starts[p] + this.parts.get(p).size();
+            }
+        }
+
+        @Override
+        public IndoorNode get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            int part = Arrays.binarySearch(starts, index);
+            part = part >= 0 ? part : -part - 2;
+            return parts.get(part).get(index - starts[part]);
+        }
+
+        @Override
+        public int size() {
+            return starts[starts.length - 1];
+        }
+    }
+}
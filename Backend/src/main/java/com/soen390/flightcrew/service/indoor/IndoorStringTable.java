@@ -0,0 +1,110 @@
+package com.soen390.flightcrew.service.indoor;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Strings referred to by index from the columns of {@link IndoorNodeStore},
+ * {@link IndoorEdgeStore} and {@link IndoorGraph}; index {@link #NONE}
+ * stands for {@code null}. A table either holds its strings on the heap or
+ * reads them in place from a compiled file, as UTF-8 bytes plus an offsets
+ * column, decoding each one the first time it is asked for.
+ */
+public final class IndoorStringTable {
+
+    public static final int NONE = -1;
+
+    private static final IndoorStringTable EMPTY = new IndoorStringTable(new String[0], null, null);
+
+    private final String[] values;
+    // Mapped form: offsets.get(i)..offsets.get(i + 1) delimit string i in utf8.
+    private final IntBuffer offsets;
+    private final ByteBuffer utf8;
+
+    private IndoorStringTable(String[] values, IntBuffer offsets, ByteBuffer utf8) {
+        this.values = values;
+        this.offsets = offsets;
+        this.utf8 = utf8;
+    }
+
+    public static IndoorStringTable empty() {
+        return EMPTY;
+    }
+
+    /**
+     * A table over strings already on the heap, used as they are.
+     */
+    static IndoorStringTable of(String[] values) {
+        return new IndoorStringTable(values, null, null);
+    }
+
+    /**
+     * A table read in place: {@code offsets} holds {@code size + 1} byte
+     * offsets into {@code utf8}.
+     */
+    static IndoorStringTable mapped(IntBuffer offsets, ByteBuffer utf8) {
+        return new IndoorStringTable(new String[offsets.limit() - 1], offsets, utf8);
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * The string at {@code index}, or {@code null} for {@link #NONE}. Decoded
+     * strings are cached; two threads racing on one only decode it twice.
+     */
+    public String get(int index) {
+        if (index == NONE) {
+            return null;
+        }
+        String value = values[index];
+        if (value == null && offsets != null) {
+            int start = offsets.get(index);
+            byte[] bytes = new byte[offsets.get(index + 1) - start];
+            utf8.get(start, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8).intern();
+            values[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Collects strings into a new heap table, giving equal strings one index.
+     */
+    static final class Builder {
+
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int index(String value) {
+            if (value == null) {
+                return NONE;
+            }
+            Integer index = indices.get(value);
+            if (index == null) {
+                index = values.size();
+                indices.put(value, index);
+                values.add(value.intern());
+            }
+            return index;
+        }
+
+        String get(int index) {
+            return values.get(index);
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        IndoorStringTable build() {
+            return of(values.toArray(new String[0]));
+        }
+    }
+}
@@ -0,0 +1,504 @@
+package com.soen390.flightcrew.service.indoor;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Shrinks floor-plan SVGs exported by Inkscape and Figma without changing how
+ * they render. The document is read once with a streaming XML reader into a
+ * small element tree, which is then:
+ *
+ * <ul>
+ * <li>stripped of comments, processing instructions, {@code <metadata>} and
+ * every element, attribute and namespace declaration of the editors'
+ * namespaces;</li>
+ * <li>rounded to {@code precision} decimals in geometry attributes and in
+ * style values, so {@code stroke-width:1.36025514} reads {@code 1.36}, and to
+ * a few more in transforms;</li>
+ * <li>freed of attribute-less groups, which only nest their children;</li>
+ * <li>collapsed where consecutive siblings repeat the same inherited paint:
+ * the run is wrapped in one {@code <g>} carrying the shared {@code style} and
+ * presentation attributes. Plain attributes are used rather than a
+ * stylesheet because not every client renderer supports CSS classes.</li>
+ * </ul>
+ *
+ * Instances are immutable and thread-safe.
+ */
+public final class IndoorSvgOptimizer {
+
+    // Bump whenever the output for the same input changes, to retire cached copies.
+    private static final String FORMAT = "svgopt1";
+
+    private static final String SVG_NS = "http://www.w3.org/2000/svg";
+
+    private static final Set<String> EDITOR_NAMESPACES = Set.of(
+            "http://www.inkscape.org/namespaces/inkscape",
+            "http://sodipodi.sourceforge.net/DTD/sodipodi-0.dtd",
+            "http://www.w3.org/1999/02/22-rdf-syntax-ns#",
+            "http://purl.org/dc/elements/1.1/",
+            "http://creativecommons.org/ns#",
+            "http://web.resource.org/cc/",
+            "http://www.openswatchbook.org/uri/2009/osb");
+
+    private static final Set<String> GEOMETRY_ATTRIBUTES = Set.of(
+            "d", "points", "x", "y", "x1", "y1", "x2", "y2", "cx", "cy", "r", "rx", "ry", "fx", "fy",
+            "dx", "dy", "width", "height", "stroke-width");
+
+    // Scale and rotation factors multiply every coordinate below them, so they
+    // keep TRANSFORM_EXTRA_DIGITS more decimals than coordinates.
+    private static final Set<String> TRANSFORM_ATTRIBUTES = Set.of(
+            "transform", "gradientTransform", "patternTransform");
+    private static final int TRANSFORM_EXTRA_DIGITS = 3;
+
+    // Properties children inherit from a group, so a shared value can move up.
+    private static final Set<String> INHERITED_PROPERTIES = Set.of(
+            "fill", "fill-opacity", "fill-rule", "stroke", "stroke-width", "stroke-opacity",
+            "stroke-linecap", "stroke-linejoin", "stroke-miterlimit", "stroke-dasharray",
+            "stroke-dashoffset", "font-family", "font-size", "font-style", "font-weight",
+            "font-variant", "font-stretch", "letter-spacing", "word-spacing", "text-anchor",
+            "clip-rule", "color", "line-height");
+
+    private static final Set<String> GROUP_PARENTS = Set.of("svg", "g");
+    private static final Set<String> GROUPABLE = Set.of(
+            "path", "rect", "circle", "ellipse", "line", "polyline", "polygon", "text", "g", "use", "image");
+    // Elements whose whitespace-only text is content rather than indentation.
+    private static final Set<String> TEXT_CONTENT = Set.of("text", "tspan", "textPath", "style", "title", "desc");
+
+    // Only decimals are rewritten; integers and exponents without a point are already short.
+    private static final Pattern DECIMAL = Pattern.compile("-?(?:\\d+\\.\\d*|\\.\\d+)(?:[eE][-+]?\\d+)?");
+    private static final Pattern REFERENCE = Pattern.compile("#([^\\s)\"']+)");
+
+    private final int precision;
+
+    public IndoorSvgOptimizer(int precision) {
+        if (precision < 0 || precision > 8) {
+            throw new IllegalArgumentException("SVG precision must be between 0 and 8");
+        }
+        this.precision = precision;
+    }
+
+    /**
+     * Identifies the output of this optimizer, for keying cached copies: the
+     * same source bytes and key always give the same optimized bytes.
+     */
+    public String key() {
+        return FORMAT + "-p" + precision;
+    }
+
+    /**
+     * Returns the optimized document.
+     *
+     * @throws IOException when {@code svg} is not well-formed XML
+     */
+    public byte[] optimize(byte[] svg) throws IOException {
+        try {
+            Element root = parse(svg);
+            if (root == null) {
+                throw new IOException("SVG has no root element");
+            }
+            unwrapGroups(root);
+            Set<String> referenced = new HashSet<>();
+            boolean styled = collectReferences(root, referenced);
+            if (!styled) {
+                // A stylesheet could outrank inherited values, so only collapse without one.
+                collapse(root, referenced);
+            }
+            return write(root);
+        } catch (XMLStreamException ex) {
+            throw new IOException("Invalid SVG: " + ex.getMessage(), ex);
+        }
+    }
+
+    private Element parse(byte[] svg) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        XMLStreamReader reader = factory.createXMLStreamReader(new ByteArrayInputStream(svg));
+
+        Element root = null;
+        List<Element> open = new ArrayList<>();
+        // Depth inside a dropped element; everything below it is skipped.
+        int skipped = 0;
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (skipped > 0 || isEditorElement(reader)) {
+                        skipped++;
+                        continue;
+                    }
+                    Element element = startElement(reader);
+                    if (open.isEmpty()) {
+                        root = element;
+                    } else {
+                        open.get(open.size() - 1).children.add(element);
+                    }
+                    open.add(element);
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (skipped > 0) {
+                        skipped--;
+                    } else {
+                        open.remove(open.size() - 1);
+                    }
+                } else if ((event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA)
+                        && skipped == 0 && !open.isEmpty()) {
+                    Element parent = open.get(open.size() - 1);
+                    String text = reader.getText();
+                    if (!text.isBlank() || TEXT_CONTENT.contains(parent.localName)) {
+                        parent.children.add(text);
+                    }
+                }
+                // Comments, processing instructions and the DTD are dropped.
+            }
+        } finally {
+            reader.close();
+        }
+        return root;
+    }
+
+    private static boolean isEditorElement(XMLStreamReader reader) {
+        String namespace = reader.getNamespaceURI();
+        return isEditorNamespace(namespace)
+                || (SVG_NS.equals(namespace) && "metadata".equals(reader.getLocalName()));
+    }
+
+    private static boolean isEditorNamespace(String namespace) {
+        return namespace != null && EDITOR_NAMESPACES.contains(namespace);
+    }
+
+    private Element startElement(XMLStreamReader reader) {
+        Element element = new Element(reader.getPrefix(), reader.getNamespaceURI(), reader.getLocalName());
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            if (!isEditorNamespace(reader.getNamespaceURI(i))) {
+                element.namespaces.put(reader.getNamespacePrefix(i) != null ? reader.getNamespacePrefix(i) : "",
+                        reader.getNamespaceURI(i));
+            }
+        }
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String namespace = reader.getAttributeNamespace(i);
+            if (isEditorNamespace(namespace)) {
+                continue;
+            }
+            String name = reader.getAttributeLocalName(i);
+            String value = reader.getAttributeValue(i);
+            if (namespace == null || namespace.isEmpty()) {
+                if (GEOMETRY_ATTRIBUTES.contains(name)) {
+                    value = round(value, precision);
+                } else if (TRANSFORM_ATTRIBUTES.contains(name)) {
+                    value = round(value, precision + TRANSFORM_EXTRA_DIGITS);
+                } else if ("style".equals(name)) {
+                    value = normalizeStyle(value);
+                    if (value.isEmpty()) {
+                        continue;
+                    }
+                }
+            }
+            element.attributes.add(new Attribute(reader.getAttributePrefix(i), namespace, name, value));
+        }
+        return element;
+    }
+
+    /**
+     * Replaces every attribute-less {@code <g>} by its children and drops
+     * empty ones, innermost first.
+     */
+    private static void unwrapGroups(Element element) {
+        List<Object> children = new ArrayList<>(element.children.size());
+        for (Object child : element.children) {
+            if (child instanceof Element nested) {
+                unwrapGroups(nested);
+                if (nested.isSvg("g") && nested.attributes.isEmpty() && nested.namespaces.isEmpty()) {
+                    children.addAll(nested.children);
+                    continue;
+                }
+            }
+            children.add(child);
+        }
+        element.children.clear();
+        element.children.addAll(children);
+    }
+
+    /**
+     * Records every id referenced by {@code url(#id)} or an {@code href}, and
+     * returns whether the document styles elements by class or stylesheet.
+     */
+    private static boolean collectReferences(Element element, Set<String> referenced) {
+        boolean styled = element.isSvg("style");
+        for (Attribute attribute : element.attributes) {
+            styled |= "class".equals(attribute.localName());
+            if (attribute.value().indexOf('#') >= 0
+                    && ("href".equals(attribute.localName()) || attribute.value().contains("url("))) {
+                Matcher matcher = REFERENCE.matcher(attribute.value());
+                while (matcher.find()) {
+                    referenced.add(matcher.group(1));
+                }
+            }
+        }
+        for (Object child : element.children) {
+            if (child instanceof Element nested) {
+                styled |= collectReferences(nested, referenced);
+            }
+        }
+        return styled;
+    }
+
+    /**
+     * Wraps runs of siblings that share the same inherited paint in one group
+     * carrying it, depth first.
+     */
+    private static void collapse(Element element, Set<String> referenced) {
+        for (Object child : element.children) {
+            if (child instanceof Element nested) {
+                collapse(nested, referenced);
+            }
+        }
+        if (!element.isSvg() || !GROUP_PARENTS.contains(element.localName)) {
+            return;
+        }
+
+        List<Object> children = new ArrayList<>(element.children.size());
+        int i = 0;
+        while (i < element.children.size()) {
+            List<Attribute> paint = paintOf(element.children.get(i), referenced);
+            int end = i + 1;
+            while (paint != null && end < element.children.size()
+                    && paint.equals(paintOf(element.children.get(end), referenced))) {
+                end++;
+            }
+            if (paint == null || !worthGrouping(paint, end - i)) {
+                children.add(element.children.get(i++));
+                continue;
+            }
+
+            Element group = new Element(element.prefix, SVG_NS, "g");
+            group.attributes.addAll(paint);
+            for (; i < end; i++) {
+                Element member = (Element) element.children.get(i);
+                member.attributes.removeAll(paint);
+                group.children.add(member);
+            }
+            children.add(group);
+        }
+        element.children.clear();
+        element.children.addAll(children);
+    }
+
+    /**
+     * The {@code style} and presentation attributes a child could hand to a
+     * wrapping group, or {@code null} when it has none or moving them could
+     * change how it renders.
+     */
+    private static List<Attribute> paintOf(Object node, Set<String> referenced) {
+        if (!(node instanceof Element element) || !element.isSvg() || !GROUPABLE.contains(element.localName)) {
+            return null;
+        }
+        List<Attribute> paint = new ArrayList<>();
+        Set<String> presentation = new HashSet<>();
+        Attribute style = null;
+        for (Attribute attribute : element.attributes) {
+            if (attribute.namespace() != null && !attribute.namespace().isEmpty()) {
+                continue;
+            }
+            if ("id".equals(attribute.localName()) && referenced.contains(attribute.value())) {
+                // A <use> elsewhere would lose the paint moved to the group.
+                return null;
+            }
+            if ("style".equals(attribute.localName())) {
+                style = attribute;
+            } else if (INHERITED_PROPERTIES.contains(attribute.localName())) {
+                paint.add(attribute);
+                presentation.add(attribute.localName());
+            }
+        }
+        if (style != null) {
+            for (String declaration : style.value().split(";")) {
+                String property = declaration.substring(0, Math.max(0, declaration.indexOf(':'))).trim();
+                // The style would stop overriding the child's own attribute once moved up.
+                if (!INHERITED_PROPERTIES.contains(property) || presentation.contains(property)) {
+                    return null;
+                }
+            }
+            paint.add(style);
+        }
+        if (paint.isEmpty()) {
+            return null;
+        }
+        paint.sort((a, b) -> a.localName().compareTo(b.localName()));
+        return paint;
+    }
+
+    private static boolean worthGrouping(List<Attribute> paint, int members) {
+        int length = 0;
+        for (Attribute attribute : paint) {
+            length += attribute.localName().length() + attribute.value().length() + 4;
+        }
+        // "<g>" and "</g>" cost 7 bytes; every member after the first saves the paint.
+        return members > 1 && (members - 1) * length > 7;
+    }
+
+    /**
+     * Rounds every decimal number in {@code value}, keeping numbers that were
+     * only separated by their point or sign apart.
+     */
+    private static String round(String value, int digits) {
+        Matcher matcher = DECIMAL.matcher(value);
+        if (!matcher.find()) {
+            return value;
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        int last = 0;
+        do {
+            out.append(value, last, matcher.start());
+            String rounded = roundNumber(matcher.group(), digits);
+            char first = rounded.charAt(0);
+            if (!out.isEmpty() && first != '-' && isNumberChar(out.charAt(out.length() - 1))) {
+                out.append(' ');
+            }
+            out.append(rounded);
+            last = matcher.end();
+        } while (matcher.find());
+        out.append(value, last, value.length());
+        return out.toString();
+    }
+
+    private static String roundNumber(String number, int digits) {
+        String rounded;
+        try {
+            rounded = new BigDecimal(number).setScale(digits, RoundingMode.HALF_UP)
+                    .stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException ex) {
+            return number;
+        }
+        if (rounded.startsWith("0.")) {
+            return rounded.substring(1);
+        }
+        if (rounded.startsWith("-0.")) {
+            return "-" + rounded.substring(2);
+        }
+        return rounded.equals("-0") ? "0" : rounded;
+    }
+
+    private static boolean isNumberChar(char c) {
+        return Character.isDigit(c) || c == '.';
+    }
+
+    /**
+     * Trims every declaration, drops empty ones and rounds numbers outside
+     * font names, so equal styles compare equal.
+     */
+    private String normalizeStyle(String style) {
+        StringBuilder out = new StringBuilder(style.length());
+        for (String declaration : style.split(";")) {
+            int colon = declaration.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String property = declaration.substring(0, colon).trim();
+            String value = declaration.substring(colon + 1).trim();
+            if (property.isEmpty() || value.isEmpty()) {
+                continue;
+            }
+            if (!out.isEmpty()) {
+                out.append(';');
+            }
+            out.append(property).append(':')
+                    .append(property.startsWith("font-family") ? value : round(value, precision));
+        }
+        return out.toString();
+    }
+
+    private static byte[] write(Element root) throws XMLStreamException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XMLStreamWriter writer = XMLOutputFactory.newFactory().createXMLStreamWriter(out, "UTF-8");
+        try {
+            write(writer, root);
+            writer.writeEndDocument();
+            writer.flush();
+        } finally {
+            writer.close();
+        }
+        return out.toByteArray();
+    }
+
+    private static void write(XMLStreamWriter writer, Element element) throws XMLStreamException {
+        String prefix = element.prefix != null ? element.prefix : XMLConstants.DEFAULT_NS_PREFIX;
+        String namespace = element.namespace != null ? element.namespace : XMLConstants.NULL_NS_URI;
+        if (element.children.isEmpty()) {
+            writer.writeEmptyElement(prefix, element.localName, namespace);
+        } else {
+            writer.writeStartElement(prefix, element.localName, namespace);
+        }
+        for (Map.Entry<String, String> declaration : element.namespaces.entrySet()) {
+            if (declaration.getKey().isEmpty()) {
+                writer.writeDefaultNamespace(declaration.getValue());
+            } else {
+                writer.writeNamespace(declaration.getKey(), declaration.getValue());
+            }
+        }
+        for (Attribute attribute : element.attributes) {
+            if (attribute.namespace() == null || attribute.namespace().isEmpty()) {
+                writer.writeAttribute(attribute.localName(), attribute.value());
+            } else {
+                writer.writeAttribute(attribute.prefix() != null ? attribute.prefix() : "", attribute.namespace(),
+                        attribute.localName(), attribute.value());
+            }
+        }
+        if (element.children.isEmpty()) {
+            return;
+        }
+        for (Object child : element.children) {
+            if (child instanceof Element nested) {
+                write(writer, nested);
+            } else {
+                writer.writeCharacters((String) child);
+            }
+        }
+        writer.writeEndElement();
+    }
+
+    private record Attribute(String prefix, String namespace, String localName, String value) {
+    }
+
+    private static final class Element {
+
+        private final String prefix;
+        private final String namespace;
+        private final String localName;
+        private final Map<String, String> namespaces = new LinkedHashMap<>();
+        private final List<Attribute> attributes = new ArrayList<>();
+        private final List<Object> children = new ArrayList<>();
+
+        private Element(String prefix, String namespace, String localName) {
+            this.prefix = prefix;
+            this.namespace = namespace;
+            this.localName = localName;
+        }
+
+        boolean isSvg() {
+            return SVG_NS.equals(namespace);
+        }
+
+        boolean isSvg(String name) {
+            return isSvg() && name.equals(localName);
+        }
+    }
+}
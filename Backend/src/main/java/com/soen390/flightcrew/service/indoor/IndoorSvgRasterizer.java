@@ -0,0 +1,958 @@
+package com.soen390.flightcrew.service.indoor;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.IllegalPathStateException;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Draws floor-plan SVGs with Java2D, for tiling them into raster pyramids.
+ * Only the part of SVG the Inkscape and Figma exports use is supported:
+ * {@code path}, basic shapes, {@code text} with {@code tspan}, nested groups
+ * with transforms, inherited fill and stroke paint, and {@code clip-path} or
+ * {@code mask} references, both applied as a clip to the referenced shapes.
+ * Gradients paint with their first stop; filters, {@code use}, images and
+ * stylesheets are ignored.
+ *
+ * <p>
+ * Seven of the eleven plans are SVG, including the largest ones (H1 and H2
+ * are 130 to 150 KB of outlines), so tiling only the raster plans would
+ * leave out the ones zooming is for. A general renderer such as Batik would
+ * cover all of SVG, but adds a couple dozen jars and its own DOM to a
+ * backend that only ever draws these exports; this subset is what they need,
+ * and a plan that uses more shows up as a missing shape in its tiles.
+ *
+ * <p>
+ * The document is parsed once into filled outlines in viewport pixels:
+ * strokes and glyphs are converted to the area they cover, so drawing one
+ * tile only fills the outlines that reach it. Group opacity multiplies into
+ * the opacity of each element rather than compositing the group. Instances
+ * are immutable and may be drawn from several threads.
+ */
+public final class IndoorSvgRasterizer {
+
+    private static final String SVG_NS = "http://www.w3.org/2000/svg";
+
+    // Containers that only define things for references and are never drawn directly.
+    private static final Set<String> NOT_RENDERED = Set.of(
+            "defs", "clipPath", "mask", "symbol", "marker", "pattern", "linearGradient", "radialGradient",
+            "filter", "metadata", "title", "desc", "style", "script");
+
+    private static final Map<String, Color> NAMED_COLORS = Map.ofEntries(
+            Map.entry("black", Color.BLACK), Map.entry("white", Color.WHITE),
+            Map.entry("red", new Color(0xFF0000)), Map.entry("green", new Color(0x008000)),
+            Map.entry("blue", new Color(0x0000FF)), Map.entry("yellow", new Color(0xFFFF00)),
+            Map.entry("gray", new Color(0x808080)), Map.entry("grey", new Color(0x808080)),
+            Map.entry("silver", new Color(0xC0C0C0)), Map.entry("orange", new Color(0xFFA500)),
+            Map.entry("purple", new Color(0x800080)), Map.entry("maroon", new Color(0x800000)),
+            Map.entry("navy", new Color(0x000080)), Map.entry("lightgray", new Color(0xD3D3D3)),
+            Map.entry("lightgrey", new Color(0xD3D3D3)), Map.entry("darkgray", new Color(0xA9A9A9)),
+            Map.entry("darkgrey", new Color(0xA9A9A9)));
+
+    private static final Pattern NUMBER = Pattern.compile("[-+]?(?:\\d+\\.?\\d*|\\.\\d+)(?:[eE][-+]?\\d+)?");
+    private static final Pattern TRANSFORM = Pattern.compile("(matrix|translate|scale|rotate|skewX|skewY)\\s*\\(([^)]*)\\)");
+    private static final Pattern REFERENCE = Pattern.compile("url\\(\\s*['\"]?#([^)'\"]+)['\"]?\\s*\\)");
+
+    private static final FontRenderContext FONT_CONTEXT = new FontRenderContext(null, true, true);
+
+    private final double width;
+    private final double height;
+    private final List<Item> items;
+
+    private IndoorSvgRasterizer(double width, double height, List<Item> items) {
+        this.width = width;
+        this.height = height;
+        this.items = items;
+    }
+
+    /**
+     * A filled outline in viewport pixels.
+     */
+    private record Item(Shape shape, Rectangle2D bounds, Color color) {
+    }
+
+    /**
+     * Parses {@code svg} into outlines.
+     *
+     * @throws IOException when {@code svg} is not well-formed XML or has no
+     *                     size
+     */
+    public static IndoorSvgRasterizer parse(byte[] svg) throws IOException {
+        Element root = document(svg).getDocumentElement();
+        if (!isSvg(root) || !root.getLocalName().equals("svg")) {
+            throw new IOException("Root element is not <svg>");
+        }
+
+        double[] viewBox = numbers(root.getAttribute("viewBox"));
+        boolean hasViewBox = viewBox.length == 4 && viewBox[2] > 0 && viewBox[3] > 0;
+        double width = length(root.getAttribute("width"), hasViewBox ? viewBox[2] : 0);
+        double height = length(root.getAttribute("height"), hasViewBox ? viewBox[3] : 0);
+        if (width <= 0 || height <= 0) {
+            throw new IOException("SVG has no width, height or viewBox");
+        }
+
+        AffineTransform viewport = new AffineTransform();
+        if (hasViewBox) {
+            double scaleX = width / viewBox[2];
+            double scaleY = height / viewBox[3];
+            if (!root.getAttribute("preserveAspectRatio").trim().startsWith("none")) {
+                // xMidYMid meet, the default; other alignments are drawn centered too.
+                double scale = Math.min(scaleX, scaleY);
+                viewport.translate((width - viewBox[2] * scale) / 2, (height - viewBox[3] * scale) / 2);
+                scaleX = scale;
+                scaleY = scale;
+            }
+            viewport.scale(scaleX, scaleY);
+            viewport.translate(-viewBox[0], -viewBox[1]);
+        }
+
+        Builder builder = new Builder(root);
+        builder.children(root, viewport, Style.ROOT.inherit(builder.properties(root)), null);
+        return new IndoorSvgRasterizer(width, height, List.copyOf(builder.items));
+    }
+
+    /**
+     * Width of the drawing in pixels.
+     */
+    public double width() {
+        return width;
+    }
+
+    /**
+     * Height of the drawing in pixels.
+     */
+    public double height() {
+        return height;
+    }
+
+    /**
+     * Draws the document with its top-left corner at the origin of
+     * {@code graphics}' user space, one unit per pixel. Outlines outside the
+     * current clip are skipped.
+     */
+    public void render(Graphics2D graphics) {
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        Shape clip = graphics.getClip();
+        Rectangle2D visible = clip != null ? clip.getBounds2D() : null;
+        for (Item item : items) {
+            if (visible == null || item.bounds().intersects(visible)) {
+                graphics.setColor(item.color());
+                graphics.fill(item.shape());
+            }
+        }
+    }
+
+    private static Document document(byte[] svg) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setExpandEntityReferences(false);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            builder.setErrorHandler(null);
+            return builder.parse(new ByteArrayInputStream(svg));
+        } catch (ParserConfigurationException | SAXException ex) {
+            throw new IOException("Invalid SVG: " + ex.getMessage(), ex);
+        }
+    }
+
+    private static boolean isSvg(Element element) {
+        return element.getNamespaceURI() == null || SVG_NS.equals(element.getNamespaceURI());
+    }
+
+    /**
+     * Walks the element tree, turning every drawn element into items.
+     */
+    private static final class Builder {
+
+        private final Map<String, Element> byId = new HashMap<>();
+        private final List<Item> items = new ArrayList<>();
+
+        Builder(Element root) {
+            index(root);
+        }
+
+        private void index(Element element) {
+            String id = element.getAttribute("id");
+            if (!id.isEmpty()) {
+                byId.putIfAbsent(id, element);
+            }
+            for (Element child : childElements(element)) {
+                index(child);
+            }
+        }
+
+        void children(Element parent, AffineTransform transform, Style style, Area clip) {
+            for (Element child : childElements(parent)) {
+                if (isSvg(child)) {
+                    element(child, transform, style, clip);
+                }
+            }
+        }
+
+        private void element(Element element, AffineTransform parentTransform, Style parentStyle, Area parentClip) {
+            String name = element.getLocalName();
+            if (NOT_RENDERED.contains(name)) {
+                return;
+            }
+            Map<String, String> properties = properties(element);
+            if ("none".equals(properties.get("display"))) {
+                return;
+            }
+            Style style = parentStyle.inherit(properties);
+            AffineTransform transform = new AffineTransform(parentTransform);
+            transform.concatenate(transform(element.getAttribute("transform")));
+            Area clip = clip(properties, transform, parentClip);
+            if (clip != null && clip.isEmpty()) {
+                return;
+            }
+
+            switch (name) {
+                case "svg", "g", "a", "switch" -> children(element, transform, style, clip);
+                case "text" -> text(element, transform, style, clip);
+                default -> {
+                    Shape shape = shape(element);
+                    if (shape != null) {
+                        paint(shape, transform, style, clip);
+                    }
+                }
+            }
+        }
+
+        /**
+         * The stylable properties of an element: presentation attributes,
+         * overridden by its {@code style} attribute.
+         */
+        Map<String, String> properties(Element element) {
+            Map<String, String> properties = new HashMap<>();
+            for (int i = 0; i < element.getAttributes().getLength(); i++) {
+                Node attribute = element.getAttributes().item(i);
+                if (attribute.getNamespaceURI() == null) {
+                    properties.put(attribute.getLocalName(), attribute.getNodeValue().trim());
+                }
+            }
+            for (String declaration : element.getAttribute("style").split(";")) {
+                int colon = declaration.indexOf(':');
+                if (colon > 0) {
+                    properties.put(declaration.substring(0, colon).trim(), declaration.substring(colon + 1).trim());
+                }
+            }
+            return properties;
+        }
+
+        /**
+         * The clip in viewport pixels after applying the element's
+         * {@code clip-path} and {@code mask}, or {@code parent} when it has
+         * neither.
+         */
+        private Area clip(Map<String, String> properties, AffineTransform transform, Area parent) {
+            Area clip = parent;
+            for (String property : List.of("clip-path", "mask")) {
+                Element reference = reference(properties.get(property));
+                if (reference == null) {
+                    continue;
+                }
+                Area area = new Area();
+                for (Element child : childElements(reference)) {
+                    Shape shape = isSvg(child) ? shape(child) : null;
+                    if (shape != null) {
+                        AffineTransform childTransform = new AffineTransform(transform);
+                        childTransform.concatenate(transform(child.getAttribute("transform")));
+                        area.add(new Area(childTransform.createTransformedShape(shape)));
+                    }
+                }
+                if (clip != null) {
+                    area.intersect(clip);
+                }
+                clip = area;
+            }
+            return clip;
+        }
+
+        private Element reference(String value) {
+            if (value == null) {
+                return null;
+            }
+            Matcher matcher = REFERENCE.matcher(value);
+            return matcher.find() ? byId.get(matcher.group(1)) : null;
+        }
+
+        private void paint(Shape shape, AffineTransform transform, Style style, Area clip) {
+            Color fill = style.color(style.fill, style.fillOpacity, this);
+            if (fill != null) {
+                Path2D filled = new Path2D.Double(shape);
+                filled.setWindingRule("evenodd".equals(style.fillRule) ? Path2D.WIND_EVEN_ODD : Path2D.WIND_NON_ZERO);
+                add(transform.createTransformedShape(filled), fill, clip);
+            }
+            Color stroke = style.color(style.stroke, style.strokeOpacity, this);
+            if (stroke != null && style.strokeWidth > 0) {
+                add(transform.createTransformedShape(style.stroke().createStrokedShape(shape)), stroke, clip);
+            }
+        }
+
+        private void add(Shape shape, Color color, Area clip) {
+            Rectangle2D bounds = shape.getBounds2D();
+            if (clip != null && !clip.contains(bounds)) {
+                Area clipped = new Area(shape);
+                clipped.intersect(clip);
+                if (clipped.isEmpty()) {
+                    return;
+                }
+                shape = clipped;
+                bounds = clipped.getBounds2D();
+            }
+            items.add(new Item(shape, bounds, color));
+        }
+
+        /**
+         * Draws the text content of {@code <text>}, moving the pen along each
+         * run and to the position of any {@code <tspan>} that sets one.
+         */
+        private void text(Element text, AffineTransform transform, Style style, Area clip) {
+            Point2D.Double pen = new Point2D.Double(first(text.getAttribute("x")), first(text.getAttribute("y")));
+            textRuns(text, transform, style, clip, pen);
+        }
+
+        private void textRuns(Element parent, AffineTransform transform, Style style, Area clip, Point2D.Double pen) {
+            for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child.getNodeType() == Node.TEXT_NODE || child.getNodeType() == Node.CDATA_SECTION_NODE) {
+                    String content = child.getNodeValue().replaceAll("\\s+", " ");
+                    if (!content.isBlank()) {
+                        pen.x += glyphs(content, transform, style, clip, pen);
+                    }
+                } else if (child instanceof Element span && isSvg(span) && span.getLocalName().equals("tspan")) {
+                    Map<String, String> properties = properties(span);
+                    if ("none".equals(properties.get("display"))) {
+                        continue;
+                    }
+                    if (!span.getAttribute("x").isBlank()) {
+                        pen.x = first(span.getAttribute("x"));
+                    }
+                    if (!span.getAttribute("y").isBlank()) {
+                        pen.y = first(span.getAttribute("y"));
+                    }
+                    textRuns(span, transform, style.inherit(properties), clip, pen);
+                }
+            }
+        }
+
+        /**
+         * Adds the outline of one run at the pen and returns its advance.
+         */
+        private double glyphs(String content, AffineTransform transform, Style style, Area clip, Point2D pen) {
+            GlyphVector glyphs = style.font().createGlyphVector(FONT_CONTEXT, content);
+            double advance = glyphs.getLogicalBounds().getWidth();
+            double x = pen.getX();
+            if ("middle".equals(style.textAnchor)) {
+                x -= advance / 2;
+            } else if ("end".equals(style.textAnchor)) {
+                x -= advance;
+            }
+            paint(glyphs.getOutline((float) x, (float) pen.getY()), transform, style, clip);
+            return advance;
+        }
+    }
+
+    /**
+     * The geometry of a basic shape or path in its own user space, or
+     * {@code null} for anything else.
+     */
+    private static Shape shape(Element element) {
+        return switch (element.getLocalName()) {
+            case "path" -> path(element.getAttribute("d"));
+            case "rect" -> {
+                double w = length(element.getAttribute("width"), 0);
+                double h = length(element.getAttribute("height"), 0);
+                if (w <= 0 || h <= 0) {
+                    yield null;
+                }
+                double rx = length(element.getAttribute("rx"), -1);
+                double ry = length(element.getAttribute("ry"), -1);
+                rx = rx < 0 ? Math.max(ry, 0) : rx;
+                ry = ry < 0 ? rx : ry;
+                double x = length(element.getAttribute("x"), 0);
+                double y = length(element.getAttribute("y"), 0);
+                yield rx > 0 || ry > 0
+                        ? new RoundRectangle2D.Double(x, y, w, h, Math.min(rx, w / 2) * 2, Math.min(ry, h / 2) * 2)
+                        : new Rectangle2D.Double(x, y, w, h);
+            }
+            case "circle" -> {
+                double r = length(element.getAttribute("r"), 0);
+                yield r > 0 ? new Ellipse2D.Double(length(element.getAttribute("cx"), 0) - r,
+                        length(element.getAttribute("cy"), 0) - r, 2 * r, 2 * r) : null;
+            }
+            case "ellipse" -> {
+                double rx = length(element.getAttribute("rx"), 0);
+                double ry = length(element.getAttribute("ry"), 0);
+                yield rx > 0 && ry > 0 ? new Ellipse2D.Double(length(element.getAttribute("cx"), 0) - rx,
+                        length(element.getAttribute("cy"), 0) - ry, 2 * rx, 2 * ry) : null;
+            }
+            case "line" -> new Line2D.Double(length(element.getAttribute("x1"), 0),
+                    length(element.getAttribute("y1"), 0), length(element.getAttribute("x2"), 0),
+                    length(element.getAttribute("y2"), 0));
+            case "polyline", "polygon" -> {
+                double[] points = numbers(element.getAttribute("points"));
+                if (points.length < 4) {
+                    yield null;
+                }
+                Path2D.Double polygon = new Path2D.Double();
+                polygon.moveTo(points[0], points[1]);
+                for (int i = 2; i + 1 < points.length; i += 2) {
+                    polygon.lineTo(points[i], points[i + 1]);
+                }
+                if (element.getLocalName().equals("polygon")) {
+                    polygon.closePath();
+                }
+                yield polygon;
+            }
+            default -> null;
+        };
+    }
+
+    /**
+     * Parses path data. A malformed command ends the path there, as SVG
+     * renderers do, keeping what was drawn before it.
+     */
+    static Path2D path(String data) {
+        Path2D.Double path = new Path2D.Double();
+        PathScanner scanner = new PathScanner(data);
+        double x = 0;
+        double y = 0;
+        double startX = 0;
+        double startY = 0;
+        // Second control point of the previous curve, for the smooth variants.
+        double controlX = 0;
+        double controlY = 0;
+        char previous = ' ';
+        char command = ' ';
+        boolean started = false;
+
+        while (scanner.more()) {
+            if (scanner.atCommand()) {
+                command = scanner.command();
+            } else if (command == ' ') {
+                break;
+            }
+            boolean relative = Character.isLowerCase(command);
+            double baseX = relative ? x : 0;
+            double baseY = relative ? y : 0;
+            try {
+                switch (Character.toUpperCase(command)) {
+                    case 'M' -> {
+                        x = baseX + scanner.number();
+                        y = baseY + scanner.number();
+                        path.moveTo(x, y);
+                        startX = x;
+                        startY = y;
+                        started = true;
+                        // Further pairs after a moveto are implicit linetos.
+                        command = relative ? 'l' : 'L';
+                    }
+                    case 'L' -> {
+                        x = baseX + scanner.number();
+                        y = baseY + scanner.number();
+                        path.lineTo(x, y);
+                    }
+                    case 'H' -> {
+                        x = baseX + scanner.number();
+                        path.lineTo(x, y);
+                    }
+                    case 'V' -> {
+                        y = baseY + scanner.number();
+                        path.lineTo(x, y);
+                    }
+                    case 'C', 'S' -> {
+                        double x1;
+                        double y1;
+                        if (Character.toUpperCase(command) == 'C') {
+                            x1 = baseX + scanner.number();
+                            y1 = baseY + scanner.number();
+                        } else {
+                            boolean follows = "CcSs".indexOf(previous) >= 0;
+                            x1 = follows ? 2 * x - controlX : x;
+                            y1 = follows ? 2 * y - controlY : y;
+                        }
+                        controlX = baseX + scanner.number();
+                        controlY = baseY + scanner.number();
+                        x = baseX + scanner.number();
+                        y = baseY + scanner.number();
+                        path.curveTo(x1, y1, controlX, controlY, x, y);
+                    }
+                    case 'Q', 'T' -> {
+                        if (Character.toUpperCase(command) == 'Q') {
+                            controlX = baseX + scanner.number();
+                            controlY = baseY + scanner.number();
+                        } else {
+                            boolean follows = "QqTt".indexOf(previous) >= 0;
+                            controlX = follows ? 2 * x - controlX : x;
+                            controlY = follows ? 2 * y - controlY : y;
+                        }
+                        x = baseX + scanner.number();
+                        y = baseY + scanner.number();
+                        path.quadTo(controlX, controlY, x, y);
+                    }
+                    case 'A' -> {
+                        double rx = Math.abs(scanner.number());
+                        double ry = Math.abs(scanner.number());
+                        double rotation = scanner.number();
+                        boolean large = scanner.flag();
+                        boolean sweep = scanner.flag();
+                        double endX = baseX + scanner.number();
+                        double endY = baseY + scanner.number();
+                        arc(path, x, y, rx, ry, rotation, large, sweep, endX, endY);
+                        x = endX;
+                        y = endY;
+                    }
+                    case 'Z' -> {
+                        if (started) {
+                            path.closePath();
+                        }
+                        x = startX;
+                        y = startY;
+                    }
+                    default -> {
+                        return path;
+                    }
+                }
+            } catch (IllegalStateException | IllegalPathStateException ex) {
+                // A command before any moveto, or missing its numbers.
+                return path;
+            }
+            previous = command;
+            if (Character.toUpperCase(command) == 'Z' && scanner.more() && !scanner.atCommand()) {
+                return path;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Appends an elliptical arc given in SVG endpoint form, converting it to
+     * the center form {@link Arc2D} takes (SVG 1.1, appendix F.6).
+     */
+    private static void arc(Path2D path, double x0, double y0, double rx, double ry, double rotation,
+            boolean large, boolean sweep, double x, double y) {
+        if (x0 == x && y0 == y) {
+            return;
+        }
+        if (rx == 0 || ry == 0) {
+            path.lineTo(x, y);
+            return;
+        }
+        double angle = Math.toRadians(rotation % 360);
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        double dx = (x0 - x) / 2;
+        double dy = (y0 - y) / 2;
+        double x1 = cos * dx + sin * dy;
+        double y1 = -sin * dx + cos * dy;
+
+        double lambda = (x1 * x1) / (rx * rx) + (y1 * y1) / (ry * ry);
+        if (lambda > 1) {
+            rx *= Math.sqrt(lambda);
+            ry *= Math.sqrt(lambda);
+        }
+        double numerator = rx * rx * ry * ry - rx * rx * y1 * y1 - ry * ry * x1 * x1;
+        double denominator = rx * rx * y1 * y1 + ry * ry * x1 * x1;
+        double coefficient = Math.sqrt(Math.max(0, numerator / denominator)) * (large == sweep ? -1 : 1);
+        double cx1 = coefficient * rx * y1 / ry;
+        double cy1 = -coefficient * ry * x1 / rx;
+        double cx = cos * cx1 - sin * cy1 + (x0 + x) / 2;
+        double cy = sin * cx1 + cos * cy1 + (y0 + y) / 2;
+
+        double start = Math.toDegrees(Math.atan2((y1 - cy1) / ry, (x1 - cx1) / rx));
+        double end = Math.toDegrees(Math.atan2((-y1 - cy1) / ry, (-x1 - cx1) / rx));
+        double extent = end - start;
+        if (sweep && extent < 0) {
+            extent += 360;
+        } else if (!sweep && extent > 0) {
+            extent -= 360;
+        }
+
+        // Arc2D angles run counter-clockwise with y up, the opposite of SVG's.
+        Arc2D.Double arc = new Arc2D.Double(cx - rx, cy - ry, 2 * rx, 2 * ry, -start, -extent, Arc2D.OPEN);
+        AffineTransform rotate = AffineTransform.getRotateInstance(angle, cx, cy);
+        path.append(rotate.createTransformedShape(arc).getPathIterator(null), true);
+    }
+
+    /**
+     * Reads commands, numbers and arc flags from path data.
+     */
+    private static final class PathScanner {
+
+        private final String data;
+        private int position;
+
+        PathScanner(String data) {
+            this.data = data == null ? "" : data;
+            skipSeparators();
+        }
+
+        boolean more() {
+            return position < data.length();
+        }
+
+        boolean atCommand() {
+            return more() && Character.isLetter(data.charAt(position))
+                    && data.charAt(position) != 'e' && data.charAt(position) != 'E';
+        }
+
+        char command() {
+            char command = data.charAt(position++);
+            skipSeparators();
+            return command;
+        }
+
+        double number() {
+            Matcher matcher = NUMBER.matcher(data).region(position, data.length());
+            if (!matcher.lookingAt()) {
+                throw new IllegalStateException("Expected a number at " + position);
+            }
+            position = matcher.end();
+            skipSeparators();
+            return Double.parseDouble(matcher.group());
+        }
+
+        boolean flag() {
+            if (!more() || (data.charAt(position) != '0' && data.charAt(position) != '1')) {
+                throw new IllegalStateException("Expected an arc flag at " + position);
+            }
+            boolean flag = data.charAt(position++) == '1';
+            skipSeparators();
+            return flag;
+        }
+
+        private void skipSeparators() {
+            while (position < data.length()
+                    && (Character.isWhitespace(data.charAt(position)) || data.charAt(position) == ',')) {
+                position++;
+            }
+        }
+    }
+
+    /**
+     * Inherited painting properties; each element gets a copy with its own
+     * declarations applied.
+     */
+    private static final class Style {
+
+        static final Style ROOT = new Style();
+
+        String fill = "black";
+        double fillOpacity = 1;
+        String fillRule = "nonzero";
+        String stroke = "none";
+        double strokeOpacity = 1;
+        double strokeWidth = 1;
+        String lineCap = "butt";
+        String lineJoin = "miter";
+        double miterLimit = 4;
+        double[] dashes;
+        double opacity = 1;
+        String fontFamily = "SansSerif";
+        double fontSize = 16;
+        boolean bold;
+        boolean italic;
+        String textAnchor = "start";
+        String color = "black";
+
+        Style inherit(Map<String, String> properties) {
+            Style style = new Style();
+            style.fill = fill;
+            style.fillOpacity = fillOpacity;
+            style.fillRule = fillRule;
+            style.stroke = stroke;
+            style.strokeOpacity = strokeOpacity;
+            style.strokeWidth = strokeWidth;
+            style.lineCap = lineCap;
+            style.lineJoin = lineJoin;
+            style.miterLimit = miterLimit;
+            style.dashes = dashes;
+            style.fontFamily = fontFamily;
+            style.fontSize = fontSize;
+            style.bold = bold;
+            style.italic = italic;
+            style.textAnchor = textAnchor;
+            style.color = color;
+            // Not inherited, but a group's opacity still applies to what it contains.
+            style.opacity = opacity * fraction(properties.get("opacity"), 1);
+
+            properties.forEach((name, value) -> {
+                if (value.isEmpty() || value.equals("inherit")) {
+                    return;
+                }
+                switch (name) {
+                    case "fill" -> style.fill = value;
+                    case "fill-opacity" -> style.fillOpacity = fraction(value, fillOpacity);
+                    case "fill-rule" -> style.fillRule = value;
+                    case "stroke" -> style.stroke = value;
+                    case "stroke-opacity" -> style.strokeOpacity = fraction(value, strokeOpacity);
+                    case "stroke-width" -> style.strokeWidth = length(value, strokeWidth);
+                    case "stroke-linecap" -> style.lineCap = value;
+                    case "stroke-linejoin" -> style.lineJoin = value;
+                    case "stroke-miterlimit" -> style.miterLimit = Math.max(1, length(value, miterLimit));
+                    case "stroke-dasharray" -> style.dashes = dashes(value);
+                    case "font-family" -> style.fontFamily = value.split(",")[0].replace("'", "")
+                            .replace("\"", "").trim();
+                    case "font-size" -> style.fontSize = length(value, fontSize);
+                    case "font-weight" -> style.bold = value.equals("bold") || value.equals("bolder")
+                            || (Character.isDigit(value.charAt(0)) && length(value, 400) >= 600);
+                    case "font-style" -> style.italic = value.equals("italic") || value.equals("oblique");
+                    case "text-anchor" -> style.textAnchor = value;
+                    case "color" -> style.color = value;
+                    default -> {
+                        // Not a painting property.
+                    }
+                }
+            });
+            return style;
+        }
+
+        Color color(String paint, double paintOpacity, Builder builder) {
+            Color base = paint.equals("currentColor") ? parseColor(color) : parseColor(paint);
+            if (base == null && paint.startsWith("url(")) {
+                base = firstStop(builder.reference(paint), builder);
+            }
+            double alpha = base != null ? paintOpacity * opacity * base.getAlpha() / 255.0 : 0;
+            if (alpha <= 0) {
+                return null;
+            }
+            return new Color(base.getRed(), base.getGreen(), base.getBlue(), (int) Math.round(Math.min(1, alpha) * 255));
+        }
+
+        BasicStroke stroke() {
+            int cap = switch (lineCap) {
+                case "round" -> BasicStroke.CAP_ROUND;
+                case "square" -> BasicStroke.CAP_SQUARE;
+                default -> BasicStroke.CAP_BUTT;
+            };
+            int join = switch (lineJoin) {
+                case "round" -> BasicStroke.JOIN_ROUND;
+                case "bevel" -> BasicStroke.JOIN_BEVEL;
+                default -> BasicStroke.JOIN_MITER;
+            };
+            float[] dash = null;
+            if (dashes != null) {
+                dash = new float[dashes.length];
+                for (int i = 0; i < dashes.length; i++) {
+                    dash[i] = (float) dashes[i];
+                }
+            }
+            return new BasicStroke((float) strokeWidth, cap, join, (float) miterLimit, dash, 0);
+        }
+
+        Font font() {
+            int fontStyle = (bold ? Font.BOLD : 0) | (italic ? Font.ITALIC : 0);
+            return new Font(fontFamily, fontStyle, 1).deriveFont((float) fontSize);
+        }
+
+        private static double[] dashes(String value) {
+            double[] dashes = value.equals("none") ? new double[0] : numbers(value);
+            if (dashes.length == 0) {
+                return null;
+            }
+            double total = 0;
+            for (double dash : dashes) {
+                if (dash < 0) {
+                    return null;
+                }
+                total += dash;
+            }
+            return total > 0 ? dashes : null;
+        }
+
+        private static Color firstStop(Element gradient, Builder builder) {
+            for (int depth = 0; gradient != null && depth < 8; depth++) {
+                for (Element stop : childElements(gradient)) {
+                    if (stop.getLocalName().equals("stop")) {
+                        Map<String, String> properties = builder.properties(stop);
+                        Color color = parseColor(properties.getOrDefault("stop-color", "black"));
+                        if (color == null) {
+                            return null;
+                        }
+                        double opacity = fraction(properties.get("stop-opacity"), 1);
+                        return new Color(color.getRed(), color.getGreen(), color.getBlue(),
+                                (int) Math.round(opacity * 255));
+                    }
+                }
+                String href = gradient.getAttributeNS("http://www.w3.org/1999/xlink", "href");
+                if (href.isEmpty()) {
+                    href = gradient.getAttribute("href");
+                }
+                gradient = href.startsWith("#") ? builder.byId.get(href.substring(1)) : null;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Parses a color value, or returns {@code null} for {@code none} and
+     * anything unsupported.
+     */
+    static Color parseColor(String value) {
+        String color = value.trim().toLowerCase(Locale.ROOT);
+        try {
+            if (color.startsWith("#")) {
+                String hex = color.substring(1);
+                if (hex.length() == 3) {
+                    hex = "" + hex.charAt(0) + hex.charAt(0) + hex.charAt(1) + hex.charAt(1) + hex.charAt(2)
+                            + hex.charAt(2);
+                }
+                return hex.length() == 6 ? new Color(Integer.parseInt(hex, 16)) : null;
+            }
+            if (color.startsWith("rgb(")) {
+                String[] channels = color.substring(4, color.indexOf(')')).split(",");
+                int[] rgb = new int[3];
+                for (int i = 0; i < 3; i++) {
+                    String channel = channels[i].trim();
+                    rgb[i] = channel.endsWith("%")
+                            ? (int) Math.round(Double.parseDouble(channel.substring(0, channel.length() - 1)) * 2.55)
+                            : (int) Math.round(Double.parseDouble(channel));
+                    rgb[i] = Math.max(0, Math.min(255, rgb[i]));
+                }
+                return new Color(rgb[0], rgb[1], rgb[2]);
+            }
+        } catch (RuntimeException ex) {
+            return null;
+        }
+        return NAMED_COLORS.get(color);
+    }
+
+    private static AffineTransform transform(String value) {
+        AffineTransform transform = new AffineTransform();
+        if (value == null || value.isBlank()) {
+            return transform;
+        }
+        Matcher matcher = TRANSFORM.matcher(value);
+        while (matcher.find()) {
+            double[] a = numbers(matcher.group(2));
+            switch (matcher.group(1)) {
+                case "matrix" -> {
+                    if (a.length == 6) {
+                        transform.concatenate(new AffineTransform(a[0], a[1], a[2], a[3], a[4], a[5]));
+                    }
+                }
+                case "translate" -> {
+                    if (a.length > 0) {
+                        transform.translate(a[0], a.length > 1 ? a[1] : 0);
+                    }
+                }
+                case "scale" -> {
+                    if (a.length > 0) {
+                        transform.scale(a[0], a.length > 1 ? a[1] : a[0]);
+                    }
+                }
+                case "rotate" -> {
+                    if (a.length == 3) {
+                        transform.rotate(Math.toRadians(a[0]), a[1], a[2]);
+                    } else if (a.length > 0) {
+                        transform.rotate(Math.toRadians(a[0]));
+                    }
+                }
+                case "skewX" -> {
+                    if (a.length > 0) {
+                        transform.shear(Math.tan(Math.toRadians(a[0])), 0);
+                    }
+                }
+                case "skewY" -> {
+                    if (a.length > 0) {
+                        transform.shear(0, Math.tan(Math.toRadians(a[0])));
+                    }
+                }
+                default -> {
+                    // Matched by the pattern only.
+                }
+            }
+        }
+        return transform;
+    }
+
+    private static List<Element> childElements(Element parent) {
+        List<Element> children = new ArrayList<>();
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element element && element.getLocalName() != null) {
+                children.add(element);
+            }
+        }
+        return children;
+    }
+
+    private static double[] numbers(String value) {
+        if (value == null || value.isBlank()) {
+            return new double[0];
+        }
+        Matcher matcher = NUMBER.matcher(value);
+        List<Double> numbers = new ArrayList<>();
+        while (matcher.find()) {
+            numbers.add(Double.parseDouble(matcher.group()));
+        }
+        return numbers.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     * The first number of a length or coordinate list, ignoring units, or 0.
+     */
+    private static double first(String value) {
+        double[] numbers = numbers(value);
+        return numbers.length > 0 ? numbers[0] : 0;
+    }
+
+    /**
+     * A length in pixels; {@code fallback} when it is missing, a percentage or
+     * not a number.
+     */
+    private static double length(String value, double fallback) {
+        if (value == null || value.isBlank() || value.trim().endsWith("%")) {
+            return fallback;
+        }
+        Matcher matcher = NUMBER.matcher(value.trim());
+        return matcher.lookingAt() ? Double.parseDouble(matcher.group()) : fallback;
+    }
+
+    private static double fraction(String value, double fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        String trimmed = value.trim();
+        boolean percent = trimmed.endsWith("%");
+        double number = length(percent ? trimmed.substring(0, trimmed.length() - 1) : trimmed, fallback);
+        return Math.max(0, Math.min(1, percent ? number / 100 : number));
+    }
+}
@@ -0,0 +1,259 @@
+package com.soen390.flightcrew.service.indoor;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * A z/x/y pyramid of fixed-size PNG tiles stored in one directory as
+ * {@code <z>/<x>/<y>.png}. Zoom 0 fits the whole plan in a single tile and
+ * every level doubles the resolution of the one above it, up to
+ * {@link #maxZoom()}, which holds the plan at full size.
+ *
+ * <p>
+ * Only the deepest level is drawn from the source; each tile above it is
+ * its four children scaled down, built depth first so at most a few tiles
+ * per level are held in memory. The pyramid is written under a temporary
+ * name and renamed into place with its {@code tileset.properties} last, so a
+ * directory that {@link #open opens} is always complete.
+ */
+public final class IndoorTilePyramid {
+
+    private static final String METADATA = "tileset.properties";
+
+    private final Path directory;
+    private final int tileSize;
+    private final int maxZoom;
+    private final int width;
+    private final int height;
+    private final long created;
+
+    private IndoorTilePyramid(Path directory, int tileSize, int maxZoom, int width, int height, long created) {
+        this.directory = directory;
+        this.tileSize = tileSize;
+        this.maxZoom = maxZoom;
+        this.width = width;
+        this.height = height;
+        this.created = created;
+    }
+
+    /**
+     * Draws a plan with its top-left corner at the origin, one unit per
+     * pixel of its natural size.
+     */
+    public interface Source {
+
+        double width();
+
+        double height();
+
+        void draw(Graphics2D graphics);
+    }
+
+    /**
+     * Draws {@code source} into a pyramid at {@code directory}, replacing any
+     * pyramid already there. The plan is scaled by {@code scale} at the
+     * deepest level, or less when that would take more than
+     * {@code maxZoomLimit} levels.
+     */
+    public static IndoorTilePyramid build(Path directory, Source source, int tileSize, double scale,
+            int maxZoomLimit) throws IOException {
+        double longest = Math.max(source.width(), source.height());
+        if (tileSize < 1 || scale <= 0 || longest <= 0) {
+            throw new IllegalArgumentException("Tile size, scale and plan size must be positive");
+        }
+        int maxZoom = Math.max(0, (int) Math.ceil(log2(longest * scale / tileSize) - 1e-9));
+        if (maxZoom > maxZoomLimit) {
+            maxZoom = Math.max(0, maxZoomLimit);
+            scale = tileSize * Math.pow(2, maxZoom) / longest;
+        }
+        int width = Math.max(1, (int) Math.ceil(source.width() * scale - 1e-9));
+        int height = Math.max(1, (int) Math.ceil(source.height() * scale - 1e-9));
+
+        Files.createDirectories(directory.getParent());
+        Path staging = Files.createTempDirectory(directory.getParent(), directory.getFileName() + ".");
+        try {
+            IndoorTilePyramid pyramid = new IndoorTilePyramid(staging, tileSize, maxZoom, width, height,
+                    System.currentTimeMillis());
+            pyramid.buildTile(0, 0, 0, source, scale);
+            pyramid.writeMetadata();
+            deleteRecursively(directory);
+            Files.move(staging, directory, StandardCopyOption.ATOMIC_MOVE);
+            return new IndoorTilePyramid(directory, tileSize, maxZoom, width, height, pyramid.created);
+        } finally {
+            deleteRecursively(staging);
+        }
+    }
+
+    /**
+     * Opens a complete pyramid, or returns {@code null} when
+     * {@code directory} holds none.
+     */
+    public static IndoorTilePyramid open(Path directory) throws IOException {
+        Path metadata = directory.resolve(METADATA);
+        if (!Files.isRegularFile(metadata)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(metadata)) {
+            properties.load(in);
+        }
+        try {
+            return new IndoorTilePyramid(directory,
+                    Integer.parseInt(properties.getProperty("tileSize")),
+                    Integer.parseInt(properties.getProperty("maxZoom")),
+                    Integer.parseInt(properties.getProperty("width")),
+                    Integer.parseInt(properties.getProperty("height")),
+                    Long.parseLong(properties.getProperty("created")));
+        } catch (NumberFormatException ex) {
+            throw new IOException("Corrupt tile pyramid metadata in " + directory, ex);
+        }
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    public int tileSize() {
+        return tileSize;
+    }
+
+    public int maxZoom() {
+        return maxZoom;
+    }
+
+    /**
+     * Width in pixels of the plan at {@link #maxZoom()}.
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Height in pixels of the plan at {@link #maxZoom()}.
+     */
+    public int height() {
+        return height;
+    }
+
+    public long created() {
+        return created;
+    }
+
+    public int columns(int zoom) {
+        return (int) Math.ceil((double) width / span(zoom));
+    }
+
+    public int rows(int zoom) {
+        return (int) Math.ceil((double) height / span(zoom));
+    }
+
+    /**
+     * The file of tile {@code zoom/x/y}, or {@code null} when the pyramid has
+     * no such tile.
+     */
+    public Path tile(int zoom, int x, int y) {
+        if (zoom < 0 || zoom > maxZoom || x < 0 || y < 0 || x >= columns(zoom) || y >= rows(zoom)) {
+            return null;
+        }
+        return directory.resolve(Integer.toString(zoom)).resolve(Integer.toString(x)).resolve(y + ".png");
+    }
+
+    /**
+     * Pixels of the deepest level covered by one tile at {@code zoom}.
+     */
+    private long span(int zoom) {
+        return (long) tileSize << (maxZoom - zoom);
+    }
+
+    private BufferedImage buildTile(int zoom, int x, int y, Source source, double scale) throws IOException {
+        BufferedImage tile;
+        if (zoom == maxZoom) {
+            tile = draw(graphics -> {
+                graphics.translate(-(double) x * tileSize, -(double) y * tileSize);
+                graphics.clipRect(0, 0, width, height);
+                graphics.scale(scale, scale);
+                source.draw(graphics);
+            });
+        } else {
+            BufferedImage[] children = new BufferedImage[4];
+            for (int i = 0; i < 4; i++) {
+                int childX = 2 * x + (i & 1);
+                int childY = 2 * y + (i >> 1);
+                if (childX < columns(zoom + 1) && childY < rows(zoom + 1)) {
+                    children[i] = buildTile(zoom + 1, childX, childY, source, scale);
+                }
+            }
+            int half = tileSize / 2;
+            tile = draw(graphics -> {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                        RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                for (int i = 0; i < 4; i++) {
+                    if (children[i] != null) {
+                        graphics.drawImage(children[i], (i & 1) * half, (i >> 1) * half,
+                                tileSize - half, tileSize - half, null);
+                    }
+                }
+            });
+        }
+
+        Path file = directory.resolve(Integer.toString(zoom)).resolve(Integer.toString(x)).resolve(y + ".png");
+        Files.createDirectories(file.getParent());
+        if (!ImageIO.write(tile, "png", file.toFile())) {
+            throw new IOException("No PNG writer available");
+        }
+        return tile;
+    }
+
+    private BufferedImage draw(Consumer<Graphics2D> painter) {
+        BufferedImage tile = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = tile.createGraphics();
+        try {
+            painter.accept(graphics);
+        } finally {
+            graphics.dispose();
+        }
+        return tile;
+    }
+
+    private void writeMetadata() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("tileSize", Integer.toString(tileSize));
+        properties.setProperty("maxZoom", Integer.toString(maxZoom));
+        properties.setProperty("width", Integer.toString(width));
+        properties.setProperty("height", Integer.toString(height));
+        properties.setProperty("created", Long.toString(created));
+        try (OutputStream out = Files.newOutputStream(directory.resolve(METADATA))) {
+            properties.store(out, "Indoor floor-plan tile pyramid");
+        }
+    }
+
+    /**
+     * Deletes {@code path} and everything under it, if it exists.
+     */
+    public static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static double log2(double value) {
+        return Math.log(value) / Math.log(2);
+    }
+}
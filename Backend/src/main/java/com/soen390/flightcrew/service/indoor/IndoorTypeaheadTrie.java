@@ -0,0 +1,277 @@
+package com.soen390.flightcrew.service.indoor;
+
+import com.soen390.flightcrew.model.IndoorSuggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable prefix trie over typeahead suggestions. Every suggestion is
+ * reachable from its {@link IndoorRoomIndex#normalize normalized} label, from
+ * the label with its separators removed ({@code "h820"}), and from each later
+ * word of the label or its category ({@code "820"}, {@code "s2 330"}).
+ *
+ * <p>
+ * Suggestions are ranked by how they match (a label prefix before a later
+ * word), then by building key, floor and label. Each trie node stores the top
+ * {@code maxLimit} suggestions of its subtree in that order, so a query
+ * without context costs one walk down the trie. A query that prefers a
+ * building or floor ranks those first and has to look at the whole subtree.
+ * The trie is frozen into flat arrays once built: children are kept sorted
+ * per node and found by binary search.
+ */
+public final class IndoorTypeaheadTrie {
+
+    private static final int LABEL_PREFIX = 0;
+    private static final int WORD_PREFIX = 1;
+
+    private final IndoorSuggestion[] suggestions;
+    private final String[] buildingKeys;
+    private final int maxLimit;
+
+    // Children of node n are childChar/childNode[childStart[n] .. childStart[n + 1]).
+    private final int[] childStart;
+    private final char[] childChar;
+    private final int[] childNode;
+    // Keys ending in the subtree of node n are term*[termStart[n] .. termEnd[n]).
+    private final int[] termStart;
+    private final int[] termEnd;
+    private final int[] termSuggestion;
+    private final byte[] termTier;
+    // Precomputed best suggestions of node n are top*[topStart[n] .. topStart[n + 1]).
+    private final int[] topStart;
+    private final int[] topSuggestion;
+
+    private IndoorTypeaheadTrie(List<IndoorSuggestion> suggestions, List<String> buildingKeys, int maxLimit) {
+        this.suggestions = suggestions.toArray(IndoorSuggestion[]::new);
+        this.buildingKeys = buildingKeys.toArray(String[]::new);
+        this.maxLimit = maxLimit;
+
+        BuildNode root = new BuildNode();
+        int nodeCount = 1;
+        for (int s = 0; s < this.suggestions.length; s++) {
+            for (Map.Entry<String, Integer> key : keysOf(this.suggestions[s]).entrySet()) {
+                BuildNode node = root;
+                for (int i = 0; i < key.getKey().length(); i++) {
+                    BuildNode child = node.children.get(key.getKey().charAt(i));
+                    if (child == null) {
+                        child = new BuildNode();
+                        node.children.put(key.getKey().charAt(i), child);
+                        nodeCount++;
+                    }
+                    node = child;
+                }
+                node.terminals.add(new int[] { s, key.getValue() });
+            }
+        }
+
+        this.childStart = new int[nodeCount + 1];
+        this.childChar = new char[nodeCount - 1];
+        this.childNode = new int[nodeCount - 1];
+        this.termStart = new int[nodeCount];
+        this.termEnd = new int[nodeCount];
+        List<int[]> terms = new ArrayList<>();
+
+        // Breadth-first ids make every node's children contiguous; terminals are
+        // then laid out depth-first so every subtree is a contiguous range.
+        List<BuildNode> order = new ArrayList<>(nodeCount);
+        order.add(root);
+        for (int n = 0; n < order.size(); n++) {
+            BuildNode node = order.get(n);
+            node.id = n;
+            childStart[n + 1] = childStart[n] + node.children.size();
+            int edge = childStart[n];
+            for (Map.Entry<Character, BuildNode> child : node.children.entrySet()) {
+                childChar[edge] = child.getKey();
+                childNode[edge++] = order.size();
+                order.add(child.getValue());
+            }
+        }
+        layoutTerminals(root, terms);
+        this.termSuggestion = new int[terms.size()];
+        this.termTier = new byte[terms.size()];
+        for (int t = 0; t < terms.size(); t++) {
+            termSuggestion[t] = terms.get(t)[0];
+            termTier[t] = (byte) terms.get(t)[1];
+        }
+
+        this.topStart = new int[nodeCount + 1];
+        List<int[]> tops = new ArrayList<>(nodeCount);
+        for (int n = 0; n < nodeCount; n++) {
+            int[] top = rank(n, null, null, maxLimit);
+            tops.add(top);
+            topStart[n + 1] = topStart[n] + top.length;
+        }
+        this.topSuggestion = new int[topStart[nodeCount]];
+        for (int n = 0; n < nodeCount; n++) {
+            System.arraycopy(tops.get(n), 0, topSuggestion, topStart[n], tops.get(n).length);
+        }
+    }
+
+    /**
+     * Builds a trie over {@code suggestions}.
+     *
+     * @param buildingKeys the building each suggestion ranks under, one per
+     *                     suggestion, compared ignoring case
+     * @param maxLimit     the most suggestions any query may ask for
+     */
+    public static IndoorTypeaheadTrie build(List<IndoorSuggestion> suggestions, List<String> buildingKeys,
+            int maxLimit) {
+        if (suggestions.size() != buildingKeys.size()) {
+            throw new IllegalArgumentException("Expected one building key per suggestion");
+        }
+        List<String> keys = buildingKeys.stream()
+                .map(key -> key != null ? key.toLowerCase(Locale.ROOT) : "")
+                .toList();
+        return new IndoorTypeaheadTrie(suggestions, keys, maxLimit);
+    }
+
+    public int size() {
+        return suggestions.length;
+    }
+
+    public int nodeCount() {
+        return childStart.length - 1;
+    }
+
+    /**
+     * The best {@code limit} suggestions for {@code query} without context,
+     * read straight from the precomputed lists.
+     */
+    public List<IndoorSuggestion> top(String query, int limit) {
+        int node = find(query);
+        if (node < 0) {
+            return List.of();
+        }
+        int end = Math.min(topStart[node + 1], topStart[node] + limit);
+        List<IndoorSuggestion> result = new ArrayList<>(end - topStart[node]);
+        for (int i = topStart[node]; i < end; i++) {
+            result.add(suggestions[topSuggestion[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * The best {@code limit} suggestions for {@code query}, ranking those in
+     * {@code buildingKey} and then those on {@code floor} first within each
+     * kind of match. Either preference may be {@code null}.
+     */
+    public List<IndoorSuggestion> search(String query, String buildingKey, Integer floor, int limit) {
+        if (buildingKey == null && floor == null) {
+            return top(query, limit);
+        }
+        int node = find(query);
+        if (node < 0) {
+            return List.of();
+        }
+        int[] ranked = rank(node, buildingKey != null ? buildingKey.toLowerCase(Locale.ROOT) : null, floor,
+                Math.min(limit, maxLimit));
+        List<IndoorSuggestion> result = new ArrayList<>(ranked.length);
+        for (int s : ranked) {
+            result.add(suggestions[s]);
+        }
+        return result;
+    }
+
+    /**
+     * The trie node spelled by the normalized query, or -1; a query without
+     * letters or digits matches nothing.
+     */
+    private int find(String query) {
+        String key = query != null ? IndoorRoomIndex.normalize(query) : "";
+        if (key.isEmpty()) {
+            return -1;
+        }
+        int node = 0;
+        for (int i = 0; i < key.length() && node >= 0; i++) {
+            int edge = Arrays.binarySearch(childChar, childStart[node], childStart[node + 1], key.charAt(i));
+            node = edge >= 0 ? childNode[edge] : -1;
+        }
+        return node;
+    }
+
+    /**
+     * The best {@code limit} distinct suggestions in the subtree of
+     * {@code node}, each ranked by its best way of matching there.
+     */
+    private int[] rank(int node, String buildingKey, Integer floor, int limit) {
+        Map<Integer, Integer> tiers = new TreeMap<>();
+        for (int t = termStart[node]; t < termEnd[node]; t++) {
+            tiers.merge(termSuggestion[t], (int) termTier[t], Math::min);
+        }
+
+        Comparator<Integer> order = Comparator.comparingInt(tiers::get);
+        if (buildingKey != null) {
+            order = order.thenComparing(s -> buildingKeys[s].equals(buildingKey) ? 0 : 1);
+        }
+        if (floor != null) {
+            order = order.thenComparing(s -> floor.equals(suggestions[s].getFloor()) ? 0 : 1);
+        }
+        order = order.thenComparing(s -> buildingKeys[s])
+                .thenComparing(s -> suggestions[s].getFloor(), Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(s -> suggestions[s].getLabel(), Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparingInt(s -> s);
+
+        return tiers.keySet().stream()
+                .sorted(order)
+                .limit(limit)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Appends the terminals of {@code node}'s subtree depth-first, recording
+     * the range each node covers. Recursion is bounded by the longest key.
+     */
+    private void layoutTerminals(BuildNode node, List<int[]> terms) {
+        termStart[node.id] = terms.size();
+        terms.addAll(node.terminals);
+        for (BuildNode child : node.children.values()) {
+            layoutTerminals(child, terms);
+        }
+        termEnd[node.id] = terms.size();
+    }
+
+    /**
+     * The keys a suggestion is reachable from, with how each one matches.
+     */
+    private static Map<String, Integer> keysOf(IndoorSuggestion suggestion) {
+        Map<String, Integer> keys = new TreeMap<>();
+        String label = suggestion.getLabel() != null ? IndoorRoomIndex.normalize(suggestion.getLabel()) : "";
+        if (!label.isEmpty()) {
+            keys.put(label, LABEL_PREFIX);
+            keys.put(label.replace(" ", ""), LABEL_PREFIX);
+        }
+        addWords(keys, label, 1);
+        if (suggestion.getCategory() != null) {
+            addWords(keys, IndoorRoomIndex.normalize(suggestion.getCategory()), 0);
+        }
+        return keys;
+    }
+
+    /**
+     * Adds every word of {@code text} from the {@code firstWord}-th on, each
+     * with the rest of the text after it.
+     */
+    private static void addWords(Map<String, Integer> keys, String text, int firstWord) {
+        int word = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (i == 0 || text.charAt(i - 1) == ' ') {
+                if (word++ >= firstWord) {
+                    keys.putIfAbsent(text.substring(i), WORD_PREFIX);
+                }
+            }
+        }
+    }
+
+    private static final class BuildNode {
+        private final TreeMap<Character, BuildNode> children = new TreeMap<>();
+        private final List<int[]> terminals = new ArrayList<>();
+        private int id;
+    }
+}
@@ -0,0 +1,337 @@
+package com.soen390.flightcrew.service.indoor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Routing structures of one building computed at build time: dense node
+ * indices, the CSR adjacency of the default and step-free graphs, their
+ * connected components and heuristic calibration, and a shortest-path tree
+ * per entrance. The server restores {@link IndoorGraph}s and
+ * {@link ShortestPathTree}s from it instead of deriving them, provided the
+ * nodes and edges it loaded still have the {@link #fingerprint fingerprint}
+ * recorded here; otherwise the artifact is ignored and the graphs are compiled
+ * as usual.
+ *
+ * <p>
+ * Artifacts are written by {@link IndoorGraphPrecompiler} and shipped on the
+ * classpath under {@link #RESOURCE_DIR}, one file per building named after its
+ * lower-cased id. Adjacency slots refer to edges by position in the building's
+ * edge list, so an artifact only applies to the exact list it was built from.
+ */
+public final class PrecompiledBuildingGraph {
+
+    public static final String RESOURCE_DIR = "indoor/compiled/";
+    public static final String FILE_SUFFIX = ".graph";
+
+    private static final int MAGIC = 0x49475047; // "IGPG"
+    private static final int VERSION = 1;
+    private static final int HASH_LENGTH = 32;
+
+    private final byte[] fingerprint;
+    private final String[] nodeIds;
+    private final int[] storeIndex;
+    private final Mode full;
+    private final Mode accessible;
+
+    private record Mode(int[] offsets, int[] targets, int[] slotEdges, int[] componentOf, int[] componentSizes,
+            double[] walkScale, double[] portalCost, double floorTransitionCost, int[] treeRoots,
+            int[][] predecessors, int[][] distances) {
+    }
+
+    private PrecompiledBuildingGraph(byte[] fingerprint, String[] nodeIds, int[] storeIndex, Mode full,
+            Mode accessible) {
+        this.fingerprint = fingerprint;
+        this.nodeIds = nodeIds;
+        this.storeIndex = storeIndex;
+        this.full = full;
+        this.accessible = accessible;
+    }
+
+    /**
+     * Captures the graphs of a freshly compiled building, building its entrance
+     * trees on the way.
+     */
+    public static PrecompiledBuildingGraph of(IndoorBuildingSnapshot building) {
+        IndoorGraph graph = building.getGraph();
+        return new PrecompiledBuildingGraph(fingerprint(building.getNodeStore(), building.getEdgeStore()),
+                graph.nodeIdArray(), graph.storeIndexArray(), capture(graph),
+                capture(building.getAccessibleGraph()));
+    }
+
+    private static Mode capture(IndoorGraph graph) {
+        Map<Integer, ShortestPathTree> trees = ShortestPathTree.buildEntranceTrees(graph);
+        int[] roots = trees.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        int[][] predecessors = new int[roots.length][];
+        int[][] distances = new int[roots.length][];
+        for (int t = 0; t < roots.length; t++) {
+            predecessors[t] = trees.get(roots[t]).predecessorArray();
+            distances[t] = trees.get(roots[t]).distanceArray();
+        }
+
+        return new Mode(graph.offsetArray(), graph.targetArray(), graph.slotEdgeArray(), graph.componentArray(),
+                graph.componentSizeArray(), graph.walkScaleArray(), graph.portalCostArray(),
+                graph.floorTransitionCost(), roots, predecessors, distances);
+    }
+
+    /**
+     * SHA-256 over everything the routing structures are derived from: node
+     * ids, positions, floors and types in store order, and every edge's
+     * endpoints, weight and accessibility in list order.
+     */
+    public static byte[] fingerprint(IndoorNodeStore store, IndoorEdgeStore edges) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+        ByteBuffer scratch = ByteBuffer.allocate(Long.BYTES);
+
+        digestInt(digest, scratch, VERSION);
+        digestInt(digest, scratch, store.size());
+        for (int i = 0; i < store.size(); i++) {
+            if (!store.isPresent(i)) {
+                digestInt(digest, scratch, -1);
+                continue;
+            }
+            digestString(digest, scratch, store.id(i));
+            digestLong(digest, scratch, Double.doubleToLongBits(store.x(i)));
+            digestLong(digest, scratch, Double.doubleToLongBits(store.y(i)));
+            digestInt(digest, scratch, store.floor(i));
+            digestString(digest, scratch, store.type(i));
+        }
+
+        digestInt(digest, scratch, edges.size());
+        for (int e = 0; e < edges.size(); e++) {
+            if (!edges.isPresent(e)) {
+                digestInt(digest, scratch, -1);
+                continue;
+            }
+            digestString(digest, scratch, edges.source(e));
+            digestString(digest, scratch, edges.target(e));
+            digestInt(digest, scratch, edges.weight(e));
+            Boolean accessible = edges.accessible(e);
+            digestInt(digest, scratch, accessible == null ? 0 : accessible ? 2 : 1);
+        }
+        return digest.digest();
+    }
+
+    private static void digestInt(MessageDigest digest, ByteBuffer scratch, int value) {
+        digest.update(scratch.clear().putInt(value).array(), 0, Integer.BYTES);
+    }
+
+    private static void digestLong(MessageDigest digest, ByteBuffer scratch, long value) {
+        digest.update(scratch.clear().putLong(value).array(), 0, Long.BYTES);
+    }
+
+    private static void digestString(MessageDigest digest, ByteBuffer scratch, String value) {
+        if (value == null) {
+            digestInt(digest, scratch, -1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        digestInt(digest, scratch, utf8.length);
+        digest.update(utf8);
+    }
+
+    /**
+     * File name of a building's artifact.
+     */
+    public static String fileName(String buildingId) {
+        return buildingId.toLowerCase(Locale.ROOT) + FILE_SUFFIX;
+    }
+
+    /**
+     * Classpath resource name of a building's artifact.
+     */
+    public static String resourceName(String buildingId) {
+        return RESOURCE_DIR + fileName(buildingId);
+    }
+
+    /**
+     * Whether this artifact was built from exactly these nodes and edges.
+     */
+    public boolean matches(IndoorNodeStore store, IndoorEdgeStore edges) {
+        return Arrays.equals(fingerprint, fingerprint(store, edges));
+    }
+
+    /**
+     * Restores the default or step-free graph over the given building data,
+     * which must {@link #matches match} this artifact.
+     */
+    public IndoorGraph restoreGraph(IndoorNodeStore store, IndoorEdgeStore edges, boolean requireAccessible) {
+        Mode mode = requireAccessible ? accessible : full;
+        return IndoorGraph.restore(nodeIds, storeIndex, store, edges, mode.offsets, mode.targets, mode.slotEdges,
+                mode.componentOf, mode.componentSizes, mode.walkScale, mode.portalCost, mode.floorTransitionCost);
+    }
+
+    /**
+     * Restores the entrance trees of a graph returned by
+     * {@link #restoreGraph}, keyed by root node index.
+     */
+    public Map<Integer, ShortestPathTree> restoreEntranceTrees(IndoorGraph graph, boolean requireAccessible) {
+        Mode mode = requireAccessible ? accessible : full;
+        Map<Integer, ShortestPathTree> trees = new HashMap<>();
+        for (int t = 0; t < mode.treeRoots.length; t++) {
+            trees.put(mode.treeRoots[t],
+                    ShortestPathTree.restore(graph, mode.treeRoots[t], mode.predecessors[t], mode.distances[t]));
+        }
+        return Map.copyOf(trees);
+    }
+
+    /**
+     * Serializes the artifact: header and fingerprint, node ids, then per mode
+     * the CSR arrays, components, heuristic constants and trees, followed by a
+     * CRC-32 of everything before it.
+     */
+    public byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.write(fingerprint);
+            out.writeInt(nodeIds.length);
+            for (String id : nodeIds) {
+                byte[] utf8 = id.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+            writeInts(out, storeIndex);
+            writeMode(out, full);
+            writeMode(out, accessible);
+            out.flush();
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeLong(crc.getValue());
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to serialize precompiled graph", ex);
+        }
+    }
+
+    private static void writeMode(DataOutputStream out, Mode mode) throws IOException {
+        out.writeInt(mode.offsets.length);
+        writeInts(out, mode.offsets);
+        out.writeInt(mode.targets.length);
+        writeInts(out, mode.targets);
+        writeInts(out, mode.slotEdges);
+        writeInts(out, mode.componentOf);
+        out.writeInt(mode.componentSizes.length);
+        writeInts(out, mode.componentSizes);
+        for (double value : mode.walkScale) {
+            out.writeDouble(value);
+        }
+        for (double value : mode.portalCost) {
+            out.writeDouble(value);
+        }
+        out.writeDouble(mode.floorTransitionCost);
+        out.writeInt(mode.treeRoots.length);
+        writeInts(out, mode.treeRoots);
+        for (int t = 0; t < mode.treeRoots.length; t++) {
+            writeInts(out, mode.predecessors[t]);
+            writeInts(out, mode.distances[t]);
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * Reads an artifact from a stream.
+     *
+     * @throws IOException if the data is not an artifact of this version, is
+     *                     truncated or fails its checksum
+     */
+    public static PrecompiledBuildingGraph read(InputStream in) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(in.readAllBytes());
+        try {
+            if (buffer.remaining() < 8 + HASH_LENGTH + Long.BYTES || buffer.getInt() != MAGIC
+                    || buffer.getInt() != VERSION) {
+                throw new IOException("Not a precompiled indoor graph of version " + VERSION);
+            }
+            int end = buffer.limit() - Long.BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), 0, end);
+            if (crc.getValue() != buffer.getLong(end)) {
+                throw new IOException("Precompiled indoor graph failed its checksum");
+            }
+
+            byte[] fingerprint = new byte[HASH_LENGTH];
+            buffer.get(fingerprint);
+            int nodeCount = checkedCount(buffer, buffer.getInt(), Integer.BYTES);
+            String[] nodeIds = new String[nodeCount];
+            for (int v = 0; v < nodeCount; v++) {
+                byte[] utf8 = new byte[checkedCount(buffer, buffer.getInt(), 1)];
+                buffer.get(utf8);
+                nodeIds[v] = new String(utf8, StandardCharsets.UTF_8);
+            }
+            int[] storeIndex = readInts(buffer, nodeCount);
+            Mode full = readMode(buffer, nodeCount);
+            Mode accessible = readMode(buffer, nodeCount);
+            return new PrecompiledBuildingGraph(fingerprint, nodeIds, storeIndex, full, accessible);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+            throw new IOException("Precompiled indoor graph is truncated or corrupt", ex);
+        }
+    }
+
+    private static Mode readMode(ByteBuffer buffer, int nodeCount) {
+        int[] offsets = readInts(buffer, buffer.getInt());
+        int slotCount = buffer.getInt();
+        int[] targets = readInts(buffer, slotCount);
+        int[] slotEdges = readInts(buffer, slotCount);
+        int[] componentOf = readInts(buffer, nodeCount);
+        int[] componentSizes = readInts(buffer, buffer.getInt());
+        double[] walkScale = readDoubles(buffer, nodeCount);
+        double[] portalCost = readDoubles(buffer, nodeCount);
+        double floorTransitionCost = buffer.getDouble();
+        int[] treeRoots = readInts(buffer, buffer.getInt());
+        int[][] predecessors = new int[treeRoots.length][];
+        int[][] distances = new int[treeRoots.length][];
+        for (int t = 0; t < treeRoots.length; t++) {
+            predecessors[t] = readInts(buffer, nodeCount);
+            distances[t] = readInts(buffer, nodeCount);
+        }
+        return new Mode(offsets, targets, slotEdges, componentOf, componentSizes, walkScale, portalCost,
+                floorTransitionCost, treeRoots, predecessors, distances);
+    }
+
+    private static int checkedCount(ByteBuffer buffer, int count, int elementBytes) {
+        if (count < 0 || count > buffer.remaining() / elementBytes) {
+            throw new BufferUnderflowException();
+        }
+        return count;
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[checkedCount(buffer, count, Integer.BYTES)];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    private static double[] readDoubles(ByteBuffer buffer, int count) {
+        double[] values = new double[checkedCount(buffer, count, Double.BYTES)];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + count * Double.BYTES);
+        return values;
+    }
+}
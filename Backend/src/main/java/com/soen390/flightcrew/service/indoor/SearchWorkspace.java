@@ -0,0 +1,75 @@
+package com.soen390.flightcrew.service.indoor;
+
+import java.util.Arrays;
+
+/**
+ * Reusable per-thread scratch space for shortest-path searches. Distances,
+ * predecessors and the settled set are reset in O(1) between searches by
+ * bumping a generation stamp instead of clearing the arrays.
+ */
+public final class SearchWorkspace {
+
+    public static final int UNREACHED = Integer.MAX_VALUE;
+
+    private int[] distance = new int[0];
+    private int[] previous = new int[0];
+    private int[] reachedStamp = new int[0];
+    private int[] settledStamp = new int[0];
+    private int generation;
+    private int settledCount;
+    private final IndexedMinHeap heap = new IndexedMinHeap(0);
+
+    /**
+     * Starts a new search over a graph with {@code nodeCount} nodes.
+     */
+    public void reset(int nodeCount) {
+        if (nodeCount > distance.length) {
+            distance = new int[nodeCount];
+            previous = new int[nodeCount];
+            reachedStamp = new int[nodeCount];
+            settledStamp = new int[nodeCount];
+            generation = 0;
+        }
+        heap.ensureCapacity(nodeCount);
+        heap.clear();
+        settledCount = 0;
+
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(reachedStamp, 0);
+            Arrays.fill(settledStamp, 0);
+            generation = 1;
+        }
+    }
+
+    public IndexedMinHeap heap() {
+        return heap;
+    }
+
+    public int distance(int node) {
+        return reachedStamp[node] == generation ? distance[node] : UNREACHED;
+    }
+
+    public int previous(int node) {
+        return previous[node];
+    }
+
+    public void reach(int node, int nodeDistance, int previousNode) {
+        reachedStamp[node] = generation;
+        distance[node] = nodeDistance;
+        previous[node] = previousNode;
+    }
+
+    public boolean isSettled(int node) {
+        return settledStamp[node] == generation;
+    }
+
+    public void settle(int node) {
+        settledStamp[node] = generation;
+        settledCount++;
+    }
+
+    public int settledCount() {
+        return settledCount;
+    }
+}
@@ -0,0 +1,135 @@
+package com.soen390.flightcrew.service.indoor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Complete single-source shortest-path tree over an {@link IndoorGraph},
+ * stored as two dense arrays indexed by node: the predecessor on the shortest
+ * path from the root and the distance to it. Any path that starts or ends at
+ * the root is then read off by walking predecessors, with no search. Edges are
+ * undirected with symmetric weights, so a path <em>to</em> the root is the
+ * reverse of the path from it.
+ */
+public final class ShortestPathTree {
+
+    public static final int UNREACHED = Integer.MAX_VALUE;
+
+    private final IndoorGraph graph;
+    private final int root;
+    private final int[] predecessor;
+    private final int[] distance;
+
+    private ShortestPathTree(IndoorGraph graph, int root, int[] predecessor, int[] distance) {
+        this.graph = graph;
+        this.root = root;
+        this.predecessor = predecessor;
+        this.distance = distance;
+    }
+
+    /**
+     * Runs Dijkstra from {@code root} to exhaustion.
+     */
+    public static ShortestPathTree build(IndoorGraph graph, int root) {
+        int nodeCount = graph.nodeCount();
+        int[] predecessor = new int[nodeCount];
+        int[] distance = new int[nodeCount];
+        boolean[] settled = new boolean[nodeCount];
+        Arrays.fill(predecessor, -1);
+        Arrays.fill(distance, UNREACHED);
+
+        IndexedMinHeap heap = new IndexedMinHeap(nodeCount);
+        distance[root] = 0;
+        heap.offer(root, 0);
+
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            settled[current] = true;
+
+            for (int slot = graph.firstSlot(current), last = graph.endSlot(current); slot < last; slot++) {
+                int neighbor = graph.target(slot);
+                if (settled[neighbor]) {
+                    continue;
+                }
+                int newDistance = distance[current] + graph.weight(slot);
+                if (newDistance < distance[neighbor]) {
+                    distance[neighbor] = newDistance;
+                    predecessor[neighbor] = current;
+                    heap.offer(neighbor, newDistance);
+                }
+            }
+        }
+
+        return new ShortestPathTree(graph, root, predecessor, distance);
+    }
+
+    /**
+     * Builds one tree per entrance of {@code graph} (see
+     * {@link IndoorGraph#isEntrance(int)}), keyed by root node index.
+     */
+    public static Map<Integer, ShortestPathTree> buildEntranceTrees(IndoorGraph graph) {
+        Map<Integer, ShortestPathTree> byRoot = new HashMap<>();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            if (graph.isEntrance(node)) {
+                byRoot.put(node, build(graph, node));
+            }
+        }
+        return Map.copyOf(byRoot);
+    }
+
+    /**
+     * Reassembles a tree written by {@link PrecompiledBuildingGraph}.
+     */
+    static ShortestPathTree restore(IndoorGraph graph, int root, int[] predecessor, int[] distance) {
+        return new ShortestPathTree(graph, root, predecessor, distance);
+    }
+
+    int[] predecessorArray() {
+        return predecessor;
+    }
+
+    int[] distanceArray() {
+        return distance;
+    }
+
+    public IndoorGraph getGraph() {
+        return graph;
+    }
+
+    public int getRoot() {
+        return root;
+    }
+
+    public int distanceTo(int node) {
+        return distance[node];
+    }
+
+    public boolean reaches(int node) {
+        return distance[node] != UNREACHED;
+    }
+
+    /**
+     * Node ids from the root to {@code node}, or from {@code node} to the root
+     * when {@code towardsRoot} is set; empty when the node is unreachable.
+     */
+    public List<String> path(int node, boolean towardsRoot) {
+        if (!reaches(node)) {
+            return List.of();
+        }
+
+        int length = 1;
+        for (int current = node; current != root; current = predecessor[current]) {
+            length++;
+        }
+
+        String[] ids = new String[length];
+        int current = node;
+        for (int i = 0; i < length; i++) {
+            ids[towardsRoot ? i : length - 1 - i] = graph.idOf(current);
+            current = predecessor[current];
+        }
+        return Arrays.asList(ids);
+    }
+}
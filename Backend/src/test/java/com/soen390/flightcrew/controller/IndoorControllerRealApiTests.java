@@ -1,21 +1,28 @@
 package com.soen390.flightcrew.controller;
 
+import com.soen390.flightcrew.model.IndoorConnectivityReport;
 import com.soen390.flightcrew.model.IndoorNode;
 import com.soen390.flightcrew.model.IndoorAssetFileDTO;
 import com.soen390.flightcrew.model.IndoorStep;
+import com.soen390.flightcrew.service.IndoorBatchRoutingService;
+import com.soen390.flightcrew.service.IndoorFacilityService;
 import com.soen390.flightcrew.service.IndoorNavigationDataService;
 import com.soen390.flightcrew.service.IndoorPathfindingService;
+import com.soen390.flightcrew.service.IndoorRouteCache;
 import com.soen390.flightcrew.service.IndoorStepGeneratorService;
+import com.soen390.flightcrew.service.indoor.IndoorAsset;
+import com.soen390.flightcrew.service.indoor.IndoorGraph;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -24,6 +31,8 @@ import java.util.Map;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,17 +47,22 @@ public class IndoorControllerRealApiTests {
     @Mock
     private IndoorStepGeneratorService stepGeneratorService;
 
+    @Mock
+    private IndoorFacilityService facilityService;
+
     private IndoorController controller;
 
     @BeforeEach
     public void setup() {
-        controller = new IndoorController(dataService, pathfindingService, stepGeneratorService, null);
+        controller = new IndoorController(dataService, pathfindingService, stepGeneratorService, null,
+                new IndoorRouteCache(100), new IndoorBatchRoutingService(2, 10, 5000), facilityService,
+                null, null, null, null);
     }
 
     @Test
     public void testGetAvailableBuildings() {
         when(dataService.getAvailableBuildings()).thenReturn(Arrays.asList("H", "MB"));
-        ResponseEntity<List<String>> response = controller.getAvailableBuildings();
+        ResponseEntity<List<String>> response = controller.getAvailableBuildings(null);
         assertEquals(200, response.getStatusCode().value());
         assertEquals(2, response.getBody().size());
     }
@@ -56,7 +70,7 @@ public class IndoorControllerRealApiTests {
     @Test
     public void testGetFloorsByBuilding() {
         when(dataService.getFloorsByBuilding("H")).thenReturn(Arrays.asList(1, 8, 9));
-        ResponseEntity<List<Integer>> response = controller.getFloorsByBuilding("H");
+        ResponseEntity<List<Integer>> response = controller.getFloorsByBuilding("H", null);
         assertEquals(200, response.getStatusCode().value());
         assertEquals(3, response.getBody().size());
     }
@@ -76,8 +90,8 @@ public class IndoorControllerRealApiTests {
     public void testGetNodes() {
         IndoorNode node = new IndoorNode();
         node.setId("node1");
-        when(dataService.getAllNodes(anyString())).thenReturn(Collections.singletonList(node));
-        ResponseEntity<List<IndoorNode>> response = controller.getNodes("H");
+        when(dataService.getAllNodes("H", 8)).thenReturn(Collections.singletonList(node));
+        ResponseEntity<List<IndoorNode>> response = controller.getNodes("H", 8, null);
         assertEquals(200, response.getStatusCode().value());
         assertEquals(1, response.getBody().size());
     }
@@ -93,23 +107,60 @@ public class IndoorControllerRealApiTests {
 
     @Test
     public void testGetSvgFile() {
-        Resource resource = new ByteArrayResource("<svg></svg>".getBytes());
-        when(dataService.loadSvgFile("test.svg")).thenReturn(resource);
-        ResponseEntity<Resource> response = controller.getSvgFile("test.svg");
+        when(dataService.getAsset("test.svg")).thenReturn(asset("test.svg", "image/svg+xml", 11));
+        ResponseEntity<StreamingResponseBody> response = controller.getSvgFile("test.svg", false, new HttpHeaders());
         assertEquals(200, response.getStatusCode().value());
         assertEquals("image/svg+xml", response.getHeaders().getContentType().toString());
+        assertEquals(11, response.getHeaders().getContentLength());
     }
 
     @Test
     public void testGetAssetFile() {
-        Resource resource = new ByteArrayResource("data".getBytes());
-        when(dataService.loadAssetFile("test.png")).thenReturn(resource);
-        when(dataService.detectAssetContentType("test.png")).thenReturn("image/png");
-        ResponseEntity<Resource> response = controller.getAssetFile("test.png");
+        when(dataService.getAsset("test.png")).thenReturn(asset("test.png", "image/png", 4));
+        ResponseEntity<StreamingResponseBody> response = controller.getAssetFile("test.png", false, null, null,
+                new HttpHeaders());
         assertEquals(200, response.getStatusCode().value());
         assertEquals("image/png", response.getHeaders().getContentType().toString());
     }
 
+    @Test
+    public void testGetSvgFileRaw() {
+        IndoorAsset raw = asset("test.svg", "image/svg+xml", 20);
+        IndoorAsset optimized = new IndoorAsset("test.svg", "image/svg+xml", "\"optimized\"", 0L,
+                new IndoorAsset.Representation(null, Path.of("test.min.svg"), 11), Map.of(), raw);
+        when(dataService.getAsset("test.svg")).thenReturn(optimized);
+
+        assertEquals(11, controller.getSvgFile("test.svg", false, new HttpHeaders()).getHeaders().getContentLength());
+        ResponseEntity<StreamingResponseBody> response = controller.getSvgFile("test.svg", true, new HttpHeaders());
+        assertEquals(20, response.getHeaders().getContentLength());
+        assertEquals("\"tag\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    public void testGetAssetFileRange() {
+        when(dataService.getAsset("test.png")).thenReturn(asset("test.png", "image/png", 100));
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RANGE, "bytes=-10");
+        ResponseEntity<StreamingResponseBody> response = controller.getAssetFile("test.png", false, null, null, headers);
+        assertEquals(206, response.getStatusCode().value());
+        assertEquals("bytes 90-99/100", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(10, response.getHeaders().getContentLength());
+
+        headers.set(HttpHeaders.RANGE, "bytes=100-");
+        response = controller.getAssetFile("test.png", false, null, null, headers);
+        assertEquals(416, response.getStatusCode().value());
+        assertEquals("bytes */100", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+
+        headers.set(HttpHeaders.IF_RANGE, "\"stale\"");
+        response = controller.getAssetFile("test.png", false, null, null, headers);
+        assertEquals(200, response.getStatusCode().value());
+    }
+
+    private static IndoorAsset asset(String fileName, String contentType, long length) {
+        return new IndoorAsset(fileName, contentType, "\"tag\"", 0L,
+                new IndoorAsset.Representation(null, Path.of(fileName), length), Map.of());
+    }
+
     @Test
     public void testGetIndoorDirections_Success() {
         IndoorNode node1 = new IndoorNode();
@@ -118,11 +169,11 @@ public class IndoorControllerRealApiTests {
         node2.setId("B");
 
         when(pathfindingService.findShortestPath("H", "A", "B", false)).thenReturn(Arrays.asList("A", "B"));
-        when(dataService.getAllNodes("H")).thenReturn(Arrays.asList(node1, node2));
+        when(dataService.getGraph("H", false))
+                .thenReturn(IndoorGraph.compile(Arrays.asList(node1, node2), List.of()));
 
         IndoorStep step = new IndoorStep("Walk to B", "front", 10.0, 5, 1, 1, "A", "B");
-        when(dataService.getEdgesByBuilding("H")).thenReturn(Collections.emptyList());
-        when(stepGeneratorService.generateSteps(any(), any())).thenReturn(Collections.singletonList(step));
+        when(stepGeneratorService.generateSteps(any(), any(IndoorGraph.class))).thenReturn(Collections.singletonList(step));
 
         ResponseEntity<Object> response = (ResponseEntity<Object>) controller.getIndoorDirections("H", "A", "B", false);
         assertEquals(200, response.getStatusCode().value());
@@ -149,4 +200,43 @@ public class IndoorControllerRealApiTests {
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertTrue(response.getBody().toString().contains("Test Error"));
     }
+
+    @Test
+    public void testGetIndoorDirections_RepeatedQueryServedFromCache() {
+        IndoorNode node1 = new IndoorNode();
+        node1.setId("A");
+        IndoorNode node2 = new IndoorNode();
+        node2.setId("B");
+
+        when(dataService.getSnapshotVersion()).thenReturn(1L);
+        when(pathfindingService.findShortestPath("H", "A", "B", false)).thenReturn(Arrays.asList("A", "B"));
+        when(dataService.getGraph("H", false))
+                .thenReturn(IndoorGraph.compile(Arrays.asList(node1, node2), List.of()));
+        when(stepGeneratorService.generateSteps(any(), any(IndoorGraph.class)))
+                .thenReturn(Collections.singletonList(new IndoorStep("Walk to B", "front", 10.0, 5, 1, 1, "A", "B")));
+
+        assertEquals(200, controller.getIndoorDirections("H", "A", "B", false).getStatusCode().value());
+        assertEquals(200, controller.getIndoorDirections("h", "A", "B", false).getStatusCode().value());
+        verify(pathfindingService, times(1)).findShortestPath("H", "A", "B", false);
+
+        // A reloaded snapshot must not be answered from the old entries.
+        when(dataService.getSnapshotVersion()).thenReturn(2L);
+        assertEquals(200, controller.getIndoorDirections("H", "A", "B", false).getStatusCode().value());
+        verify(pathfindingService, times(2)).findShortestPath("H", "A", "B", false);
+
+        Map<String, Object> stats = controller.getDirectionsCacheStats().getBody();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(2L, stats.get("misses"));
+    }
+
+    @Test
+    public void testGetIsolatedNodes() {
+        IndoorConnectivityReport report = new IndoorConnectivityReport("MB", true, 4, 3, 2,
+                List.of("MB-S2-lonely"), List.of("MB-1-a"));
+        when(dataService.getConnectivityReports("MB", true)).thenReturn(List.of(report));
+
+        ResponseEntity<List<IndoorConnectivityReport>> response = controller.getIsolatedNodes("MB", true);
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(List.of(report), response.getBody());
+    }
 }
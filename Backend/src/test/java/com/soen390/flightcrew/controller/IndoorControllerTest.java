@@ -4,28 +4,56 @@ import com.soen390.flightcrew.exception.GlobalExceptionHandler;
 import com.soen390.flightcrew.model.IndoorAssetFileDTO;
 import com.soen390.flightcrew.model.IndoorNode;
 import com.soen390.flightcrew.model.IndoorPointOfInterest;
+import com.soen390.flightcrew.model.IndoorStep;
+import com.soen390.flightcrew.model.IndoorSuggestion;
+import com.soen390.flightcrew.model.IndoorTileset;
+import com.soen390.flightcrew.service.IndoorAssetVariantService;
+import com.soen390.flightcrew.service.IndoorBatchRoutingService;
+import com.soen390.flightcrew.service.IndoorFacilityService;
 import com.soen390.flightcrew.service.IndoorNavigationDataService;
 import com.soen390.flightcrew.service.IndoorPathfindingService;
 import com.soen390.flightcrew.service.IndoorPoiService;
+import com.soen390.flightcrew.service.IndoorRouteCache;
+import com.soen390.flightcrew.service.IndoorRouteOverlayService;
 import com.soen390.flightcrew.service.IndoorStepGeneratorService;
+import com.soen390.flightcrew.service.IndoorTileService;
+import com.soen390.flightcrew.service.IndoorTypeaheadService;
+import com.soen390.flightcrew.service.indoor.IndoorAsset;
+import com.soen390.flightcrew.service.indoor.IndoorGraph;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,6 +73,27 @@ class IndoorControllerTest {
     @Mock
     private IndoorPoiService indoorPoiService;
 
+    @Mock
+    private IndoorFacilityService facilityService;
+
+    @Mock
+    private IndoorTypeaheadService typeaheadService;
+
+    @Mock
+    private IndoorAssetVariantService variantService;
+
+    @Mock
+    private IndoorTileService tileService;
+
+    @Mock
+    private IndoorRouteOverlayService overlayService;
+
+    @Spy
+    private IndoorRouteCache routeCache = new IndoorRouteCache(100);
+
+    @Spy
+    private IndoorBatchRoutingService batchRoutingService = new IndoorBatchRoutingService(2, 10, 5000);
+
     @InjectMocks
     private IndoorController indoorController;
 
@@ -57,17 +106,125 @@ class IndoorControllerTest {
 
     @Test
     @DisplayName("GET /api/indoor/assets/{fileName} returns requested asset")
-    void testGetAssetFile() throws Exception {
-        Resource resource = new ByteArrayResource("png-data".getBytes());
-        when(indoorNavigationDataService.loadAssetFile("icon.png")).thenReturn(resource);
-        when(indoorNavigationDataService.detectAssetContentType("icon.png")).thenReturn("image/png");
+    void testGetAssetFile(@TempDir Path tempDir) throws Exception {
+        Path file = Files.writeString(tempDir.resolve("icon.png"), "png-data");
+        when(indoorNavigationDataService.getAsset("icon.png")).thenReturn(new IndoorAsset("icon.png", "image/png",
+                "\"icon\"", 0L, new IndoorAsset.Representation(null, file, 8), Map.of()));
+
+        MvcResult result = mockMvc.perform(get("/api/indoor/assets/icon.png"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(header().string("Accept-Ranges", "bytes"))
+                .andExpect(content().string("png-data"));
+
+        verify(indoorNavigationDataService).getAsset("icon.png");
+    }
+
+    @Test
+    @DisplayName("GET /api/indoor/assets/{fileName} hands the file to the container's sendfile when offered")
+    void testGetAssetFileWithSendfile(@TempDir Path tempDir) throws Exception {
+        Path file = Files.writeString(tempDir.resolve("plan.svg"), "<svg>0123456789</svg>");
+        when(indoorNavigationDataService.getAsset("plan.svg")).thenReturn(new IndoorAsset("plan.svg",
+                "image/svg+xml", "\"plan\"", 0L, new IndoorAsset.Representation(null, file, 21), Map.of()));
+
+        mockMvc.perform(get("/api/indoor/assets/plan.svg")
+                .requestAttr("org.apache.tomcat.sendfile.support", true)
+                .header("Range", "bytes=5-14"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Length", "10"))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.filename",
+                        file.toAbsolutePath().toString()))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.start", 5L))
+                .andExpect(request().attribute("org.apache.tomcat.sendfile.end", 15L))
+                .andExpect(content().string(""));
+    }
 
-        mockMvc.perform(get("/api/indoor/assets/icon.png"))
+    @Test
+    @DisplayName("GET /api/indoor/assets/{fileName}?width= serves a resized variant")
+    void testGetAssetFileVariant(@TempDir Path tempDir) throws Exception {
+        IndoorAsset source = new IndoorAsset("plan.png", "image/png", "\"plan\"", 0L,
+                new IndoorAsset.Representation(null, tempDir.resolve("plan.png"), 1000), Map.of());
+        Path small = Files.writeString(tempDir.resolve("plan-w320.jpeg"), "small");
+        FileChannel channel = FileChannel.open(small, StandardOpenOption.READ);
+        when(indoorNavigationDataService.getAsset("plan.png")).thenReturn(source);
+        when(variantService.getVariant(source, 300, "jpeg")).thenReturn(new IndoorAsset("plan.png", "image/jpeg",
+                "\"small\"", 0L, IndoorAsset.Representation.opened(small, channel), Map.of()));
+        // The response reads the channel it was handed, whatever happens to the file.
+        Files.delete(small);
+
+        MvcResult result = mockMvc.perform(get("/api/indoor/assets/plan.png")
+                .param("width", "300")
+                .param("format", "jpeg"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
-                .andExpect(content().contentType("image/png"));
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(header().string("ETag", "\"small\""))
+                .andExpect(content().string("small"));
+        assertFalse(channel.isOpen());
+    }
 
-        verify(indoorNavigationDataService).loadAssetFile("icon.png");
-        verify(indoorNavigationDataService).detectAssetContentType("icon.png");
+    @Test
+    @DisplayName("GET /api/indoor/assets/{fileName}/tiles describes the pyramid and serves its tiles")
+    void testGetTilesetAndTile(@TempDir Path tempDir) throws Exception {
+        when(tileService.getTileset("H1.svg")).thenReturn(new IndoorTileset("H1.svg", "0123456789abcdef", false,
+                256, 0, 3, 2048, 2048, "/api/indoor/assets/H1.svg/tiles/{z}/{x}/{y}.png"));
+        Path tile = Files.writeString(tempDir.resolve("1.png"), "tile");
+        when(tileService.getTile("H1.svg", 3, 2, 1)).thenReturn(new IndoorAsset("H1.svg", "image/png",
+                "\"tile\"", 0L, new IndoorAsset.Representation(null, tile, 4), Map.of()));
+
+        mockMvc.perform(get("/api/indoor/assets/H1.svg/tiles"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0123456789abcdef\""))
+                .andExpect(jsonPath("$.maxZoom").value(3))
+                .andExpect(jsonPath("$.tileUrl").value("/api/indoor/assets/H1.svg/tiles/{z}/{x}/{y}.png"));
+
+        MvcResult result = mockMvc.perform(get("/api/indoor/assets/H1.svg/tiles/3/2/1.png"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(header().string("ETag", "\"tile\""))
+                .andExpect(content().string("tile"));
+    }
+
+    @Test
+    @DisplayName("GET /api/indoor/assets/{fileName} serves byte ranges and precompressed copies")
+    void testGetAssetFileRangeAndEncoding(@TempDir Path tempDir) throws Exception {
+        Path file = Files.writeString(tempDir.resolve("plan.svg"), "<svg>0123456789</svg>");
+        Path gzip = Files.writeString(tempDir.resolve("plan.svg.gz"), "gzipped");
+        when(indoorNavigationDataService.getAsset("plan.svg")).thenReturn(new IndoorAsset("plan.svg",
+                "image/svg+xml", "\"plan\"", 0L, new IndoorAsset.Representation(null, file, 21),
+                Map.of("gzip", new IndoorAsset.Representation("gzip", gzip, 7))));
+
+        MvcResult range = mockMvc.perform(get("/api/indoor/assets/plan.svg")
+                .header("Range", "bytes=5-14")
+                .header("Accept-Encoding", "gzip"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(range))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 5-14/21"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().string("0123456789"));
+
+        MvcResult encoded = mockMvc.perform(get("/api/indoor/assets/plan.svg")
+                .header("Accept-Encoding", "br;q=1, gzip;q=0.5"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(encoded))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("ETag", "\"plan-gzip\""))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(content().string("gzipped"));
+
+        mockMvc.perform(get("/api/indoor/assets/plan.svg")
+                .header("Accept-Encoding", "gzip")
+                .header("If-None-Match", "\"plan-gzip\""))
+                .andExpect(status().isNotModified());
     }
 
     @Test
@@ -83,6 +240,40 @@ class IndoorControllerTest {
         verify(indoorNavigationDataService).getAvailableBuildings();
     }
 
+    @Test
+    @DisplayName("GET /api/indoor/nodes is tagged and answers a matching If-None-Match with 304")
+    void testGetNodesConditionally() throws Exception {
+        IndoorNode node = new IndoorNode();
+        node.setId("H-820");
+        when(indoorNavigationDataService.getNodesETag("H", 8)).thenReturn("\"abc\"");
+        when(indoorNavigationDataService.getAllNodes("H", 8)).thenReturn(List.of(node));
+
+        mockMvc.perform(get("/api/indoor/nodes").param("buildingId", "H").param("floor", "8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(header().string("Cache-Control", "no-cache, public"))
+                .andExpect(jsonPath("$[0].id").value("H-820"));
+
+        mockMvc.perform(get("/api/indoor/nodes").param("buildingId", "H").param("floor", "8")
+                .header("If-None-Match", "\"old\", W/\"abc\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(content().string(""));
+
+        verify(indoorNavigationDataService).getAllNodes("H", 8);
+    }
+
+    @Test
+    @DisplayName("GET /api/indoor/pois answers 304 without reading POIs")
+    void testGetPoisNotModified() throws Exception {
+        when(indoorPoiService.getETag("H")).thenReturn("\"pois\"");
+
+        mockMvc.perform(get("/api/indoor/pois").param("buildingCode", "H").header("If-None-Match", "\"pois\""))
+                .andExpect(status().isNotModified());
+
+        verify(indoorPoiService, never()).getIndoorPoisForBuilding("H");
+    }
+
     @Test
     @DisplayName("GET /api/indoor/buildings/{id}/floors returns floors for building")
     void testGetFloorsByBuilding() throws Exception {
@@ -122,17 +313,39 @@ class IndoorControllerTest {
         verify(indoorNavigationDataService).getRooms("820", "H", 8);
     }
 
+    @Test
+    @DisplayName("GET /api/indoor/typeahead returns top suggestions")
+    void testGetSuggestions() throws Exception {
+        when(typeaheadService.suggest("h-8", "Hall", 8, 5)).thenReturn(List.of(
+                new IndoorSuggestion("room", "H-820", "H-820", "Hall", 8, null),
+                new IndoorSuggestion("poi", "H-washroom-8", "Washroom", "H", 8, "washroom")));
+
+        mockMvc.perform(get("/api/indoor/typeahead")
+                .param("q", "h-8")
+                .param("buildingId", "Hall")
+                .param("floor", "8")
+                .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].type").value("room"))
+                .andExpect(jsonPath("$[0].id").value("H-820"))
+                .andExpect(jsonPath("$[1].type").value("poi"))
+                .andExpect(jsonPath("$[1].category").value("washroom"));
+    }
+
     @Test
     @DisplayName("GET /api/indoor/assets/svg/{fileName} returns svg content")
-    void testGetSvgFile() throws Exception {
-        Resource resource = new ByteArrayResource("<svg/>".getBytes());
-        when(indoorNavigationDataService.loadSvgFile("hall.svg")).thenReturn(resource);
+    void testGetSvgFile(@TempDir Path tempDir) throws Exception {
+        Path file = Files.writeString(tempDir.resolve("hall.svg"), "<svg/>");
+        when(indoorNavigationDataService.getAsset("hall.svg")).thenReturn(new IndoorAsset("hall.svg",
+                "image/svg+xml", "\"hall\"", 0L, new IndoorAsset.Representation(null, file, 6), Map.of()));
 
-        mockMvc.perform(get("/api/indoor/assets/svg/hall.svg"))
+        MvcResult result = mockMvc.perform(get("/api/indoor/assets/svg/hall.svg")).andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
-                .andExpect(content().contentType("image/svg+xml"));
+                .andExpect(content().contentType("image/svg+xml"))
+                .andExpect(content().string("<svg/>"));
 
-        verify(indoorNavigationDataService).loadSvgFile("hall.svg");
+        verify(indoorNavigationDataService).getAsset("hall.svg");
     }
 
     @Test
@@ -240,4 +453,88 @@ class IndoorControllerTest {
 
         verify(indoorPoiService).getIndoorPoisForBuilding("UNKNOWN");
     }
+
+    @Test
+    @DisplayName("POST /api/indoor/directions/batch reports each query independently")
+    void testGetIndoorDirectionsBatch() throws Exception {
+        IndoorNode a = new IndoorNode();
+        a.setId("A");
+        IndoorNode b = new IndoorNode();
+        b.setId("B");
+
+        when(pathfindingService.findShortestPath("H", "A", "B", false)).thenReturn(List.of("A", "B"));
+        when(pathfindingService.findShortestPath("H", "A", "nowhere", false)).thenReturn(List.of());
+        when(indoorNavigationDataService.getGraph("H", false))
+                .thenReturn(IndoorGraph.compile(List.of(a, b), List.of()));
+        when(stepGeneratorService.generateSteps(any(), any(IndoorGraph.class)))
+                .thenReturn(List.of(new IndoorStep("Walk to B", "front", 12.5, 9, 1, 1, "A", "B")));
+
+        mockMvc.perform(post("/api/indoor/directions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        [
+                          {"buildingId": "H", "startNodeId": "A", "endNodeId": "B"},
+                          {"buildingId": "H", "startNodeId": "A", "endNodeId": "nowhere"},
+                          {"buildingId": "H", "startNodeId": "A"}
+                        ]
+                        """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.results[0].status").value("OK"))
+                .andExpect(jsonPath("$.results[0].route.distanceMeters").value(12.5))
+                .andExpect(jsonPath("$.results[0].elapsedMillis").isNumber())
+                .andExpect(jsonPath("$.results[1].status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$.results[2].status").value("INVALID"));
+    }
+
+    @Test
+    @DisplayName("GET /api/indoor/directions/overlay serves the route drawn on one floor")
+    void testGetIndoorDirectionsOverlay(@TempDir Path tempDir) throws Exception {
+        IndoorNode a = new IndoorNode();
+        a.setId("A");
+        IndoorNode b = new IndoorNode();
+        b.setId("B");
+        when(pathfindingService.findShortestPath("Hall", "A", "B", false)).thenReturn(List.of("A", "B"));
+        when(pathfindingService.findShortestPath("Hall", "A", "nowhere", false)).thenReturn(List.of());
+        when(indoorNavigationDataService.getGraph("Hall", false))
+                .thenReturn(IndoorGraph.compile(List.of(a, b), List.of()));
+        when(stepGeneratorService.generateSteps(any(), any(IndoorGraph.class))).thenReturn(List.of());
+        Path overlay = Files.writeString(tempDir.resolve("route.svg"), "<svg/>");
+        when(overlayService.getOverlay(eq("Hall"), eq(8), any(), eq(true))).thenReturn(new IndoorAsset("hall8.svg",
+                "image/svg+xml", "\"route\"", 0L, new IndoorAsset.Representation(null, overlay, 6), Map.of()));
+
+        MvcResult result = mockMvc.perform(get("/api/indoor/directions/overlay")
+                .param("buildingId", "Hall")
+                .param("startNodeId", "A")
+                .param("endNodeId", "B")
+                .param("floor", "8")
+                .param("composite", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/svg+xml"))
+                .andExpect(header().string("ETag", "\"route\""))
+                .andExpect(content().string("<svg/>"));
+
+        mockMvc.perform(get("/api/indoor/directions/overlay")
+                .param("buildingId", "Hall")
+                .param("startNodeId", "A")
+                .param("endNodeId", "nowhere")
+                .param("floor", "8"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("POST /api/indoor/directions/batch rejects batches over the limit")
+    void testGetIndoorDirectionsBatchOverLimit() throws Exception {
+        String query = "{\"buildingId\": \"H\", \"startNodeId\": \"A\", \"endNodeId\": \"B\"}";
+        String body = "[" + String.join(",", java.util.Collections.nCopies(11, query)) + "]";
+
+        mockMvc.perform(post("/api/indoor/directions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,154 @@
+package com.soen390.flightcrew.service;
+
+import com.soen390.flightcrew.service.indoor.IndoorAsset;
+import com.soen390.flightcrew.service.indoor.IndoorRasterResizer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndoorAssetVariantServiceTest {
+
+    private IndoorAssetVariantService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void testConcurrentRequestsRenderVariantOnce(@TempDir Path tempDir) throws Exception {
+        service = new IndoorAssetVariantService(new int[] { 320, 640 }, 2, 8, 10_000, 64L << 20,
+                tempDir.toString());
+        IndoorAsset source = png(tempDir, "plan.png", 1200, 800);
+
+        int requests = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<IndoorAsset>> variants = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                variants.add(clients.submit(() -> {
+                    start.await();
+                    return service.getVariant(source, 300, null);
+                }));
+            }
+            start.countDown();
+            for (Future<IndoorAsset> variant : variants) {
+                assertEquals(variants.get(0).get().identity().path(), variant.get().identity().path());
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+
+        IndoorAsset variant = service.getVariant(source, 300, null);
+        assertEquals(1, service.getRenderCount());
+        assertEquals("image/png", variant.contentType());
+        assertNotEquals(source.etag(), variant.etag());
+        assertTrue(variant.identity().path().startsWith(tempDir.resolve("variants")));
+        BufferedImage image = ImageIO.read(variant.identity().path().toFile());
+        assertEquals(320, image.getWidth());
+        assertEquals(213, image.getHeight());
+    }
+
+    @Test
+    void testVariantFallsBackToSourceAndTranscodes(@TempDir Path tempDir) throws IOException {
+        service = new IndoorAssetVariantService(new int[] { 320, 640 }, 1, 8, 10_000, 64L << 20,
+                tempDir.toString());
+        IndoorAsset source = png(tempDir, "small.png", 400, 100);
+
+        assertSame(source, service.getVariant(source, 2000, "png"));
+        assertSame(source, service.getVariant(source, null, null));
+
+        IndoorAsset jpeg = service.getVariant(source, null, "jpg");
+        assertEquals("image/jpeg", jpeg.contentType());
+        assertEquals(400, ImageIO.read(jpeg.identity().path().toFile()).getWidth());
+
+        IndoorAsset svg = new IndoorAsset("plan.svg", "image/svg+xml", "\"svg\"", 0L,
+                new IndoorAsset.Representation(null, tempDir.resolve("plan.svg"), 10), Map.of());
+        assertSame(svg, service.getVariant(svg, 320, null));
+
+        ResponseStatusException badFormat = assertThrows(ResponseStatusException.class,
+                () -> service.getVariant(source, 320, "gif"));
+        assertEquals(HttpStatus.BAD_REQUEST, badFormat.getStatusCode());
+        assertThrows(ResponseStatusException.class, () -> service.getVariant(source, 0, null));
+    }
+
+    @Test
+    void testDeletesTemporaryCacheOnShutdown(@TempDir Path tempDir) throws IOException {
+        service = new IndoorAssetVariantService(new int[] { 320 }, 1, 8, 10_000, 64L << 20, "");
+        IndoorAsset variant = service.getVariant(png(tempDir, "wide.png", 1000, 100), 320, null);
+        variant.identity().channel().close();
+        Path cacheDir = variant.identity().path().getParent();
+        assertTrue(Files.isDirectory(cacheDir));
+
+        service.shutdown();
+        assertFalse(Files.exists(cacheDir));
+    }
+
+    @Test
+    void testCacheEvictsLeastRecentlyUsedVariant(@TempDir Path tempDir) throws IOException {
+        IndoorAsset first = png(tempDir, "first.png", 1000, 1000);
+        IndoorAsset second = png(tempDir, "second.png", 1000, 1000);
+        service = new IndoorAssetVariantService(new int[] { 500 }, 1, 8, 10_000, 64L << 20,
+                tempDir.resolve("probe").toString());
+        long oneVariant = service.getVariant(first, 500, null).identity().length();
+        service.shutdown();
+
+        // Room for two variants only: the third evicts the least recently used.
+        service = new IndoorAssetVariantService(new int[] { 250, 500 }, 1, 8, 10_000, 2 * oneVariant + 1,
+                tempDir.resolve("capped").toString());
+        Path firstLarge = service.getVariant(first, 500, null).identity().path();
+        IndoorAsset.Representation secondLarge = service.getVariant(second, 500, null).identity();
+        service.getVariant(first, 500, null);
+        service.getVariant(first, 250, null);
+
+        assertTrue(Files.exists(firstLarge));
+        assertFalse(Files.exists(secondLarge.path()));
+        assertEquals(3, service.getRenderCount());
+
+        // A variant handed out before its eviction can still be sent in full.
+        try (FileChannel channel = secondLarge.channel()) {
+            BufferedImage image = ImageIO.read(Channels.newInputStream(channel));
+            assertEquals(500, image.getWidth());
+        }
+    }
+
+    private static IndoorAsset png(Path directory, String name, int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < width; x += 10) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, 0xff912338 ^ (name.hashCode() & 0xffff));
+            }
+        }
+        Path file = directory.resolve(name);
+        ImageIO.write(image, IndoorRasterResizer.PNG, file.toFile());
+        return new IndoorAsset(name, "image/png", "\"" + name + "-tag\"", 0L,
+                new IndoorAsset.Representation(null, file, Files.size(file)), Map.of());
+    }
+}
@@ -0,0 +1,86 @@
+package com.soen390.flightcrew.service;
+
+import com.soen390.flightcrew.model.IndoorBatchRouteResult;
+import com.soen390.flightcrew.model.IndoorBatchRouteResult.Status;
+import com.soen390.flightcrew.model.IndoorRoute;
+import com.soen390.flightcrew.model.IndoorRouteQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndoorBatchRoutingServiceTest {
+
+    private final IndoorBatchRoutingService service = new IndoorBatchRoutingService(4, 3, 500);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void failingQueryDoesNotFailTheBatch() {
+        IndoorRoute route = new IndoorRoute(List.of(), List.of(), 5.0, 4);
+        List<IndoorRouteQuery> queries = List.of(
+                new IndoorRouteQuery("H", "a", "b", false),
+                new IndoorRouteQuery("H", "a", "boom", false),
+                new IndoorRouteQuery("H", "a", "missing", true));
+
+        List<IndoorBatchRouteResult> results = service.route(queries, query -> switch (query.getEndNodeId()) {
+            case "b" -> route;
+            case "boom" -> throw new IllegalStateException("corrupt graph");
+            default -> null;
+        });
+
+        assertEquals(3, results.size());
+        assertEquals(Status.OK, results.get(0).getStatus());
+        assertSame(route, results.get(0).getRoute());
+        assertEquals(Status.ERROR, results.get(1).getStatus());
+        assertTrue(results.get(1).getError().contains("corrupt graph"));
+        assertEquals(Status.NOT_FOUND, results.get(2).getStatus());
+        assertNull(results.get(2).getRoute());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertTrue(results.get(i).getElapsedMillis() >= 0.0);
+        }
+    }
+
+    @Test
+    void slowQueriesAreReportedAsTimedOut() {
+        CountDownLatch never = new CountDownLatch(1);
+        List<IndoorRouteQuery> queries = List.of(
+                new IndoorRouteQuery("H", "a", "b", false),
+                new IndoorRouteQuery("H", "a", "slow", false));
+
+        List<IndoorBatchRouteResult> results = service.route(queries, query -> {
+            if (query.getEndNodeId().equals("slow")) {
+                try {
+                    never.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new IndoorRoute(List.of(), List.of(), 1.0, 1);
+        });
+
+        assertEquals(Status.OK, results.get(0).getStatus());
+        assertEquals(Status.TIMEOUT, results.get(1).getStatus());
+    }
+
+    @Test
+    void rejectsEmptyAndOversizedBatches() {
+        IndoorRouteQuery query = new IndoorRouteQuery("H", "a", "b", false);
+
+        assertThrows(ResponseStatusException.class, () -> service.route(List.of(), q -> null));
+        assertThrows(ResponseStatusException.class,
+                () -> service.route(List.of(query, query, query, query), q -> null));
+    }
+}
@@ -0,0 +1,106 @@
+package com.soen390.flightcrew.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soen390.flightcrew.service.indoor.IndoorGraph;
+import com.soen390.flightcrew.service.indoor.IndoorRoutingStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndoorEntranceTreeServiceTest {
+
+    private Path jsonDir;
+    private IndoorNavigationDataService dataService;
+    private IndoorEntranceTreeService treeService;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDir) throws IOException {
+        jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+        writeBuilding(20);
+
+        dataService = new IndoorNavigationDataService(new ObjectMapper(),
+                IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
+        treeService = new IndoorEntranceTreeService(dataService, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        treeService.stop();
+    }
+
+    @Test
+    void entranceTripsAreReadFromTreesInBothDirections() {
+        // Trees are only built for buildings the snapshot has loaded.
+        assertEquals(0, dataService.getSnapshot().getLoadedBuildings().size());
+        dataService.getGraph("H", false);
+        treeService.rebuild();
+        IndoorPathfindingService pathfinding = new IndoorPathfindingService(dataService,
+                IndoorRoutingStrategy.ASTAR, treeService);
+
+        assertEquals(List.of("door", "hall", "stairs", "room"), pathfinding.findShortestPath("H", "door", "room", false));
+        assertEquals(0, pathfinding.lastExpandedNodeCount());
+        assertEquals(List.of("room", "stairs", "hall", "door"), pathfinding.findShortestPath("H", "room", "door", false));
+
+        // The step-free graph has its own tree that avoids the stairs.
+        assertEquals(List.of("door", "hall", "elevator", "room"), pathfinding.findShortestPath("H", "door", "room", true));
+
+        // Pairs without an entrance still search.
+        IndoorGraph graph = dataService.getGraph("H", false);
+        assertNull(treeService.findPath(graph, graph.indexOf("hall"), graph.indexOf("room")));
+    }
+
+    @Test
+    void treesAreRebuiltInBackgroundAfterReload() throws Exception {
+        treeService.start();
+        awaitBuiltVersion(dataService.getSnapshotVersion());
+
+        writeBuilding(1);
+        dataService.reload();
+        awaitBuiltVersion(dataService.getSnapshotVersion());
+
+        // Loading the reloaded building schedules its trees.
+        IndoorGraph graph = dataService.getGraph("H", false);
+        List<String> path = null;
+        for (int attempt = 0; attempt < 200 && path == null; attempt++) {
+            Thread.sleep(10);
+            path = treeService.findPath(graph, graph.indexOf("door"), graph.indexOf("room"));
+        }
+        assertEquals(List.of("door", "hall", "elevator", "room"), path);
+    }
+
+    private void awaitBuiltVersion(long version) throws InterruptedException {
+        for (int attempt = 0; attempt < 200 && treeService.getBuiltVersion() != version; attempt++) {
+            Thread.sleep(10);
+        }
+        assertTrue(treeService.getBuiltVersion() == version, "entrance trees were not rebuilt");
+    }
+
+    private void writeBuilding(int elevatorWeight) throws IOException {
+        Files.writeString(jsonDir.resolve("h.json"), """
+                {"meta": {"buildingId": "H"}, "nodes": [
+                  {"id": "door", "type": "building_entry_exit", "floor": 1},
+                  {"id": "hall", "type": "hallway_waypoint", "floor": 1},
+                  {"id": "stairs", "type": "stair_landing", "floor": 1},
+                  {"id": "elevator", "type": "elevator_door", "floor": 1},
+                  {"id": "room", "type": "room", "floor": 2}
+                ], "edges": [
+                  {"source": "door", "target": "hall", "weight": 5},
+                  {"source": "hall", "target": "stairs", "weight": 2},
+                  {"source": "stairs", "target": "room", "weight": 3, "accessible": false},
+                  {"source": "hall", "target": "elevator", "weight": %d},
+                  {"source": "elevator", "target": "room", "weight": 4}
+                ]}
+                """.formatted(elevatorWeight));
+    }
+}
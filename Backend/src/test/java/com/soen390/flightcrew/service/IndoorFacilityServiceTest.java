@@ -0,0 +1,104 @@
+package com.soen390.flightcrew.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soen390.flightcrew.model.IndoorFacilityMatch;
+import com.soen390.flightcrew.model.IndoorNode;
+import com.soen390.flightcrew.model.IndoorPointOfInterest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IndoorFacilityServiceTest {
+
+    private IndoorPoiService poiService;
+    private IndoorFacilityService facilityService;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+        Files.writeString(jsonDir.resolve("hall.json"), """
+                {"meta": {"buildingId": "Hall"}, "nodes": [
+                  {"id": "s", "type": "hallway_waypoint", "floor": 1, "x": 0, "y": 0},
+                  {"id": "h1", "type": "hallway_waypoint", "floor": 1, "x": 10, "y": 0},
+                  {"id": "h2", "type": "hallway_waypoint", "floor": 1, "x": 20, "y": 0},
+                  {"id": "r", "type": "room", "floor": 1, "x": 19, "y": 0},
+                  {"id": "e1", "type": "elevator_door", "floor": 1, "x": 0, "y": 4},
+                  {"id": "e2", "type": "elevator_door", "floor": 1, "x": 20, "y": 5}
+                ], "edges": [
+                  {"source": "s", "target": "h1", "weight": 10},
+                  {"source": "h1", "target": "h2", "weight": 10},
+                  {"source": "s", "target": "e1", "weight": 4},
+                  {"source": "h2", "target": "e2", "weight": 5}
+                ]}
+                """);
+
+        IndoorNavigationDataService dataService = new IndoorNavigationDataService(new ObjectMapper(),
+                IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
+        poiService = mock(IndoorPoiService.class);
+        facilityService = new IndoorFacilityService(dataService, new IndoorPathfindingService(dataService),
+                poiService);
+    }
+
+    @Test
+    void findsNearestNodesByType() {
+        List<IndoorFacilityMatch> matches = facilityService.findNearest("hall", "s", "elevator_door", 2, false);
+
+        assertEquals(List.of("e1", "e2"), matches.stream().map(IndoorFacilityMatch::getNodeId).toList());
+        assertEquals(4, matches.get(0).getPathCost());
+        assertEquals(25, matches.get(1).getPathCost());
+        assertNull(matches.get(0).getPoi());
+        assertEquals(List.of("s", "h1", "h2", "e2"),
+                matches.get(1).getPath().stream().map(IndoorNode::getId).toList());
+    }
+
+    @Test
+    void snapsPoisToClosestRoutableNode() {
+        when(poiService.getIndoorPoisForBuilding("H")).thenReturn(List.of(
+                poi("H-washroom-1", "washroom", 1, 19, 1),
+                poi("H-washroom-2", "washroom", 2, 0, 0),
+                poi("H-fountain-1", "fountain", 1, 0, 0)));
+
+        List<IndoorFacilityMatch> matches = facilityService.findNearest("Hall", "s", "washroom", 3, false);
+
+        // The isolated room "r" is closer to the POI but cannot be routed to.
+        assertEquals(1, matches.size());
+        assertEquals("h2", matches.get(0).getNodeId());
+        assertEquals("H-washroom-1", matches.get(0).getPoi().getId());
+        assertEquals(20, matches.get(0).getPathCost());
+    }
+
+    @Test
+    void unknownFacilityOrBadLimit() {
+        when(poiService.getIndoorPoisForBuilding("H")).thenReturn(List.of());
+
+        assertTrue(facilityService.findNearest("Hall", "s", "sauna", 1, false).isEmpty());
+        assertTrue(facilityService.findNearest("nowhere", "s", "elevator_door", 1, false).isEmpty());
+        assertThrows(ResponseStatusException.class,
+                () -> facilityService.findNearest("Hall", "s", "elevator_door", 0, false));
+    }
+
+    private static IndoorPointOfInterest poi(String id, String category, int floor, int x, int y) {
+        IndoorPointOfInterest poi = new IndoorPointOfInterest();
+        poi.setId(id);
+        poi.setCategory(category);
+        poi.setBuildingCode("H");
+        poi.setFloor(floor);
+        poi.setX(x);
+        poi.setY(y);
+        return poi;
+    }
+}
@@ -0,0 +1,109 @@
+package com.soen390.flightcrew.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soen390.flightcrew.model.IndoorBuildingData;
+import com.soen390.flightcrew.model.IndoorEdge;
+import com.soen390.flightcrew.service.indoor.IndoorBuildingSnapshot;
+import com.soen390.flightcrew.service.indoor.IndoorGraph;
+import com.soen390.flightcrew.service.indoor.IndoorGraphPrecompiler;
+import com.soen390.flightcrew.service.indoor.PrecompiledBuildingGraph;
+import com.soen390.flightcrew.service.indoor.ShortestPathTree;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndoorGraphPrecompilerTest {
+
+    private static final String BUILDING = """
+            {"meta": {"buildingId": "H"}, "nodes": [
+              {"id": "door", "type": "building_entry_exit", "buildingId": "H", "floor": 1, "x": 0, "y": 0},
+              {"id": "hall", "type": "hallway_waypoint", "buildingId": "H", "floor": 1, "x": 10, "y": 0},
+              {"id": "stairs", "type": "stair_landing", "buildingId": "H", "floor": 2, "x": 10, "y": 0},
+              {"id": "lift", "type": "elevator_door", "buildingId": "H", "floor": 2, "x": 20, "y": 0},
+              {"id": "room", "type": "room", "buildingId": "H", "floor": 2, "x": 30, "y": 0}
+            ], "edges": [
+              {"source": "door", "target": "hall", "weight": 10},
+              {"source": "hall", "target": "stairs", "weight": 20, "accessible": false},
+              {"source": "hall", "target": "lift", "weight": 40},
+              {"source": "stairs", "target": "room", "weight": 20},
+              {"source": "lift", "target": "room", "weight": 10}
+            ]}
+            """;
+
+    @Test
+    void restoresGraphsAndEntranceTreesFromArtifact(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path outputDir = tempDir.resolve("compiled");
+        Files.writeString(jsonDir.resolve("h.json"), BUILDING);
+        Files.createDirectories(outputDir);
+        Files.writeString(outputDir.resolve("old.graph"), "stale");
+
+        assertEquals(1, IndoorGraphPrecompiler.precompile(jsonDir, outputDir));
+        assertFalse(Files.exists(outputDir.resolve("old.graph")));
+
+        PrecompiledBuildingGraph artifact;
+        try (InputStream in = Files.newInputStream(outputDir.resolve("h.graph"))) {
+            artifact = PrecompiledBuildingGraph.read(in);
+        }
+
+        IndoorBuildingData data = new ObjectMapper().readValue(BUILDING, IndoorBuildingData.class);
+        IndoorBuildingSnapshot compiled = new IndoorBuildingSnapshot("H", data.getNodes(), data.getEdges());
+        IndoorBuildingSnapshot restored = new IndoorBuildingSnapshot("H", data.getNodes(), data.getEdges(), artifact);
+        assertFalse(compiled.isPrecompiled());
+        assertTrue(restored.isPrecompiled());
+
+        for (boolean requireAccessible : new boolean[] { false, true }) {
+            IndoorGraph expected = compiled.getGraph(requireAccessible);
+            IndoorGraph actual = restored.getGraph(requireAccessible);
+            assertEquals(expected.slotCount(), actual.slotCount());
+            assertEquals(expected.componentCount(), actual.componentCount());
+            for (int u = 0; u < expected.nodeCount(); u++) {
+                assertEquals(expected.idOf(u), actual.idOf(u));
+                assertEquals(expected.degree(u), actual.degree(u));
+                for (int v = 0; v < expected.nodeCount(); v++) {
+                    assertEquals(expected.lowerBound(u, v), actual.lowerBound(u, v));
+                }
+            }
+
+            Map<Integer, ShortestPathTree> trees = restored.getPrecompiledEntranceTrees(requireAccessible);
+            ShortestPathTree expectedTree = ShortestPathTree.build(expected, expected.indexOf("door"));
+            assertEquals(1, trees.size());
+            assertEquals(expectedTree.path(expected.indexOf("room"), false),
+                    trees.get(actual.indexOf("door")).path(actual.indexOf("room"), false));
+        }
+
+        // Any change to the routing data makes the artifact inapplicable.
+        List<IndoorEdge> edited = new ArrayList<>(data.getEdges());
+        edited.remove(0);
+        assertFalse(new IndoorBuildingSnapshot("H", data.getNodes(), edited, artifact).isPrecompiled());
+    }
+
+    @Test
+    void rejectsDuplicateIdsAndDanglingEdges(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path outputDir = tempDir.resolve("compiled");
+        Files.writeString(jsonDir.resolve("h.json"), """
+                {"meta": {"buildingId": "H"}, "nodes": [{"id": "a"}, {"id": "a"}], "edges": [
+                  {"source": "a", "target": "ghost", "weight": 1}
+                ]}
+                """);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> IndoorGraphPrecompiler.precompile(jsonDir, outputDir));
+        assertTrue(ex.getMessage().contains("duplicate node id a"));
+        assertTrue(ex.getMessage().contains("unknown node ghost"));
+        assertFalse(Files.exists(outputDir));
+    }
+}
@@ -0,0 +1,89 @@
+package com.soen390.flightcrew.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndoorJsonWatcherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testEditedFileIsPublishedWithoutManualReload(@TempDir Path tempDir) throws Exception {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Files.writeString(jsonDir.resolve("h.json"), "{\"meta\": {\"buildingId\": \"H\"}, \"nodes\": []}");
+
+        IndoorNavigationDataService dataService = new IndoorNavigationDataService(
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), tempDir.resolve("svg").toString()));
+        long initialVersion = dataService.getSnapshot().getVersion();
+
+        IndoorJsonWatcher watcher = new IndoorJsonWatcher(dataService, true, 50);
+        watcher.start();
+        try {
+            Files.writeString(jsonDir.resolve("mb.json"), "{\"meta\": {\"buildingId\": \"MB\"}, \"nodes\": []}");
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (dataService.getSnapshot().getVersion() == initialVersion
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+
+            assertEquals(List.of("H", "MB"), dataService.getAvailableBuildings());
+        } finally {
+            watcher.stop();
+        }
+    }
+
+    @Test
+    void testFailedReloadKeepsCurrentSnapshot(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Files.writeString(jsonDir.resolve("h.json"), "{\"meta\": {\"buildingId\": \"H\"}, \"nodes\": []}");
+
+        IndoorNavigationDataService dataService = new IndoorNavigationDataService(
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), tempDir.resolve("svg").toString()));
+        long initialVersion = dataService.getSnapshot().getVersion();
+        IndoorJsonWatcher watcher = new IndoorJsonWatcher(dataService, false, 50);
+
+        Files.writeString(jsonDir.resolve("h.json"), "{ broken");
+        watcher.applyChanges(Set.of("h.json"), false);
+
+        assertEquals(initialVersion, dataService.getSnapshot().getVersion());
+        assertTrue(dataService.getAvailableBuildings().contains("H"));
+    }
+
+    @Test
+    void testEditedAssetIsReindexed(@TempDir Path tempDir) throws Exception {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+        Files.writeString(svgDir.resolve("a.svg"), "<svg></svg>");
+
+        IndoorNavigationDataService dataService = new IndoorNavigationDataService(
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
+        String initialTag = dataService.getAsset("a.svg").etag();
+
+        IndoorJsonWatcher watcher = new IndoorJsonWatcher(dataService, true, 50);
+        watcher.start();
+        try {
+            Files.writeString(svgDir.resolve("a.svg"), "<svg><g/></svg>");
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (dataService.getAsset("a.svg").etag().equals(initialTag)
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+
+            assertEquals(15, dataService.getAsset("a.svg").identity().length());
+        } finally {
+            watcher.stop();
+        }
+    }
+}
@@ -1,21 +1,32 @@
 package com.soen390.flightcrew.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soen390.flightcrew.model.IndoorConnectivityReport;
 import com.soen390.flightcrew.model.IndoorEdge;
 import com.soen390.flightcrew.model.IndoorNode;
+import com.soen390.flightcrew.service.indoor.IndoorGraph;
+import com.soen390.flightcrew.service.indoor.IndoorSnapshot;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(MockitoExtension.class)
 class IndoorNavigationDataServiceExtraTest {
@@ -39,9 +50,7 @@ class IndoorNavigationDataServiceExtraTest {
                         """);
 
         IndoorNavigationDataService service = new IndoorNavigationDataService(
-                objectMapper,
-                jsonDir.toString(),
-                svgDir.toString());
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
 
         List<IndoorNode> hNodes = service.getAllNodes("H");
         assertEquals(1, hNodes.size());
@@ -51,6 +60,87 @@ class IndoorNavigationDataServiceExtraTest {
         assertEquals(2, allNodes.size());
     }
 
+    @Test
+    void testGetNodesByBuildingAndFloor(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+
+        Files.writeString(jsonDir.resolve("a.json"), """
+                {"meta": {"buildingId": "MB"}, "nodes": [
+                  {"id": "m1", "buildingId": "MB", "floor": 1},
+                  {"id": "s1", "buildingId": "MB-S2", "floor": -2},
+                  {"id": "m2", "buildingId": "mb", "floor": 2},
+                  {"id": "m0", "buildingId": "MB"}
+                ]}
+                """);
+        Files.writeString(jsonDir.resolve("b.json"), """
+                {"meta": {"buildingId": "MB"}, "nodes": [{"id": "m3", "buildingId": "Mb", "floor": 1}]}
+                """);
+        Files.writeString(jsonDir.resolve("c.json"), """
+                {"meta": {"buildingId": "VE"}, "nodes": [{"id": "v1", "buildingId": "VE", "floor": 1}]}
+                """);
+
+        IndoorNavigationDataService service = new IndoorNavigationDataService(
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
+
+        assertEquals(List.of(1, 2), service.getFloorsByBuilding("mb"));
+        assertEquals(List.of(-2), service.getFloorsByBuilding("MB-S2"));
+        assertEquals(List.of("m1", "m2", "m0", "m3"), ids(service.getAllNodes("MB", null)));
+        assertEquals(List.of("m1", "m3"), ids(service.getAllNodes("mB", 1)));
+        assertEquals(List.of(), service.getAllNodes("MB", 5));
+        assertEquals(List.of(), service.getAllNodes("EV", 1));
+        assertFalse(service.getSnapshot().getSources().get("c.json").isLoaded());
+        assertEquals(List.of("s1"), ids(service.getAllNodes(null, -2)));
+
+        // Indexed lists are immutable and reused until the next reload.
+        List<IndoorNode> floorOne = service.getAllNodes("MB", 1);
+        assertSame(floorOne, service.getAllNodes("mb", 1));
+        assertThrows(UnsupportedOperationException.class, () -> floorOne.remove(0));
+    }
+
+    @Test
+    void testETagsFollowFileContents(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+        Files.writeString(jsonDir.resolve("h.json"), """
+                {"meta": {"buildingId": "H"}, "nodes": [{"id": "h1", "buildingId": "H", "floor": 1}]}
+                """);
+        Files.writeString(jsonDir.resolve("ve.json"), """
+                {"meta": {"buildingId": "VE"}, "nodes": [{"id": "v1", "buildingId": "VE", "floor": 2}]}
+                """);
+
+        IndoorNavigationDataService service = new IndoorNavigationDataService(
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
+
+        String buildings = service.getBuildingsETag();
+        String hallNodes = service.getNodesETag("H", null);
+        String hallFloor = service.getNodesETag("h", 1);
+        String veNodes = service.getNodesETag("VE", null);
+        String hallFloors = service.getFloorsETag("H");
+        assertTrue(hallNodes.matches("\"[0-9a-f]{32}\""));
+        assertEquals(hallNodes, service.getNodesETag("h", null));
+        assertFalse(hallNodes.equals(hallFloor) || hallNodes.equals(veNodes));
+        assertFalse(service.getSnapshot().getSources().get("h.json").isLoaded());
+
+        // Reloading unchanged files keeps every tag; editing one file only moves its building's.
+        service.reload();
+        assertEquals(hallNodes, service.getNodesETag("H", null));
+        Files.writeString(jsonDir.resolve("ve.json"), """
+                {"meta": {"buildingId": "VE"}, "nodes": [{"id": "v2", "buildingId": "VE", "floor": 2}]}
+                """);
+        service.reloadFiles(List.of("ve.json"));
+        assertEquals(buildings, service.getBuildingsETag());
+        assertEquals(hallNodes, service.getNodesETag("H", null));
+        assertEquals(hallFloor, service.getNodesETag("H", 1));
+        assertEquals(hallFloors, service.getFloorsETag("H"));
+        assertFalse(veNodes.equals(service.getNodesETag("VE", null)));
+        assertEquals(service.getFloorsETag("nowhere"), service.getFloorsETag(null));
+    }
+
+    private static List<String> ids(List<IndoorNode> nodes) {
+        return nodes.stream().map(IndoorNode::getId).toList();
+    }
+
     @Test
     void testGetEdgesByBuilding(@TempDir Path tempDir) throws IOException {
         Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
@@ -67,9 +157,7 @@ class IndoorNavigationDataServiceExtraTest {
                         """);
 
         IndoorNavigationDataService service = new IndoorNavigationDataService(
-                objectMapper,
-                jsonDir.toString(),
-                svgDir.toString());
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
 
         List<IndoorEdge> hEdges = service.getEdgesByBuilding("H");
         assertEquals(1, hEdges.size());
@@ -88,10 +176,413 @@ class IndoorNavigationDataServiceExtraTest {
         Files.writeString(jsonDir.resolve("invalid.json"), "{ invalid json ");
 
         IndoorNavigationDataService service = new IndoorNavigationDataService(
-                objectMapper,
-                jsonDir.toString(),
-                svgDir.toString());
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
 
         assertThrows(ResponseStatusException.class, service::getAvailableBuildings);
     }
+
+    @Test
+    void testSnapshotIsReusedUntilReload(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+
+        Files.writeString(jsonDir.resolve("one.json"), "{\"meta\": {\"buildingId\": \"H\"}, \"nodes\": []}");
+
+        IndoorNavigationDataService service = new IndoorNavigationDataService(
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
+
+        IndoorSnapshot first = service.getSnapshot();
+        assertEquals(List.of("H"), service.getAvailableBuildings());
+
+        Files.writeString(jsonDir.resolve("two.json"), "{\"meta\": {\"buildingId\": \"MB\"}, \"nodes\": []}");
+
+        assertSame(first, service.getSnapshot());
+        assertEquals(List.of("H"), service.getAvailableBuildings());
+
+        IndoorSnapshot reloaded = service.reload();
+
+        assertTrue(reloaded.getVersion() > first.getVersion());
+        assertSame(reloaded, service.getSnapshot());
+        assertEquals(List.of("H", "MB"), service.getAvailableBuildings());
+    }
+
+    @Test
+    void testReloadFilesReparsesOnlyChangedFiles(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+
+        Files.writeString(jsonDir.resolve("h.json"), """
+                {"meta": {"buildingId": "H"}, "nodes": [{"id": "h1", "buildingId": "H", "floor": 1}]}
+                """);
+        Files.writeString(jsonDir.resolve("mb.json"), """
+                {"meta": {"buildingId": "MB"}, "nodes": [{"id": "m1", "buildingId": "MB", "floor": 1}]}
+                """);
+
+        IndoorNavigationDataService service = new IndoorNavigationDataService(
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
+        IndoorSnapshot before = service.getSnapshot();
+
+        Files.writeString(jsonDir.resolve("mb.json"), """
+                {"meta": {"buildingId": "MB"}, "nodes": [
+                  {"id": "m1", "buildingId": "MB", "floor": 1},
+                  {"id": "m2", "buildingId": "MB", "floor": 2}
+                ], "edges": [{"source": "m1", "target": "m2", "weight": 3}]}
+                """);
+
+        IndoorSnapshot after = service.reloadFiles(List.of("mb.json"));
+
+        assertTrue(after.getVersion() > before.getVersion());
+        assertSame(before.getFiles().get("h.json"), after.getFiles().get("h.json"));
+        assertEquals(List.of(1, 2), service.getFloorsByBuilding("MB"));
+        assertEquals(1, service.getEdgesByBuilding("MB").size());
+
+        Files.delete(jsonDir.resolve("mb.json"));
+        service.reloadFiles(List.of("mb.json"));
+
+        assertEquals(List.of("H"), service.getAvailableBuildings());
+    }
+
+    @Test
+    void testReloadFilesRejectsInvalidData(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+
+        Files.writeString(jsonDir.resolve("h.json"), """
+                {"meta": {"buildingId": "H"}, "nodes": [{"id": "h1", "buildingId": "H", "floor": 1}]}
+                """);
+
+        IndoorNavigationDataService service = new IndoorNavigationDataService(
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
+        IndoorSnapshot before = service.getSnapshot();
+
+        Files.writeString(jsonDir.resolve("h.json"), """
+                {"meta": {"buildingId": "H"}, "nodes": [
+                  {"id": "h1", "buildingId": "H", "floor": 1},
+                  {"id": "h1", "buildingId": "H", "floor": 2}
+                ], "edges": [{"source": "h1", "target": "ghost", "weight": 3}]}
+                """);
+
+        assertThrows(IllegalStateException.class, () -> service.reloadFiles(List.of("h.json")));
+        assertSame(before, service.getSnapshot());
+
+        Files.writeString(jsonDir.resolve("h.json"), "{ half written");
+
+        assertThrows(ResponseStatusException.class, () -> service.reloadFiles(List.of("h.json")));
+        assertSame(before, service.getSnapshot());
+    }
+
+    @Test
+    void testConnectivityReportListsIsolatedAndDetachedNodes(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+
+        Files.writeString(jsonDir.resolve("h.json"), """
+                {"meta": {"buildingId": "H"}, "nodes": [
+                  {"id": "a", "buildingId": "H", "floor": 1},
+                  {"id": "b", "buildingId": "H", "floor": 1},
+                  {"id": "c", "buildingId": "H", "floor": 1},
+                  {"id": "d", "buildingId": "H", "floor": 2},
+                  {"id": "e", "buildingId": "H", "floor": 2},
+                  {"id": "lonely", "buildingId": "H", "floor": 2}
+                ], "edges": [
+                  {"source": "a", "target": "b", "weight": 1},
+                  {"source": "b", "target": "c", "weight": 1, "accessible": false},
+                  {"source": "d", "target": "e", "weight": 1}
+                ]}
+                """);
+
+        IndoorNavigationDataService service = new IndoorNavigationDataService(
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
+
+        IndoorConnectivityReport all = service.getConnectivityReports("h", false).get(0);
+        assertEquals("H", all.getBuildingId());
+        assertEquals(3, all.getComponentCount());
+        assertEquals(3, all.getLargestComponentSize());
+        assertEquals(List.of("lonely"), all.getIsolatedNodeIds());
+        assertEquals(List.of("d", "e"), all.getDetachedNodeIds());
+
+        IndoorConnectivityReport accessible = service.getConnectivityReports(null, true).get(0);
+        assertEquals(4, accessible.getComponentCount());
+        assertEquals(List.of("c", "lonely"), accessible.getIsolatedNodeIds());
+
+        assertTrue(service.getConnectivityReports("nowhere", false).isEmpty());
+    }
+
+    @Test
+    void testNodesRoundTripThroughColumnarStore(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+
+        Files.writeString(jsonDir.resolve("a.json"), """
+                {"meta": {"buildingId": "H"}, "nodes": [
+                  {"id": "h1", "type": "room", "buildingId": "H", "floor": -2, "x": 1.5, "y": 2.25,
+                   "label": "H-S201", "accessible": false},
+                  {"id": "h2", "buildingId": "H"}
+                ]}
+                """);
+        Files.writeString(jsonDir.resolve("b.json"), """
+                {"meta": {"buildingId": "MB"}, "nodes": []}
+                """);
+        Files.writeString(jsonDir.resolve("c.json"), """
+                {"meta": {"buildingId": "VL"}, "nodes": [
+                  {"id": "v1", "type": "elevator_door", "buildingId": "VL", "floor": 1, "x": 0, "y": 0, "accessible": true}
+                ]}
+                """);
+
+        IndoorNavigationDataService service = new IndoorNavigationDataService(
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
+
+        List<IndoorNode> nodes = service.getSnapshot().getNodes();
+        assertEquals(List.of("h1", "h2", "v1"), nodes.stream().map(IndoorNode::getId).toList());
+
+        IndoorNode full = nodes.get(0);
+        assertEquals("room", full.getType());
+        assertEquals(-2, full.getFloor());
+        assertEquals(1.5, full.getX());
+        assertEquals(2.25, full.getY());
+        assertEquals("H-S201", full.getLabel());
+        assertEquals(Boolean.FALSE, full.getAccessible());
+
+        IndoorNode sparse = nodes.get(1);
+        assertEquals("H", sparse.getBuildingId());
+        assertNull(sparse.getType());
+        assertNull(sparse.getFloor());
+        assertNull(sparse.getX());
+        assertNull(sparse.getAccessible());
+
+        assertEquals(Boolean.TRUE, nodes.get(2).getAccessible());
+        assertEquals(nodes.get(2), service.getGraph("VL", false).node(0));
+    }
+
+    @Test
+    void testBuildingFilesAreJoinedWithoutLimitOnDistinctValues(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+
+        // More distinct node types than one-byte codes can hold, split over two files.
+        List<Map<String, Object>> first = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            first.add(Map.of("id", "a" + i, "type", "type" + i, "buildingId", "H", "floor", 1));
+        }
+        objectMapper.writeValue(jsonDir.resolve("a.json").toFile(),
+                Map.of("meta", Map.of("buildingId", "H"), "nodes", first));
+        Files.writeString(jsonDir.resolve("b.json"), """
+                {"meta": {"buildingId": "H"}, "nodes": [
+                  {"id": "b0", "type": "type299", "buildingId": "H-S2", "floor": 2, "label": "H-S201"},
+                  {"id": "b1", "type": "stairs", "buildingId": "H", "floor": 1}
+                ]}
+                """);
+
+        IndoorNavigationDataService service = new IndoorNavigationDataService(
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
+
+        List<IndoorNode> nodes = service.getSnapshot().getBuilding("H").getNodes();
+        assertEquals(302, nodes.size());
+        assertEquals("type0", nodes.get(0).getType());
+        assertEquals("type299", nodes.get(299).getType());
+        assertEquals("type299", nodes.get(300).getType());
+        assertEquals("H-S2", nodes.get(300).getBuildingId());
+        assertEquals("H-S201", nodes.get(300).getLabel());
+        assertEquals("stairs", nodes.get(301).getType());
+        assertEquals(service.getSnapshot().getNodes(), nodes);
+    }
+
+    @Test
+    void testCompiledCopyIsReusedUntilSourceChanges(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+        Path compiledDir = tempDir.resolve("compiled");
+        Path source = jsonDir.resolve("h.json");
+
+        Files.writeString(source, """
+                {"meta": {"buildingId": "H", "name": "Hall"}, "nodes": [
+                  {"id": "a", "type": "room", "buildingId": "H", "floor": 8, "x": 1.5, "y": 2,
+                   "label": "H-801", "accessible": true},
+                  {"id": "b", "buildingId": "H"}
+                ], "edges": [
+                  {"source": "b", "target": "a", "weight": 4, "type": "hallway"},
+                  {"source": "a", "target": "b", "weight": 3, "accessible": false},
+                  {"source": "a", "target": "ghost"}
+                ]}
+                """);
+
+        IndoorNavigationDataService first = new IndoorNavigationDataService(objectMapper,
+                IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()).withCompiledDir(compiledDir.toString()));
+        IndoorSnapshot parsed = first.getSnapshot();
+        Path compiled = compiledDir.resolve("h.json.bin");
+        assertFalse(Files.exists(compiled));
+        parsed.getNodes();
+        assertTrue(Files.isRegularFile(compiled));
+
+        IndoorNavigationDataService second = new IndoorNavigationDataService(objectMapper,
+                IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()).withCompiledDir(compiledDir.toString()));
+        IndoorSnapshot mapped = second.getSnapshot();
+        assertEquals(parsed.getFiles().get("h.json").getMeta(), mapped.getFiles().get("h.json").getMeta());
+        assertEquals(parsed.getNodes(), mapped.getNodes());
+        assertEquals(parsed.getFiles().get("h.json").getEdges(), mapped.getFiles().get("h.json").getEdges());
+
+        // A damaged compiled copy is ignored and rewritten from the JSON. It is replaced rather than
+        // truncated, as the writer does, since the snapshots above still map the old file.
+        Files.delete(compiled);
+        Files.write(compiled, new byte[] { 1, 2, 3 });
+        IndoorNavigationDataService recovering = new IndoorNavigationDataService(objectMapper,
+                IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()).withCompiledDir(compiledDir.toString()));
+        assertEquals(parsed.getNodes(), recovering.getSnapshot().getNodes());
+        assertTrue(Files.size(compiled) > 3);
+
+        // Editing the JSON makes the compiled copy stale.
+        Files.writeString(source, """
+                {"meta": {"buildingId": "H"}, "nodes": [{"id": "c", "buildingId": "H"}]}
+                """);
+        IndoorNavigationDataService edited = new IndoorNavigationDataService(objectMapper,
+                IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()).withCompiledDir(compiledDir.toString()));
+        assertEquals(List.of("c"), edited.getSnapshot().getNodes().stream().map(IndoorNode::getId).toList());
+    }
+
+    @Test
+    void testWarmStartIsIndexedFromCompiledHeader(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+        Path compiledDir = tempDir.resolve("compiled");
+        Path source = jsonDir.resolve("h.json");
+        Files.writeString(source, """
+                {"meta": {"buildingId": "H"}, "nodes": [
+                  {"id": "a", "buildingId": "H", "floor": 1, "x": 0, "y": 0},
+                  {"id": "b", "buildingId": "H", "floor": 2, "x": 3, "y": 4}
+                ], "edges": [{"source": "a", "target": "b", "weight": 5}]}
+                """);
+        IndoorDataOptions options = IndoorDataOptions.of(jsonDir.toString(), svgDir.toString())
+                .withCompiledDir(compiledDir.toString());
+        new IndoorNavigationDataService(objectMapper, options).getSnapshot().getNodes();
+
+        // Same size and modification time, different bytes: only a read of the JSON would notice.
+        FileTime modified = Files.getLastModifiedTime(source);
+        Files.writeString(source, " ".repeat((int) Files.size(source)));
+        Files.setLastModifiedTime(source, modified);
+
+        IndoorNavigationDataService warm = new IndoorNavigationDataService(objectMapper, options);
+        assertEquals(List.of(1, 2), warm.getSnapshot().getFloors("H"));
+        IndoorGraph graph = warm.getGraph("H", false);
+        int slot = graph.slotBetween(graph.indexOf("a"), graph.indexOf("b"));
+        assertEquals(5, graph.weight(slot));
+        assertEquals("b", graph.edge(slot).getTarget());
+    }
+
+    @Test
+    void testIndexingReadsNoFurtherThanMeta(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+        Files.writeString(jsonDir.resolve("cc.json"), """
+                {"meta": {"buildingId": "CC"}, "nodes": [{"id": "c1", "floor": not json
+                """);
+
+        IndoorNavigationDataService service = new IndoorNavigationDataService(objectMapper,
+                IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
+
+        assertEquals(List.of("CC"), service.getAvailableBuildings());
+        assertFalse(service.getSnapshot().getSources().get("cc.json").isLoaded());
+        assertThrows(ResponseStatusException.class, () -> service.getFloorsByBuilding("CC"));
+    }
+
+    @Test
+    void testBuildingsAreParsedOnFirstUse(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+
+        Files.writeString(jsonDir.resolve("cc.json"), """
+                {"meta": {"buildingId": "CC"}, "nodes": [
+                  {"id": "c1", "buildingId": "CC", "floor": 1},
+                  {"id": "c2", "buildingId": "CC", "floor": 2}
+                ], "edges": [{"source": "c1", "target": "c2", "weight": 3}]}
+                """);
+        // Well-formed but not bindable: the manifest reads it, a full parse fails.
+        Files.writeString(jsonDir.resolve("hall.json"), """
+                {"meta": {"buildingId": "Hall", "extra": {"nested": [1, 2]}}, "nodes": [
+                  {"id": "h1", "buildingId": "Hall", "floor": 8, "x": "not a number"},
+                  {"id": "h2", "buildingId": "hall", "floor": 9}
+                ], "edges": []}
+                """);
+
+        IndoorNavigationDataService service = new IndoorNavigationDataService(
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
+
+        IndoorSnapshot snapshot = service.getSnapshot();
+        assertEquals(List.of("CC", "Hall"), service.getAvailableBuildings());
+        assertEquals(List.of(8, 9), service.getFloorsByBuilding("HALL"));
+        assertEquals(2, snapshot.getSources().get("hall.json").getManifest().nodeCount());
+        assertEquals(1, snapshot.getSources().get("cc.json").getManifest().edgeCount());
+
+        assertEquals(1, service.getEdgesByBuilding("CC").size());
+        assertEquals(2, service.getAllNodes("cc").size());
+        assertTrue(snapshot.getSources().get("cc.json").isLoaded());
+        assertFalse(snapshot.getSources().get("hall.json").isLoaded());
+        assertEquals(List.of("CC"), snapshot.getLoadedBuildings().stream()
+                .map(building -> building.getBuildingId()).toList());
+
+        assertThrows(ResponseStatusException.class, () -> service.getGraph("Hall", false));
+    }
+
+    @Test
+    void testFileEditedBeforeFirstUseIsServedAndReloaded(@TempDir Path tempDir) throws Exception {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+        Path source = jsonDir.resolve("cc.json");
+        Files.writeString(source, """
+                {"meta": {"buildingId": "CC"}, "nodes": [{"id": "c1", "buildingId": "CC", "floor": 1}]}
+                """);
+
+        IndoorNavigationDataService service = new IndoorNavigationDataService(objectMapper,
+                IndoorDataOptions.of(jsonDir.toString(), svgDir.toString())
+                        .withCompiledDir(tempDir.resolve("compiled").toString()));
+        long indexed = service.getSnapshot().getVersion();
+        assertEquals(List.of(1), service.getFloorsByBuilding("CC"));
+
+        Files.writeString(source, """
+                {"meta": {"buildingId": "CC"}, "nodes": [
+                  {"id": "c1", "buildingId": "CC", "floor": 1},
+                  {"id": "c2", "buildingId": "CC", "floor": 2}
+                ]}
+                """);
+        // Served as it is now, while a reload republishes the manifest to match.
+        assertEquals(2, service.getAllNodes("CC").size());
+
+        for (int i = 0; i < 200 && service.getSnapshotVersion() == indexed; i++) {
+            Thread.sleep(25);
+        }
+        assertEquals(List.of(1, 2), service.getFloorsByBuilding("CC"));
+        assertEquals(2, service.getAllNodes("CC").size());
+    }
+
+    @Test
+    void testReloadPreloadsEveryBuildingConcurrently(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+
+        for (String building : List.of("CC", "MB", "VE")) {
+            Files.writeString(jsonDir.resolve(building.toLowerCase() + ".json"), """
+                    {"meta": {"buildingId": "%1$s"}, "nodes": [
+                      {"id": "%1$s-1", "buildingId": "%1$s", "floor": 1},
+                      {"id": "%1$s-2", "buildingId": "%1$s", "floor": 1}
+                    ], "edges": [{"source": "%1$s-1", "target": "%1$s-2", "weight": 2}]}
+                    """.formatted(building));
+        }
+        Files.writeString(jsonDir.resolve("hall.json"), """
+                {"meta": {"buildingId": "Hall"}, "nodes": [{"id": "h1", "x": "not a number"}]}
+                """);
+
+        IndoorNavigationDataService service = new IndoorNavigationDataService(
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()).withLoading(2, true));
+        try {
+            // A file that cannot be bound is logged, not fatal, and fails again on use.
+            IndoorSnapshot reloaded = service.reload();
+            assertSame(reloaded, service.getSnapshot());
+            assertEquals(List.of("CC", "MB", "VE"), reloaded.getLoadedBuildings().stream()
+                    .map(building -> building.getBuildingId()).toList());
+            assertTrue(reloaded.getSources().get("ve.json").isLoaded());
+            assertFalse(reloaded.getSources().get("hall.json").isLoaded());
+            assertThrows(ResponseStatusException.class, () -> service.getGraph("Hall", false));
+        } finally {
+            service.shutdown();
+        }
+    }
 }
@@ -2,6 +2,7 @@ package com.soen390.flightcrew.service;
 
 import com.soen390.flightcrew.model.IndoorAssetFileDTO;
 import com.soen390.flightcrew.model.IndoorNode;
+import com.soen390.flightcrew.service.indoor.IndoorAsset;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,6 +13,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.doReturn;
@@ -20,14 +22,14 @@ import static org.mockito.Mockito.spy;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
 
 @ExtendWith(MockitoExtension.class)
 class IndoorNavigationDataServiceTest {
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final IndoorNavigationDataService indoorNavigationDataService = spy(new IndoorNavigationDataService(
-            objectMapper,
-            "src/test/resources/indoor/json", "src/test/resources/indoor/svg"));
+            objectMapper, IndoorDataOptions.of("src/test/resources/indoor/json", "src/test/resources/indoor/svg")));
 
     @Test
     void testDetectAssetContentTypeReturnsProbeResultWhenPresent() throws IOException {
@@ -120,9 +122,7 @@ class IndoorNavigationDataServiceTest {
                         """);
 
         IndoorNavigationDataService service = new IndoorNavigationDataService(
-                objectMapper,
-                jsonDir.toString(),
-                svgDir.toString());
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
 
         List<String> buildings = service.getAvailableBuildings();
 
@@ -149,9 +149,7 @@ class IndoorNavigationDataServiceTest {
                         """);
 
         IndoorNavigationDataService service = new IndoorNavigationDataService(
-                objectMapper,
-                jsonDir.toString(),
-                svgDir.toString());
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
 
         assertEquals(List.of(1, 2), service.getFloorsByBuilding("H"));
         assertEquals(List.of(1, 2), service.getFloorsByBuilding("h"));
@@ -180,9 +178,7 @@ class IndoorNavigationDataServiceTest {
                         """);
 
         IndoorNavigationDataService service = new IndoorNavigationDataService(
-                objectMapper,
-                jsonDir.toString(),
-                svgDir.toString());
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
 
         List<String> filteredLabels = service.getRooms("  lab ", "h", 2).stream()
                 .map(IndoorNode::getLabel)
@@ -195,6 +191,58 @@ class IndoorNavigationDataServiceTest {
         assertEquals(List.of("Classroom", "Lab Alpha", "Lab Beta", "Lab Ground"), allRoomLabels);
     }
 
+    @Test
+    void testGetRoomsRanksNormalizedMatches(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+
+        Files.writeString(jsonDir.resolve("hall.json"),
+                """
+                        {
+                          "meta": {"buildingId": "H"},
+                          "nodes": [
+                            {"id": "h1", "type": "room", "buildingId": "H", "floor": 8, "label": "H-820"},
+                            {"id": "h2", "type": "room", "buildingId": "H", "floor": 8, "label": "H-801"},
+                            {"id": "h3", "type": "room", "buildingId": "H", "floor": 9, "label": "H-982"},
+                            {"id": "h4", "type": "Room", "buildingId": "H", "floor": 8, "label": "820"},
+                            {"id": "h5", "type": "room", "buildingId": "H", "floor": 8, "label": "H-8200"},
+                            {"id": "h6", "type": "room", "buildingId": "H", "floor": 8}
+                          ]
+                        }
+                        """);
+        Files.writeString(jsonDir.resolve("mb.json"),
+                """
+                        {
+                          "meta": {"buildingId": "MB"},
+                          "nodes": [
+                            {"id": "m1", "type": "room", "buildingId": "MB", "floor": -2, "label": "MB-S2.330"},
+                            {"id": "m2", "type": "room", "buildingId": "MB", "floor": -2, "label": "S2.273"},
+                            {"id": "m3", "type": "room", "buildingId": "MB", "floor": 1, "label": "MB-1.210"}
+                          ]
+                        }
+                        """);
+
+        IndoorNavigationDataService service = new IndoorNavigationDataService(
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
+
+        // Exact label, then label prefix, then word prefix; by label within a rank.
+        assertEquals(List.of("820", "H-820", "H-8200"), labels(service.getRooms("820", null, null)));
+        assertEquals(List.of("H-801", "H-820", "H-8200"), labels(service.getRooms("h-8", "H", null)));
+        assertEquals(List.of("H-801", "H-820", "H-8200"), labels(service.getRooms("H 8", "h", 8)));
+        assertEquals(List.of("MB-S2.330"), labels(service.getRooms("MB S2", null, null)));
+        assertEquals(List.of("S2.273", "MB-S2.330"), labels(service.getRooms("s2", "MB", -2)));
+        assertEquals(List.of("MB-S2.330"), labels(service.getRooms("s2 3", "mb", null)));
+        assertEquals(List.of(), labels(service.getRooms("820", "MB", null)));
+
+        // A blank query lists every room of the partition by label, unlabelled first.
+        List<String> floorEight = labels(service.getRooms(" - ", "H", 8));
+        assertEquals(Arrays.asList(null, "820", "H-801", "H-820", "H-8200"), floorEight);
+    }
+
+    private static List<String> labels(List<IndoorNode> rooms) {
+        return rooms.stream().map(IndoorNode::getLabel).toList();
+    }
+
     @Test
     void testListSvgAssets(@TempDir Path tempDir) throws IOException {
         Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
@@ -207,9 +255,7 @@ class IndoorNavigationDataServiceTest {
         Files.writeString(svgDir.resolve("nested").resolve("nested.svg"), "<svg></svg>");
 
         IndoorNavigationDataService service = new IndoorNavigationDataService(
-                objectMapper,
-                jsonDir.toString(),
-                svgDir.toString());
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
 
         List<IndoorAssetFileDTO> assets = service.listSvgAssets();
 
@@ -223,9 +269,7 @@ class IndoorNavigationDataServiceTest {
         Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
         Path svgDir = tempDir.resolve("svg");
         IndoorNavigationDataService service = new IndoorNavigationDataService(
-                objectMapper,
-                jsonDir.toString(),
-                svgDir.toString());
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
         List<IndoorAssetFileDTO> assets = service.listSvgAssets();
         assertTrue(assets.isEmpty());
     }
@@ -238,9 +282,7 @@ class IndoorNavigationDataServiceTest {
         Files.writeString(svgDir.resolve("floor1.svg"), "<svg id=\"floor1\"></svg>");
 
         IndoorNavigationDataService service = new IndoorNavigationDataService(
-                objectMapper,
-                jsonDir.toString(),
-                svgDir.toString());
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
 
         Resource resource = service.loadAssetFile("floor1.svg");
         ResponseStatusException invalidPathException = assertThrows(ResponseStatusException.class,
@@ -260,9 +302,7 @@ class IndoorNavigationDataServiceTest {
         Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
 
         IndoorNavigationDataService service = new IndoorNavigationDataService(
-                objectMapper,
-                jsonDir.toString(),
-                svgDir.toString());
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
 
         assertThrows(ResponseStatusException.class, () -> service.loadAssetFile("../secret.svg"));
         assertThrows(ResponseStatusException.class, () -> service.loadAssetFile("nested/secret.svg"));
@@ -280,13 +320,101 @@ class IndoorNavigationDataServiceTest {
         Files.writeString(svgDir.resolve("map.svg"), "<svg id=\"map\"></svg>");
 
         IndoorNavigationDataService service = new IndoorNavigationDataService(
-                objectMapper,
-                jsonDir.toString(),
-                svgDir.toString());
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
 
         Resource resource = service.loadSvgFile("map.svg");
 
         assertTrue(resource.exists());
         assertEquals("map.svg", resource.getFilename());
     }
+
+    @Test
+    void testGetAssetRecordsPrecompressedCopies(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+        Path compiledDir = tempDir.resolve("compiled");
+
+        Files.writeString(svgDir.resolve("plan.svg"), "<svg>" + "<rect/>".repeat(200) + "</svg>");
+        Files.writeString(svgDir.resolve("plan.svg.br"), "brotli");
+        Files.writeString(svgDir.resolve("photo.png"), "png");
+
+        IndoorNavigationDataService service = new IndoorNavigationDataService(
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString())
+                        .withCompiledDir(compiledDir.toString()));
+
+        IndoorAsset plan = service.getAsset("plan.svg");
+        assertEquals("image/svg+xml", plan.contentType());
+        assertEquals(1411, plan.identity().length());
+        assertEquals(6, plan.encodings().get("br").length());
+        assertTrue(plan.encodings().get("gzip").path().startsWith(compiledDir));
+        assertTrue(plan.encodings().get("gzip").length() < 100);
+        assertEquals("br", plan.negotiate("gzip, br").coding());
+        assertEquals("gzip", plan.negotiate("gzip, br;q=0").coding());
+        assertEquals(null, plan.negotiate("identity").coding());
+
+        assertTrue(service.getAsset("photo.png").encodings().isEmpty());
+        // Bundled floor plans stay reachable from the classpath.
+        assertTrue(service.getAsset("H1.svg").identity().length() > 0);
+        ResponseStatusException sibling = assertThrows(ResponseStatusException.class,
+                () -> service.getAsset("plan.svg.br"));
+        assertEquals(HttpStatus.NOT_FOUND, sibling.getStatusCode());
+    }
+
+    @Test
+    void testGetAssetServesOptimizedSvgWithRawForm(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+        Path compiledDir = tempDir.resolve("compiled");
+
+        String plan = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <!-- Created with Inkscape -->
+                <svg xmlns="http://www.w3.org/2000/svg" viewBox="0 0 10 10">
+                  <rect x="1.123456" y="2.654321" width="3" height="4"/>
+                </svg>
+                """;
+        Files.writeString(svgDir.resolve("plan.svg"), plan);
+
+        IndoorAsset asset = new IndoorNavigationDataService(objectMapper,
+                IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()).withCompiledDir(compiledDir.toString())
+                        .withLoading(1, false).withSvgOptimization(true, 2)).getAsset("plan.svg");
+
+        assertEquals("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 10 10\">"
+                + "<rect x=\"1.12\" y=\"2.65\" width=\"3\" height=\"4\"/></svg>",
+                Files.readString(asset.identity().path()));
+        assertTrue(asset.identity().path().startsWith(compiledDir));
+        assertEquals(plan, Files.readString(asset.raw().identity().path()));
+        assertNotEquals(asset.etag(), asset.raw().etag());
+
+        // A restart reuses the cached copy instead of optimizing again.
+        IndoorAsset reloaded = new IndoorNavigationDataService(objectMapper,
+                IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()).withCompiledDir(compiledDir.toString())
+                        .withLoading(1, false).withSvgOptimization(true, 2)).getAsset("plan.svg");
+        assertEquals(asset.identity(), reloaded.identity());
+        assertEquals(asset.etag(), reloaded.etag());
+    }
+
+    @Test
+    void testReloadAssetsReindexesChangedFiles(@TempDir Path tempDir) throws IOException {
+        Path jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+        Files.writeString(svgDir.resolve("a.svg"), "<svg></svg>");
+
+        IndoorNavigationDataService service = new IndoorNavigationDataService(
+                objectMapper, IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
+        IndoorAsset before = service.getAsset("a.svg");
+
+        Files.writeString(svgDir.resolve("a.svg"), "<svg><g/></svg>");
+        Files.writeString(svgDir.resolve("b.svg"), "<svg></svg>");
+        // Served from the index until it is rebuilt.
+        assertEquals(List.of("a.svg"), service.listSvgAssets().stream().map(IndoorAssetFileDTO::getFileName).toList());
+
+        service.reloadAssets();
+
+        IndoorAsset after = service.getAsset("a.svg");
+        assertEquals(15, after.identity().length());
+        assertNotEquals(before.etag(), after.etag());
+        assertEquals(List.of("a.svg", "b.svg"),
+                service.listSvgAssets().stream().map(IndoorAssetFileDTO::getFileName).toList());
+    }
 }
@@ -1,17 +1,22 @@
 package com.soen390.flightcrew.service;
 
 import com.soen390.flightcrew.model.IndoorEdge;
+import com.soen390.flightcrew.model.IndoorNode;
+import com.soen390.flightcrew.service.indoor.IndoorGraph;
+import com.soen390.flightcrew.service.indoor.IndoorRoutingStrategy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
@@ -42,7 +47,7 @@ public class IndoorPathfindingServiceTest {
         edge2.setWeight(20);
         edge2.setAccessible(true);
 
-        when(dataService.getEdgesByBuilding(anyString())).thenReturn(Arrays.asList(edge1, edge2));
+        stubGraph(graphOf(Arrays.asList(edge1, edge2)));
 
         List<String> path = pathfindingService.findShortestPath("building1", "A", "C", false);
 
@@ -73,7 +78,7 @@ public class IndoorPathfindingServiceTest {
         edge3.setWeight(10);
         edge3.setAccessible(true);
 
-        when(dataService.getEdgesByBuilding(anyString())).thenReturn(Arrays.asList(edge1, edge2, edge3));
+        stubGraph(graphOf(Arrays.asList(edge1, edge2, edge3)));
 
         // When accessible is required, it should go A -> C -> B (weight 40)
         // instead of A -> B (weight 10, inaccessible)
@@ -86,7 +91,7 @@ public class IndoorPathfindingServiceTest {
 
     @Test
     public void testFindShortestPath_StartNodeNotInGraph() {
-        when(dataService.getEdgesByBuilding(anyString())).thenReturn(Collections.emptyList());
+        stubGraph(graphOf(Collections.emptyList()));
         List<String> path = pathfindingService.findShortestPath("building1", "Z", "X", false);
         assertTrue(path.isEmpty());
     }
@@ -121,8 +126,7 @@ public class IndoorPathfindingServiceTest {
         fromElevatorF2.setWeight(5);
         fromElevatorF2.setAccessible(true);
 
-        when(dataService.getEdgesByBuilding(anyString()))
-                .thenReturn(Arrays.asList(stairEdge, toElevatorF1, elevatorEdge, fromElevatorF2));
+        stubGraph(graphOf(Arrays.asList(stairEdge, toElevatorF1, elevatorEdge, fromElevatorF2)));
 
         List<String> path = pathfindingService.findShortestPath("building1", "F1_hall", "F2_hall", true);
 
@@ -148,9 +152,152 @@ public class IndoorPathfindingServiceTest {
         edge2.setWeight(10);
         edge2.setAccessible(true);
 
-        when(dataService.getEdgesByBuilding(anyString())).thenReturn(Arrays.asList(edge1, edge2));
+        stubGraph(graphOf(Arrays.asList(edge1, edge2)));
 
         List<String> path = pathfindingService.findShortestPath("building1", "A", "C", false);
         assertTrue(path.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFindShortestPath_PrefersCheaperLongerRoute() {
+        stubGraph(graphOf(Arrays.asList(
+                edge("A", "D", 50),
+                edge("A", "B", 10),
+                edge("B", "C", 10),
+                edge("C", "D", 10),
+                edge("B", "D", 25))));
+
+        assertEquals(Arrays.asList("A", "B", "C", "D"),
+                pathfindingService.findShortestPath("building1", "A", "D", false));
+        // The per-thread workspace must not leak state between searches.
+        assertEquals(Arrays.asList("D", "C", "B"),
+                pathfindingService.findShortestPath("building1", "D", "B", false));
+        assertEquals(Collections.singletonList("C"),
+                pathfindingService.findShortestPath("building1", "C", "C", false));
+    }
+
+    @Test
+    public void testAStarMatchesDijkstraWithFewerExpansions() {
+        // A 10x3 grid on floor 1 joined by a free elevator to a 10x3 grid on floor 2 whose
+        // coordinates are offset, as floor plans rarely share a coordinate frame.
+        List<IndoorNode> nodes = new ArrayList<>();
+        List<IndoorEdge> edges = new ArrayList<>();
+        for (int floor = 1; floor <= 2; floor++) {
+            for (int col = 0; col < 10; col++) {
+                for (int row = 0; row < 3; row++) {
+                    nodes.add(node(gridId(floor, col, row), floor, col * 100.0 + floor * 500, row * 100.0));
+                    if (col > 0) {
+                        edges.add(edge(gridId(floor, col - 1, row), gridId(floor, col, row), 100));
+                    }
+                    if (row > 0) {
+                        edges.add(edge(gridId(floor, col, row - 1), gridId(floor, col, row), 100));
+                    }
+                }
+            }
+        }
+        edges.add(edge(gridId(1, 9, 0), gridId(2, 0, 0), 0));
+
+        IndoorGraph graph = IndoorGraph.compile(nodes, edges);
+        stubGraph(graph);
+
+        List<String> dijkstra = pathfindingService.findShortestPath("building1", gridId(1, 0, 1), gridId(1, 9, 1),
+                false, IndoorRoutingStrategy.DIJKSTRA);
+        int dijkstraExpanded = pathfindingService.lastExpandedNodeCount();
+        List<String> aStar = pathfindingService.findShortestPath("building1", gridId(1, 0, 1), gridId(1, 9, 1),
+                false, IndoorRoutingStrategy.ASTAR);
+        int aStarExpanded = pathfindingService.lastExpandedNodeCount();
+
+        // The straight run along the middle row is the only path of the optimal cost.
+        assertEquals(900, pathCost(graph, dijkstra));
+        assertEquals(900, pathCost(graph, aStar));
+        assertEquals(dijkstra, aStar);
+        assertTrue(aStarExpanded < dijkstraExpanded);
+
+        List<String> crossFloor = pathfindingService.findShortestPath("building1", gridId(1, 0, 0),
+                gridId(2, 2, 2), false);
+        assertEquals(15, crossFloor.size()); // 10 nodes on floor 1, then 5 on floor 2 after the ride
+        // Floor 2 offers several equally short turns, so only the cost has to agree.
+        List<String> crossFloorDijkstra = pathfindingService.findShortestPath("building1", gridId(1, 0, 0),
+                gridId(2, 2, 2), false, IndoorRoutingStrategy.DIJKSTRA);
+        assertEquals(1300, pathCost(graph, crossFloor));
+        assertEquals(pathCost(graph, crossFloorDijkstra), pathCost(graph, crossFloor));
+    }
+
+    @Test
+    public void testFindShortestPath_DisconnectedAccessibleComponentsRejectedWithoutSearch() {
+        IndoorEdge stair = edge("F1", "F2", 10);
+        stair.setAccessible(false);
+        List<IndoorEdge> edges = new ArrayList<>(List.of(edge("A", "F1", 5), stair, edge("F2", "B", 5)));
+        stubGraph(graphOf(edges));
+
+        assertTrue(pathfindingService.findShortestPath("building1", "A", "B", true).isEmpty());
+        assertEquals(0, pathfindingService.lastExpandedNodeCount());
+        assertEquals(Arrays.asList("A", "F1", "F2", "B"),
+                pathfindingService.findShortestPath("building1", "A", "B", false));
+    }
+
+    @Test
+    public void testFindNearest_StopsAfterKTargetsSettled() {
+        IndoorGraph graph = graphOf(List.of(
+                edge("S", "A", 5), edge("A", "T1", 5),
+                edge("S", "T2", 3),
+                edge("S", "B", 2), edge("B", "T3", 20),
+                edge("X", "T4", 1)));
+
+        List<IndoorPathfindingService.NearestTarget> nearest = pathfindingService.findNearest(graph, "S",
+                List.of("T1", "T2", "T3", "T4"), 2);
+
+        assertEquals(2, nearest.size());
+        assertEquals("T2", nearest.get(0).nodeId());
+        assertEquals(3, nearest.get(0).cost());
+        assertEquals(Arrays.asList("S", "A", "T1"), nearest.get(1).path());
+        assertEquals(10, nearest.get(1).cost());
+        // S, B, T2, A, T1 — the far branch to T3 is never finished.
+        assertEquals(5, pathfindingService.lastExpandedNodeCount());
+
+        assertEquals(3, pathfindingService.findNearest(graph, "S",
+                List.of("T1", "T2", "T3", "T4"), 10).size());
+    }
+
+    private static String gridId(int floor, int col, int row) {
+        return "F" + floor + "_" + col + "_" + row;
+    }
+
+    private static IndoorNode node(String id, int floor, double x, double y) {
+        IndoorNode node = new IndoorNode();
+        node.setId(id);
+        node.setFloor(floor);
+        node.setX(x);
+        node.setY(y);
+        return node;
+    }
+
+    private static IndoorEdge edge(String source, String target, int weight) {
+        IndoorEdge edge = new IndoorEdge();
+        edge.setSource(source);
+        edge.setTarget(target);
+        edge.setWeight(weight);
+        edge.setAccessible(true);
+        return edge;
+    }
+
+    private static int pathCost(IndoorGraph graph, List<String> path) {
+        int cost = 0;
+        for (int i = 1; i < path.size(); i++) {
+            int slot = graph.slotBetween(graph.indexOf(path.get(i - 1)), graph.indexOf(path.get(i)));
+            assertTrue(slot >= 0, "no edge between " + path.get(i - 1) + " and " + path.get(i));
+            cost += graph.weight(slot);
+        }
+        return cost;
+    }
+
+    private void stubGraph(IndoorGraph graph) {
+        IndoorGraph accessible = graph.accessibleSubgraph();
+        when(dataService.getGraph(anyString(), anyBoolean()))
+                .thenAnswer(invocation -> invocation.getArgument(1, Boolean.class) ? accessible : graph);
+    }
+
+    private static IndoorGraph graphOf(List<IndoorEdge> edges) {
+        return IndoorGraph.compile(Collections.emptyList(), edges);
+    }
+}
@@ -0,0 +1,57 @@
+package com.soen390.flightcrew.service;
+
+import com.soen390.flightcrew.model.IndoorRoute;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class IndoorRouteCacheTest {
+
+    private static IndoorRoute route() {
+        return new IndoorRoute(List.of(), List.of(), 0, 0);
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsedEntry() {
+        IndoorRouteCache cache = new IndoorRouteCache(2);
+        IndoorRouteCache.Key a = IndoorRouteCache.Key.of("H", "A", "B", false, 1);
+        IndoorRouteCache.Key b = IndoorRouteCache.Key.of("H", "B", "C", false, 1);
+        IndoorRouteCache.Key c = IndoorRouteCache.Key.of("H", "C", "D", false, 1);
+        AtomicInteger loads = new AtomicInteger();
+
+        IndoorRoute routeA = cache.getOrCompute(a, () -> {
+            loads.incrementAndGet();
+            return route();
+        });
+        cache.getOrCompute(b, IndoorRouteCacheTest::route);
+        assertSame(routeA, cache.getOrCompute(a, IndoorRouteCacheTest::route)); // a is now most recent
+        cache.getOrCompute(c, IndoorRouteCacheTest::route); // evicts b
+
+        cache.getOrCompute(a, () -> {
+            loads.incrementAndGet();
+            return route();
+        });
+        assertEquals(1, loads.get());
+        assertEquals(1L, cache.getStats().get("evictions"));
+        assertEquals(2, cache.getStats().get("size"));
+        assertEquals(2L, cache.getHitCount());
+        assertEquals(3L, cache.getMissCount());
+    }
+
+    @Test
+    void testNewerSnapshotVersionDropsEntriesAndMissingRoutesAreNotCached() {
+        IndoorRouteCache cache = new IndoorRouteCache(10);
+        cache.getOrCompute(IndoorRouteCache.Key.of("H", "A", "B", false, 1), IndoorRouteCacheTest::route);
+        cache.getOrCompute(IndoorRouteCache.Key.of("H", "A", "C", false, 1), IndoorRouteCacheTest::route);
+
+        assertNull(cache.getOrCompute(IndoorRouteCache.Key.of("H", "A", "Z", false, 2), () -> null));
+
+        assertEquals(0, cache.getStats().get("size"));
+        assertEquals(2L, cache.getStats().get("snapshotVersion"));
+    }
+}
@@ -0,0 +1,140 @@
+package com.soen390.flightcrew.service;
+
+import com.soen390.flightcrew.model.IndoorNode;
+import com.soen390.flightcrew.model.IndoorRoute;
+import com.soen390.flightcrew.service.indoor.IndoorAsset;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IndoorRouteOverlayServiceTest {
+
+    private static final String PLAN = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <svg xmlns="http://www.w3.org/2000/svg" width="500" height="400" viewBox="0 0 1000 800">
+              <rect width="1000" height="800" fill="#E9D3D7"/>
+            </svg>
+            """;
+
+    @Mock
+    private IndoorNavigationDataService dataService;
+
+    @Test
+    void testWritesRouteOnFloorAsFragmentInPlanCoordinates(@TempDir Path tempDir) throws IOException {
+        when(dataService.getAsset("hall8.svg")).thenReturn(svg(tempDir, "v1"));
+        IndoorRouteOverlayService service = newService(tempDir);
+
+        IndoorAsset overlay = service.getOverlay("Hall", 8, route(), false);
+        assertEquals("image/svg+xml", overlay.contentType());
+        assertTrue(overlay.encodings().isEmpty());
+        String svg = Files.readString(overlay.identity().path());
+        assertTrue(svg.contains("width=\"500\" height=\"400\" viewBox=\"0 0 1000 800\""), svg);
+        // Hall nodes are halved onto the plan; the stretch on floor 9 splits the route in two.
+        assertTrue(svg.contains("<polyline points=\"100,50 150,50.25\"/>"), svg);
+        assertTrue(svg.contains("<polyline points=\"200,100\"/>"), svg);
+        // The route starts on floor 8 but ends elsewhere.
+        assertTrue(svg.contains("<circle cx=\"100\" cy=\"50\""), svg);
+        assertFalse(svg.contains("cx=\"200\""), svg);
+        assertFalse(svg.contains("#E9D3D7"), svg);
+    }
+
+    @Test
+    void testSplicesRouteIntoPlanAndReusesCachedOverlay(@TempDir Path tempDir) throws IOException {
+        when(dataService.getAsset("hall8.svg")).thenReturn(svg(tempDir, "v1"));
+        IndoorRouteOverlayService service = newService(tempDir);
+
+        IndoorAsset composite = service.getOverlay("Hall", 8, route(), true);
+        String svg = Files.readString(composite.identity().path());
+        assertTrue(svg.startsWith(PLAN.substring(0, PLAN.indexOf("</svg>"))), svg);
+        assertTrue(svg.endsWith("<g id=\"route\" fill=\"none\" stroke=\"#1b73e8\" stroke-width=\"10\""
+                + " stroke-linecap=\"round\" stroke-linejoin=\"round\">"
+                + "<polyline points=\"100,50 150,50.25\"/><polyline points=\"200,100\"/>"
+                + "<circle cx=\"100\" cy=\"50\" r=\"12\" fill=\"#1b73e8\" stroke=\"white\" stroke-width=\"4\"/>"
+                + "</g></svg>\n"), svg);
+
+        long modified = Files.getLastModifiedTime(composite.identity().path()).toMillis();
+        IndoorAsset again = newService(tempDir).getOverlay("Hall", 8, route(), true);
+        assertEquals(composite.etag(), again.etag());
+        assertEquals(composite.identity().path(), again.identity().path());
+        assertEquals(modified, Files.getLastModifiedTime(again.identity().path()).toMillis());
+
+        // Building ids match in any case.
+        IndoorAsset lowerCase = service.getOverlay("hall", 8, route(), true);
+        assertEquals(composite.etag(), lowerCase.etag());
+        assertEquals(composite.identity().path(), lowerCase.identity().path());
+
+        // A new version of the plan retires the overlay.
+        when(dataService.getAsset("hall8.svg")).thenReturn(svg(tempDir, "v2"));
+        assertNotEquals(composite.etag(), service.getOverlay("Hall", 8, route(), true).etag());
+    }
+
+    @Test
+    void testDrawsOverRasterPlansAndRejectsFloorsOffTheRoute(@TempDir Path tempDir) throws IOException {
+        Path png = tempDir.resolve("mb_1.png");
+        ImageIO.write(new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB), "png", png.toFile());
+        when(dataService.getAsset("mb_1.png")).thenReturn(new IndoorAsset("mb_1.png", "image/png", "\"mb\"", 0L,
+                new IndoorAsset.Representation(null, png, Files.size(png)), Map.of()));
+        IndoorRouteOverlayService service = newService(tempDir);
+
+        IndoorRoute route = new IndoorRoute(List.of(node(1, 10.0, 20.0), node(1, 30.0, 40.0)), List.of(), 10, 8);
+        String svg = Files.readString(service.getOverlay("MB", 1, route, true).identity().path());
+        assertTrue(svg.contains("viewBox=\"0 0 640 480\""), svg);
+        assertTrue(svg.contains("<image href=\"/api/indoor/assets/mb_1.png\" width=\"640\" height=\"480\"/>"), svg);
+        assertTrue(svg.contains("<polyline points=\"10,20 30,40\"/>"), svg);
+
+        ResponseStatusException offRoute = assertThrows(ResponseStatusException.class,
+                () -> service.getOverlay("MB", 2, route, false));
+        assertEquals(HttpStatus.NOT_FOUND, offRoute.getStatusCode());
+        ResponseStatusException noPlan = assertThrows(ResponseStatusException.class,
+                () -> service.getOverlay("MB", 7, route, false));
+        assertEquals(HttpStatus.NOT_FOUND, noPlan.getStatusCode());
+    }
+
+    private IndoorRouteOverlayService newService(Path tempDir) {
+        return new IndoorRouteOverlayService(dataService, 1 << 20, tempDir.toString());
+    }
+
+    private static IndoorRoute route() {
+        return new IndoorRoute(List.of(
+                node(8, 200.0, 100.0),
+                node(8, 300.0, 100.5),
+                node(9, 300.0, 100.5),
+                node(8, null, null),
+                node(8, 400.0, 200.0),
+                node(9, 400.0, 200.0)), List.of(), 42.0, 30);
+    }
+
+    private static IndoorNode node(int floor, Double x, Double y) {
+        IndoorNode node = new IndoorNode();
+        node.setFloor(floor);
+        node.setX(x);
+        node.setY(y);
+        return node;
+    }
+
+    private static IndoorAsset svg(Path tempDir, String version) throws IOException {
+        Path file = Files.writeString(tempDir.resolve("hall8.svg"), PLAN);
+        return new IndoorAsset("hall8.svg", "image/svg+xml", "\"" + version + "\"", 0L,
+                new IndoorAsset.Representation(null, file, Files.size(file)), Map.of());
+    }
+}
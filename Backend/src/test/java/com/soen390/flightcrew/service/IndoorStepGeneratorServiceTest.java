@@ -3,6 +3,7 @@ package com.soen390.flightcrew.service;
 import com.soen390.flightcrew.model.IndoorEdge;
 import com.soen390.flightcrew.model.IndoorNode;
 import com.soen390.flightcrew.model.IndoorStep;
+import com.soen390.flightcrew.service.indoor.IndoorGraph;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -22,8 +23,9 @@ public class IndoorStepGeneratorServiceTest {
 
     @Test
     public void testGenerateSteps_EmptyOrSingleNode() {
-        assertTrue(service.generateSteps(null, null).isEmpty());
-        assertTrue(service.generateSteps(List.of(new IndoorNode()), null).isEmpty());
+        assertTrue(service.generateSteps(null, (List<IndoorEdge>) null).isEmpty());
+        assertTrue(service.generateSteps(List.of(new IndoorNode()), (List<IndoorEdge>) null).isEmpty());
+        assertTrue(service.generateSteps(null, (IndoorGraph) null).isEmpty());
     }
 
     @Test
@@ -89,4 +91,41 @@ public class IndoorStepGeneratorServiceTest {
         assertNotNull(steps);
         assertFalse(steps.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGenerateSteps_GraphEdgeIndexMatchesEdgeList() {
+        IndoorNode n1 = new IndoorNode();
+        n1.setId("1");
+        n1.setFloor(1);
+        n1.setX(0.0);
+        n1.setY(0.0);
+        IndoorNode n2 = new IndoorNode();
+        n2.setId("2");
+        n2.setFloor(1);
+        n2.setX(0.0);
+        n2.setY(100.0);
+        IndoorNode n3 = new IndoorNode();
+        n3.setId("3");
+        n3.setFloor(3);
+        n3.setX(0.0);
+        n3.setY(100.0);
+
+        IndoorEdge corridor = new IndoorEdge();
+        corridor.setSource("1");
+        corridor.setTarget("2");
+        corridor.setWeight(10);
+        IndoorEdge lift = new IndoorEdge();
+        lift.setSource("3");
+        lift.setTarget("2");
+        lift.setWeight(0);
+        lift.setType("elevator");
+
+        List<IndoorNode> path = Arrays.asList(n1, n2, n3);
+        List<IndoorEdge> edges = Arrays.asList(corridor, lift);
+
+        List<IndoorStep> fromGraph = service.generateSteps(path, IndoorGraph.compile(path, edges));
+
+        assertEquals(service.generateSteps(path, edges), fromGraph);
+        assertTrue(fromGraph.stream().anyMatch(step -> "Take the elevator to floor 3".equals(step.getInstruction())));
+    }
+}
@@ -0,0 +1,86 @@
+package com.soen390.flightcrew.service;
+
+import com.soen390.flightcrew.service.indoor.IndoorSvgOptimizer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndoorSvgOptimizerTest {
+
+    private final IndoorSvgOptimizer optimizer = new IndoorSvgOptimizer(2);
+
+    @Test
+    void testStripsEditorMetadataAndRoundsGeometry() throws IOException {
+        String svg = """
+                <?xml version="1.0" encoding="UTF-8" standalone="no"?>
+                <!-- Created with Inkscape -->
+                <svg xmlns="http://www.w3.org/2000/svg"
+                     xmlns:inkscape="http://www.inkscape.org/namespaces/inkscape"
+                     xmlns:sodipodi="http://sodipodi.sourceforge.net/DTD/sodipodi-0.dtd"
+                     xmlns:rdf="http://www.w3.org/1999/02/22-rdf-syntax-ns#"
+                     viewBox="0 0 100 100" inkscape:version="0.91">
+                  <sodipodi:namedview id="base" pagecolor="#ffffff"/>
+                  <metadata><rdf:RDF/></metadata>
+                  <g>
+                    <path d="M10.123456 20.5L0.004 -0.004" inkscape:connector-curvature="0"/>
+                  </g>
+                  <text x="1.005" y="2">H-820 <tspan>A</tspan></text>
+                </svg>
+                """;
+
+        String optimized = optimize(svg);
+
+        assertEquals("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 100 100\">"
+                + "<path d=\"M10.12 20.5L0 0\"/>"
+                + "<text x=\"1.01\" y=\"2\">H-820 <tspan>A</tspan></text></svg>", optimized);
+    }
+
+    @Test
+    void testKeepsNumbersApartWhenRoundingJoinsThem() throws IOException {
+        String optimized = optimize("<svg xmlns=\"http://www.w3.org/2000/svg\"><path d=\"M1.504.25l-0.333.5\"/></svg>");
+
+        assertTrue(optimized.contains("d=\"M1.5 .25l-.33 .5\""), optimized);
+    }
+
+    @Test
+    void testCollapsesRepeatedPaintIntoGroup() throws IOException {
+        String svg = """
+                <svg xmlns="http://www.w3.org/2000/svg">
+                  <path d="M0 0" fill="#912338" stroke="black" stroke-width="2"/>
+                  <path d="M1 1" fill="#912338" stroke="black" stroke-width="2"/>
+                  <rect width="5" height="5" style="fill:#da3636; stroke-width:1.36025514;"/>
+                  <rect width="6" height="6" style="fill:#da3636;stroke-width:1.36"/>
+                  <rect id="used" width="7" height="7" style="fill:#da3636;stroke-width:1.36"/>
+                  <use href="#used"/>
+                  <rect width="8" height="8" style="display:none" fill="red"/>
+                  <rect width="9" height="9" style="display:none" fill="red"/>
+                </svg>
+                """;
+
+        String optimized = optimize(svg);
+
+        assertTrue(optimized.contains("<g fill=\"#912338\" stroke=\"black\" stroke-width=\"2\">"
+                + "<path d=\"M0 0\"/><path d=\"M1 1\"/></g>"), optimized);
+        assertTrue(optimized.contains("<g style=\"fill:#da3636;stroke-width:1.36\">"
+                + "<rect width=\"5\" height=\"5\"/><rect width=\"6\" height=\"6\"/></g>"
+                + "<rect id=\"used\""), optimized);
+        // display is not inherited, so those rects keep their own styles.
+        assertFalse(optimized.contains("<g style=\"display:none\""), optimized);
+    }
+
+    @Test
+    void testRejectsMalformedDocument() {
+        assertThrows(IOException.class, () -> optimize("<svg><g></svg>"));
+        assertThrows(IllegalArgumentException.class, () -> new IndoorSvgOptimizer(-1));
+    }
+
+    private String optimize(String svg) throws IOException {
+        return new String(optimizer.optimize(svg.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+    }
+}
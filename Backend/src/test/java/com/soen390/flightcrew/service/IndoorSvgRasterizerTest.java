@@ -0,0 +1,69 @@
+package com.soen390.flightcrew.service;
+
+import com.soen390.flightcrew.service.indoor.IndoorSvgRasterizer;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IndoorSvgRasterizerTest {
+
+    @Test
+    void testDrawsPathsTransformsAndInheritedPaint() throws IOException {
+        BufferedImage image = render("""
+                <svg xmlns="http://www.w3.org/2000/svg" width="100" height="100" viewBox="0 0 50 50">
+                  <g fill="#ff0000" transform="translate(5,5)">
+                    <path d="m0 0h10v10H0z"/>
+                    <rect x="20" width="10" height="10" style="fill:#0000ff;fill-opacity:0.5"/>
+                  </g>
+                  <line x1="0" y1="40" x2="50" y2="40" stroke="black" stroke-width="2"/>
+                  <path d="M30 30a5 5 0 1 0 10 0a5 5 0 1 0-10 0" fill="#00ff00"/>
+                </svg>
+                """);
+
+        // The viewBox doubles every coordinate.
+        assertEquals(0xFFFF0000, image.getRGB(20, 20));
+        assertEquals(0, image.getRGB(5, 5) >>> 24);
+        int blue = image.getRGB(60, 20);
+        assertEquals(0x0000FF, blue & 0xFFFFFF);
+        assertEquals(128, blue >>> 24, 1);
+        assertEquals(0xFF000000, image.getRGB(50, 80));
+        assertEquals(0xFF00FF00, image.getRGB(70, 60));
+    }
+
+    @Test
+    void testClipsToReferencedShapesAndSkipsDefinitions() throws IOException {
+        BufferedImage image = render("""
+                <svg xmlns="http://www.w3.org/2000/svg" width="100" height="100">
+                  <defs><clipPath id="left"><rect width="50" height="100"/></clipPath></defs>
+                  <rect width="100" height="100" fill="black" clip-path="url(#left)"/>
+                  <rect width="100" height="10" fill="red" style="display:none"/>
+                </svg>
+                """);
+
+        assertEquals(0xFF000000, image.getRGB(10, 5));
+        assertEquals(0, image.getRGB(80, 50) >>> 24);
+        assertEquals(4, IndoorSvgRasterizer.parse("<svg width=\"4\" height=\"2\"/>".getBytes(StandardCharsets.UTF_8))
+                .width());
+        assertThrows(IOException.class, () -> IndoorSvgRasterizer.parse("<svg".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IOException.class, () -> IndoorSvgRasterizer.parse("<svg/>".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static BufferedImage render(String svg) throws IOException {
+        IndoorSvgRasterizer rasterizer = IndoorSvgRasterizer.parse(svg.getBytes(StandardCharsets.UTF_8));
+        BufferedImage image = new BufferedImage((int) rasterizer.width(), (int) rasterizer.height(),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            rasterizer.render(graphics);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+}
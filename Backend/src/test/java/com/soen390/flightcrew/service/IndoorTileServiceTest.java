@@ -0,0 +1,163 @@
+package com.soen390.flightcrew.service;
+
+import com.soen390.flightcrew.model.IndoorTileset;
+import com.soen390.flightcrew.service.indoor.IndoorAsset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IndoorTileServiceTest {
+
+    private static final String PLAN = """
+            <svg xmlns="http://www.w3.org/2000/svg" width="300" height="100" viewBox="0 0 300 100">
+              <rect width="300" height="100" fill="#E9D3D7"/>
+              <path d="M200 0h100v100h-100z" fill="%s"/>
+            </svg>
+            """;
+
+    @Mock
+    private IndoorNavigationDataService dataService;
+
+    private IndoorTileService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void testGeneratesPyramidOnceAndKeepsItAcrossRestarts(@TempDir Path tempDir) throws IOException {
+        IndoorAsset plan = svg(tempDir, "#912338");
+        when(dataService.getAsset("plan.svg")).thenReturn(plan);
+        service = newService(tempDir);
+
+        IndoorTileset tileset = service.getTileset("plan.svg");
+        assertEquals(256, tileset.getTileSize());
+        // 300x100 drawn at twice its size needs three levels to reach 600x200.
+        assertEquals(2, tileset.getMaxZoom());
+        assertEquals(600, tileset.getWidth());
+        assertEquals(200, tileset.getHeight());
+        assertFalse(tileset.isStale());
+
+        IndoorAsset tile = service.getTile("plan.svg", 2, 2, 0);
+        assertEquals("image/png", tile.contentType());
+        BufferedImage image = ImageIO.read(tile.identity().path().toFile());
+        assertEquals(256, image.getWidth());
+        assertEquals(0xFF912338, image.getRGB(20, 100));
+        // Past the right edge of the plan the last column is transparent.
+        assertEquals(0, image.getRGB(200, 100) >>> 24);
+        assertEquals(0xFFE9D3D7, ImageIO.read(service.getTile("plan.svg", 0, 0, 0).identity().path().toFile())
+                .getRGB(10, 10));
+
+        ResponseStatusException missing = assertThrows(ResponseStatusException.class,
+                () -> service.getTile("plan.svg", 2, 3, 0));
+        assertEquals(HttpStatus.NOT_FOUND, missing.getStatusCode());
+        assertEquals(1, service.getGenerationCount());
+
+        service.shutdown();
+        service = newService(tempDir);
+        assertEquals(tile.etag(), service.getTile("plan.svg", 2, 2, 0).etag());
+        assertEquals(0, service.getGenerationCount());
+    }
+
+    @Test
+    void testServesStaleTilesWhileChangedSourceRegenerates(@TempDir Path tempDir) throws Exception {
+        when(dataService.getAsset("plan.svg")).thenReturn(svg(tempDir, "#912338"));
+        service = newService(tempDir);
+        IndoorTileset before = service.getTileset("plan.svg");
+
+        IndoorAsset changed = svg(tempDir, "#000000");
+        when(dataService.getAsset("plan.svg")).thenReturn(changed);
+        IndoorTileset during = service.getTileset("plan.svg");
+        assertTrue(during.isStale());
+        assertEquals(before.getVersion(), during.getVersion());
+
+        IndoorTileset after = during;
+        for (int i = 0; i < 200 && after.isStale(); i++) {
+            Thread.sleep(25);
+            after = service.getTileset("plan.svg");
+        }
+        assertFalse(after.isStale());
+        assertNotEquals(before.getVersion(), after.getVersion());
+        assertEquals(0xFF000000, ImageIO.read(service.getTile("plan.svg", 2, 2, 0).identity().path().toFile())
+                .getRGB(20, 100));
+        // The old pyramid is deleted right after the new one is served.
+        long pyramids = pyramidCount(tempDir);
+        for (int i = 0; i < 200 && pyramids > 1; i++) {
+            Thread.sleep(25);
+            pyramids = pyramidCount(tempDir);
+        }
+        assertEquals(1, pyramids);
+    }
+
+    @Test
+    void testRejectsAssetsWithoutTiles(@TempDir Path tempDir) throws IOException {
+        Path file = Files.writeString(tempDir.resolve("notes.txt"), "text");
+        when(dataService.getAsset("notes.txt")).thenReturn(new IndoorAsset("notes.txt", "text/plain", "\"notes\"",
+                0L, new IndoorAsset.Representation(null, file, 4), Map.of()));
+        service = newService(tempDir);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> service.getTileset("notes.txt"));
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+    }
+
+    @Test
+    void testDeletesTemporaryPyramidsOnShutdownWithoutPregenerating(@TempDir Path tempDir) throws IOException {
+        service = new IndoorTileService(dataService, 256, 6, 2.0, 1, 10_000, true, "");
+        service.pregenerate();
+        verifyNoInteractions(dataService);
+
+        when(dataService.getAsset("plan.svg")).thenReturn(svg(tempDir, "#912338"));
+        IndoorAsset tile = service.getTile("plan.svg", 0, 0, 0);
+        tile.identity().channel().close();
+        Path tilesDir = tile.identity().path();
+        while (!tilesDir.getFileName().toString().startsWith("indoor-tiles")) {
+            tilesDir = tilesDir.getParent();
+        }
+        assertTrue(Files.isDirectory(tilesDir));
+
+        service.shutdown();
+        assertFalse(Files.exists(tilesDir));
+    }
+
+    private IndoorTileService newService(Path tempDir) {
+        return new IndoorTileService(dataService, 256, 6, 2.0, 1, 10_000, false, tempDir.toString());
+    }
+
+    private static long pyramidCount(Path tempDir) throws IOException {
+        try (Stream<Path> pyramids = Files.list(tempDir.resolve("tiles"))) {
+            return pyramids.count();
+        }
+    }
+
+    private static IndoorAsset svg(Path tempDir, String color) throws IOException {
+        Path file = Files.writeString(tempDir.resolve("plan.svg"), PLAN.formatted(color));
+        return new IndoorAsset("plan.svg", "image/svg+xml", "\"" + color.substring(1) + "\"", 0L,
+                new IndoorAsset.Representation(null, file, Files.size(file)), Map.of());
+    }
+}
@@ -0,0 +1,111 @@
+package com.soen390.flightcrew.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soen390.flightcrew.model.IndoorPointOfInterest;
+import com.soen390.flightcrew.model.IndoorSuggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IndoorTypeaheadServiceTest {
+
+    private Path jsonDir;
+    private IndoorNavigationDataService dataService;
+    private IndoorTypeaheadService typeaheadService;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDir) throws IOException {
+        jsonDir = Files.createDirectory(tempDir.resolve("json"));
+        Path svgDir = Files.createDirectory(tempDir.resolve("svg"));
+        Files.writeString(jsonDir.resolve("hall.json"), """
+                {"meta": {"buildingId": "Hall"}, "nodes": [
+                  {"id": "h820", "type": "room", "buildingId": "Hall", "floor": 8, "label": "H-820"},
+                  {"id": "h801", "type": "room", "buildingId": "Hall", "floor": 8, "label": "H-801"},
+                  {"id": "h920", "type": "room", "buildingId": "Hall", "floor": 9, "label": "H-920"},
+                  {"id": "door", "type": "building_entry_exit", "buildingId": "Hall", "floor": 1, "label": "H-100"}
+                ]}
+                """);
+        Files.writeString(jsonDir.resolve("mb.json"), """
+                {"meta": {"buildingId": "MB"}, "nodes": [
+                  {"id": "s2", "type": "room", "buildingId": "MB-S2", "floor": -2, "label": "MB-S2.330"},
+                  {"id": "m820", "type": "room", "buildingId": "MB", "floor": 8, "label": "MB-8.200"}
+                ]}
+                """);
+
+        IndoorPointOfInterest washroom = new IndoorPointOfInterest();
+        washroom.setId("H-washroom-8");
+        washroom.setName("Washroom");
+        washroom.setCategory("washroom");
+        washroom.setBuildingCode("H");
+        washroom.setFloor(8);
+        IndoorPoiService poiService = mock(IndoorPoiService.class);
+        when(poiService.getAllIndoorPois()).thenReturn(Map.of("H", List.of(washroom)));
+
+        dataService = new IndoorNavigationDataService(new ObjectMapper(),
+                IndoorDataOptions.of(jsonDir.toString(), svgDir.toString()));
+        typeaheadService = new IndoorTypeaheadService(dataService, poiService, 10);
+    }
+
+    @Test
+    void ranksLabelPrefixesBeforeLaterWords() {
+        assertEquals(List.of("H-801", "H-820", "H-920"), labels(typeaheadService.suggest("h", null, null, 5)));
+        assertEquals(List.of("H-801"), labels(typeaheadService.suggest("h", null, null, 1)));
+        assertEquals(List.of("H-801", "H-820"), labels(typeaheadService.suggest("h-8", null, null, 5)));
+        assertEquals(List.of("H-820"), labels(typeaheadService.suggest("H 82", null, null, 5)));
+        assertEquals(List.of("H-820"), labels(typeaheadService.suggest("h82", null, null, 5)));
+        // "820" only matches a later word of the label.
+        assertEquals(List.of("H-820"), labels(typeaheadService.suggest("820", null, null, 5)));
+        assertEquals(List.of("MB-S2.330"), labels(typeaheadService.suggest("s2 3", null, null, 5)));
+        assertEquals(List.of("Washroom"), labels(typeaheadService.suggest("wash", null, null, 5)));
+        assertEquals(List.of(), typeaheadService.suggest("  ", null, null, 5));
+        assertEquals(List.of(), typeaheadService.suggest("zz", null, null, 5));
+    }
+
+    @Test
+    void prefersRequestedBuildingAndFloor() {
+        // Hall rooms and H POIs rank together; within the building, floor 9 first.
+        assertEquals(List.of("H-920", "H-801", "H-820"), labels(typeaheadService.suggest("h", "H", 9, 3)));
+        assertEquals(List.of("MB-8.200", "H-801"), labels(typeaheadService.suggest("8", "MB", null, 2)));
+
+        // The same query in other casings is answered from the cache.
+        List<IndoorSuggestion> first = typeaheadService.suggest("h", "hall", 9, 3);
+        assertSame(first, typeaheadService.suggest("H ", "Hall", 9, 3));
+        assertEquals(2, typeaheadService.getCacheHitCount());
+        assertThrows(ResponseStatusException.class, () -> typeaheadService.suggest("h", null, null, 21));
+    }
+
+    @Test
+    void rebuildsAfterReload() throws IOException {
+        assertEquals(List.of(), typeaheadService.suggest("cc", null, null, 5));
+
+        Files.writeString(jsonDir.resolve("cc.json"), """
+                {"meta": {"buildingId": "CC"}, "nodes": [
+                  {"id": "cc1", "type": "room", "buildingId": "CC", "floor": 1, "label": "CC-101"}
+                ]}
+                """);
+        dataService.reload();
+
+        List<IndoorSuggestion> suggestions = typeaheadService.suggest("cc", null, null, 5);
+        assertEquals(List.of("CC-101"), labels(suggestions));
+        assertEquals("room", suggestions.get(0).getType());
+        assertEquals("cc1", suggestions.get(0).getId());
+        assertEquals("CC", suggestions.get(0).getBuildingId());
+    }
+
+    private static List<String> labels(List<IndoorSuggestion> suggestions) {
+        return suggestions.stream().map(IndoorSuggestion::getLabel).toList();
+    }
+}